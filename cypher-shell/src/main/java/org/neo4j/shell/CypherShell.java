@@ -1,35 +1,72 @@
 package org.neo4j.shell;
 
+import org.neo4j.driver.v1.Record;
+import org.neo4j.driver.v1.StatementResult;
+import org.neo4j.driver.v1.Value;
+import org.neo4j.driver.v1.summary.ResultSummary;
 import org.neo4j.shell.commands.Command;
 import org.neo4j.shell.commands.CommandExecutable;
 import org.neo4j.shell.commands.CommandHelper;
+import org.neo4j.shell.commands.MaxRows;
+import org.neo4j.shell.completion.SchemaCache;
 import org.neo4j.shell.exception.CommandException;
 import org.neo4j.shell.exception.ExitException;
+import org.neo4j.shell.exception.QueryTimeoutException;
 import org.neo4j.shell.log.Logger;
+import org.neo4j.shell.parser.CypherLexer;
+import org.neo4j.shell.parser.LiteralEvaluator;
+import org.neo4j.shell.parser.ReferencedParameters;
 import org.neo4j.shell.prettyprint.CypherVariablesFormatter;
 import org.neo4j.shell.prettyprint.PrettyPrinter;
 import org.neo4j.shell.state.BoltResult;
 import org.neo4j.shell.state.BoltStateHandler;
+import org.neo4j.shell.state.BulkImporter;
+import org.neo4j.shell.state.GraphDumper;
+import org.neo4j.shell.state.ResultCache;
+import org.neo4j.shell.state.RetryPolicy;
+import org.neo4j.shell.state.SnapshotSummary;
+import org.neo4j.shell.state.SnapshotWriter;
+import org.neo4j.shell.state.StatementWatchdog;
+import org.neo4j.shell.system.Cancellation;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Supplier;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 /**
  * A possibly interactive shell for evaluating cypher statements.
  */
-public class CypherShell implements StatementExecuter, Connector, TransactionHandler, VariableHolder {
+public class CypherShell implements StatementExecuter, Connector, TransactionHandler, VariableHolder, RowLimit,
+        SnapshotHandler {
     // Final space to catch newline
     protected static final Pattern cmdNamePattern = Pattern.compile("^\\s*(?<name>[^\\s]+)\\b(?<args>.*)\\s*$");
-    protected final Map<String, Object> queryParams = new HashMap<>();
+    // Immutable and already converted to driver values, so statements can use it as is. Replaced when changed.
+    private volatile Map<String, Value> queryParams = Collections.emptyMap();
+    private final ReferencedParameters referencedParameters = new ReferencedParameters();
     private final Logger logger;
     private final BoltStateHandler boltStateHandler;
     private final PrettyPrinter prettyPrinter;
+    private final ResultCache resultCache = new ResultCache();
+    private final SchemaCache schemaCache;
+    private final BulkImporter bulkImporter;
+    private final GraphDumper graphDumper;
+    private final StatementWatchdog watchdog;
     protected CommandHelper commandHelper;
+    // Interactive users rarely read more rows than this, and the rest would only fill the terminal
+    public static final int DEFAULT_INTERACTIVE_MAX_ROWS = 1000;
+    private Pager pager;
+    private SnapshotWriter snapshotWriter;
 
     public CypherShell(@Nonnull Logger logger) {
         this(logger, new BoltStateHandler(), new PrettyPrinter(logger.getFormat()));
@@ -41,9 +78,22 @@ public class CypherShell implements StatementExecuter, Connector, TransactionHan
         this.logger = logger;
         this.boltStateHandler = boltStateHandler;
         this.prettyPrinter = prettyPrinter;
+        this.schemaCache = new SchemaCache(boltStateHandler);
+        this.bulkImporter = new BulkImporter(boltStateHandler, this::importWritten);
+        this.graphDumper = new GraphDumper(boltStateHandler);
+        this.watchdog = new StatementWatchdog(boltStateHandler::reset);
         addRuntimeHookToResetShell();
     }
 
+    /**
+     * Imports write on sessions of their own, so the caches are brought up to date when an import has written anything
+     */
+    private void importWritten(@Nonnull ResultSummary summary) {
+        BoltResult result = new BoltResult(Collections.emptyList(), summary);
+        resultCache.invalidateIfUpdating(result);
+        schemaCache.refreshIfChanged(result);
+    }
+
     /**
      * @param text to trim
      * @return text without trailing semicolons
@@ -62,15 +112,17 @@ public class CypherShell implements StatementExecuter, Connector, TransactionHan
         final Optional<CommandExecutable> cmd = getCommandExecutable(cmdString);
         if (cmd.isPresent()) {
             executeCmd(cmd.get());
-            return;
-        }
+        } else {
+            // Else it will be parsed as Cypher, but for that we need to be connected
+            if (!isConnected()) {
+                throw new CommandException("Not connected to Neo4j");
+            }
 
-        // Else it will be parsed as Cypher, but for that we need to be connected
-        if (!isConnected()) {
-            throw new CommandException("Not connected to Neo4j");
+            executeCypher(cmdString);
+        }
+        if (logger.hasOutputFailed()) {
+            throw new CommandException("Could not write output");
         }
-
-        executeCypher(cmdString);
     }
 
     /**
@@ -80,8 +132,264 @@ public class CypherShell implements StatementExecuter, Connector, TransactionHan
      * @param cypher non-empty cypher text to executeLine
      */
     protected void executeCypher(@Nonnull final String cypher) throws CommandException {
-        final Optional<BoltResult> result = boltStateHandler.runCypher(cypher, queryParams);
-        result.ifPresent(boltResult -> logger.printOut(prettyPrinter.format(boltResult)));
+        withTimeout(() -> {
+            runAndPrintCypher(cypher);
+            return null;
+        });
+    }
+
+    /**
+     * Run a statement, and print its result
+     */
+    private void runAndPrintCypher(@Nonnull final String cypher) throws CommandException {
+        // Statements in an open transaction must always be sent, so they are part of the transaction
+        // Only send the parameters the statement uses, large ones would otherwise be sent with every statement
+        Map<String, Value> params = referencedParameters.select(cypher, queryParams);
+        Optional<BoltResult> result = isTransactionOpen() ? Optional.empty() : resultCache.get(cypher, params);
+        boolean streamed = pager != null || getMaxRows() > 0;
+        if (result.isPresent() && streamed) {
+            writeSnapshot(result.get());
+            printCached(result.get());
+            return;
+        }
+        if (!result.isPresent()) {
+            if (streamed && !isTransactionOpen()) {
+                streamCypher(cypher, params);
+                return;
+            }
+            try {
+                result = boltStateHandler.runCypher(cypher, params);
+            } catch (RuntimeException e) {
+                checkInterrupted(0);
+                throw e;
+            }
+            checkInterrupted(0);
+            result.ifPresent(boltResult -> {
+                resultCache.put(cypher, params, boltResult);
+                schemaCache.refreshIfChanged(boltResult);
+            });
+        }
+        if (result.isPresent()) {
+            writeSnapshot(result.get());
+            printResult(result.get());
+        }
+    }
+
+    /**
+     * Statements are cancelled when the user stops them, after the statement has been reset on the server. Reading
+     * the result then either ends early or fails, and formatting what was read ends early.
+     *
+     * @param rows the number of rows which have been shown
+     * @throws CommandException if the current thread has been cancelled
+     */
+    private static void checkInterrupted(int rows) throws CommandException {
+        if (Cancellation.clear()) {
+            throw new CommandException(String.format("Interrupted after showing %d rows", rows));
+        }
+    }
+
+    /**
+     * Run a statement, or commit a transaction, which is stopped if it runs for longer than the query timeout
+     *
+     * @throws QueryTimeoutException if it was stopped
+     */
+    private <T> T withTimeout(@Nonnull Execution<T> execution) throws CommandException {
+        try (StatementWatchdog.Watch watch = watchdog.start()) {
+            T result;
+            try {
+                result = execution.run();
+            } catch (CommandException | RuntimeException e) {
+                // Failures caused by the reset are reported as the timeout
+                checkTimeout(watch);
+                throw e;
+            }
+            // The reset may also have ended the result early without a failure
+            checkTimeout(watch);
+            return result;
+        }
+    }
+
+    private static void checkTimeout(@Nonnull StatementWatchdog.Watch watch) throws QueryTimeoutException {
+        if (watch.hasExpired()) {
+            throw new QueryTimeoutException(StatementWatchdog.formatTimeout(watch.getTimeout()));
+        }
+    }
+
+    private void printResult(@Nonnull BoltResult result) throws CommandException {
+        String text = prettyPrinter.format(result);
+        checkInterrupted(0);
+        logger.printOut(text);
+        if (result.isTruncated()) {
+            printTruncated(result.getRecords().size());
+        }
+    }
+
+    private void printTruncated(int rows) {
+        logger.printError(String.format("Showing the first %d rows, the rest of the result was discarded. " +
+                "Change the limit with %s", rows, MaxRows.COMMAND_NAME));
+    }
+
+    /**
+     * Show the records of a statement while they are read from the server, a page at a time if there is a pager. If
+     * the user stops paging, or there are more records than the row limit, the shell stops reading. The rest of the
+     * result of a read only statement is then discarded on the server by resetting the session. Other statements are
+     * left to finish, so their updates are not rolled back, and the rest of their records are discarded as they arrive.
+     */
+    private void streamCypher(@Nonnull String cypher, @Nonnull Map<String, Value> params) throws CommandException {
+        StatementResult cursor = boltStateHandler.streamCypher(cypher, params);
+        // Records are only kept if they might be cached or written to the snapshot
+        List<Record> records = resultCache.isEnabled() || snapshotWriter != null ? new ArrayList<>() : null;
+        RecordLines lines = new RecordLines(cursor::keys, cursor, getMaxRows(), records);
+        boolean stopped;
+        try {
+            stopped = !(pager == null ? printLines(lines) : pager.page(lines));
+        } catch (RuntimeException e) {
+            checkInterrupted(lines.getRows());
+            throw e;
+        }
+        checkInterrupted(lines.getRows());
+        boolean truncated = lines.isTruncated();
+        if ((stopped || truncated) && CypherLexer.isReadOnly(cypher)) {
+            boltStateHandler.reset();
+            if (records != null) {
+                // The summary is never read, as the rest of the result is discarded
+                writeSnapshot(new BoltResult(records, SnapshotSummary.unread(cypher, getServerVersion()), true));
+            }
+            if (truncated) {
+                printTruncated(lines.getRows());
+            }
+            return;
+        }
+        BoltResult result = new BoltResult(records == null ? Collections.emptyList() : records, cursor.consume(),
+                stopped || truncated);
+        resultCache.put(cypher, params, result);
+        schemaCache.refreshIfChanged(result);
+        writeSnapshot(result);
+        String statistics = prettyPrinter.formatSummary(result.getSummary());
+        if (!statistics.isEmpty()) {
+            logger.printOut(statistics);
+        }
+        if (truncated) {
+            printTruncated(lines.getRows());
+        }
+    }
+
+    /**
+     * Show a cached result the way {@link #streamCypher(String, Map)} shows one read from the server, a page at a
+     * time if there is a pager, and only up to the current row limit
+     */
+    private void printCached(@Nonnull BoltResult result) throws CommandException {
+        List<Record> records = result.getRecords();
+        RecordLines lines = new RecordLines(() -> records.get(0).keys(), records.iterator(), getMaxRows(), null);
+        if (pager == null) {
+            printLines(lines);
+        } else {
+            pager.page(lines);
+        }
+        checkInterrupted(lines.getRows());
+        String statistics = prettyPrinter.formatSummary(result.getSummary());
+        if (!statistics.isEmpty()) {
+            logger.printOut(statistics);
+        }
+        if (lines.isTruncated()) {
+            printTruncated(lines.getRows());
+        }
+    }
+
+    private boolean printLines(@Nonnull Iterator<String> lines) {
+        while (lines.hasNext()) {
+            logger.printOut(lines.next());
+        }
+        return true;
+    }
+
+    /**
+     * Show the records of statements a page at a time, or print them all at once if the pager is null
+     */
+    public void setPager(@Nullable Pager pager) {
+        this.pager = pager;
+    }
+
+    /**
+     * Also write the results of statements to a snapshot, or stop writing them if the writer is null. The caller is
+     * responsible for closing the writer.
+     */
+    public void setSnapshotWriter(@Nullable SnapshotWriter snapshotWriter) {
+        this.snapshotWriter = snapshotWriter;
+    }
+
+    private void writeSnapshot(@Nonnull BoltResult result) throws CommandException {
+        if (snapshotWriter == null) {
+            return;
+        }
+        try {
+            snapshotWriter.write(result);
+        } catch (IOException e) {
+            throw new CommandException("Could not write snapshot: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Run a statement and write its result to a snapshot file instead of showing it. The records are written as they
+     * are read from the server, so the result does not have to fit in memory. The file is removed if the statement
+     * fails or is stopped.
+     *
+     * @return the summary of the result
+     */
+    @Nonnull
+    @Override
+    public ResultSummary snapshotCypher(@Nonnull String cypher, @Nonnull File file) throws CommandException {
+        if (isTransactionOpen()) {
+            throw new CommandException("Snapshots can not be taken in an open transaction");
+        }
+        Map<String, Value> params = referencedParameters.select(cypher, queryParams);
+        boolean written = false;
+        try {
+            ResultSummary summary = withTimeout(() -> streamToSnapshot(cypher, params, file));
+            written = true;
+            BoltResult result = new BoltResult(Collections.emptyList(), summary);
+            resultCache.invalidateIfUpdating(result);
+            schemaCache.refreshIfChanged(result);
+            return summary;
+        } finally {
+            if (!written) {
+                //noinspection ResultOfMethodCallIgnored
+                file.delete();
+            }
+        }
+    }
+
+    @Nonnull
+    private ResultSummary streamToSnapshot(@Nonnull String cypher, @Nonnull Map<String, Value> params,
+                                           @Nonnull File file) throws CommandException {
+        StatementResult cursor = boltStateHandler.streamCypher(cypher, params);
+        try (SnapshotWriter writer = SnapshotWriter.create(file)) {
+            writer.startResult(cursor.keys());
+            while (!Cancellation.isCancelled() && cursor.hasNext()) {
+                writer.writeRecord(cursor.next());
+            }
+            checkInterrupted(0);
+            ResultSummary summary = cursor.consume();
+            writer.endResult(summary, false);
+            return summary;
+        } catch (IOException e) {
+            // The rest of the result is of no use
+            boltStateHandler.reset();
+            throw new CommandException("Could not write snapshot: " + e.getMessage());
+        } catch (RuntimeException e) {
+            checkInterrupted(0);
+            throw e;
+        }
+    }
+
+    @Override
+    public void setMaxRows(int maxRows) {
+        boltStateHandler.setMaxRows(maxRows);
+    }
+
+    @Override
+    public int getMaxRows() {
+        return boltStateHandler.getMaxRows();
     }
 
     @Override
@@ -135,8 +443,17 @@ public class CypherShell implements StatementExecuter, Connector, TransactionHan
 
     @Override
     public Optional<List<BoltResult>> commitTransaction() throws CommandException {
-        Optional<List<BoltResult>> results = boltStateHandler.commitTransaction();
-        results.ifPresent(boltResult -> boltResult.forEach(result -> logger.printOut(prettyPrinter.format(result))));
+        Optional<List<BoltResult>> results = withTimeout(boltStateHandler::commitTransaction);
+        results.ifPresent(boltResults -> boltResults.forEach(result -> {
+            resultCache.invalidateIfUpdating(result);
+            schemaCache.refreshIfChanged(result);
+        }));
+        if (results.isPresent()) {
+            for (BoltResult result : results.get()) {
+                writeSnapshot(result);
+                printResult(result);
+            }
+        }
         return results;
     }
 
@@ -153,28 +470,92 @@ public class CypherShell implements StatementExecuter, Connector, TransactionHan
     @Override
     @Nonnull
     public Optional set(@Nonnull String name, @Nonnull String valueString) throws CommandException {
-        final BoltResult result = setParamsAndValidate(name, valueString);
         String parameterName = CypherVariablesFormatter.unescapedCypherVariable(name);
-        final Object value = result.getRecords().get(0).get(parameterName).asObject();
-        queryParams.put(parameterName, value);
-        return Optional.ofNullable(value);
+        // Literals are evaluated locally, only real expressions need a round trip to the server
+        Optional<Value> literal = LiteralEvaluator.evaluate(valueString);
+        final Value value = literal.isPresent() ? literal.get() :
+                setParamsAndValidate(name, valueString).getRecords().get(0).get(parameterName);
+        setAll(Collections.singletonMap(parameterName, value));
+        return Optional.ofNullable(value.asObject());
     }
 
     private BoltResult setParamsAndValidate(@Nonnull String name, @Nonnull String valueString) throws CommandException {
         String cypher = "RETURN " + valueString + " as " + name;
-        final Optional<BoltResult> result = boltStateHandler.runCypher(cypher, queryParams);
+        final Optional<BoltResult> result =
+                boltStateHandler.runCypher(cypher, referencedParameters.select(cypher, queryParams));
         if (!result.isPresent() || result.get().getRecords().isEmpty()) {
             throw new CommandException("Failed to set value of parameter");
         }
         return result.get();
     }
 
+    @Override
+    public synchronized void setAll(@Nonnull Map<String, Value> values) {
+        // Copy on write, so a map which has been handed out never changes
+        Map<String, Value> params = new HashMap<>(queryParams);
+        params.putAll(values);
+        queryParams = Collections.unmodifiableMap(params);
+    }
+
     @Override
     @Nonnull
-    public Map<String, Object> getAll() {
+    public Map<String, Value> getAll() {
         return queryParams;
     }
 
+    /**
+     * @return the cache of results from read only statements
+     */
+    @Nonnull
+    public ResultCache getResultCache() {
+        return resultCache;
+    }
+
+    /**
+     * @return the policy for retrying transactions which fail with transient errors
+     */
+    @Nonnull
+    public RetryPolicy getRetryPolicy() {
+        return boltStateHandler.getRetryPolicy();
+    }
+
+    /**
+     * @return the watchdog which stops statements that run for longer than the query timeout
+     */
+    @Nonnull
+    public StatementWatchdog getStatementWatchdog() {
+        return watchdog;
+    }
+
+    /**
+     * @return the cache of schema information used for completion
+     */
+    @Nonnull
+    public SchemaCache getSchemaCache() {
+        return schemaCache;
+    }
+
+    /**
+     * @return the importer of rows from local files
+     */
+    @Nonnull
+    public BulkImporter getBulkImporter() {
+        return bulkImporter;
+    }
+
+    /**
+     * @return the writer of the graph as a Cypher script
+     */
+    @Nonnull
+    public GraphDumper getGraphDumper() {
+        return graphDumper;
+    }
+
+    @Nullable
+    public CommandHelper getCommandHelper() {
+        return commandHelper;
+    }
+
     public void setCommandHelper(@Nonnull CommandHelper commandHelper) {
         this.commandHelper = commandHelper;
     }
@@ -193,4 +574,67 @@ public class CypherShell implements StatementExecuter, Connector, TransactionHan
         });
     }
 
+    /**
+     * Something which is run within the query timeout
+     */
+    @FunctionalInterface
+    private interface Execution<T> {
+        T run() throws CommandException;
+    }
+
+    /**
+     * The header and the records of a result as formatted lines, read from the server or the cache as they are asked
+     * for, up to a number of records
+     */
+    private class RecordLines implements Iterator<String> {
+        private final Supplier<List<String>> keys;
+        private final Iterator<Record> cursor;
+        private final int maxRows;
+        private final List<Record> records;
+        private boolean headerShown = false;
+        private int rows = 0;
+
+        /**
+         * @param keys of the records, only asked for once there is a record
+         * @param maxRows most records to read, or 0 for all of them
+         * @param records to add the records which are read to, or null
+         */
+        RecordLines(@Nonnull Supplier<List<String>> keys, @Nonnull Iterator<Record> cursor, int maxRows,
+                    @Nullable List<Record> records) {
+            this.keys = keys;
+            this.cursor = cursor;
+            this.maxRows = maxRows;
+            this.records = records;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !Cancellation.isCancelled() && (maxRows == 0 || rows < maxRows) && cursor.hasNext();
+        }
+
+        @Override
+        public String next() {
+            if (!headerShown) {
+                headerShown = true;
+                return prettyPrinter.formatKeys(keys.get());
+            }
+            Record record = cursor.next();
+            rows++;
+            if (records != null) {
+                records.add(record);
+            }
+            return prettyPrinter.formatRecord(record);
+        }
+
+        int getRows() {
+            return rows;
+        }
+
+        /**
+         * @return true if the limit was reached before the last record
+         */
+        boolean isTruncated() {
+            return maxRows > 0 && rows == maxRows && cursor.hasNext();
+        }
+    }
 }
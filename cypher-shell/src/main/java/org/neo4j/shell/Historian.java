@@ -3,12 +3,21 @@ package org.neo4j.shell;
 import javax.annotation.Nonnull;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /**
  * An object which keeps a record of past commands
  */
 public interface Historian {
+    Pattern WORD = Pattern.compile("[\\p{L}\\p{N}_]+");
+
     /**
      *
      * @return a list of all past commands in the history, in order of execution (first command sorted first).
@@ -16,6 +25,48 @@ public interface Historian {
     @Nonnull
     List<String> getHistory();
 
+    /**
+     * @return the last count commands, by the numbers they can be executed again with, like !N
+     */
+    @Nonnull
+    default SortedMap<Integer, String> getLast(int count) {
+        List<String> history = getHistory();
+        SortedMap<Integer, String> last = new TreeMap<>();
+        for (int i = Math.max(0, history.size() - count); i < history.size(); i++) {
+            last.put(i + 1, history.get(i));
+        }
+        return last;
+    }
+
+    /**
+     * @return the commands which contain all the words of the terms, ignoring case, by their numbers
+     */
+    @Nonnull
+    default SortedMap<Integer, String> search(@Nonnull String terms) {
+        Set<String> words = words(terms);
+        List<String> history = getHistory();
+        SortedMap<Integer, String> found = new TreeMap<>();
+        for (int i = 0; i < history.size() && !words.isEmpty(); i++) {
+            if (words(history.get(i)).containsAll(words)) {
+                found.put(i + 1, history.get(i));
+            }
+        }
+        return found;
+    }
+
+    /**
+     * @return the distinct words of the text, in lower case
+     */
+    @Nonnull
+    static Set<String> words(@Nonnull CharSequence text) {
+        Set<String> words = new HashSet<>();
+        Matcher matcher = WORD.matcher(text);
+        while (matcher.find()) {
+            words.add(matcher.group().toLowerCase(Locale.ROOT));
+        }
+        return words;
+    }
+
     Historian empty = new Historian() {
         @Nonnull
         @Override
@@ -1,6 +1,7 @@
 package org.neo4j.shell;
 
 import jline.console.ConsoleReader;
+import org.fusesource.jansi.Ansi;
 
 import org.neo4j.driver.v1.exceptions.AuthenticationException;
 import org.neo4j.shell.build.Build;
@@ -9,12 +10,20 @@ import org.neo4j.shell.cli.CliArgs;
 import org.neo4j.shell.commands.CommandHelper;
 import org.neo4j.shell.exception.CommandException;
 import org.neo4j.shell.log.AnsiLogger;
+import org.neo4j.shell.log.AsyncOutputStream;
 import org.neo4j.shell.log.Logger;
+import org.neo4j.shell.parser.ParamFileParser;
+import org.neo4j.shell.state.ResultCache;
+import org.neo4j.shell.state.RetryPolicy;
+import org.neo4j.shell.state.SnapshotWriter;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
 
 import static org.neo4j.shell.ShellRunner.isInputInteractive;
 
@@ -53,7 +62,27 @@ public class Main {
             out.println("Cypher-Shell " + Build.version());
             return;
         }
-        Logger logger = new AnsiLogger(cliArgs.getDebugMode());
+        AsyncOutputStream output = null;
+        SnapshotWriter snapshot = null;
+        Logger logger;
+        if (cliArgs.getOutputFile().isPresent()) {
+            try {
+                output = AsyncOutputStream.open(new File(cliArgs.getOutputFile().get()),
+                        cliArgs.getTee() ? System.out : null);
+                // Output is only handed to the writer line by line if it is also shown on the terminal
+                logger = new AnsiLogger(cliArgs.getDebugMode(), cliArgs.getFormat(),
+                        new PrintStream(output, cliArgs.getTee(), StandardCharsets.UTF_8.name()), System.err,
+                        System.out);
+            } catch (IOException e) {
+                new AnsiLogger(cliArgs.getDebugMode()).printError("Could not open output file: " + e.getMessage());
+                System.exit(1);
+                return;
+            }
+            // No escape codes in files
+            Ansi.setEnabled(false);
+        } else {
+            logger = new AnsiLogger(cliArgs.getDebugMode());
+        }
         logger.setFormat(cliArgs.getFormat());
 
         ConnectionConfig connectionConfig = new ConnectionConfig(
@@ -67,6 +96,22 @@ public class Main {
 
         try {
             CypherShell shell = new CypherShell(logger);
+            ResultCache resultCache = shell.getResultCache();
+            resultCache.setLimits(cliArgs.getResultCacheSize() * 1024L * 1024L, cliArgs.getResultCacheTtl());
+            resultCache.setEnabled(cliArgs.getResultCache());
+            shell.getStatementWatchdog().setTimeout(cliArgs.getQueryTimeout());
+            RetryPolicy retryPolicy = shell.getRetryPolicy();
+            retryPolicy.setMaxAttempts(cliArgs.getRetryAttempts());
+            retryPolicy.setBackoff(cliArgs.getRetryBackoff(), cliArgs.getRetryMaxBackoff());
+            retryPolicy.setJitter(cliArgs.getRetryJitter());
+            retryPolicy.setRetryableCodes(cliArgs.getRetryCodes());
+            if (cliArgs.getSnapshotFile().isPresent()) {
+                snapshot = SnapshotWriter.create(new File(cliArgs.getSnapshotFile().get()));
+                shell.setSnapshotWriter(snapshot);
+            }
+            for (String paramFile : cliArgs.getParamFiles()) {
+                shell.setAll(ParamFileParser.parse(new File(paramFile), null));
+            }
             // Can only prompt for password if input has not been redirected
             connectMaybeInteractively(shell, connectionConfig, isInputInteractive());
 
@@ -78,13 +123,57 @@ public class Main {
             shell.setCommandHelper(commandHelper);
 
             int code = shellRunner.runUntilEnd();
-            System.exit(code);
+            // Tells how much contention there was, so concurrency can be tuned against it
+            if (retryPolicy.retries() > 0) {
+                logger.printError(retryPolicy.summary());
+            }
+            boolean closed = closeSnapshot(snapshot, logger);
+            System.exit(closeOutput(output, logger) && closed ? code : 1);
         } catch (Throwable e) {
             logger.printError(e);
+            closeSnapshot(snapshot, logger);
+            closeOutput(output, logger);
             System.exit(1);
         }
     }
 
+    /**
+     * Write the rest of the snapshot file, if there is one
+     *
+     * @return false if the snapshot could not be written
+     */
+    private static boolean closeSnapshot(@Nullable SnapshotWriter snapshot, @Nonnull Logger logger) {
+        if (snapshot == null) {
+            return true;
+        }
+        try {
+            snapshot.close();
+            return true;
+        } catch (IOException e) {
+            logger.printError("Could not write snapshot file: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Wait for all output to be written to the output file, if there is one
+     *
+     * @return false if the output could not be written
+     */
+    private static boolean closeOutput(@Nullable AsyncOutputStream output, @Nonnull Logger logger) {
+        if (output == null) {
+            return true;
+        }
+        try {
+            logger.getOutputStream().flush();
+            output.close();
+            return true;
+        } catch (IOException e) {
+            logger.printError("Could not write output file: " + e.getMessage());
+            return false;
+        }
+    }
+
     /**
      * Connect the shell to the server, and try to handle missing passwords and such
      */
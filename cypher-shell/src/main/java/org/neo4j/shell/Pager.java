@@ -0,0 +1,17 @@
+package org.neo4j.shell;
+
+import javax.annotation.Nonnull;
+import java.util.Iterator;
+
+/**
+ * Shows long output one screen at a time
+ */
+public interface Pager {
+    /**
+     * Show lines a page at a time. The next line is only taken when it is about to be shown.
+     *
+     * @param lines to show
+     * @return true if all lines were shown, false if the user stopped before the end
+     */
+    boolean page(@Nonnull Iterator<String> lines);
+}
@@ -0,0 +1,16 @@
+package org.neo4j.shell;
+
+/**
+ * An object which limits the number of records of a result which are shown.
+ */
+public interface RowLimit {
+    /**
+     * @param maxRows most records of a result to show, or 0 to show all of them
+     */
+    void setMaxRows(int maxRows);
+
+    /**
+     * @return most records of a result which are shown, or 0 if all of them are
+     */
+    int getMaxRows();
+}
@@ -1,15 +1,25 @@
 package org.neo4j.shell;
 
+import org.neo4j.shell.cli.Checkpoint;
 import org.neo4j.shell.cli.CliArgs;
 import org.neo4j.shell.cli.FileHistorian;
+import org.neo4j.shell.cli.ImportShellRunner;
 import org.neo4j.shell.cli.InteractiveShellRunner;
+import org.neo4j.shell.cli.MappedFileReader;
 import org.neo4j.shell.cli.NonInteractiveShellRunner;
+import org.neo4j.shell.cli.Progress;
+import org.neo4j.shell.cli.ScriptFile;
 import org.neo4j.shell.cli.StringShellRunner;
+import org.neo4j.shell.completion.CypherCompleter;
+import org.neo4j.shell.exception.CommandException;
+import org.neo4j.shell.log.AnsiLogger;
 import org.neo4j.shell.log.Logger;
 import org.neo4j.shell.parser.ShellStatementParser;
 
 import javax.annotation.Nonnull;
+import java.io.File;
 import java.io.IOException;
+import java.io.Reader;
 
 import static org.fusesource.jansi.internal.CLibrary.STDIN_FILENO;
 import static org.fusesource.jansi.internal.CLibrary.isatty;
@@ -39,25 +49,74 @@ public interface ShellRunner {
      * @param connectionConfig
      * @return a ShellRunner
      * @throws IOException
+     * @throws CommandException if a checkpoint to resume from could not be read
      */
     @Nonnull
     static ShellRunner getShellRunner(@Nonnull CliArgs cliArgs,
                                       @Nonnull CypherShell cypherShell,
                                       @Nonnull Logger logger,
-                                      @Nonnull ConnectionConfig connectionConfig) throws IOException {
-        if (cliArgs.getCypher().isPresent()) {
+                                      @Nonnull ConnectionConfig connectionConfig)
+            throws IOException, CommandException {
+        cliArgs.getMaxRows().ifPresent(cypherShell::setMaxRows);
+        if (cliArgs.getImportFile().isPresent()) {
+            return new ImportShellRunner(cliArgs, cypherShell, logger);
+        } else if (cliArgs.getCypher().isPresent()) {
             return new StringShellRunner(cliArgs, cypherShell, logger);
+        } else if (cliArgs.getInputFile().isPresent()) {
+            File script = new File(cliArgs.getInputFile().get());
+            Checkpoint checkpoint = null;
+            if (cliArgs.getCheckpointFile().isPresent()) {
+                File checkpointFile = new File(cliArgs.getCheckpointFile().get());
+                checkpoint = cliArgs.getResume() ?
+                        Checkpoint.resume(checkpointFile, script, cypherShell, cypherShell) :
+                        new Checkpoint(checkpointFile, script, cypherShell, cypherShell);
+            }
+            Reader reader = ScriptFile.open(script, checkpoint == null ? 0 : checkpoint.getOffset());
+            NonInteractiveShellRunner runner = new NonInteractiveShellRunner(cliArgs.getFailBehavior(), cypherShell,
+                    logger, new ShellStatementParser(), reader, checkpoint);
+            if (shouldShowProgress(cliArgs)) {
+                // The size of compressed scripts is only known once they have been read
+                runner.setProgress(new Progress(System.err,
+                        reader instanceof MappedFileReader ? ((MappedFileReader) reader).size() : -1));
+            }
+            return runner;
         } else if (shouldBeInteractive(cliArgs)) {
             UserMessagesHandler userMessagesHandler =
                     new UserMessagesHandler(connectionConfig, cypherShell.getServerVersion());
-            return new InteractiveShellRunner(cypherShell, cypherShell, logger, new ShellStatementParser(),
-                    System.in, FileHistorian.getDefaultHistoryFile(), userMessagesHandler);
+            InteractiveShellRunner runner = new InteractiveShellRunner(cypherShell, cypherShell, logger,
+                    new ShellStatementParser(), System.in, FileHistorian.getDefaultHistoryFile(),
+                    userMessagesHandler, new CypherCompleter(cypherShell));
+            if (!cliArgs.getMaxRows().isPresent()) {
+                cypherShell.setMaxRows(CypherShell.DEFAULT_INTERACTIVE_MAX_ROWS);
+            }
+            // Output written to a file is not paged
+            if (!cliArgs.getOutputFile().isPresent()) {
+                cypherShell.setPager(runner.getPager());
+            }
+            return runner;
         } else {
-            return new NonInteractiveShellRunner(cliArgs.getFailBehavior(), cypherShell, logger,
-                    new ShellStatementParser(), System.in);
+            NonInteractiveShellRunner runner = new NonInteractiveShellRunner(cliArgs.getFailBehavior(), cypherShell,
+                    logger, new ShellStatementParser(), System.in);
+            if (shouldShowProgress(cliArgs)) {
+                runner.setProgress(new Progress(System.err, -1));
+            }
+            return runner;
         }
     }
 
+    /**
+     * Progress is shown on STDERR when it is a terminal, unless results are printed on the same terminal
+     *
+     * @param cliArgs
+     * @return true if a non-interactive shellrunner should show its progress, false otherwise
+     */
+    static boolean shouldShowProgress(@Nonnull CliArgs cliArgs) {
+        if (!AnsiLogger.isStderrInteractive()) {
+            return false;
+        }
+        return cliArgs.getOutputFile().isPresent() && !cliArgs.getTee() || !AnsiLogger.isStdoutInteractive();
+    }
+
     /**
      * @param cliArgs
      * @return true if an interactive shellrunner should be used, false otherwise
@@ -0,0 +1,21 @@
+package org.neo4j.shell;
+
+import org.neo4j.driver.v1.summary.ResultSummary;
+import org.neo4j.shell.exception.CommandException;
+
+import javax.annotation.Nonnull;
+import java.io.File;
+
+/**
+ * An object which runs statements and writes their results to snapshot files.
+ */
+public interface SnapshotHandler {
+    /**
+     * Run a statement and write its result to a snapshot file instead of showing it. The file is removed if the
+     * statement fails or is stopped.
+     *
+     * @return the summary of the result
+     */
+    @Nonnull
+    ResultSummary snapshotCypher(@Nonnull String cypher, @Nonnull File file) throws CommandException;
+}
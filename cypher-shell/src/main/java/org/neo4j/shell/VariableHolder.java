@@ -1,5 +1,6 @@
 package org.neo4j.shell;
 
+import org.neo4j.driver.v1.Value;
 import org.neo4j.shell.exception.CommandException;
 
 import javax.annotation.Nonnull;
@@ -16,10 +17,15 @@ public interface VariableHolder {
      */
     Optional set(@Nonnull String name, @Nonnull String valueString) throws CommandException;
 
+    /**
+     * @param values to set, by variable name
+     */
+    void setAll(@Nonnull Map<String, Value> values);
+
     /**
      *
-     * @return map of all currently set variables and their values
+     * @return an unmodifiable map of all currently set variables and their values
      */
     @Nonnull
-    Map<String, Object> getAll();
+    Map<String, Value> getAll();
 }
@@ -0,0 +1,97 @@
+package org.neo4j.shell.cli;
+
+import org.neo4j.shell.system.Threads;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.nio.CharBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Reads from another reader on a thread of its own, a few chunks ahead of what has been read from this reader. Work
+ * done by the other reader, like decompressing, then runs in parallel with whatever is done with the text.
+ */
+public class BackgroundReader extends Reader {
+    private static final int CHUNK_SIZE = 64 * 1024;
+    private static final int CHUNKS_AHEAD = 4;
+    private static final CharBuffer END = CharBuffer.allocate(0);
+
+    private final Reader source;
+    private final BlockingQueue<CharBuffer> chunks = new ArrayBlockingQueue<>(CHUNKS_AHEAD);
+    private final Thread thread;
+    private volatile IOException failure;
+    private CharBuffer current = CharBuffer.allocate(0);
+
+    public BackgroundReader(@Nonnull Reader source) {
+        this.source = source;
+        this.thread = Threads.startBackground("background-reader", this::readAhead);
+    }
+
+    private void readAhead() {
+        boolean closed = false;
+        try {
+            while (true) {
+                char[] chunk = new char[CHUNK_SIZE];
+                int read = source.read(chunk, 0, chunk.length);
+                if (read < 0) {
+                    break;
+                }
+                if (read > 0) {
+                    chunks.put(CharBuffer.wrap(chunk, 0, read));
+                }
+            }
+        } catch (IOException e) {
+            failure = e;
+        } catch (RuntimeException | Error e) {
+            failure = new IOException(e);
+        } catch (InterruptedException e) {
+            closed = true;
+        } finally {
+            // However reading ended, the reader must not wait for more
+            if (!closed) {
+                end();
+            }
+        }
+    }
+
+    private void end() {
+        try {
+            chunks.put(END);
+        } catch (InterruptedException e) {
+            // Closed
+        }
+    }
+
+    @Override
+    public int read(@Nonnull char[] cbuf, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        while (!current.hasRemaining()) {
+            if (current == END) {
+                if (failure != null) {
+                    throw failure;
+                }
+                return -1;
+            }
+            try {
+                current = chunks.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while reading");
+            }
+        }
+        int read = Math.min(len, current.remaining());
+        current.get(cbuf, off, read);
+        return read;
+    }
+
+    @Override
+    public void close() throws IOException {
+        thread.interrupt();
+        source.close();
+    }
+}
@@ -0,0 +1,219 @@
+package org.neo4j.shell.cli;
+
+import org.neo4j.driver.v1.Value;
+import org.neo4j.driver.v1.exceptions.value.Uncoercible;
+import org.neo4j.shell.TransactionHandler;
+import org.neo4j.shell.VariableHolder;
+import org.neo4j.shell.exception.CommandException;
+import org.neo4j.shell.parser.JsonParser;
+import org.neo4j.shell.state.ParameterCodec;
+
+import javax.annotation.Nonnull;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Records how far a script has come, so it can be resumed after a failure without running what was committed again.
+ * <p>
+ * After every statement which leaves no transaction open, the checkpoint moves past the statement. It is written to
+ * its file every couple of seconds and when the script ends, as JSON with the {@link StatementReader.ResumePoint} of
+ * the statement, the number of statements which have been executed, and the query parameters at that point. The
+ * parameters are encoded with {@link ParameterCodec}, in base64, so they are restored exactly, whatever their types.
+ * The file is replaced atomically and forced to disk, so it is never half written.
+ */
+public class Checkpoint {
+    static final long WRITE_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(2);
+
+    private final File file;
+    private final String script;
+    private final TransactionHandler txHandler;
+    private final VariableHolder variables;
+    private final LongSupplier nanoClock;
+    private long offset;
+    private int skip;
+    private long statements;
+    private Map<String, Value> params;
+    private boolean changed = false;
+    private long lastWrite;
+    // The parameters are only replaced when they change, so they are only encoded again then
+    private Map<String, Value> writtenParams;
+    private String writtenParamsBase64;
+
+    /**
+     * Start recording a script from its beginning
+     */
+    public Checkpoint(@Nonnull File file, @Nonnull File script, @Nonnull TransactionHandler txHandler,
+                      @Nonnull VariableHolder variables) {
+        this(file, script, txHandler, variables, System::nanoTime);
+    }
+
+    Checkpoint(@Nonnull File file, @Nonnull File script, @Nonnull TransactionHandler txHandler,
+               @Nonnull VariableHolder variables, @Nonnull LongSupplier nanoClock) {
+        this.file = file;
+        this.script = script.getAbsolutePath();
+        this.txHandler = txHandler;
+        this.variables = variables;
+        this.nanoClock = nanoClock;
+        this.params = variables.getAll();
+        this.lastWrite = nanoClock.getAsLong();
+    }
+
+    /**
+     * Continue recording a script from where a checkpoint file says it came to, and restore the query parameters
+     * saved with it
+     *
+     * @throws CommandException if the file could not be read or was written for another script
+     */
+    @Nonnull
+    public static Checkpoint resume(@Nonnull File file, @Nonnull File script, @Nonnull TransactionHandler txHandler,
+                                    @Nonnull VariableHolder variables) throws CommandException {
+        Checkpoint checkpoint = new Checkpoint(file, script, txHandler, variables);
+        checkpoint.load();
+        variables.setAll(checkpoint.params);
+        checkpoint.params = variables.getAll();
+        return checkpoint;
+    }
+
+    private void load() throws CommandException {
+        Value saved;
+        try (Reader reader = new BufferedReader(Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8))) {
+            saved = new JsonParser(reader).parse();
+        } catch (IOException e) {
+            throw new CommandException("Could not read checkpoint " + file + ": " + e.getMessage());
+        }
+        try {
+            String savedScript = saved.get("script").asString();
+            if (!savedScript.equals(script)) {
+                throw new CommandException("Checkpoint " + file + " was written for " + savedScript +
+                        ", not for " + script);
+            }
+            offset = saved.get("offset").asLong();
+            skip = saved.get("skip").asInt();
+            statements = saved.get("statements").asLong();
+            params = ParameterCodec.decode(Base64.getDecoder().decode(saved.get("params").asString()));
+        } catch (Uncoercible | IllegalArgumentException | IOException e) {
+            throw new CommandException("Not a checkpoint: " + file);
+        }
+    }
+
+    /**
+     * @return the offset in the script to resume reading from
+     */
+    public long getOffset() {
+        return offset;
+    }
+
+    /**
+     * @return the number of statements after the offset which have already been executed
+     */
+    public int getSkip() {
+        return skip;
+    }
+
+    /**
+     * @return the number of statements of the script which have been executed
+     */
+    public long getStatements() {
+        return statements;
+    }
+
+    /**
+     * Record that a statement was executed, and write the checkpoint if it has not been written for a while. Nothing
+     * is recorded while a transaction is open, since its statements are not committed yet.
+     *
+     * @param resumePoint where to resume the script after the statement
+     */
+    public void executed(@Nonnull StatementReader.ResumePoint resumePoint) throws IOException {
+        statements++;
+        if (txHandler.isTransactionOpen()) {
+            return;
+        }
+        offset = resumePoint.getOffset();
+        skip = resumePoint.getSkip();
+        params = variables.getAll();
+        changed = true;
+        if (nanoClock.getAsLong() - lastWrite >= WRITE_INTERVAL_NANOS) {
+            write();
+        }
+    }
+
+    /**
+     * Write the checkpoint if anything was recorded since it was last written
+     */
+    public void flush() throws IOException {
+        if (changed) {
+            write();
+        }
+    }
+
+    private void write() throws IOException {
+        if (params != writtenParams) {
+            writtenParamsBase64 = Base64.getEncoder().encodeToString(ParameterCodec.encode(params));
+            writtenParams = params;
+        }
+        StringBuilder json = new StringBuilder("{\"script\": ");
+        appendJson(json, script);
+        json.append(", \"offset\": ").append(offset)
+                .append(", \"skip\": ").append(skip)
+                .append(", \"statements\": ").append(statements)
+                .append(", \"params\": \"").append(writtenParamsBase64).append('"')
+                .append("}\n");
+
+        File temporary = new File(file.getPath() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer bytes = StandardCharsets.UTF_8.encode(json.toString());
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+            channel.force(true);
+        }
+        Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        changed = false;
+        lastWrite = nanoClock.getAsLong();
+    }
+
+    private static void appendJson(@Nonnull StringBuilder json, @Nonnull String text) {
+        json.append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '"':
+                    json.append("\\\"");
+                    break;
+                case '\\':
+                    json.append("\\\\");
+                    break;
+                case '\n':
+                    json.append("\\n");
+                    break;
+                case '\r':
+                    json.append("\\r");
+                    break;
+                case '\t':
+                    json.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        json.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        json.append(c);
+                    }
+            }
+        }
+        json.append('"');
+    }
+}
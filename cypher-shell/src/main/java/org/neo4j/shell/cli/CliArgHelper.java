@@ -1,19 +1,32 @@
 package org.neo4j.shell.cli;
 
 import net.sourceforge.argparse4j.ArgumentParsers;
+import net.sourceforge.argparse4j.impl.Arguments;
 import net.sourceforge.argparse4j.impl.action.StoreConstArgumentAction;
 import net.sourceforge.argparse4j.impl.action.StoreTrueArgumentAction;
 import net.sourceforge.argparse4j.impl.choice.CollectionArgumentChoice;
 import net.sourceforge.argparse4j.impl.type.BooleanArgumentType;
+import net.sourceforge.argparse4j.inf.Argument;
 import net.sourceforge.argparse4j.inf.ArgumentGroup;
 import net.sourceforge.argparse4j.inf.ArgumentParser;
 import net.sourceforge.argparse4j.inf.ArgumentParserException;
+import net.sourceforge.argparse4j.inf.ArgumentType;
 import net.sourceforge.argparse4j.inf.MutuallyExclusiveGroup;
 import net.sourceforge.argparse4j.inf.Namespace;
 
+import org.neo4j.shell.CypherShell;
+import org.neo4j.shell.exception.QueryTimeoutException;
+import org.neo4j.shell.state.BulkImporter;
+import org.neo4j.shell.state.ResultCache;
+import org.neo4j.shell.state.RetryPolicy;
+import org.neo4j.shell.state.StatementWatchdog;
+
 import java.io.PrintWriter;
+import java.util.Arrays;
+import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
@@ -76,6 +89,26 @@ public class CliArgHelper {
         // Other arguments
         // cypher string might not be given, represented by null
         cliArgs.setCypher(ns.getString("cypher"));
+        cliArgs.setInputFile(ns.getString("file"));
+        cliArgs.setCheckpointFile(ns.getString("checkpoint"));
+        cliArgs.setResume(ns.getBoolean("resume"));
+        if (cliArgs.getCheckpointFile().isPresent() && !cliArgs.getInputFile().isPresent()) {
+            parser.handleError(new ArgumentParserException("argument --checkpoint: requires --file", parser));
+            return null;
+        }
+        if (cliArgs.getResume() && !cliArgs.getCheckpointFile().isPresent()) {
+            parser.handleError(new ArgumentParserException("argument --resume: requires --checkpoint", parser));
+            return null;
+        }
+        cliArgs.setOutputFile(ns.getString("output"));
+        cliArgs.setTee(ns.getBoolean("tee"));
+        cliArgs.setSnapshotFile(ns.getString("snapshot-file"));
+        cliArgs.setMaxRows(ns.getInt("max-rows"));
+        cliArgs.setQueryTimeout(ns.getLong("query-timeout"));
+        cliArgs.setRetryAttempts(ns.getInt("retry-attempts"));
+        cliArgs.setRetryBackoff(ns.getLong("retry-backoff"), ns.getLong("retry-max-backoff"));
+        cliArgs.setRetryJitter(ns.getDouble("retry-jitter"));
+        cliArgs.setRetryCodes(splitCodes(ns.getString("retry-codes")));
         // Fail behavior as sensible default and returns a proper type
         cliArgs.setFailBehavior(ns.get("fail-behavior"));
 
@@ -90,6 +123,16 @@ public class CliArgHelper {
 
         cliArgs.setVersion(ns.getBoolean("version"));
 
+        cliArgs.setResultCache(ns.getBoolean("result-cache"));
+        cliArgs.setResultCacheSize(ns.getInt("result-cache-size"));
+        cliArgs.setResultCacheTtl(ns.getInt("result-cache-ttl"));
+
+        cliArgs.setParamFiles(ns.getList("param-file"));
+
+        cliArgs.setImportArgs(ns.getList("import"));
+        cliArgs.setImportBatchSize(ns.getInt("import-batch-size"));
+        cliArgs.setImportParallelism(ns.getInt("import-parallel"));
+
         return cliArgs;
     }
 
@@ -162,6 +205,128 @@ public class CliArgHelper {
                 .dest("force-non-interactive")
               .action(new StoreTrueArgumentAction());
 
+        ArgumentGroup cacheGroup = parser.addArgumentGroup("result cache arguments");
+        cacheGroup.addArgument("--result-cache")
+                .dest("result-cache")
+                .help("cache results of read only queries and reuse them when the same query is run again with the " +
+                        "same parameters. Can also be turned on and off with :cache")
+                .action(new StoreTrueArgumentAction());
+        cacheGroup.addArgument("--result-cache-size")
+                .dest("result-cache-size")
+                .help("maximum size of all cached results, in megabytes")
+                .type(new PositiveIntegerType())
+                .setDefault((int) (ResultCache.DEFAULT_MAX_BYTES / (1024 * 1024)));
+        cacheGroup.addArgument("--result-cache-ttl")
+                .dest("result-cache-ttl")
+                .help("number of seconds a cached result is reused")
+                .type(new PositiveIntegerType())
+                .setDefault((int) ResultCache.DEFAULT_TTL_SECONDS);
+
+        parser.addArgument("--query-timeout")
+                .dest("query-timeout")
+                .metavar("DURATION")
+                .help("stop statements which run for longer than DURATION, like 30s, 5m or 2h. A script stops with " +
+                        "exit code " + QueryTimeoutException.EXIT_CODE + " when a statement times out, unless " +
+                        "--fail-at-end is given. 0 for no limit")
+                .type(new DurationType())
+                .setDefault(0L);
+
+        ArgumentGroup retryGroup = parser.addArgumentGroup("retry arguments");
+        retryGroup.addArgument("--retry-attempts")
+                .dest("retry-attempts")
+                .metavar("N")
+                .help("try transactions which fail with transient errors, like deadlocks, at most N times")
+                .type(new PositiveIntegerType())
+                .setDefault(RetryPolicy.DEFAULT_MAX_ATTEMPTS);
+        retryGroup.addArgument("--retry-backoff")
+                .dest("retry-backoff")
+                .metavar("DURATION")
+                .help("time to wait before the first retry, which doubles for every retry after it")
+                .type(new DurationType())
+                .setDefault(RetryPolicy.DEFAULT_INITIAL_BACKOFF_MILLIS);
+        retryGroup.addArgument("--retry-max-backoff")
+                .dest("retry-max-backoff")
+                .metavar("DURATION")
+                .help("longest time to wait before a retry")
+                .type(new DurationType())
+                .setDefault(RetryPolicy.DEFAULT_MAX_BACKOFF_MILLIS);
+        retryGroup.addArgument("--retry-jitter")
+                .dest("retry-jitter")
+                .metavar("FRACTION")
+                .help("fraction between 0 and 1 by which the time to wait is randomly made shorter or longer")
+                .type(new FractionType())
+                .setDefault(RetryPolicy.DEFAULT_JITTER);
+        retryGroup.addArgument("--retry-codes")
+                .dest("retry-codes")
+                .metavar("CODES")
+                .help("comma separated error codes to retry, where a code also covers the codes which start with it")
+                .setDefault(String.join(",", RetryPolicy.DEFAULT_RETRYABLE_CODES));
+
+        parser.addArgument("-f", "--file")
+                .dest("file")
+                .metavar("FILE")
+                .help("read and execute statements from a UTF-8 file instead of STDIN, and exit. Large files are " +
+                        "memory mapped and executed as they are read, and gzip compressed files are decompressed " +
+                        "while reading");
+        parser.addArgument("--checkpoint")
+                .dest("checkpoint")
+                .metavar("FILE")
+                .help("record in FILE how far --file has come, after every statement which leaves no transaction " +
+                        "open. The file is written every few seconds and when the script ends");
+        parser.addArgument("--resume")
+                .dest("resume")
+                .help("continue --file from where --checkpoint says it came to, with the query parameters it had " +
+                        "then, instead of from the start")
+                .action(new StoreTrueArgumentAction());
+
+        ArgumentGroup outputGroup = parser.addArgumentGroup("output arguments");
+        outputGroup.addArgument("-o", "--output")
+                .dest("output")
+                .metavar("FILE")
+                .help("write output to a file instead of STDOUT, compressed with gzip if the name ends with .gz. " +
+                        "The file is written on a separate thread, so a slow disk does not slow down queries");
+        outputGroup.addArgument("--tee")
+                .dest("tee")
+                .help("also print output on STDOUT when writing it to a file with --output")
+                .action(new StoreTrueArgumentAction());
+        outputGroup.addArgument("--snapshot-file")
+                .dest("snapshot-file")
+                .metavar("FILE")
+                .help("also write the results of statements to a snapshot FILE, which :snapshot show can show " +
+                        "again later without querying the database");
+        outputGroup.addArgument("--max-rows")
+                .dest("max-rows")
+                .metavar("N")
+                .help("show at most N records of each result and discard the rest, 0 for no limit. Defaults to " +
+                        CypherShell.DEFAULT_INTERACTIVE_MAX_ROWS + " in interactive mode and no limit otherwise")
+                .type(new NonNegativeIntegerType());
+
+        parser.addArgument("--param-file")
+                .dest("param-file")
+                .metavar("FILE")
+                .help("set query parameters from a JSON or CSV file before running any statements, see :help params. " +
+                        "Can be given more than once")
+                .action(Arguments.append());
+
+        ArgumentGroup importGroup = parser.addArgumentGroup("import arguments");
+        importGroup.addArgument("--import")
+                .dest("import")
+                .nargs(2)
+                .metavar("FILE", "QUERY")
+                .help("import rows from a local CSV or JSON Lines file by running QUERY for every batch of rows, " +
+                        "given as $" + BulkImporter.BATCH_PARAMETER + ", and exit. " +
+                        "For example: --import people.csv \"UNWIND $batch AS row CREATE (:Person {name: row.name})\"");
+        importGroup.addArgument("--import-batch-size")
+                .dest("import-batch-size")
+                .help("number of rows per transaction when importing")
+                .type(new PositiveIntegerType())
+                .setDefault(BulkImporter.DEFAULT_BATCH_SIZE);
+        importGroup.addArgument("--import-parallel")
+                .dest("import-parallel")
+                .help("number of sessions to import over in parallel")
+                .type(new PositiveIntegerType())
+                .setDefault(1);
+
         parser.addArgument("-v", "--version")
                 .help("print version of cypher-shell and exit")
                 .action(new StoreTrueArgumentAction());
@@ -173,5 +338,86 @@ public class CliArgHelper {
         return parser;
     }
 
+    /**
+     * An argument type which only accepts integers larger than zero
+     */
+    private static class PositiveIntegerType implements ArgumentType<Integer> {
+        @Override
+        public Integer convert(ArgumentParser parser, Argument arg, String value) throws ArgumentParserException {
+            try {
+                int result = Integer.parseInt(value);
+                if (result > 0) {
+                    return result;
+                }
+            } catch (NumberFormatException ignored) {
+                // Reported below
+            }
+            throw new ArgumentParserException(
+                    format("argument %s: expected a positive integer but got '%s'", arg.textualName(), value), parser);
+        }
+    }
+
+    /**
+     * An argument type for durations, converted to milliseconds
+     */
+    private static class DurationType implements ArgumentType<Long> {
+        @Override
+        public Long convert(ArgumentParser parser, Argument arg, String value) throws ArgumentParserException {
+            try {
+                return StatementWatchdog.parseTimeout(value);
+            } catch (IllegalArgumentException e) {
+                throw new ArgumentParserException(
+                        format("argument %s: expected a duration like 30s, 5m or 2h but got '%s'",
+                                arg.textualName(), value), parser);
+            }
+        }
+    }
+
+    @Nonnull
+    private static List<String> splitCodes(@Nonnull String codes) {
+        return Arrays.stream(codes.split(","))
+                .map(String::trim)
+                .filter(code -> !code.isEmpty())
+                .collect(Collectors.toList());
+    }
 
+    /**
+     * An argument type which only accepts numbers between 0 and 1
+     */
+    private static class FractionType implements ArgumentType<Double> {
+        @Override
+        public Double convert(ArgumentParser parser, Argument arg, String value) throws ArgumentParserException {
+            try {
+                double result = Double.parseDouble(value);
+                if (result >= 0 && result <= 1) {
+                    return result;
+                }
+            } catch (NumberFormatException ignored) {
+                // Reported below
+            }
+            throw new ArgumentParserException(
+                    format("argument %s: expected a number between 0 and 1 but got '%s'", arg.textualName(), value),
+                    parser);
+        }
+    }
+
+    /**
+     * An argument type which only accepts integers of zero or more
+     */
+    private static class NonNegativeIntegerType implements ArgumentType<Integer> {
+        @Override
+        public Integer convert(ArgumentParser parser, Argument arg, String value) throws ArgumentParserException {
+            try {
+                int result = Integer.parseInt(value);
+                if (result >= 0) {
+                    return result;
+                }
+            } catch (NumberFormatException ignored) {
+                // Reported below
+            }
+            throw new ArgumentParserException(
+                    format("argument %s: expected a non-negative integer but got '%s'", arg.textualName(), value),
+                    parser);
+        }
+    }
 }
@@ -1,7 +1,13 @@
 package org.neo4j.shell.cli;
 
+import org.neo4j.shell.state.BulkImporter;
+import org.neo4j.shell.state.RetryPolicy;
+import org.neo4j.shell.state.ResultCache;
+
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 
 public class CliArgs {
@@ -13,10 +19,30 @@ public class CliArgs {
     private FailBehavior failBehavior = FailBehavior.FAIL_FAST;
     private Format format = Format.VERBOSE;
     private Optional<String> cypher = Optional.empty();
+    private Optional<String> inputFile = Optional.empty();
+    private Optional<String> checkpointFile = Optional.empty();
+    private boolean resume = false;
+    private Optional<String> outputFile = Optional.empty();
+    private boolean tee = false;
+    private Optional<String> snapshotFile = Optional.empty();
+    private Optional<Integer> maxRows = Optional.empty();
+    private long queryTimeout = 0;
+    private int retryAttempts = RetryPolicy.DEFAULT_MAX_ATTEMPTS;
+    private long retryBackoff = RetryPolicy.DEFAULT_INITIAL_BACKOFF_MILLIS;
+    private long retryMaxBackoff = RetryPolicy.DEFAULT_MAX_BACKOFF_MILLIS;
+    private double retryJitter = RetryPolicy.DEFAULT_JITTER;
+    private List<String> retryCodes = RetryPolicy.DEFAULT_RETRYABLE_CODES;
     private boolean encryption;
     private boolean debugMode;
     private boolean nonInteractive = false;
     private boolean version = false;
+    private boolean resultCache = false;
+    private int resultCacheSize = (int) (ResultCache.DEFAULT_MAX_BYTES / (1024 * 1024));
+    private int resultCacheTtl = (int) ResultCache.DEFAULT_TTL_SECONDS;
+    private List<String> paramFiles = new ArrayList<>();
+    private Optional<List<String>> importArgs = Optional.empty();
+    private int importBatchSize = BulkImporter.DEFAULT_BATCH_SIZE;
+    private int importParallelism = 1;
 
     /**
      * Set the scheme to the primary value, or if null, the fallback value.
@@ -154,4 +180,225 @@ public class CliArgs {
     public void setVersion(boolean version) {
         this.version = version;
     }
+
+    /**
+     * Enable/disable the cache of results from read only queries
+     */
+    public void setResultCache(boolean resultCache) {
+        this.resultCache = resultCache;
+    }
+
+    /**
+     * Set the maximum size of all cached results, in megabytes
+     */
+    public void setResultCacheSize(int resultCacheSize) {
+        this.resultCacheSize = resultCacheSize;
+    }
+
+    /**
+     * Set the number of seconds a cached result is reused
+     */
+    public void setResultCacheTtl(int resultCacheTtl) {
+        this.resultCacheTtl = resultCacheTtl;
+    }
+
+    public boolean getResultCache() {
+        return resultCache;
+    }
+
+    public int getResultCacheSize() {
+        return resultCacheSize;
+    }
+
+    public int getResultCacheTtl() {
+        return resultCacheTtl;
+    }
+
+    /**
+     * Set the file to read statements from instead of STDIN, or null to not read a file
+     */
+    public void setInputFile(@Nullable String inputFile) {
+        this.inputFile = Optional.ofNullable(inputFile);
+    }
+
+    @Nonnull
+    public Optional<String> getInputFile() {
+        return inputFile;
+    }
+
+    /**
+     * Set the file to record the progress of the input file in, or null to not record it
+     */
+    public void setCheckpointFile(@Nullable String checkpointFile) {
+        this.checkpointFile = Optional.ofNullable(checkpointFile);
+    }
+
+    @Nonnull
+    public Optional<String> getCheckpointFile() {
+        return checkpointFile;
+    }
+
+    /**
+     * Set if the input file should be resumed from where the checkpoint file says it came to
+     */
+    public void setResume(boolean resume) {
+        this.resume = resume;
+    }
+
+    public boolean getResume() {
+        return resume;
+    }
+
+    /**
+     * Set the file to write output to instead of STDOUT, or null to not write to a file
+     */
+    public void setOutputFile(@Nullable String outputFile) {
+        this.outputFile = Optional.ofNullable(outputFile);
+    }
+
+    @Nonnull
+    public Optional<String> getOutputFile() {
+        return outputFile;
+    }
+
+    /**
+     * Set if output which is written to a file should also be printed on STDOUT
+     */
+    public void setTee(boolean tee) {
+        this.tee = tee;
+    }
+
+    public boolean getTee() {
+        return tee;
+    }
+
+    /**
+     * Set the file to also write the results of statements to, or null to not write them
+     */
+    public void setSnapshotFile(@Nullable String snapshotFile) {
+        this.snapshotFile = Optional.ofNullable(snapshotFile);
+    }
+
+    @Nonnull
+    public Optional<String> getSnapshotFile() {
+        return snapshotFile;
+    }
+
+    /**
+     * Set the most records of a result to show, 0 to show all of them, or null to use the default
+     */
+    public void setMaxRows(@Nullable Integer maxRows) {
+        this.maxRows = Optional.ofNullable(maxRows);
+    }
+
+    @Nonnull
+    public Optional<Integer> getMaxRows() {
+        return maxRows;
+    }
+
+    /**
+     * Set the longest time in milliseconds a statement may run for, or 0 for no limit
+     */
+    public void setQueryTimeout(long queryTimeout) {
+        this.queryTimeout = queryTimeout;
+    }
+
+    public long getQueryTimeout() {
+        return queryTimeout;
+    }
+
+    /**
+     * Set the most times a transaction is tried when it fails with transient errors
+     */
+    public void setRetryAttempts(int retryAttempts) {
+        this.retryAttempts = retryAttempts;
+    }
+
+    public int getRetryAttempts() {
+        return retryAttempts;
+    }
+
+    /**
+     * Set how many milliseconds to wait before the first retry, and at most before any retry
+     */
+    public void setRetryBackoff(long retryBackoff, long retryMaxBackoff) {
+        this.retryBackoff = retryBackoff;
+        this.retryMaxBackoff = retryMaxBackoff;
+    }
+
+    public long getRetryBackoff() {
+        return retryBackoff;
+    }
+
+    public long getRetryMaxBackoff() {
+        return retryMaxBackoff;
+    }
+
+    /**
+     * Set the fraction by which backoffs are randomly made shorter or longer
+     */
+    public void setRetryJitter(double retryJitter) {
+        this.retryJitter = retryJitter;
+    }
+
+    public double getRetryJitter() {
+        return retryJitter;
+    }
+
+    /**
+     * Set the error codes of transient errors which are retried
+     */
+    public void setRetryCodes(@Nonnull List<String> retryCodes) {
+        this.retryCodes = retryCodes;
+    }
+
+    @Nonnull
+    public List<String> getRetryCodes() {
+        return retryCodes;
+    }
+
+    /**
+     * Set the JSON or CSV files to read query parameters from
+     */
+    public void setParamFiles(@Nullable List<String> paramFiles) {
+        this.paramFiles = paramFiles == null ? new ArrayList<>() : paramFiles;
+    }
+
+    @Nonnull
+    public List<String> getParamFiles() {
+        return paramFiles;
+    }
+
+    /**
+     * Set the file to import and the query to run for every batch of rows, or null to not import
+     */
+    public void setImportArgs(@Nullable List<String> importArgs) {
+        this.importArgs = Optional.ofNullable(importArgs);
+    }
+
+    @Nonnull
+    public Optional<String> getImportFile() {
+        return importArgs.map(args -> args.get(0));
+    }
+
+    @Nonnull
+    public Optional<String> getImportQuery() {
+        return importArgs.map(args -> args.get(1));
+    }
+
+    public void setImportBatchSize(int importBatchSize) {
+        this.importBatchSize = importBatchSize;
+    }
+
+    public int getImportBatchSize() {
+        return importBatchSize;
+    }
+
+    public void setImportParallelism(int importParallelism) {
+        this.importParallelism = importParallelism;
+    }
+
+    public int getImportParallelism() {
+        return importParallelism;
+    }
 }
@@ -0,0 +1,76 @@
+package org.neo4j.shell.cli;
+
+import jline.console.ConsoleReader;
+import org.neo4j.shell.Pager;
+import org.neo4j.shell.log.Logger;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.Iterator;
+import java.util.function.IntSupplier;
+
+/**
+ * Pages output on the terminal. After every screen full of lines the user presses a key to see the next page, or q to
+ * stop.
+ */
+public class ConsolePager implements Pager {
+    static final String PROMPT = "-- more -- (any key for next page, q to stop)";
+    private static final int CTRL_C = 3;
+
+    private final Logger logger;
+    private final IntSupplier screenHeight;
+    private final KeyReader keyReader;
+
+    public ConsolePager(@Nonnull Logger logger, @Nonnull ConsoleReader reader) {
+        this(logger, () -> reader.getTerminal().getHeight(), reader::readCharacter);
+    }
+
+    ConsolePager(@Nonnull Logger logger, @Nonnull IntSupplier screenHeight, @Nonnull KeyReader keyReader) {
+        this.logger = logger;
+        this.screenHeight = screenHeight;
+        this.keyReader = keyReader;
+    }
+
+    @Override
+    public boolean page(@Nonnull Iterator<String> lines) {
+        // Leave a line for the prompt
+        int pageSize = Math.max(1, screenHeight.getAsInt() - 1);
+        int shown = 0;
+        while (lines.hasNext()) {
+            if (shown == pageSize) {
+                if (!nextPage()) {
+                    return false;
+                }
+                shown = 0;
+            }
+            logger.printOut(lines.next());
+            shown++;
+        }
+        return true;
+    }
+
+    private boolean nextPage() {
+        PrintStream terminal = logger.getTerminalStream();
+        terminal.print(PROMPT);
+        terminal.flush();
+        int key;
+        try {
+            key = keyReader.read();
+        } catch (IOException e) {
+            key = -1;
+        }
+        // Erase the prompt again
+        terminal.print("\r" + new String(new char[PROMPT.length()]).replace('\0', ' ') + "\r");
+        terminal.flush();
+        return key >= 0 && key != 'q' && key != 'Q' && key != CTRL_C;
+    }
+
+    /**
+     * Reads a single key press
+     */
+    @FunctionalInterface
+    interface KeyReader {
+        int read() throws IOException;
+    }
+}
@@ -1,8 +1,6 @@
 package org.neo4j.shell.cli;
 
 import jline.console.ConsoleReader;
-import jline.console.history.FileHistory;
-import jline.console.history.MemoryHistory;
 import org.neo4j.shell.Historian;
 import org.neo4j.shell.log.Logger;
 
@@ -11,18 +9,19 @@ import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.SortedMap;
 
 import static java.lang.System.getProperty;
 
 /**
  * An historian which stores history in a file in the users home dir. The setup methods install a shutdown hook which
- * will flush the history on exit.
+ * will flush the history on exit. The history is bounded and indexed, see {@link ShellHistory}.
  */
 public class FileHistorian implements Historian {
 
-    private final MemoryHistory history;
+    private final ShellHistory history;
 
-    private FileHistorian(MemoryHistory history) {
+    private FileHistorian(ShellHistory history) {
         this.history = history;
     }
 
@@ -35,7 +34,7 @@ public class FileHistorian implements Historian {
             if (!dir.isDirectory() && !dir.mkdir()) {
                 throw new IOException("Failed to create directory for history: " + dir.getAbsolutePath());
             }
-            final FileHistory history = new FileHistory(historyFile);
+            final ShellHistory history = new ShellHistory(historyFile);
             reader.setHistory(history);
 
             // Make sure we flush history on exit
@@ -45,13 +44,13 @@ public class FileHistorian implements Historian {
         } catch (IOException e) {
             logger.printError("Could not load history file. Falling back to session-based history.\n"
                     + e.getMessage());
-            MemoryHistory history = new MemoryHistory();
+            ShellHistory history = new ShellHistory();
             reader.setHistory(history);
             return new FileHistorian(history);
         }
     }
 
-    private static void addShutdownHookToFlushHistory(@Nonnull final Logger logger, final FileHistory history) {
+    private static void addShutdownHookToFlushHistory(@Nonnull final Logger logger, final ShellHistory history) {
         Runtime.getRuntime().addShutdownHook(new Thread() {
             @Override
             public void run() {
@@ -81,10 +80,20 @@ public class FileHistorian implements Historian {
         return result;
     }
 
+    @Nonnull
+    @Override
+    public SortedMap<Integer, String> getLast(int count) {
+        return history.last(count);
+    }
+
+    @Nonnull
+    @Override
+    public SortedMap<Integer, String> search(@Nonnull String terms) {
+        return history.search(terms);
+    }
+
     @Override
     public void flushHistory() throws IOException {
-        if (history instanceof FileHistory) {
-            ((FileHistory) history).flush();
-        }
+        history.flush();
     }
 }
@@ -0,0 +1,53 @@
+package org.neo4j.shell.cli;
+
+import org.neo4j.shell.CypherShell;
+import org.neo4j.shell.Historian;
+import org.neo4j.shell.ShellRunner;
+import org.neo4j.shell.commands.Import;
+import org.neo4j.shell.log.Logger;
+
+import javax.annotation.Nonnull;
+import java.io.File;
+
+/**
+ * A shell runner which imports a file, see {@link Import}, and exits afterward.
+ */
+public class ImportShellRunner implements ShellRunner {
+    private final File file;
+    private final String query;
+    private final int batchSize;
+    private final int parallelism;
+    private final Import importCommand;
+    private final Logger logger;
+
+    public ImportShellRunner(@Nonnull CliArgs cliArgs, @Nonnull CypherShell cypherShell, @Nonnull Logger logger) {
+        this(cliArgs, new Import(logger, cypherShell.getBulkImporter(), cypherShell), logger);
+    }
+
+    ImportShellRunner(@Nonnull CliArgs cliArgs, @Nonnull Import importCommand, @Nonnull Logger logger) {
+        this.file = new File(cliArgs.getImportFile().orElseThrow(() -> new NullPointerException("No file specified")));
+        this.query = cliArgs.getImportQuery().orElseThrow(() -> new NullPointerException("No query specified"));
+        this.batchSize = cliArgs.getImportBatchSize();
+        this.parallelism = cliArgs.getImportParallelism();
+        this.importCommand = importCommand;
+        this.logger = logger;
+    }
+
+    @Override
+    public int runUntilEnd() {
+        int exitCode = 0;
+        try {
+            importCommand.importFile(file, query, batchSize, parallelism);
+        } catch (Throwable t) {
+            logger.printError(t);
+            exitCode = 1;
+        }
+        return exitCode;
+    }
+
+    @Nonnull
+    @Override
+    public Historian getHistorian() {
+        return Historian.empty;
+    }
+}
@@ -1,17 +1,22 @@
 package org.neo4j.shell.cli;
 
 import jline.console.ConsoleReader;
+import jline.console.completer.Completer;
 import org.neo4j.shell.Historian;
+import org.neo4j.shell.Pager;
 import org.neo4j.shell.ShellRunner;
 import org.neo4j.shell.StatementExecuter;
 import org.neo4j.shell.TransactionHandler;
 import org.neo4j.shell.UserMessagesHandler;
 import org.neo4j.shell.commands.Exit;
+import org.neo4j.shell.exception.CommandException;
 import org.neo4j.shell.exception.ExitException;
 import org.neo4j.shell.exception.NoMoreInputException;
 import org.neo4j.shell.log.AnsiFormattedText;
 import org.neo4j.shell.log.Logger;
 import org.neo4j.shell.parser.StatementParser;
+import org.neo4j.shell.system.Cancellation;
+import org.neo4j.shell.system.Threads;
 import sun.misc.Signal;
 import sun.misc.SignalHandler;
 
@@ -19,12 +24,21 @@ import javax.annotation.Nonnull;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * A shell runner intended for interactive sessions where lines are input one by one and execution should happen
  * along the way.
+ * <p>
+ * Statements are executed on a worker thread, so Ctrl-C can stop them right away. The statement is then reset on the
+ * server, and the worker thread is cancelled to stop reading and printing its result. It is not interrupted, as that
+ * would close the connection if the driver is reading or writing on it.
  */
 public class InteractiveShellRunner implements ShellRunner, SignalHandler {
     static final String INTERRUPT_SIGNAL = "INT";
@@ -42,6 +56,8 @@ public class InteractiveShellRunner implements ShellRunner, SignalHandler {
     private final TransactionHandler txHandler;
     private final StatementExecuter executer;
     private final UserMessagesHandler userMessagesHandler;
+    private final ExecutorService worker;
+    private volatile Thread workerThread;
 
     public InteractiveShellRunner(@Nonnull StatementExecuter executer,
                                   @Nonnull TransactionHandler txHandler,
@@ -49,23 +65,31 @@ public class InteractiveShellRunner implements ShellRunner, SignalHandler {
                                   @Nonnull StatementParser statementParser,
                                   @Nonnull InputStream inputStream,
                                   @Nonnull File historyFile,
-                                  @Nonnull UserMessagesHandler userMessagesHandler) throws IOException {
+                                  @Nonnull UserMessagesHandler userMessagesHandler,
+                                  @Nonnull Completer completer) throws IOException {
         this.userMessagesHandler = userMessagesHandler;
         this.currentyExecuting = new AtomicBoolean(false);
         this.executer = executer;
         this.txHandler = txHandler;
         this.logger = logger;
         this.statementParser = statementParser;
-        this.reader = setupConsoleReader(logger, inputStream);
+        this.reader = setupConsoleReader(logger, inputStream, completer);
         this.historian = FileHistorian.setupHistory(reader, logger, historyFile);
+        this.worker = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = Threads.platform("statement-executer").newThread(runnable);
+            workerThread = thread;
+            return thread;
+        });
 
         // Catch ctrl-c
         Signal.handle(new Signal(INTERRUPT_SIGNAL), this);
     }
 
     private ConsoleReader setupConsoleReader(@Nonnull Logger logger,
-                                             @Nonnull InputStream inputStream) throws IOException {
-        ConsoleReader reader = new ConsoleReader(inputStream, logger.getOutputStream());
+                                             @Nonnull InputStream inputStream,
+                                             @Nonnull Completer completer) throws IOException {
+        ConsoleReader reader = new ConsoleReader(inputStream, logger.getTerminalStream());
+        reader.addCompleter(completer);
         // Disable expansion of bangs: !
         reader.setExpandEvents(false);
         // Ensure Reader does not handle user input for ctrl+C behaviour
@@ -73,6 +97,14 @@ public class InteractiveShellRunner implements ShellRunner, SignalHandler {
         return reader;
     }
 
+    /**
+     * @return a pager which shows output a screen at a time on the console of this runner
+     */
+    @Nonnull
+    public Pager getPager() {
+        return new ConsolePager(logger, reader);
+    }
+
     @Override
     public int runUntilEnd() {
         int exitCode = 0;
@@ -83,8 +115,11 @@ public class InteractiveShellRunner implements ShellRunner, SignalHandler {
         while (running) {
             try {
                 for (String statement : readUntilStatement()) {
+                    if (ShellHistory.isElided(statement)) {
+                        throw new CommandException("The statement was cut short in the history, and is not run again");
+                    }
                     currentyExecuting.set(true);
-                    executer.execute(statement);
+                    executeOnWorker(statement);
                     currentyExecuting.set(false);
                 }
             } catch (ExitException e) {
@@ -99,10 +134,41 @@ public class InteractiveShellRunner implements ShellRunner, SignalHandler {
                 currentyExecuting.set(false);
             }
         }
+        worker.shutdown();
         logger.printIfVerbose(userMessagesHandler.getExitMessage());
         return exitCode;
     }
 
+    /**
+     * Execute a statement on the worker thread, and wait for it to finish
+     */
+    private void executeOnWorker(@Nonnull String statement)
+            throws ExitException, CommandException, InterruptedIOException {
+        Future<?> execution = worker.submit(() -> {
+            // Left over when the last statement was stopped after it was done
+            Cancellation.clear();
+            executer.execute(statement);
+            return null;
+        });
+        try {
+            execution.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for statement");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof CommandException) {
+                throw (CommandException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                // Which includes ExitException
+                throw (Error) cause;
+            }
+            throw new RuntimeException(cause);
+        }
+    }
+
     @Nonnull
     @Override
     public Historian getHistorian() {
@@ -158,9 +224,13 @@ public class InteractiveShellRunner implements ShellRunner, SignalHandler {
      */
     @Override
     public void handle(final Signal signal) {
-        // Stop any running cypher statements
+        // Stop any running cypher statements, and stop reading and printing their results
         if (currentyExecuting.get()) {
             executer.reset();
+            Thread thread = workerThread;
+            if (thread != null) {
+                Cancellation.cancel(thread);
+            }
         } else {
             // Print a literal newline here to get around us being in the middle of the prompt
             logger.printError(
@@ -0,0 +1,157 @@
+package org.neo4j.shell.cli;
+
+import javax.annotation.Nonnull;
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Reads a UTF-8 file through a {@link FileChannel}. Regular files are memory mapped a region at a time and decoded
+ * straight from the mapped bytes, anything else (like a named pipe) is read in large chunks. A byte order mark at the
+ * start of the file is skipped.
+ */
+public class MappedFileReader extends Reader {
+    static final int DEFAULT_REGION_SIZE = 64 * 1024 * 1024;
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+    private static final char BYTE_ORDER_MARK = '\uFEFF';
+    private static final byte[] BYTE_ORDER_MARK_BYTES = {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF};
+
+    private final FileChannel channel;
+    private final boolean mapped;
+    private final long size;
+    private final int regionSize;
+    private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private ByteBuffer bytes = ByteBuffer.allocate(0);
+    // Offset in the file just after the last byte in the buffer
+    private long bufferEnd = 0;
+    private boolean endOfInput = false;
+    private boolean finished = false;
+    private boolean startOfText = true;
+
+    public MappedFileReader(@Nonnull File file) throws IOException {
+        this(file, DEFAULT_REGION_SIZE);
+    }
+
+    MappedFileReader(@Nonnull File file, int regionSize) throws IOException {
+        this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        this.regionSize = regionSize;
+        try {
+            // Special files may claim to be empty even though they are not, so only trust the size of regular files
+            this.mapped = Files.isRegularFile(file.toPath()) && channel.size() > 0;
+            this.size = mapped ? channel.size() : -1;
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return size of the file in bytes, or -1 if it is not known up front
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * @return number of bytes which have been decoded so far
+     */
+    public long position() {
+        return bufferEnd - bytes.remaining();
+    }
+
+    /**
+     * Start reading at an offset in the text instead of at the start of the file. Must be called before reading.
+     *
+     * @param textOffset number of bytes of text to skip, not counting a byte order mark
+     */
+    public void seek(long textOffset) throws IOException {
+        if (!mapped || textOffset <= 0) {
+            return;
+        }
+        ByteBuffer start = ByteBuffer.allocate(BYTE_ORDER_MARK_BYTES.length);
+        channel.read(start, 0);
+        boolean byteOrderMark = !start.hasRemaining() && Arrays.equals(start.array(), BYTE_ORDER_MARK_BYTES);
+        bufferEnd = Math.min(size, textOffset + (byteOrderMark ? BYTE_ORDER_MARK_BYTES.length : 0));
+        bytes = ByteBuffer.allocate(0);
+        startOfText = false;
+    }
+
+    @Override
+    public int read(@Nonnull char[] cbuf, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        CharBuffer out = CharBuffer.wrap(cbuf, off, len);
+        while (out.position() == off) {
+            if (finished) {
+                return -1;
+            }
+            CoderResult result = decoder.decode(bytes, out, endOfInput);
+            if (startOfText && out.position() > off) {
+                startOfText = false;
+                if (cbuf[off] == BYTE_ORDER_MARK) {
+                    System.arraycopy(cbuf, off + 1, cbuf, off, out.position() - off - 1);
+                    out.position(out.position() - 1);
+                }
+            }
+            if (result.isOverflow()) {
+                break;
+            }
+            if (endOfInput) {
+                decoder.flush(out);
+                finished = true;
+            } else if (!fill()) {
+                endOfInput = true;
+            }
+        }
+        return out.position() - off;
+    }
+
+    /**
+     * Make the next bytes of the file available to the decoder, keeping any bytes it has not consumed yet, like the
+     * start of a character which continues in the next region.
+     *
+     * @return false at the end of the file
+     */
+    private boolean fill() throws IOException {
+        if (mapped) {
+            if (bufferEnd >= size) {
+                return false;
+            }
+            long offset = position();
+            long length = Math.min(regionSize, size - offset);
+            bytes = channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+            bufferEnd = offset + length;
+            return true;
+        }
+        if (bytes.capacity() == 0) {
+            bytes = ByteBuffer.allocate(READ_BUFFER_SIZE);
+            bytes.flip();
+        }
+        bytes.compact();
+        int read = channel.read(bytes);
+        bytes.flip();
+        if (read < 0) {
+            return false;
+        }
+        bufferEnd += read;
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
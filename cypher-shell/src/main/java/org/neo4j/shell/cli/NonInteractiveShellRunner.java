@@ -4,19 +4,28 @@ import org.neo4j.shell.Historian;
 import org.neo4j.shell.ShellRunner;
 import org.neo4j.shell.StatementExecuter;
 import org.neo4j.shell.exception.ExitException;
+import org.neo4j.shell.exception.QueryTimeoutException;
 import org.neo4j.shell.log.Logger;
 import org.neo4j.shell.parser.StatementParser;
 
 import javax.annotation.Nonnull;
-import java.io.BufferedReader;
+import javax.annotation.Nullable;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.Reader;
 import java.util.List;
 
 
 /**
- * A shell runner which reads all of STDIN and executes commands until completion. In case of errors, the failBehavior
- * determines if the shell exits immediately, or if it should keep trying the next commands.
+ * A shell runner which reads all of STDIN, or a file, and executes commands until completion. In case of errors, the
+ * failBehavior determines if the shell exits immediately, or if it should keep trying the next commands.
+ * <p>
+ * The input is read in large chunks by a {@link StatementReader}, and statements are executed as soon as they have been
+ * parsed.
+ * <p>
+ * With a {@link Checkpoint}, the runner records how far it has come after every statement, and when the checkpoint was
+ * resumed it skips the statements which were executed before it was written.
  */
 public class NonInteractiveShellRunner implements ShellRunner {
 
@@ -25,49 +34,142 @@ public class NonInteractiveShellRunner implements ShellRunner {
     private final StatementExecuter executer;
     private final Logger logger;
     private final StatementParser statementParser;
-    private final InputStream inputStream;
+    private final Reader reader;
+    @Nullable
+    private final Checkpoint checkpoint;
+    @Nullable
+    private Progress progress;
 
     public NonInteractiveShellRunner(@Nonnull FailBehavior failBehavior,
                                      @Nonnull StatementExecuter executer,
                                      @Nonnull Logger logger,
                                      @Nonnull StatementParser statementParser,
                                      @Nonnull InputStream inputStream) {
+        this(failBehavior, executer, logger, statementParser, new InputStreamReader(inputStream));
+    }
+
+    public NonInteractiveShellRunner(@Nonnull FailBehavior failBehavior,
+                                     @Nonnull StatementExecuter executer,
+                                     @Nonnull Logger logger,
+                                     @Nonnull StatementParser statementParser,
+                                     @Nonnull Reader reader) {
+        this(failBehavior, executer, logger, statementParser, reader, null);
+    }
+
+    /**
+     * @param reader     the script, which starts at the offset of the checkpoint
+     * @param checkpoint to record the progress of the script in, or null to not record it
+     */
+    public NonInteractiveShellRunner(@Nonnull FailBehavior failBehavior,
+                                     @Nonnull StatementExecuter executer,
+                                     @Nonnull Logger logger,
+                                     @Nonnull StatementParser statementParser,
+                                     @Nonnull Reader reader,
+                                     @Nullable Checkpoint checkpoint) {
         this.failBehavior = failBehavior;
         this.executer = executer;
         this.logger = logger;
         this.statementParser = statementParser;
-        this.inputStream = inputStream;
+        this.reader = reader;
+        this.checkpoint = checkpoint;
+    }
+
+    /**
+     * @param progress to count the statements on and show while running, or null to not show progress
+     */
+    public void setProgress(@Nullable Progress progress) {
+        this.progress = progress;
     }
 
     @Override
     public int runUntilEnd() {
-        List<String> statements;
-        try {
-            new BufferedReader(new InputStreamReader(inputStream))
-                    .lines()
-                    .forEach(line -> statementParser.parseMoreText(line + "\n"));
-            statements = statementParser.consumeStatements();
-        } catch (Throwable e) {
-            logger.printError(e);
-            return 1;
+        int exitCode;
+        if (progress == null) {
+            exitCode = run();
+        } else {
+            progress.start(checkpoint == null ? 0 : checkpoint.getOffset());
+            try {
+                exitCode = run();
+            } finally {
+                progress.close();
+            }
+        }
+        if (checkpoint != null) {
+            try {
+                checkpoint.flush();
+            } catch (IOException e) {
+                logger.printError("Could not write checkpoint: " + e.getMessage());
+                exitCode = exitCode == 0 ? 1 : exitCode;
+            }
         }
+        return exitCode;
+    }
 
+    private int run() {
+        StatementReader statementReader = checkpoint == null ?
+                new StatementReader(reader, statementParser) :
+                new StatementReader(reader, statementParser, checkpoint.getOffset());
+        int skip = checkpoint == null ? 0 : checkpoint.getSkip();
+        long offset = statementReader.getOffset();
         int exitCode = 0;
-        for (String statement : statements) {
+        while (true) {
+            List<String> statements;
             try {
-                executer.execute(statement);
-            } catch (ExitException e) {
-                // These exceptions are always fatal
-                return e.getCode();
+                statements = statementReader.read();
             } catch (Throwable e) {
-                exitCode = 1;
-                logger.printError(e);
-                if (FailBehavior.FAIL_AT_END != failBehavior) {
-                    return exitCode;
+                printError(e);
+                return 1;
+            }
+            if (statements == null) {
+                return exitCode;
+            }
+            if (progress != null) {
+                progress.bytesRead(statementReader.getOffset() - offset);
+                offset = statementReader.getOffset();
+            }
+
+            for (int i = 0; i < statements.size(); i++) {
+                if (skip > 0) {
+                    // Executed before the checkpoint was written
+                    skip--;
+                    continue;
+                }
+                try {
+                    executer.execute(statements.get(i));
+                    if (checkpoint != null) {
+                        checkpoint.executed(statementReader.getResumePoint(i));
+                    }
+                    if (progress != null) {
+                        progress.statementExecuted();
+                    }
+                } catch (ExitException e) {
+                    // These exceptions are always fatal
+                    return e.getCode();
+                } catch (QueryTimeoutException e) {
+                    exitCode = QueryTimeoutException.EXIT_CODE;
+                    printError(e);
+                    if (FailBehavior.FAIL_AT_END != failBehavior) {
+                        return exitCode;
+                    }
+                } catch (Throwable e) {
+                    // A timeout earlier on is still reported by the exit code
+                    exitCode = exitCode == 0 ? 1 : exitCode;
+                    printError(e);
+                    if (FailBehavior.FAIL_AT_END != failBehavior) {
+                        return exitCode;
+                    }
                 }
             }
         }
-        return exitCode;
+    }
+
+    private void printError(@Nonnull Throwable e) {
+        if (progress == null) {
+            logger.printError(e);
+        } else {
+            progress.statementFailed();
+            progress.interrupt(() -> logger.printError(e));
+        }
     }
 
     @Nonnull
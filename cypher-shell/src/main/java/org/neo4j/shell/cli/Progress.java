@@ -0,0 +1,166 @@
+package org.neo4j.shell.cli;
+
+import org.neo4j.shell.system.Threads;
+
+import javax.annotation.Nonnull;
+import java.io.PrintStream;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Shows how far a script has come on a single line of a terminal, which a thread of its own redraws every second.
+ * <p>
+ * The runner only adds to counters, so counting costs next to nothing however many statements there are. The line
+ * tells how many statements have been executed, how much of the script has been read, how many statements are
+ * executed per second now and on average, how many failed, and when the script will be done if its size is known.
+ */
+public class Progress implements AutoCloseable {
+    static final long INTERVAL_MILLIS = 1000;
+    private static final String CLEAR_LINE = "\r\u001B[K";
+
+    private final PrintStream terminal;
+    private final long totalBytes;
+    private final LongSupplier nanoClock;
+    private final LongAdder statements = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+    private ScheduledExecutorService timer;
+    private long startNanos;
+    private long startBytes;
+    // Only used by the timer, to tell the current rate
+    private long lastNanos;
+    private long lastStatements;
+
+    /**
+     * @param terminal   to draw the line on
+     * @param totalBytes size of the script, or -1 if it is not known
+     */
+    public Progress(@Nonnull PrintStream terminal, long totalBytes) {
+        this(terminal, totalBytes, System::nanoTime);
+    }
+
+    Progress(@Nonnull PrintStream terminal, long totalBytes, @Nonnull LongSupplier nanoClock) {
+        this.terminal = terminal;
+        this.totalBytes = totalBytes;
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * Start drawing the line
+     *
+     * @param offset of the script to start from, which is not counted for the rates
+     */
+    public synchronized void start(long offset) {
+        bytes.add(offset);
+        startBytes = offset;
+        startNanos = nanoClock.getAsLong();
+        lastNanos = startNanos;
+        timer = Executors.newSingleThreadScheduledExecutor(Threads.background("progress"));
+        timer.scheduleAtFixedRate(this::draw, INTERVAL_MILLIS, INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    public void statementExecuted() {
+        statements.increment();
+    }
+
+    public void statementFailed() {
+        errors.increment();
+    }
+
+    /**
+     * @param count number of bytes of the script which have been read since last time
+     */
+    public void bytesRead(long count) {
+        bytes.add(count);
+    }
+
+    /**
+     * Clear the line while printing something else on the terminal, so it is not printed after the line
+     */
+    public synchronized void interrupt(@Nonnull Runnable print) {
+        terminal.print(CLEAR_LINE);
+        terminal.flush();
+        print.run();
+    }
+
+    private synchronized void draw() {
+        if (timer == null) {
+            // Closed while waiting to draw
+            return;
+        }
+        terminal.print(CLEAR_LINE + line(nanoClock.getAsLong()));
+        terminal.flush();
+    }
+
+    /**
+     * @return the line to show, like "1200 statements, 3.1 MB of 10.0 MB (31%), 250/s now, 200/s average, 2 errors,
+     * 28s left"
+     */
+    synchronized String line(long nanos) {
+        long executed = statements.sum();
+        long read = bytes.sum();
+        StringBuilder line = new StringBuilder();
+        line.append(executed).append(executed == 1 ? " statement, " : " statements, ").append(size(read));
+        if (totalBytes >= 0) {
+            line.append(" of ").append(size(totalBytes));
+            if (totalBytes > 0) {
+                line.append(" (").append(Math.min(100, read * 100 / totalBytes)).append("%)");
+            }
+        }
+        line.append(", ").append(rate(executed - lastStatements, nanos - lastNanos)).append("/s now, ")
+                .append(rate(executed, nanos - startNanos)).append("/s average, ")
+                .append(errors.sum()).append(errors.sum() == 1 ? " error" : " errors");
+        long readSinceStart = read - startBytes;
+        if (totalBytes >= 0 && readSinceStart > 0) {
+            long left = Math.max(0, totalBytes - read);
+            line.append(", ").append(duration((long) ((double) left * (nanos - startNanos) / readSinceStart)))
+                    .append(" left");
+        }
+        lastNanos = nanos;
+        lastStatements = executed;
+        return line.toString();
+    }
+
+    private static long rate(long count, long nanos) {
+        return nanos <= 0 ? 0 : count * TimeUnit.SECONDS.toNanos(1) / nanos;
+    }
+
+    @Nonnull
+    private static String size(long bytes) {
+        if (bytes < 1024) {
+            return bytes + " B";
+        } else if (bytes < 1024 * 1024) {
+            return String.format("%.1f kB", bytes / 1024.0);
+        } else if (bytes < 1024L * 1024 * 1024) {
+            return String.format("%.1f MB", bytes / (1024.0 * 1024));
+        }
+        return String.format("%.1f GB", bytes / (1024.0 * 1024 * 1024));
+    }
+
+    @Nonnull
+    private static String duration(long nanos) {
+        long seconds = TimeUnit.NANOSECONDS.toSeconds(nanos);
+        if (seconds < 60) {
+            return seconds + "s";
+        } else if (seconds < 3600) {
+            return String.format("%dm%02ds", seconds / 60, seconds % 60);
+        }
+        return String.format("%dh%02dm", seconds / 3600, seconds % 3600 / 60);
+    }
+
+    /**
+     * Stop drawing the line, and clear it
+     */
+    @Override
+    public synchronized void close() {
+        if (timer != null) {
+            timer.shutdownNow();
+            timer = null;
+            terminal.print(CLEAR_LINE);
+            terminal.flush();
+        }
+    }
+}
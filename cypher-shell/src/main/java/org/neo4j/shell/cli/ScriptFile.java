@@ -0,0 +1,132 @@
+package org.neo4j.shell.cli;
+
+import javax.annotation.Nonnull;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PushbackInputStream;
+import java.io.PushbackReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Opens UTF-8 script files for reading. Files compressed with gzip are recognised by their first bytes, and are
+ * decompressed while they are read, on a thread of their own if there is more than one processor. Plain regular files
+ * are read with a {@link MappedFileReader}.
+ */
+public class ScriptFile {
+    private static final int GZIP_MAGIC_1 = 0x1f;
+    private static final int GZIP_MAGIC_2 = 0x8b;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final char BYTE_ORDER_MARK = '\uFEFF';
+    private static final byte[] BYTE_ORDER_MARK_BYTES = {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF};
+
+    private ScriptFile() {
+    }
+
+    @Nonnull
+    public static Reader open(@Nonnull File file) throws IOException {
+        return open(file, 0);
+    }
+
+    /**
+     * @param file       to read
+     * @param textOffset number of bytes of text to skip, not counting a byte order mark. Plain files seek straight
+     *                   to it, compressed files are decompressed up to it.
+     */
+    @Nonnull
+    public static Reader open(@Nonnull File file, long textOffset) throws IOException {
+        return open(file, textOffset, Runtime.getRuntime().availableProcessors() > 1);
+    }
+
+    /**
+     * @param file         to read
+     * @param textOffset   number of bytes of text to skip, not counting a byte order mark
+     * @param inBackground true to decompress gzip files on a thread of their own
+     */
+    @Nonnull
+    static Reader open(@Nonnull File file, long textOffset, boolean inBackground) throws IOException {
+        PushbackInputStream in = new PushbackInputStream(new FileInputStream(file), 2);
+        try {
+            boolean gzip = startsWithGzipMagic(in);
+            if (!gzip && Files.isRegularFile(file.toPath())) {
+                in.close();
+                MappedFileReader reader = new MappedFileReader(file);
+                reader.seek(textOffset);
+                return reader;
+            }
+            InputStream bytes = gzip ? new GZIPInputStream(in, BUFFER_SIZE) : in;
+            if (textOffset > 0) {
+                bytes = skipText(bytes, textOffset);
+            }
+            Reader reader = new InputStreamReader(bytes, StandardCharsets.UTF_8);
+            if (gzip && inBackground) {
+                reader = new BackgroundReader(reader);
+            }
+            return textOffset > 0 ? reader : skipByteOrderMark(reader);
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Skip a byte order mark and the given number of bytes after it
+     */
+    @Nonnull
+    private static InputStream skipText(@Nonnull InputStream in, long textOffset) throws IOException {
+        PushbackInputStream bytes = new PushbackInputStream(in, BYTE_ORDER_MARK_BYTES.length);
+        byte[] start = new byte[BYTE_ORDER_MARK_BYTES.length];
+        int read = 0;
+        int n;
+        while (read < start.length && (n = bytes.read(start, read, start.length - read)) > 0) {
+            read += n;
+        }
+        if (read < start.length || !Arrays.equals(start, BYTE_ORDER_MARK_BYTES)) {
+            bytes.unread(start, 0, read);
+        }
+        long remaining = textOffset;
+        while (remaining > 0) {
+            long skipped = bytes.skip(remaining);
+            if (skipped <= 0) {
+                if (bytes.read() < 0) {
+                    break;
+                }
+                skipped = 1;
+            }
+            remaining -= skipped;
+        }
+        return bytes;
+    }
+
+    /**
+     * Check the first two bytes of the stream, and put them back
+     */
+    private static boolean startsWithGzipMagic(@Nonnull PushbackInputStream in) throws IOException {
+        int first = in.read();
+        if (first < 0) {
+            return false;
+        }
+        int second = in.read();
+        if (second >= 0) {
+            in.unread(second);
+        }
+        in.unread(first);
+        return first == GZIP_MAGIC_1 && second == GZIP_MAGIC_2;
+    }
+
+    @Nonnull
+    private static Reader skipByteOrderMark(@Nonnull Reader reader) throws IOException {
+        PushbackReader pushbackReader = new PushbackReader(reader);
+        int first = pushbackReader.read();
+        if (first >= 0 && first != BYTE_ORDER_MARK) {
+            pushbackReader.unread(first);
+        }
+        return pushbackReader;
+    }
+}
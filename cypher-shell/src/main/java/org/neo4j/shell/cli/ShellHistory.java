@@ -0,0 +1,196 @@
+package org.neo4j.shell.cli;
+
+import jline.console.history.MemoryHistory;
+import org.neo4j.shell.Historian;
+
+import javax.annotation.Nonnull;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.ListIterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+/**
+ * The history of the interactive shell, which is kept in memory and saved to a file.
+ * <p>
+ * At most {@link #MAX_ENTRIES} entries are kept, and entries longer than {@link #MAX_ENTRY_LENGTH} characters, like
+ * pasted bulk statements, are cut short, so neither the heap nor the file grow with what has been typed. An entry
+ * which has been cut short is marked with text which is not Cypher, and is not run again. Every entry
+ * is indexed by its words, so a search only looks at the entries which contain the rarest of the words searched for.
+ * Entries are numbered from 1 like {@code !N} numbers them, which keeps counting up as old entries are dropped.
+ */
+public class ShellHistory extends MemoryHistory {
+    public static final int MAX_ENTRIES = DEFAULT_MAX_SIZE;
+    public static final int MAX_ENTRY_LENGTH = 4096;
+    private static final Pattern ELIDED = Pattern.compile("\u2026\\[\\d+ more characters cut from the history]");
+
+    private final File file;
+    // Word -> indexes of the entries which contain it, oldest first. Dropped entries are pruned now and then.
+    private final Map<String, Deque<Integer>> postings = new HashMap<>();
+    private int addedSincePrune = 0;
+
+    /**
+     * A history which is only kept in memory
+     */
+    public ShellHistory() {
+        this.file = null;
+        setMaxSize(MAX_ENTRIES);
+    }
+
+    /**
+     * A history which is loaded from the file, if it exists, and saved to it by {@link #flush()}
+     */
+    public ShellHistory(@Nonnull File file) throws IOException {
+        this.file = file;
+        setMaxSize(MAX_ENTRIES);
+        if (file.exists()) {
+            try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    add(line);
+                }
+            }
+        }
+    }
+
+    /**
+     * Save the history to its file, if it has one
+     */
+    public void flush() throws IOException {
+        if (file == null) {
+            return;
+        }
+        try (BufferedWriter writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+            for (Entry entry : this) {
+                writer.write(entry.value().toString());
+                writer.newLine();
+            }
+        }
+    }
+
+    @Override
+    public void add(CharSequence item) {
+        CharSequence entry = elide(item);
+        int added = first() + size();
+        super.add(entry);
+        // Repeated entries are not added again
+        if (first() + size() == added) {
+            return;
+        }
+        for (String word : Historian.words(entry)) {
+            postings.computeIfAbsent(word, w -> new ArrayDeque<>()).addLast(added);
+        }
+        if (++addedSincePrune >= getMaxSize()) {
+            prune();
+        }
+    }
+
+    @Override
+    public void clear() {
+        super.clear();
+        postings.clear();
+        addedSincePrune = 0;
+    }
+
+    /**
+     * @return the last count entries, by their numbers
+     */
+    @Nonnull
+    public SortedMap<Integer, String> last(int count) {
+        SortedMap<Integer, String> last = new TreeMap<>();
+        if (isEmpty() || count < 1) {
+            return last;
+        }
+        int first = first();
+        ListIterator<Entry> entries = entries(Math.max(first, first + size() - count));
+        while (entries.hasNext()) {
+            Entry entry = entries.next();
+            last.put(entry.index() + 1, entry.value().toString());
+        }
+        return last;
+    }
+
+    /**
+     * @return the entries which contain all the words of the terms, by their numbers
+     */
+    @Nonnull
+    public SortedMap<Integer, String> search(@Nonnull String terms) {
+        SortedMap<Integer, String> found = new TreeMap<>();
+        Set<String> words = Historian.words(terms);
+        if (words.isEmpty() || isEmpty()) {
+            return found;
+        }
+        Deque<Integer> rarest = null;
+        for (String word : words) {
+            Deque<Integer> entries = postings.get(word);
+            if (entries == null) {
+                return found;
+            }
+            if (rarest == null || entries.size() < rarest.size()) {
+                rarest = entries;
+            }
+        }
+        int first = first();
+        int last = first + size() - 1;
+        for (int i : rarest) {
+            if (i < first || i > last) {
+                continue;
+            }
+            // Entries can be replaced, so the index only tells where to look
+            String entry = get(i).toString();
+            if (Historian.words(entry).containsAll(words)) {
+                found.put(i + 1, entry);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * @return the index of the oldest entry
+     */
+    private int first() {
+        return isEmpty() ? index() : entries().next().index();
+    }
+
+    private void prune() {
+        int first = first();
+        Iterator<Deque<Integer>> words = postings.values().iterator();
+        while (words.hasNext()) {
+            Deque<Integer> entries = words.next();
+            while (!entries.isEmpty() && entries.peekFirst() < first) {
+                entries.pollFirst();
+            }
+            if (entries.isEmpty()) {
+                words.remove();
+            }
+        }
+        addedSincePrune = 0;
+    }
+
+    @Nonnull
+    static CharSequence elide(@Nonnull CharSequence item) {
+        if (item.length() <= MAX_ENTRY_LENGTH) {
+            return item;
+        }
+        return item.subSequence(0, MAX_ENTRY_LENGTH) + "\u2026[" + (item.length() - MAX_ENTRY_LENGTH) +
+                " more characters cut from the history]";
+    }
+
+    /**
+     * @return true if the statement has been recalled from an entry which was cut short
+     */
+    public static boolean isElided(@Nonnull String statement) {
+        return ELIDED.matcher(statement).find();
+    }
+}
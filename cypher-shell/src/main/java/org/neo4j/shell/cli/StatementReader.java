@@ -0,0 +1,180 @@
+package org.neo4j.shell.cli;
+
+import org.neo4j.shell.parser.StatementParser;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reads statements from a script in large chunks. The lines of a chunk are handed to the parser without copying them,
+ * and line endings are made plain newlines like when reading lines with {@link java.io.BufferedReader}.
+ * <p>
+ * For every statement it also tells where to resume reading the script after it, see {@link ResumePoint}. Offsets
+ * are counted in bytes of UTF-8 text, not counting a byte order mark.
+ */
+public class StatementReader {
+    static final int CHUNK_SIZE = 64 * 1024;
+
+    private final Reader reader;
+    private final StatementParser statementParser;
+    private char[] buffer = new char[CHUNK_SIZE];
+    // Number of characters in the buffer, and how many of them are complete lines which have been parsed
+    private int length = 0;
+    private int parsed = 0;
+    private boolean endOfInput = false;
+    // Offset of the text after the parsed lines, and of the last line end at which no statement was incomplete
+    private long parsedOffset;
+    private long boundaryOffset;
+    private int statementsSinceBoundary = 0;
+    private List<String> statements = new ArrayList<>();
+    private List<ResumePoint> resumePoints = new ArrayList<>();
+
+    public StatementReader(@Nonnull Reader reader, @Nonnull StatementParser statementParser) {
+        this(reader, statementParser, 0);
+    }
+
+    /**
+     * @param startOffset offset in the script at which the reader starts, which must be at the start of a line
+     */
+    public StatementReader(@Nonnull Reader reader, @Nonnull StatementParser statementParser, long startOffset) {
+        this.reader = reader;
+        this.statementParser = statementParser;
+        this.parsedOffset = startOffset;
+        this.boundaryOffset = startOffset;
+    }
+
+    /**
+     * Read and parse the next chunk of the script
+     *
+     * @return the statements which were completed by the chunk, which may be none, or null at the end of the script
+     */
+    @Nullable
+    public List<String> read() throws IOException {
+        if (endOfInput) {
+            return null;
+        }
+        // Keep the incomplete last line, and make room for more if it fills the whole buffer
+        length -= parsed;
+        System.arraycopy(buffer, parsed, buffer, 0, length);
+        parsed = 0;
+        if (length == buffer.length) {
+            buffer = Arrays.copyOf(buffer, 2 * buffer.length);
+        }
+        int read = reader.read(buffer, length, buffer.length - length);
+        if (read < 0) {
+            endOfInput = true;
+            if (length > 0) {
+                // The last line does not end with a newline
+                if (length == buffer.length) {
+                    buffer = Arrays.copyOf(buffer, buffer.length + 1);
+                }
+                buffer[length++] = '\n';
+            }
+        } else {
+            length += read;
+        }
+        statements = new ArrayList<>();
+        resumePoints = new ArrayList<>();
+        parsed = parseLines();
+        return statements;
+    }
+
+    /**
+     * @return offset in the script of the text after the lines which have been parsed
+     */
+    public long getOffset() {
+        return parsedOffset;
+    }
+
+    /**
+     * @param index of a statement returned by the last {@link #read()}
+     * @return where to resume the script right after the statement
+     */
+    @Nonnull
+    public ResumePoint getResumePoint(int index) {
+        return resumePoints.get(index);
+    }
+
+    /**
+     * Parse the complete lines at the start of the buffer
+     *
+     * @return number of characters which were parsed
+     */
+    private int parseLines() {
+        CharBuffer text = CharBuffer.wrap(buffer, 0, length);
+        int start = 0;
+        for (int i = 0; i < length; i++) {
+            if (buffer[i] == '\n') {
+                int end = i + 1;
+                if (i > start && buffer[i - 1] == '\r') {
+                    buffer[i - 1] = '\n';
+                    end = i;
+                }
+                statementParser.parseMoreText(text, start, end);
+                parsedOffset += utf8Length(start, i + 1);
+                start = i + 1;
+                if (statementParser.hasStatements()) {
+                    for (String statement : statementParser.consumeStatements()) {
+                        statements.add(statement);
+                        resumePoints.add(new ResumePoint(boundaryOffset, ++statementsSinceBoundary));
+                    }
+                }
+                if (!statementParser.containsText()) {
+                    boundaryOffset = parsedOffset;
+                    statementsSinceBoundary = 0;
+                }
+            }
+        }
+        return start;
+    }
+
+    /**
+     * @return number of bytes the characters take up in UTF-8
+     */
+    private long utf8Length(int start, int end) {
+        long length = end - start;
+        for (int i = start; i < end; i++) {
+            char c = buffer[i];
+            if (c >= 0x80) {
+                // Each half of a surrogate pair counts for two of the four bytes of the pair
+                length += c < 0x800 || Character.isSurrogate(c) ? 1 : 2;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Where to resume reading a script after a statement: from the start of a line at which no statement was
+     * incomplete, skipping the statements which follow it up to and including the statement. Resuming from a line
+     * start means nothing before it has to be read or parsed again.
+     */
+    public static class ResumePoint {
+        private final long offset;
+        private final int skip;
+
+        public ResumePoint(long offset, int skip) {
+            this.offset = offset;
+            this.skip = skip;
+        }
+
+        /**
+         * @return the offset of the line to resume reading from
+         */
+        public long getOffset() {
+            return offset;
+        }
+
+        /**
+         * @return the number of statements to skip after the offset
+         */
+        public int getSkip() {
+            return skip;
+        }
+    }
+}
@@ -3,6 +3,7 @@ package org.neo4j.shell.cli;
 import org.neo4j.shell.Historian;
 import org.neo4j.shell.ShellRunner;
 import org.neo4j.shell.StatementExecuter;
+import org.neo4j.shell.exception.QueryTimeoutException;
 import org.neo4j.shell.log.Logger;
 
 import javax.annotation.Nonnull;
@@ -34,6 +35,9 @@ public class StringShellRunner implements ShellRunner {
         int exitCode = 0;
         try {
             executer.execute(cypher.trim());
+        } catch (QueryTimeoutException e) {
+            logger.printError(e);
+            exitCode = QueryTimeoutException.EXIT_CODE;
         } catch (Throwable t) {
             logger.printError(t);
             exitCode = 1;
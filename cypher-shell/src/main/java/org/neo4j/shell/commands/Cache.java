@@ -0,0 +1,111 @@
+package org.neo4j.shell.commands;
+
+import org.neo4j.shell.exception.CommandException;
+import org.neo4j.shell.exception.ExitException;
+import org.neo4j.shell.log.Logger;
+import org.neo4j.shell.state.ResultCache;
+
+import javax.annotation.Nonnull;
+import java.util.Collections;
+import java.util.List;
+
+import static org.neo4j.shell.commands.CommandHelper.simpleArgParse;
+import static org.neo4j.shell.commands.CommandHelper.usageError;
+
+/**
+ * This command manages the client side cache of results from read only statements.
+ */
+public class Cache implements Command {
+    public static final String COMMAND_NAME = ":cache";
+    private final Logger logger;
+    private final ResultCache resultCache;
+
+    public Cache(@Nonnull final Logger logger, @Nonnull final ResultCache resultCache) {
+        this.logger = logger;
+        this.resultCache = resultCache;
+    }
+
+    @Nonnull
+    @Override
+    public String getName() {
+        return COMMAND_NAME;
+    }
+
+    @Nonnull
+    @Override
+    public String getDescription() {
+        return "Manage the cache of query results";
+    }
+
+    @Nonnull
+    @Override
+    public String getUsage() {
+        return "[on|off|stats|clear]";
+    }
+
+    @Nonnull
+    @Override
+    public String getHelp() {
+        return "Turn the client side cache of results from read only queries on or off, print its statistics, or " +
+                "clear it. Cached results are reused when the same query is run again with the same parameters, " +
+                "until they expire or a query updates the database.";
+    }
+
+    @Nonnull
+    @Override
+    public List<String> getAliases() {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public void execute(@Nonnull final String argString) throws ExitException, CommandException {
+        String[] args = simpleArgParse(argString, 0, 1, COMMAND_NAME, getUsage());
+        String action = args.length == 0 ? "stats" : args[0];
+        switch (action) {
+            case "on":
+                resultCache.setEnabled(true);
+                break;
+            case "off":
+                resultCache.setEnabled(false);
+                break;
+            case "clear":
+                resultCache.clear();
+                break;
+            case "stats":
+                printStats();
+                break;
+            default:
+                throw usageError(this, "Unknown action: " + action);
+        }
+    }
+
+    private void printStats() {
+        long lookups = resultCache.hits() + resultCache.misses();
+        double hitRatio = lookups == 0 ? 0.0 : 100.0 * resultCache.hits() / lookups;
+        logger.printOut(String.format("Result cache is %s%n" +
+                        "  entries       %d%n" +
+                        "  size          %s of %s%n" +
+                        "  time to live  %ds%n" +
+                        "  hits          %d (%.1f%%)%n" +
+                        "  misses        %d%n" +
+                        "  evictions     %d%n" +
+                        "  invalidations %d",
+                resultCache.isEnabled() ? "on" : "off",
+                resultCache.size(),
+                humanReadableBytes(resultCache.bytes()), humanReadableBytes(resultCache.maxBytes()),
+                resultCache.ttlSeconds(),
+                resultCache.hits(), hitRatio,
+                resultCache.misses(),
+                resultCache.evictions(),
+                resultCache.invalidations()));
+    }
+
+    @Nonnull
+    static String humanReadableBytes(long bytes) {
+        if (bytes < 1024) {
+            return bytes + " B";
+        }
+        int unit = (63 - Long.numberOfLeadingZeros(bytes)) / 10;
+        return String.format("%.1f %sB", (double) bytes / (1L << (unit * 10)), " KMGTPE".charAt(unit));
+    }
+}
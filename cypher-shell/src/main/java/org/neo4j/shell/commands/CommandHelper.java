@@ -2,15 +2,23 @@ package org.neo4j.shell.commands;
 
 import org.neo4j.shell.CypherShell;
 import org.neo4j.shell.Historian;
+import org.neo4j.shell.RowLimit;
+import org.neo4j.shell.SnapshotHandler;
+import org.neo4j.shell.StatementExecuter;
 import org.neo4j.shell.TransactionHandler;
 import org.neo4j.shell.VariableHolder;
 import org.neo4j.shell.exception.CommandException;
 import org.neo4j.shell.exception.DuplicateCommandException;
 import org.neo4j.shell.log.AnsiFormattedText;
 import org.neo4j.shell.log.Logger;
+import org.neo4j.shell.state.BulkImporter;
+import org.neo4j.shell.state.GraphDumper;
+import org.neo4j.shell.state.ResultCache;
+import org.neo4j.shell.state.StatementWatchdog;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.TreeMap;
 import java.util.stream.Collectors;
@@ -22,11 +30,16 @@ public class CommandHelper {
     private final TreeMap<String, Command> commands = new TreeMap<>();
 
     public CommandHelper(Logger logger, Historian historian, CypherShell cypherShell) {
-        registerAllCommands(logger, historian, cypherShell, cypherShell);
+        registerAllCommands(logger, historian, cypherShell, cypherShell, cypherShell.getResultCache(),
+                cypherShell.getBulkImporter(), cypherShell.getGraphDumper(), cypherShell, cypherShell,
+                cypherShell.getStatementWatchdog(), cypherShell);
     }
 
     private void registerAllCommands(Logger logger, Historian historian,
-                                     TransactionHandler transactionHandler, VariableHolder variableHolder) {
+                                     TransactionHandler transactionHandler, VariableHolder variableHolder,
+                                     ResultCache resultCache, BulkImporter bulkImporter, GraphDumper graphDumper,
+                                     StatementExecuter statementExecuter, RowLimit rowLimit,
+                                     StatementWatchdog statementWatchdog, SnapshotHandler snapshotHandler) {
         registerCommand(new Exit(logger));
         registerCommand(new Help(logger, this));
         registerCommand(new History(logger, historian));
@@ -35,6 +48,13 @@ public class CommandHelper {
         registerCommand(new Rollback(transactionHandler));
         registerCommand(new Param(variableHolder));
         registerCommand(new Params(logger, variableHolder));
+        registerCommand(new Cache(logger, resultCache));
+        registerCommand(new Import(logger, bulkImporter, variableHolder));
+        registerCommand(new Dump(logger, graphDumper, variableHolder));
+        registerCommand(new Source(statementExecuter));
+        registerCommand(new MaxRows(logger, rowLimit));
+        registerCommand(new Timeout(logger, statementWatchdog));
+        registerCommand(new Snapshot(logger, snapshotHandler));
     }
 
     private void registerCommand(@Nonnull final Command command) throws DuplicateCommandException {
@@ -72,6 +92,14 @@ public class CommandHelper {
         return commands.values().stream().distinct().collect(Collectors.toList());
     }
 
+    /**
+     * Get the names and aliases of all registered commands, in sorted order
+     */
+    @Nonnull
+    public List<String> getAllCommandNames() {
+        return new ArrayList<>(commands.keySet());
+    }
+
     /**
      * Split an argument string on whitespace
      */
@@ -97,10 +125,40 @@ public class CommandHelper {
         }
 
         if (args.length < minCount || args.length > maxCount) {
-            throw new CommandException(AnsiFormattedText.from("Incorrect number of arguments.\nusage: ")
-                    .bold().append(commandName).boldOff().append(" ").append(usage));
+            throw usageError("Incorrect number of arguments.", commandName, usage);
         }
 
         return args;
     }
+
+    /**
+     * Parse the value of an option which must be a positive integer, like --batch-size 1000
+     */
+    public static int positiveInteger(@Nonnull final Command command, @Nonnull final String option,
+                                      @Nonnull final String value) throws CommandException {
+        try {
+            int number = Integer.parseInt(value);
+            if (number > 0) {
+                return number;
+            }
+        } catch (NumberFormatException ignored) {
+            // Reported below
+        }
+        throw usageError(command, "--" + option + " must be a positive integer, got: " + value);
+    }
+
+    /**
+     * @return an error which tells what is wrong with the arguments, and how the command is used
+     */
+    @Nonnull
+    public static CommandException usageError(@Nonnull final Command command, @Nonnull final String message) {
+        return usageError(message, command.getName(), command.getUsage());
+    }
+
+    @Nonnull
+    private static CommandException usageError(@Nonnull final String message, @Nonnull final String commandName,
+                                               @Nonnull final String usage) {
+        return new CommandException(AnsiFormattedText.from(message + "\nusage: ")
+                .bold().append(commandName).boldOff().append(" ").append(usage));
+    }
 }
@@ -0,0 +1,171 @@
+package org.neo4j.shell.commands;
+
+import org.neo4j.driver.v1.Value;
+import org.neo4j.shell.VariableHolder;
+import org.neo4j.shell.exception.CommandException;
+import org.neo4j.shell.exception.ExitException;
+import org.neo4j.shell.log.Logger;
+import org.neo4j.shell.parser.ReferencedParameters;
+import org.neo4j.shell.state.GraphDumper;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
+
+import static org.neo4j.shell.commands.CommandHelper.positiveInteger;
+import static org.neo4j.shell.commands.CommandHelper.usageError;
+
+/**
+ * This command writes the graph, or part of it, as a Cypher script which recreates it.
+ */
+public class Dump implements Command {
+    public static final String COMMAND_NAME = ":dump";
+    private static final Pattern argPattern = Pattern.compile("^\\s*(?<options>(--[a-z-]+\\s+\\S+(\\s+|$))*)" +
+            "(?<query>\\S.*?)?(?<trailing>(\\s+--[a-z-]+\\s+\\S+)*)\\s*$", Pattern.DOTALL);
+    private static final Pattern optionPattern = Pattern.compile("--(?<name>[a-z-]+)\\s+(?<value>\\S+)");
+    private static final int WRITE_BUFFER_SIZE = 256 * 1024;
+    private final Logger logger;
+    private final GraphDumper graphDumper;
+    private final VariableHolder variableHolder;
+
+    public Dump(@Nonnull final Logger logger, @Nonnull final GraphDumper graphDumper,
+                @Nonnull final VariableHolder variableHolder) {
+        this.logger = logger;
+        this.graphDumper = graphDumper;
+        this.variableHolder = variableHolder;
+    }
+
+    @Nonnull
+    @Override
+    public String getName() {
+        return COMMAND_NAME;
+    }
+
+    @Nonnull
+    @Override
+    public String getDescription() {
+        return "Write the graph as a Cypher script";
+    }
+
+    @Nonnull
+    @Override
+    public String getUsage() {
+        return "[query] [--batch-size n] [--parallel n] [--output file]";
+    }
+
+    @Nonnull
+    @Override
+    public String getHelp() {
+        return "Write a Cypher script which recreates the graph, or the nodes, relationships and paths the query " +
+                "returns. For example: " + COMMAND_NAME + " MATCH (p:Person)-[r]->(q:Person) RETURN p, r, q " +
+                "--output people.cypher. Nodes and relationships are created by UNWIND statements of up to " +
+                GraphDumper.DEFAULT_BATCH_SIZE + " rows, and the indexes and constraints of the database are " +
+                "created at the end. The script is printed unless it is written to a file, which is compressed " +
+                "with gzip if its name ends with .gz. Run it with cypher-shell --file. With --parallel the whole " +
+                "graph is read by several sessions at the same time, each reading a range of the ids.";
+    }
+
+    @Nonnull
+    @Override
+    public List<String> getAliases() {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public void execute(@Nonnull final String argString) throws ExitException, CommandException {
+        Matcher matcher = argPattern.matcher(argString);
+        if (!matcher.matches()) {
+            throw usageError(this, "Incorrect number of arguments.");
+        }
+        int batchSize = GraphDumper.DEFAULT_BATCH_SIZE;
+        int parallelism = 1;
+        String output = null;
+        Matcher options = optionPattern.matcher(matcher.group("options") + matcher.group("trailing"));
+        while (options.find()) {
+            switch (options.group("name")) {
+                case "batch-size":
+                    batchSize = positiveInteger(this, options.group("name"), options.group("value"));
+                    break;
+                case "parallel":
+                    parallelism = positiveInteger(this, options.group("name"), options.group("value"));
+                    break;
+                case "output":
+                    output = options.group("value");
+                    break;
+                default:
+                    throw usageError(this, "Unknown option: --" + options.group("name"));
+            }
+        }
+        String query = matcher.group("query");
+        if (query != null && parallelism > 1) {
+            throw usageError(this, "Only the whole graph can be dumped in parallel.");
+        }
+        dump(query, batchSize, parallelism, output);
+    }
+
+    /**
+     * @param query       which returns what to dump, or null to dump the whole graph
+     * @param parallelism number of partitions the whole graph is read in at the same time
+     * @param output      file to write the script to, or null to print it
+     */
+    public void dump(@Nullable String query, int batchSize, int parallelism, @Nullable String output)
+            throws CommandException {
+        if (output == null) {
+            try {
+                write(query, batchSize, parallelism, logger::printOut);
+            } catch (IOException e) {
+                // Printing does not fail
+                throw new CommandException(e.getMessage());
+            }
+            return;
+        }
+        GraphDumper.Dumped dumped;
+        try (Writer writer = open(output)) {
+            dumped = write(query, batchSize, parallelism, statement -> {
+                writer.write(statement);
+                writer.write('\n');
+            });
+        } catch (IOException e) {
+            throw new CommandException("Could not write " + output + ": " + e.getMessage());
+        }
+        logger.printOut(String.format("Dumped %d nodes and %d relationships to %s",
+                dumped.nodes(), dumped.relationships(), output));
+    }
+
+    @Nonnull
+    private GraphDumper.Dumped write(@Nullable String query, int batchSize, int parallelism,
+                                     @Nonnull GraphDumper.Output output) throws CommandException, IOException {
+        if (parallelism > 1) {
+            // Progress goes to stderr, as the script itself may be printed on stdout
+            return graphDumper.dumpPartitioned(parallelism, batchSize, output,
+                    progress -> logger.printError(String.format("Partition %d/%d: %d nodes, %d relationships%s",
+                            progress.partition(), progress.partitions(), progress.nodes(), progress.relationships(),
+                            progress.done() ? ", done" : "")));
+        }
+        Map<String, Value> params = query == null ? Collections.emptyMap() :
+                new ReferencedParameters().select(query, variableHolder.getAll());
+        return graphDumper.dump(query, params, batchSize, output);
+    }
+
+    @Nonnull
+    private static Writer open(@Nonnull String output) throws IOException {
+        if (output.endsWith(".gz")) {
+            return new BufferedWriter(new OutputStreamWriter(new GZIPOutputStream(
+                    Files.newOutputStream(Paths.get(output)), WRITE_BUFFER_SIZE), StandardCharsets.UTF_8));
+        }
+        return new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(Paths.get(output)),
+                StandardCharsets.UTF_8), WRITE_BUFFER_SIZE);
+    }
+}
@@ -8,14 +8,18 @@ import org.neo4j.shell.log.Logger;
 import javax.annotation.Nonnull;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
 
 import static org.neo4j.shell.commands.CommandHelper.simpleArgParse;
+import static org.neo4j.shell.commands.CommandHelper.usageError;
 
 /**
  * Show command history
  */
 public class History implements Command {
     private static final String COMMAND_NAME = ":history";
+    private static final int DEFAULT_LINE_COUNT = 16;
 
     private final Logger logger;
     private final Historian historian;
@@ -41,13 +45,15 @@ public class History implements Command {
     @Nonnull
     @Override
     public String getUsage() {
-        return "";
+        return "[N | search <words>]";
     }
 
     @Nonnull
     @Override
     public String getHelp() {
-        return "Prints a list of the last commands executed.";
+        return "Prints a list of the last " + DEFAULT_LINE_COUNT + " commands executed, or of the last N commands. " +
+                COMMAND_NAME + " search <words> prints the commands which contain all of the words, ignoring case. " +
+                "Commands can be executed again with !N.";
     }
 
     @Nonnull
@@ -58,33 +64,36 @@ public class History implements Command {
 
     @Override
     public void execute(@Nonnull String argString) throws ExitException, CommandException {
-        simpleArgParse(argString, 0, COMMAND_NAME, getUsage());
-
-        // Calculate starting position
-        int lineCount = 16;
-
-        logger.printOut(printHistory(historian.getHistory(), lineCount));
+        String[] args = simpleArgParse(argString, 0, Integer.MAX_VALUE, COMMAND_NAME, getUsage());
+
+        if (args.length == 0) {
+            logger.printOut(printHistory(historian.getLast(DEFAULT_LINE_COUNT)));
+        } else if (args.length == 1 && args[0].matches("[1-9][0-9]{0,8}")) {
+            logger.printOut(printHistory(historian.getLast(Integer.parseInt(args[0]))));
+        } else if (args.length > 1 && "search".equals(args[0])) {
+            String terms = argString.trim().substring("search".length());
+            logger.printOut(printHistory(historian.search(terms)));
+        } else {
+            throw usageError(this, "Incorrect number of arguments.");
+        }
     }
 
     /**
-     * Prints N last lines of history.
-     *
-     * @param lineCount number of entries to print
+     * Prints entries of history, by the numbers they are executed again with.
      */
-    private String printHistory(@Nonnull final List<String> history, final int lineCount) {
-        // for alignment, check the string length of history size
-        int colWidth = Integer.toString(history.size()).length();
+    private String printHistory(@Nonnull final SortedMap<Integer, String> history) {
+        if (history.isEmpty()) {
+            return "";
+        }
+        // for alignment, check the string length of the highest number
+        int colWidth = Integer.toString(history.lastKey()).length();
         String fmt = " %-" + colWidth + "d  %s\n";
 
-        String result = "";
-        int count = 0;
-
-        for (int i = history.size() - 1; i >= 0 && count < lineCount; i--, count++) {
-            String line = history.get(i);
-            // Executing old commands with !N actually starts from 1, and not 0, hence increment index by one
-            result = String.format(fmt, i + 1, line) + result;
+        StringBuilder result = new StringBuilder();
+        for (Map.Entry<Integer, String> entry : history.entrySet()) {
+            result.append(String.format(fmt, entry.getKey(), entry.getValue()));
         }
 
-        return result;
+        return result.toString();
     }
 }
@@ -0,0 +1,119 @@
+package org.neo4j.shell.commands;
+
+import org.neo4j.driver.v1.Value;
+import org.neo4j.shell.VariableHolder;
+import org.neo4j.shell.exception.CommandException;
+import org.neo4j.shell.exception.ExitException;
+import org.neo4j.shell.log.Logger;
+import org.neo4j.shell.parser.ReferencedParameters;
+import org.neo4j.shell.parser.RowReader;
+import org.neo4j.shell.state.BulkImporter;
+
+import javax.annotation.Nonnull;
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.neo4j.shell.commands.CommandHelper.positiveInteger;
+import static org.neo4j.shell.commands.CommandHelper.usageError;
+
+/**
+ * This command imports rows from a local CSV or JSON Lines file, by running a query for every batch of rows.
+ */
+public class Import implements Command {
+    public static final String COMMAND_NAME = ":import";
+    private static final Pattern argPattern = Pattern.compile(
+            "^\\s*(?<options>(--[a-z-]+\\s+\\S+\\s+)*)(?<file>\\S+)\\s+(?<query>\\S.*?)\\s*$", Pattern.DOTALL);
+    private static final Pattern optionPattern = Pattern.compile("--(?<name>[a-z-]+)\\s+(?<value>\\S+)");
+    private final Logger logger;
+    private final BulkImporter bulkImporter;
+    private final VariableHolder variableHolder;
+
+    public Import(@Nonnull final Logger logger, @Nonnull final BulkImporter bulkImporter,
+                  @Nonnull final VariableHolder variableHolder) {
+        this.logger = logger;
+        this.bulkImporter = bulkImporter;
+        this.variableHolder = variableHolder;
+    }
+
+    @Nonnull
+    @Override
+    public String getName() {
+        return COMMAND_NAME;
+    }
+
+    @Nonnull
+    @Override
+    public String getDescription() {
+        return "Import rows from a local CSV or JSON Lines file";
+    }
+
+    @Nonnull
+    @Override
+    public String getUsage() {
+        return "[--batch-size n] [--parallel n] <file> <query>";
+    }
+
+    @Nonnull
+    @Override
+    public String getHelp() {
+        return "Read rows from a local file and run the query for every batch of rows, with the rows in the " +
+                "parameter $" + BulkImporter.BATCH_PARAMETER + ". For example: " + COMMAND_NAME +
+                " people.csv UNWIND $batch AS row CREATE (:Person {name: row.name}). Rows of CSV files are maps " +
+                "from the column names in the header, and any other file is read as one JSON value per line. " +
+                "Every batch is committed on its own, default " + BulkImporter.DEFAULT_BATCH_SIZE + " rows, and " +
+                "batches can be sent over several sessions in parallel.";
+    }
+
+    @Nonnull
+    @Override
+    public List<String> getAliases() {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public void execute(@Nonnull final String argString) throws ExitException, CommandException {
+        Matcher matcher = argPattern.matcher(argString);
+        if (!matcher.matches()) {
+            throw usageError(this, "Incorrect number of arguments.");
+        }
+        int batchSize = BulkImporter.DEFAULT_BATCH_SIZE;
+        int parallelism = 1;
+        Matcher options = optionPattern.matcher(matcher.group("options"));
+        while (options.find()) {
+            switch (options.group("name")) {
+                case "batch-size":
+                    batchSize = positiveInteger(this, options.group("name"), options.group("value"));
+                    break;
+                case "parallel":
+                    parallelism = positiveInteger(this, options.group("name"), options.group("value"));
+                    break;
+                default:
+                    throw usageError(this, "Unknown option: --" + options.group("name"));
+            }
+        }
+        importFile(new File(matcher.group("file")), matcher.group("query"), batchSize, parallelism);
+    }
+
+    /**
+     * Import the rows of a file, printing progress while importing and a summary at the end
+     */
+    public void importFile(@Nonnull File file, @Nonnull String query, int batchSize, int parallelism)
+            throws CommandException {
+        Map<String, Value> params = new ReferencedParameters().select(query, variableHolder.getAll());
+        BulkImporter.Progress result;
+        try (RowReader rows = RowReader.open(file)) {
+            result = bulkImporter.run(rows, query, params, batchSize, parallelism,
+                    progress -> logger.printOut(String.format("Imported %d rows (%d rows/s)",
+                            progress.rows(), progress.rowsPerSecond())));
+        } catch (IOException e) {
+            throw new CommandException("Could not read " + file + ": " + e.getMessage());
+        }
+        logger.printOut(String.format("Imported %d rows in %.1f s (%d rows/s)",
+                result.rows(), result.elapsedSeconds(), result.rowsPerSecond()));
+    }
+}
@@ -0,0 +1,79 @@
+package org.neo4j.shell.commands;
+
+import org.neo4j.shell.RowLimit;
+import org.neo4j.shell.exception.CommandException;
+import org.neo4j.shell.exception.ExitException;
+import org.neo4j.shell.log.Logger;
+
+import javax.annotation.Nonnull;
+import java.util.Collections;
+import java.util.List;
+
+import static org.neo4j.shell.commands.CommandHelper.simpleArgParse;
+import static org.neo4j.shell.commands.CommandHelper.usageError;
+
+/**
+ * This command shows or changes the most records of a result which are shown.
+ */
+public class MaxRows implements Command {
+    public static final String COMMAND_NAME = ":maxrows";
+    private final Logger logger;
+    private final RowLimit rowLimit;
+
+    public MaxRows(@Nonnull final Logger logger, @Nonnull final RowLimit rowLimit) {
+        this.logger = logger;
+        this.rowLimit = rowLimit;
+    }
+
+    @Nonnull
+    @Override
+    public String getName() {
+        return COMMAND_NAME;
+    }
+
+    @Nonnull
+    @Override
+    public String getDescription() {
+        return "Show or set the most rows of a result to show";
+    }
+
+    @Nonnull
+    @Override
+    public String getUsage() {
+        return "[rows]";
+    }
+
+    @Nonnull
+    @Override
+    public String getHelp() {
+        return "Limit the number of rows which are shown of each result, 0 for no limit. When a result has more " +
+                "rows, the shell stops reading it and the rest is discarded. Without an argument, the current " +
+                "limit is printed.";
+    }
+
+    @Nonnull
+    @Override
+    public List<String> getAliases() {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public void execute(@Nonnull final String argString) throws ExitException, CommandException {
+        String[] args = simpleArgParse(argString, 0, 1, COMMAND_NAME, getUsage());
+        if (args.length == 0) {
+            int maxRows = rowLimit.getMaxRows();
+            logger.printOut(maxRows == 0 ? "No row limit" : "Showing at most " + maxRows + " rows");
+            return;
+        }
+        int maxRows;
+        try {
+            maxRows = Integer.parseInt(args[0]);
+        } catch (NumberFormatException e) {
+            maxRows = -1;
+        }
+        if (maxRows < 0) {
+            throw usageError(this, "Not a number of rows: " + args[0]);
+        }
+        rowLimit.setMaxRows(maxRows);
+    }
+}
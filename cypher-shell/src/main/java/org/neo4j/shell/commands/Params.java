@@ -1,28 +1,34 @@
 package org.neo4j.shell.commands;
 
+import org.neo4j.driver.v1.Value;
 import org.neo4j.shell.VariableHolder;
 import org.neo4j.shell.exception.CommandException;
 import org.neo4j.shell.exception.ExitException;
 import org.neo4j.shell.log.Logger;
+import org.neo4j.shell.parser.ParamFileParser;
 import org.neo4j.shell.prettyprint.CypherVariablesFormatter;
 
 import javax.annotation.Nonnull;
+import java.io.File;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 import static org.neo4j.shell.commands.CommandHelper.simpleArgParse;
+import static org.neo4j.shell.commands.CommandHelper.usageError;
 import static org.neo4j.shell.prettyprint.CypherVariablesFormatter.escape;
 
 /**
- * This lists all query parameters which have been set
+ * This lists all query parameters which have been set, or loads them from a file
  */
 public class Params implements Command {
     public static final String COMMAND_NAME = ":params";
     private final Logger logger;
     private final VariableHolder variableHolder;
+    private static final String LOAD = "load";
     private static final Pattern backtickPattern = Pattern.compile("^\\s*(?<key>(`([^`])*`)+?)\\s*");
 
     public Params(@Nonnull Logger logger, @Nonnull VariableHolder variableHolder) {
@@ -39,19 +45,22 @@ public class Params implements Command {
     @Nonnull
     @Override
     public String getDescription() {
-        return "Prints all currently set query parameters and their values";
+        return "Prints all currently set query parameters and their values, or loads them from a file";
     }
 
     @Nonnull
     @Override
     public String getUsage() {
-        return "[parameter]";
+        return "[parameter] | load <file> [parameter]";
     }
 
     @Nonnull
     @Override
     public String getHelp() {
-        return "Print a table of all currently set query parameters or the value for the given parameter";
+        return "Print a table of all currently set query parameters or the value for the given parameter. " +
+                "With load, set parameters from a JSON or CSV file: the keys of a JSON object become parameters, " +
+                "and the rows of a CSV file become a list of maps named after the file. If a parameter name is " +
+                "given, the whole file is assigned to it.";
     }
 
     @Nonnull
@@ -67,8 +76,12 @@ public class Params implements Command {
         if (trim.startsWith("`") && matcher.matches()) {
             listParam(trim);
         } else {
-            String[] args = simpleArgParse(argString, 0, 1, COMMAND_NAME, getUsage());
-            if (args.length > 0) {
+            String[] args = simpleArgParse(argString, 0, 3, COMMAND_NAME, getUsage());
+            if (args.length > 1 && LOAD.equals(args[0])) {
+                load(args);
+            } else if (args.length > 1) {
+                throw usageError(this, "Incorrect number of arguments.");
+            } else if (args.length > 0) {
                 listParam(args[0]);
             } else {
                 listAllParams();
@@ -76,12 +89,20 @@ public class Params implements Command {
         }
     }
 
+    private void load(@Nonnull String[] args) throws CommandException {
+        String name = args.length > 2 ? CypherVariablesFormatter.unescapedCypherVariable(args[2]) : null;
+        Map<String, Value> params = ParamFileParser.parse(new File(args[1]), name);
+        variableHolder.setAll(params);
+        logger.printOut("Loaded " + params.size() + (params.size() == 1 ? " parameter" : " parameters") +
+                " from " + args[1]);
+    }
+
     private void listParam(@Nonnull String name) throws CommandException {
         String parameterName = CypherVariablesFormatter.unescapedCypherVariable(name);
         if (!variableHolder.getAll().containsKey(parameterName)) {
             throw new CommandException("Unknown parameter: " + name);
         }
-        listParam(name.length(), name, variableHolder.getAll().get(parameterName));
+        listParam(name.length(), name, variableHolder.getAll().get(parameterName).asObject());
     }
 
     private void listParam(int leftColWidth, @Nonnull String key, @Nonnull Object value) {
@@ -93,6 +114,6 @@ public class Params implements Command {
 
         int leftColWidth = keys.stream().map((s) -> escape(s).length()).reduce(0, Math::max);
 
-        keys.stream().forEach(k -> listParam(leftColWidth, escape(k), variableHolder.getAll().get(k)));
+        keys.stream().forEach(k -> listParam(leftColWidth, escape(k), variableHolder.getAll().get(k).asObject()));
     }
 }
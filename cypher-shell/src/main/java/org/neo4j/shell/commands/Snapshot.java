@@ -0,0 +1,189 @@
+package org.neo4j.shell.commands;
+
+import org.neo4j.driver.v1.Record;
+import org.neo4j.driver.v1.summary.ResultSummary;
+import org.neo4j.shell.SnapshotHandler;
+import org.neo4j.shell.cli.Format;
+import org.neo4j.shell.exception.CommandException;
+import org.neo4j.shell.exception.ExitException;
+import org.neo4j.shell.log.Logger;
+import org.neo4j.shell.prettyprint.PrettyPrinter;
+import org.neo4j.shell.state.SnapshotReader;
+import org.neo4j.shell.system.Cancellation;
+
+import javax.annotation.Nonnull;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static java.lang.System.getProperty;
+import static org.neo4j.shell.commands.CommandHelper.usageError;
+
+/**
+ * This command saves the result of a query to a snapshot file, and shows saved snapshots without querying the
+ * database.
+ */
+public class Snapshot implements Command {
+    public static final String COMMAND_NAME = ":snapshot";
+    static final String EXTENSION = ".snapshot";
+    private static final Pattern savePattern =
+            Pattern.compile("^\\s*save\\s+(?<name>\\S+)\\s+(?<query>\\S.*?)\\s*$", Pattern.DOTALL);
+    private static final Pattern showPattern =
+            Pattern.compile("^\\s*show\\s+(?<name>\\S+)(\\s+--format\\s+(?<format>\\S+))?\\s*$");
+    private final Logger logger;
+    private final SnapshotHandler snapshotHandler;
+    private final File directory;
+
+    public Snapshot(@Nonnull final Logger logger, @Nonnull final SnapshotHandler snapshotHandler) {
+        this(logger, snapshotHandler, defaultDirectory());
+    }
+
+    Snapshot(@Nonnull final Logger logger, @Nonnull final SnapshotHandler snapshotHandler,
+             @Nonnull final File directory) {
+        this.logger = logger;
+        this.snapshotHandler = snapshotHandler;
+        this.directory = directory;
+    }
+
+    @Nonnull
+    private static File defaultDirectory() {
+        return new File(new File(getProperty("user.home"), ".neo4j"), "snapshots");
+    }
+
+    @Nonnull
+    @Override
+    public String getName() {
+        return COMMAND_NAME;
+    }
+
+    @Nonnull
+    @Override
+    public String getDescription() {
+        return "Save query results and show them again without querying the database";
+    }
+
+    @Nonnull
+    @Override
+    public String getUsage() {
+        return "save <name> <query> | show <name> [--format verbose|plain] | list";
+    }
+
+    @Nonnull
+    @Override
+    public String getHelp() {
+        return "Run a query once and save its result in a snapshot, which can then be shown again and again " +
+                "without querying the database. For example: " + COMMAND_NAME + " save top MATCH (n) RETURN n " +
+                "LIMIT 10, and " + COMMAND_NAME + " show top. Snapshots are kept in " + directory + ", unless " +
+                "the name is the path of a file. Results can also be saved while running statements with " +
+                "--snapshot-file.";
+    }
+
+    @Nonnull
+    @Override
+    public List<String> getAliases() {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public void execute(@Nonnull final String argString) throws ExitException, CommandException {
+        Matcher save = savePattern.matcher(argString);
+        if (save.matches()) {
+            save(fileOf(save.group("name")), save.group("query"));
+            return;
+        }
+        Matcher show = showPattern.matcher(argString);
+        if (show.matches()) {
+            show(fileOf(show.group("name")), parseFormat(show.group("format")));
+            return;
+        }
+        if (argString.trim().equals("list")) {
+            list();
+            return;
+        }
+        throw usageError(this, argString.trim().isEmpty() ? "Incorrect number of arguments." :
+                "Unknown action: " + argString.trim().split("\\s+")[0]);
+    }
+
+    /**
+     * @return the file of a snapshot, which is the name itself if it is a path
+     */
+    @Nonnull
+    File fileOf(@Nonnull String name) {
+        if (name.endsWith(EXTENSION) || name.contains("/") || name.contains(File.separator)) {
+            return new File(name);
+        }
+        return new File(directory, name + EXTENSION);
+    }
+
+    private void save(@Nonnull File file, @Nonnull String query) throws CommandException {
+        ResultSummary summary = snapshotHandler.snapshotCypher(query, file);
+        logger.printOut(String.format("Saved the result in %s (%s)", file, Cache.humanReadableBytes(file.length())));
+        String statistics = new PrettyPrinter(logger.getFormat()).formatSummary(summary);
+        if (!statistics.isEmpty()) {
+            logger.printOut(statistics);
+        }
+    }
+
+    /**
+     * Show the results of a snapshot the way they would have been shown when their statements were run. Records are
+     * read and printed one at a time, so snapshots need not fit in memory.
+     */
+    private void show(@Nonnull File file, @Nonnull Format format) throws CommandException {
+        PrettyPrinter prettyPrinter = new PrettyPrinter(format);
+        try (SnapshotReader reader = SnapshotReader.open(file)) {
+            while (reader.nextResult()) {
+                int rows = 0;
+                Record record;
+                while ((record = reader.nextRecord()) != null) {
+                    if (Cancellation.isCancelled()) {
+                        return;
+                    }
+                    if (rows++ == 0) {
+                        logger.printOut(prettyPrinter.formatKeys(reader.keys()));
+                    }
+                    logger.printOut(prettyPrinter.formatRecord(record));
+                }
+                String statistics = prettyPrinter.formatSummary(reader.summary());
+                if (!statistics.isEmpty()) {
+                    logger.printOut(statistics);
+                }
+                if (reader.isTruncated()) {
+                    logger.printError(String.format("The snapshot only holds the first %d rows of the result", rows));
+                }
+            }
+        } catch (IOException e) {
+            throw new CommandException("Could not read snapshot " + file + ": " + e.getMessage());
+        }
+    }
+
+    private void list() {
+        File[] files = directory.listFiles((dir, name) -> name.endsWith(EXTENSION));
+        if (files == null || files.length == 0) {
+            logger.printOut("There are no snapshots in " + directory);
+            return;
+        }
+        Arrays.sort(files);
+        for (File file : files) {
+            String name = file.getName();
+            logger.printOut(String.format("%s (%s)", name.substring(0, name.length() - EXTENSION.length()),
+                    Cache.humanReadableBytes(file.length())));
+        }
+    }
+
+    @Nonnull
+    private Format parseFormat(String format) throws CommandException {
+        if (format == null) {
+            return logger.getFormat();
+        }
+        for (Format candidate : Format.values()) {
+            if (candidate.name().equalsIgnoreCase(format)) {
+                return candidate;
+            }
+        }
+        throw usageError(this, "Unknown format: " + format);
+    }
+}
@@ -0,0 +1,95 @@
+package org.neo4j.shell.commands;
+
+import org.neo4j.shell.StatementExecuter;
+import org.neo4j.shell.cli.ScriptFile;
+import org.neo4j.shell.cli.StatementReader;
+import org.neo4j.shell.exception.CommandException;
+import org.neo4j.shell.exception.ExitException;
+import org.neo4j.shell.parser.ShellStatementParser;
+
+import javax.annotation.Nonnull;
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.neo4j.shell.commands.CommandHelper.usageError;
+
+/**
+ * This command executes the statements in a local script file.
+ */
+public class Source implements Command {
+    public static final String COMMAND_NAME = ":source";
+    private final StatementExecuter executer;
+    private final Set<File> sourcing = new HashSet<>();
+
+    public Source(@Nonnull final StatementExecuter executer) {
+        this.executer = executer;
+    }
+
+    @Nonnull
+    @Override
+    public String getName() {
+        return COMMAND_NAME;
+    }
+
+    @Nonnull
+    @Override
+    public String getDescription() {
+        return "Execute the statements in a local file";
+    }
+
+    @Nonnull
+    @Override
+    public String getUsage() {
+        return "<file>";
+    }
+
+    @Nonnull
+    @Override
+    public String getHelp() {
+        return "Read Cypher statements and commands from a local UTF-8 file, which may be compressed with gzip, and " +
+                "execute them one at a time. Stops at the first statement which fails.";
+    }
+
+    @Nonnull
+    @Override
+    public List<String> getAliases() {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public void execute(@Nonnull final String argString) throws ExitException, CommandException {
+        String fileName = argString.trim();
+        if (fileName.isEmpty()) {
+            throw usageError(this, "Incorrect number of arguments.");
+        }
+        File file = new File(fileName);
+        File canonicalFile;
+        try {
+            canonicalFile = file.getCanonicalFile();
+        } catch (IOException e) {
+            throw new CommandException("Could not read " + file + ": " + e.getMessage());
+        }
+        // A file which sources itself, directly or through others, would never end
+        if (!sourcing.add(canonicalFile)) {
+            throw new CommandException(file + " is already being sourced");
+        }
+        try (Reader reader = ScriptFile.open(file)) {
+            StatementReader statementReader = new StatementReader(reader, new ShellStatementParser());
+            List<String> statements;
+            while ((statements = statementReader.read()) != null) {
+                for (String statement : statements) {
+                    executer.execute(statement);
+                }
+            }
+        } catch (IOException e) {
+            throw new CommandException("Could not read " + file + ": " + e.getMessage());
+        } finally {
+            sourcing.remove(canonicalFile);
+        }
+    }
+}
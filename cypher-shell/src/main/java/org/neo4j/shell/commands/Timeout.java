@@ -0,0 +1,75 @@
+package org.neo4j.shell.commands;
+
+import org.neo4j.shell.exception.CommandException;
+import org.neo4j.shell.exception.ExitException;
+import org.neo4j.shell.log.Logger;
+import org.neo4j.shell.state.StatementWatchdog;
+
+import javax.annotation.Nonnull;
+import java.util.Collections;
+import java.util.List;
+
+import static org.neo4j.shell.commands.CommandHelper.simpleArgParse;
+import static org.neo4j.shell.commands.CommandHelper.usageError;
+
+/**
+ * This command shows or changes the longest time a statement may run for.
+ */
+public class Timeout implements Command {
+    public static final String COMMAND_NAME = ":timeout";
+    private final Logger logger;
+    private final StatementWatchdog watchdog;
+
+    public Timeout(@Nonnull final Logger logger, @Nonnull final StatementWatchdog watchdog) {
+        this.logger = logger;
+        this.watchdog = watchdog;
+    }
+
+    @Nonnull
+    @Override
+    public String getName() {
+        return COMMAND_NAME;
+    }
+
+    @Nonnull
+    @Override
+    public String getDescription() {
+        return "Show or set the query timeout";
+    }
+
+    @Nonnull
+    @Override
+    public String getUsage() {
+        return "[duration]";
+    }
+
+    @Nonnull
+    @Override
+    public String getHelp() {
+        return "Stop statements which run for longer than a duration, like 500ms, 30s, 5m or 2h, by resetting the " +
+                "session. A plain number is a number of seconds, and 0 turns the timeout off. Without an argument, " +
+                "the current timeout is printed.";
+    }
+
+    @Nonnull
+    @Override
+    public List<String> getAliases() {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public void execute(@Nonnull final String argString) throws ExitException, CommandException {
+        String[] args = simpleArgParse(argString, 0, 1, COMMAND_NAME, getUsage());
+        if (args.length == 0) {
+            long timeout = watchdog.getTimeout();
+            logger.printOut(timeout == 0 ? "No query timeout" :
+                    "Query timeout is " + StatementWatchdog.formatTimeout(timeout));
+            return;
+        }
+        try {
+            watchdog.setTimeout(StatementWatchdog.parseTimeout(args[0]));
+        } catch (IllegalArgumentException e) {
+            throw usageError(this, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package org.neo4j.shell.completion;
+
+import jline.console.completer.Completer;
+import org.neo4j.shell.CypherShell;
+import org.neo4j.shell.VariableHolder;
+import org.neo4j.shell.commands.CommandHelper;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.function.Supplier;
+
+/**
+ * Completes shell commands, parameter names, labels, relationship types, property keys and procedure names. All
+ * lookups are made against in-memory data, the schema is fetched in the background by the {@link SchemaCache}.
+ */
+public class CypherCompleter implements Completer {
+    // More than this and the user needs to type a longer prefix anyway
+    static final int MAX_CANDIDATES = 500;
+    private static final String CALL = "CALL";
+
+    private final Supplier<Collection<String>> commandNames;
+    private final VariableHolder variableHolder;
+    private final SchemaCache schemaCache;
+
+    public CypherCompleter(@Nonnull CypherShell cypherShell) {
+        this(() -> {
+            CommandHelper commandHelper = cypherShell.getCommandHelper();
+            return commandHelper == null ? Collections.emptyList() : commandHelper.getAllCommandNames();
+        }, cypherShell, cypherShell.getSchemaCache());
+        // Start fetching right away, so the schema is likely there by the time the user first hits tab
+        schemaCache.refreshIfStale();
+    }
+
+    CypherCompleter(@Nonnull Supplier<Collection<String>> commandNames,
+                    @Nonnull VariableHolder variableHolder,
+                    @Nonnull SchemaCache schemaCache) {
+        this.commandNames = commandNames;
+        this.variableHolder = variableHolder;
+        this.schemaCache = schemaCache;
+    }
+
+    /**
+     * @param buffer     the text of the current line
+     * @param cursor     position of the cursor in the line
+     * @param candidates list to add completions to
+     * @return the position in the line where the completions should be inserted, or -1 if there are none
+     */
+    @Override
+    public int complete(@Nullable String buffer, int cursor, @Nonnull List<CharSequence> candidates) {
+        String text = buffer == null ? "" : buffer.substring(0, Math.min(cursor, buffer.length()));
+
+        String trimmed = text.trim();
+        if (trimmed.startsWith(":") && !trimmed.contains(" ") && text.endsWith(trimmed)) {
+            return addCandidates(candidates, matching(commandNames.get(), trimmed), text.length() - trimmed.length());
+        }
+
+        int wordStart = wordStart(text, false);
+        String word = text.substring(wordStart);
+        char before = wordStart > 0 ? text.charAt(wordStart - 1) : ' ';
+
+        switch (before) {
+            case '$':
+                return addCandidates(candidates, matching(variableHolder.getAll().keySet(), word), wordStart);
+            case '{':
+                List<String> keysAndParams = new ArrayList<>(matching(variableHolder.getAll().keySet(), word));
+                keysAndParams.addAll(schemaCache.propertyKeys().startingWith(word, MAX_CANDIDATES));
+                return addCandidates(candidates, keysAndParams, wordStart);
+            case ':':
+            case '|':
+                PrefixTrie tokens = insideRelationship(text, wordStart) ?
+                        schemaCache.relationshipTypes() : schemaCache.labels();
+                return addCandidates(candidates, tokens.startingWith(word, MAX_CANDIDATES), wordStart);
+            default:
+                break;
+        }
+
+        // Procedure names contain dots, so look at the whole dotted name
+        int nameStart = wordStart(text, true);
+        if (CALL.equalsIgnoreCase(previousWord(text, nameStart))) {
+            return addCandidates(candidates,
+                    schemaCache.procedures().startingWith(text.substring(nameStart), MAX_CANDIDATES), nameStart);
+        }
+
+        if (before == '.') {
+            return addCandidates(candidates, schemaCache.propertyKeys().startingWith(word, MAX_CANDIDATES), wordStart);
+        }
+
+        return -1;
+    }
+
+    private static int addCandidates(@Nonnull List<CharSequence> candidates, @Nonnull Collection<String> matches,
+                                     int position) {
+        if (matches.isEmpty()) {
+            return -1;
+        }
+        // Sorted and without duplicates
+        candidates.addAll(new TreeSet<>(matches));
+        return position;
+    }
+
+    @Nonnull
+    private static List<String> matching(@Nonnull Collection<String> names, @Nonnull String prefix) {
+        List<String> result = new ArrayList<>();
+        for (String name : names) {
+            if (name.startsWith(prefix) && result.size() < MAX_CANDIDATES) {
+                result.add(name);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return index of the first character of the identifier ending at the end of the text
+     */
+    private static int wordStart(@Nonnull String text, boolean includeDots) {
+        int start = text.length();
+        while (start > 0) {
+            char c = text.charAt(start - 1);
+            if (!Character.isLetterOrDigit(c) && c != '_' && !(includeDots && c == '.')) {
+                break;
+            }
+            start--;
+        }
+        return start;
+    }
+
+    /**
+     * @return the word before the given position, skipping whitespace
+     */
+    @Nonnull
+    private static String previousWord(@Nonnull String text, int position) {
+        int end = position;
+        while (end > 0 && Character.isWhitespace(text.charAt(end - 1))) {
+            end--;
+        }
+        if (end == position) {
+            return "";
+        }
+        String before = text.substring(0, end);
+        return before.substring(wordStart(before, false));
+    }
+
+    /**
+     * @return true if the position is within the brackets of a relationship pattern, like in ()-[r:KNO
+     */
+    private static boolean insideRelationship(@Nonnull String text, int position) {
+        String before = text.substring(0, position);
+        return before.lastIndexOf('[') > Math.max(before.lastIndexOf(']'), before.lastIndexOf('('));
+    }
+}
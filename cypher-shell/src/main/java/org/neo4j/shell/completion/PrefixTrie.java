@@ -0,0 +1,106 @@
+package org.neo4j.shell.completion;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A set of words which can efficiently be searched for words starting with a given prefix. Lookups only depend on the
+ * length of the prefix and the number of matches, not on the number of words in the trie.
+ * <p>
+ * Not thread safe for writers, but a trie which is no longer modified can be shared freely once safely published.
+ */
+public class PrefixTrie {
+    private final Node root = new Node();
+    private int size = 0;
+
+    public PrefixTrie() {
+    }
+
+    public PrefixTrie(@Nonnull Collection<String> words) {
+        words.forEach(this::add);
+    }
+
+    /**
+     * @param word to add, adding a word which is already present has no effect
+     */
+    public void add(@Nonnull String word) {
+        Node node = root;
+        for (int i = 0; i < word.length(); i++) {
+            node = node.childOrCreate(word.charAt(i));
+        }
+        if (node.word == null) {
+            node.word = word;
+            size++;
+        }
+    }
+
+    public boolean contains(@Nonnull String word) {
+        Node node = find(word);
+        return node != null && node.word != null;
+    }
+
+    /**
+     * @param prefix which all returned words should start with
+     * @param limit  maximum number of words to return
+     * @return words starting with the prefix, in sorted order
+     */
+    @Nonnull
+    public List<String> startingWith(@Nonnull String prefix, int limit) {
+        List<String> result = new ArrayList<>();
+        Node node = find(prefix);
+        if (node != null) {
+            collect(node, result, limit);
+        }
+        return result;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private Node find(@Nonnull String prefix) {
+        Node node = root;
+        for (int i = 0; i < prefix.length() && node != null; i++) {
+            node = node.child(prefix.charAt(i));
+        }
+        return node;
+    }
+
+    private static void collect(@Nonnull Node node, @Nonnull List<String> result, int limit) {
+        if (result.size() >= limit) {
+            return;
+        }
+        if (node.word != null) {
+            result.add(node.word);
+        }
+        if (node.children != null) {
+            for (Node child : node.children.values()) {
+                if (result.size() >= limit) {
+                    return;
+                }
+                collect(child, result, limit);
+            }
+        }
+    }
+
+    private static class Node {
+        // Most nodes are leaves, so children are only allocated when needed
+        private Map<Character, Node> children;
+        private String word;
+
+        private Node child(char c) {
+            return children == null ? null : children.get(c);
+        }
+
+        private Node childOrCreate(char c) {
+            if (children == null) {
+                children = new TreeMap<>();
+            }
+            return children.computeIfAbsent(c, k -> new Node());
+        }
+    }
+}
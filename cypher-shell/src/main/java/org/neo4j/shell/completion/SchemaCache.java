@@ -0,0 +1,174 @@
+package org.neo4j.shell.completion;
+
+import org.neo4j.driver.v1.Record;
+import org.neo4j.driver.v1.Session;
+import org.neo4j.driver.v1.exceptions.Neo4jException;
+import org.neo4j.driver.v1.summary.StatementType;
+import org.neo4j.shell.state.BoltResult;
+import org.neo4j.shell.state.BoltStateHandler;
+import org.neo4j.shell.system.Threads;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+
+/**
+ * Caches the labels, relationship types, property keys and procedure names of the database, for use by tab
+ * completion. The schema is fetched in the background, and lookups never wait for it: until the first fetch has
+ * completed the cache is simply empty, and once it is older than its time to live a new fetch is started while the
+ * old data is still served.
+ */
+public class SchemaCache {
+    public static final long DEFAULT_TTL_SECONDS = 300;
+
+    private final Fetcher fetcher;
+    private final Executor executor;
+    private final LongSupplier nanoClock;
+    private final long ttlNanos;
+    private final AtomicBoolean fetching = new AtomicBoolean(false);
+    private volatile Schema schema = Schema.EMPTY;
+    private volatile long fetchedAt;
+    private volatile boolean stale = true;
+    private volatile boolean used = false;
+
+    public SchemaCache(@Nonnull BoltStateHandler boltStateHandler) {
+        this(() -> fetch(boltStateHandler), newDaemonExecutor(), System::nanoTime, DEFAULT_TTL_SECONDS);
+    }
+
+    SchemaCache(@Nonnull Fetcher fetcher, @Nonnull Executor executor, @Nonnull LongSupplier nanoClock,
+                long ttlSeconds) {
+        this.fetcher = fetcher;
+        this.executor = executor;
+        this.nanoClock = nanoClock;
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+    }
+
+    @Nonnull
+    public PrefixTrie labels() {
+        return current().labels;
+    }
+
+    @Nonnull
+    public PrefixTrie relationshipTypes() {
+        return current().relationshipTypes;
+    }
+
+    @Nonnull
+    public PrefixTrie propertyKeys() {
+        return current().propertyKeys;
+    }
+
+    @Nonnull
+    public PrefixTrie procedures() {
+        return current().procedures;
+    }
+
+    /**
+     * Start fetching the schema in the background, unless it is already fresh or being fetched.
+     */
+    public void refreshIfStale() {
+        used = true;
+        if ((stale || nanoClock.getAsLong() - fetchedAt > ttlNanos) && fetching.compareAndSet(false, true)) {
+            executor.execute(this::refresh);
+        }
+    }
+
+    /**
+     * Mark the schema as outdated if the given result comes from a statement which may have created new labels,
+     * relationship types or property keys. Nothing is fetched unless the cache has been used.
+     */
+    public void refreshIfChanged(@Nonnull BoltResult result) {
+        if (!used) {
+            return;
+        }
+        if (result.getSummary().counters().containsUpdates() ||
+                result.getSummary().statementType() == StatementType.SCHEMA_WRITE) {
+            stale = true;
+            refreshIfStale();
+        }
+    }
+
+    @Nonnull
+    private Schema current() {
+        refreshIfStale();
+        return schema;
+    }
+
+    private void refresh() {
+        try {
+            // Clear the flag first, so changes made while fetching trigger another fetch
+            stale = false;
+            schema = fetcher.fetch();
+            fetchedAt = nanoClock.getAsLong();
+        } catch (Throwable t) {
+            // Completion simply keeps the previous schema, and tries again when next used
+            stale = true;
+        } finally {
+            fetching.set(false);
+        }
+    }
+
+    @Nonnull
+    private static Schema fetch(@Nonnull BoltStateHandler boltStateHandler) throws Exception {
+        try (Session session = boltStateHandler.openSession()) {
+            return new Schema(
+                    new PrefixTrie(names(session, "CALL db.labels()")),
+                    new PrefixTrie(names(session, "CALL db.relationshipTypes()")),
+                    new PrefixTrie(names(session, "CALL db.propertyKeys()")),
+                    new PrefixTrie(names(session, "CALL dbms.procedures()")));
+        }
+    }
+
+    @Nonnull
+    private static List<String> names(@Nonnull Session session, @Nonnull String cypher) {
+        List<String> names = new ArrayList<>();
+        try {
+            for (Record record : session.run(cypher).list()) {
+                names.add(record.get(0).asString());
+            }
+        } catch (Neo4jException e) {
+            // For example if the user is not allowed to list procedures, then there is nothing to complete
+        }
+        return names;
+    }
+
+    @Nonnull
+    private static ExecutorService newDaemonExecutor() {
+        return Executors.newSingleThreadExecutor(Threads.background("schema-fetcher"));
+    }
+
+    /**
+     * Something which can fetch the schema of the database
+     */
+    @FunctionalInterface
+    interface Fetcher {
+        @Nonnull
+        Schema fetch() throws Exception;
+    }
+
+    /**
+     * An immutable snapshot of the schema
+     */
+    static class Schema {
+        static final Schema EMPTY = new Schema(new PrefixTrie(), new PrefixTrie(), new PrefixTrie(), new PrefixTrie());
+
+        private final PrefixTrie labels;
+        private final PrefixTrie relationshipTypes;
+        private final PrefixTrie propertyKeys;
+        private final PrefixTrie procedures;
+
+        Schema(@Nonnull PrefixTrie labels, @Nonnull PrefixTrie relationshipTypes, @Nonnull PrefixTrie propertyKeys,
+               @Nonnull PrefixTrie procedures) {
+            this.labels = labels;
+            this.relationshipTypes = relationshipTypes;
+            this.propertyKeys = propertyKeys;
+            this.procedures = procedures;
+        }
+    }
+}
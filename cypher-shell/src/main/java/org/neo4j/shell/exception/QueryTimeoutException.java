@@ -0,0 +1,17 @@
+package org.neo4j.shell.exception;
+
+import javax.annotation.Nonnull;
+
+/**
+ * An exception indicating that a statement was stopped because it ran for longer than the query timeout.
+ */
+public class QueryTimeoutException extends CommandException {
+    /**
+     * Scripts which stop because of a timeout exit with this code, like the timeout command does
+     */
+    public static final int EXIT_CODE = 124;
+
+    public QueryTimeoutException(@Nonnull String timeout) {
+        super("The statement was stopped because it ran for longer than the query timeout of " + timeout);
+    }
+}
@@ -21,6 +21,7 @@ import static org.fusesource.jansi.internal.CLibrary.isatty;
 public class AnsiLogger implements Logger {
     private final PrintStream out;
     private final PrintStream err;
+    private final PrintStream terminal;
     private final boolean debug;
     private Format format;
 
@@ -30,10 +31,19 @@ public class AnsiLogger implements Logger {
 
     public AnsiLogger(final boolean debug, @Nonnull Format format,
                       @Nonnull PrintStream out, @Nonnull PrintStream err) {
+        this(debug, format, out, err, out);
+    }
+
+    /**
+     * @param terminal to interact with the user on, when output is written somewhere else
+     */
+    public AnsiLogger(final boolean debug, @Nonnull Format format,
+                      @Nonnull PrintStream out, @Nonnull PrintStream err, @Nonnull PrintStream terminal) {
         this.debug = debug;
         this.format = format;
         this.out = out;
         this.err = err;
+        this.terminal = terminal;
 
         try {
             if (isOutputInteractive()) {
@@ -63,12 +73,46 @@ public class AnsiLogger implements Logger {
         return 1 == isatty(STDOUT_FILENO) && 1 == isatty(STDERR_FILENO);
     }
 
+    /**
+     * @return true if STDOUT is a TTY, false if it is not or if it can not be told
+     */
+    public static boolean isStdoutInteractive() {
+        return isTerminal(STDOUT_FILENO);
+    }
+
+    /**
+     * @return true if STDERR is a TTY, false if it is not or if it can not be told
+     */
+    public static boolean isStderrInteractive() {
+        return isTerminal(STDERR_FILENO);
+    }
+
+    private static boolean isTerminal(int fd) {
+        try {
+            return 1 == isatty(fd);
+        } catch (Throwable ignored) {
+            // system is not using libc (like Alpine Linux)
+            return false;
+        }
+    }
+
     @Nonnull
     @Override
     public PrintStream getOutputStream() {
         return out;
     }
 
+    @Override
+    public boolean hasOutputFailed() {
+        return out.checkError();
+    }
+
+    @Nonnull
+    @Override
+    public PrintStream getTerminalStream() {
+        return terminal;
+    }
+
     @Nonnull
     @Override
     public PrintStream getErrorStream() {
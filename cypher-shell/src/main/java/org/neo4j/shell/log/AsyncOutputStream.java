@@ -0,0 +1,201 @@
+package org.neo4j.shell.log;
+
+import org.neo4j.shell.system.Threads;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * An output stream which hands what is written to a thread of its own, which writes it to a file and optionally to
+ * the terminal as well. What has been written is handed over on every flush, and writing only blocks when the writer
+ * thread falls several megabytes behind, however small the flushed pieces are, so a slow disk or terminal does not hold up reading results from the server.
+ * <p>
+ * The writer thread writes everything it has been handed in large sequential writes. Files whose name ends with .gz
+ * are compressed with gzip.
+ */
+public class AsyncOutputStream extends OutputStream {
+    static final int CHUNK_SIZE = 64 * 1024;
+    static final int QUEUE_BYTES = 16 * 1024 * 1024;
+    private static final int BUFFER_SIZE = 256 * 1024;
+    private static final byte[] END = new byte[0];
+
+    private final OutputStream sink;
+    private final OutputStream tee;
+    private final BlockingQueue<byte[]> chunks = new LinkedBlockingQueue<>();
+    // Bytes which may still be queued, so a flush after every line does not fill the queue with a few bytes each
+    private final Semaphore queueSpace = new Semaphore(QUEUE_BYTES);
+    private final ByteArrayOutputStream pending = new ByteArrayOutputStream();
+    private final Thread writer;
+    private volatile IOException failure;
+    private boolean closed = false;
+
+    /**
+     * @param file to write to, compressed with gzip if the name ends with .gz
+     * @param tee  to also write everything to, or null
+     */
+    @Nonnull
+    public static AsyncOutputStream open(@Nonnull File file, @Nullable OutputStream tee) throws IOException {
+        OutputStream out = new FileOutputStream(file);
+        if (file.getName().toLowerCase().endsWith(".gz")) {
+            try {
+                out = new GZIPOutputStream(out, BUFFER_SIZE);
+            } catch (IOException e) {
+                out.close();
+                throw e;
+            }
+        }
+        return new AsyncOutputStream(out, tee);
+    }
+
+    AsyncOutputStream(@Nonnull OutputStream sink, @Nullable OutputStream tee) {
+        this.sink = new BufferedOutputStream(sink, BUFFER_SIZE);
+        this.tee = tee;
+        this.writer = Threads.startBackground("output-writer", this::writeChunks);
+    }
+
+    private void writeChunks() {
+        List<byte[]> batch = new ArrayList<>();
+        try {
+            while (true) {
+                batch.add(chunks.take());
+                chunks.drainTo(batch);
+                for (byte[] chunk : batch) {
+                    if (chunk == END) {
+                        sink.close();
+                        if (tee != null) {
+                            tee.flush();
+                        }
+                        return;
+                    }
+                    sink.write(chunk);
+                    if (tee != null) {
+                        tee.write(chunk);
+                    }
+                    queueSpace.release(queuedSize(chunk));
+                }
+                batch.clear();
+                // The file is only flushed when its buffer is full, but the terminal should show output right away
+                if (tee != null && chunks.isEmpty()) {
+                    tee.flush();
+                }
+            }
+        } catch (IOException e) {
+            failure = e;
+            // Free the queue and keep taking chunks, so writing never blocks on a full queue
+            queueSpace.release(QUEUE_BYTES);
+            if (!batch.contains(END)) {
+                discardUntilEnd();
+            }
+        } catch (InterruptedException e) {
+            failure = new InterruptedIOException("Interrupted while writing output");
+            queueSpace.release(QUEUE_BYTES);
+        }
+    }
+
+    private void discardUntilEnd() {
+        try {
+            byte[] chunk;
+            while ((chunk = chunks.take()) != END) {
+                queueSpace.release(queuedSize(chunk));
+            }
+        } catch (InterruptedException e) {
+            // Nothing more is written
+        }
+    }
+
+    @Override
+    public synchronized void write(int b) throws IOException {
+        checkWritable();
+        pending.write(b);
+        if (pending.size() >= CHUNK_SIZE) {
+            handOver();
+        }
+    }
+
+    @Override
+    public synchronized void write(@Nonnull byte[] b, int off, int len) throws IOException {
+        checkWritable();
+        pending.write(b, off, len);
+        if (pending.size() >= CHUNK_SIZE) {
+            handOver();
+        }
+    }
+
+    /**
+     * Hand what has been written to the writer thread, without waiting for it to be written
+     */
+    @Override
+    public synchronized void flush() throws IOException {
+        checkWritable();
+        if (pending.size() > 0) {
+            handOver();
+        }
+    }
+
+    /**
+     * Wait for everything to be written, and close the file
+     *
+     * @throws IOException if anything could not be written
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            if (pending.size() > 0) {
+                handOver();
+            }
+            chunks.put(END);
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for output to be written");
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private void checkWritable() throws IOException {
+        if (closed) {
+            throw new IOException("Output has been closed");
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private void handOver() throws IOException {
+        byte[] chunk = pending.toByteArray();
+        pending.reset();
+        try {
+            queueSpace.acquire(queuedSize(chunk));
+            chunks.put(chunk);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for output to be written");
+        }
+    }
+
+    /**
+     * @return the queue space the chunk takes, which is all of it for chunks larger than the queue
+     */
+    private static int queuedSize(@Nonnull byte[] chunk) {
+        return Math.min(chunk.length, QUEUE_BYTES);
+    }
+}
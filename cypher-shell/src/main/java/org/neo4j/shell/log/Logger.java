@@ -12,6 +12,23 @@ public interface Logger {
     @Nonnull
     PrintStream getOutputStream();
 
+    /**
+     * @return the stream to interact with the user on, which is the output stream unless output is written to a file
+     */
+    @Nonnull
+    default PrintStream getTerminalStream() {
+        return getOutputStream();
+    }
+
+    /**
+     * Output is printed through a print stream, which does not throw when writing fails
+     *
+     * @return true if writing to the output stream has failed
+     */
+    default boolean hasOutputFailed() {
+        return false;
+    }
+
     /**
      * @return the error stream
      */
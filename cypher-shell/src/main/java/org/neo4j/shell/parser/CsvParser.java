@@ -0,0 +1,161 @@
+package org.neo4j.shell.parser;
+
+import org.neo4j.driver.v1.Value;
+import org.neo4j.driver.v1.Values;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A streaming parser of CSV files with a header row. Fields may be quoted with double quotes, in which case they can
+ * contain separators and line breaks, and quotes are escaped by doubling them. Like LOAD CSV, every row becomes a map
+ * from the column names in the header to string values, and empty fields become null.
+ */
+public class CsvParser {
+    private final Reader reader;
+    private final char separator;
+    private List<String> header;
+    private int line = 1;
+    private int peeked = -2;
+
+    /**
+     * @param reader to read the file from, should be buffered
+     */
+    public CsvParser(@Nonnull Reader reader) {
+        this(reader, ',');
+    }
+
+    public CsvParser(@Nonnull Reader reader, char separator) {
+        this.reader = reader;
+        this.separator = separator;
+    }
+
+    /**
+     * @return the next row as a list of fields, or null at the end of the file
+     * @throws IOException if the file could not be read or a quoted field is not terminated
+     */
+    @Nullable
+    public List<String> nextRow() throws IOException {
+        if (line == 1 && peek() == '\uFEFF') {
+            // Byte order mark
+            read();
+        }
+        if (peek() == -1) {
+            return null;
+        }
+        List<String> fields = new ArrayList<>();
+        while (true) {
+            fields.add(field());
+            int c = read();
+            if (c == separator) {
+                continue;
+            }
+            if (c == '\r' && peek() == '\n') {
+                read();
+            }
+            return fields;
+        }
+    }
+
+    /**
+     * Read the next row as a map, using the first row of the file as header.
+     *
+     * @return a map from column name to value, or null at the end of the file
+     */
+    @Nullable
+    public Value nextMap() throws IOException {
+        if (header == null) {
+            header = nextRow();
+            if (header == null) {
+                return null;
+            }
+            if (header.contains(null)) {
+                throw new IOException("Invalid CSV on line 1: empty column name in header");
+            }
+        }
+        List<String> row;
+        do {
+            row = nextRow();
+            if (row == null) {
+                return null;
+            }
+            // Skip blank lines
+        } while (row.size() == 1 && row.get(0) == null);
+        if (row.size() > header.size()) {
+            throw new IOException("Invalid CSV on line " + (line - 1) + ": expected at most " +
+                    header.size() + " fields but found " + row.size());
+        }
+        Map<String, Object> map = new LinkedHashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            String field = i < row.size() ? row.get(i) : null;
+            map.put(header.get(i), field == null ? Values.NULL : Values.value(field));
+        }
+        return Values.value(map);
+    }
+
+    /**
+     * Read all remaining rows, using the first row as header.
+     *
+     * @return a list of maps from column name to value
+     */
+    @Nonnull
+    public Value parse() throws IOException {
+        List<Value> rows = new ArrayList<>();
+        Value row;
+        while ((row = nextMap()) != null) {
+            rows.add(row);
+        }
+        return Values.value(rows.toArray(new Value[rows.size()]));
+    }
+
+    @Nullable
+    private String field() throws IOException {
+        StringBuilder sb = new StringBuilder();
+        if (peek() == '"') {
+            read();
+            while (true) {
+                int c = read();
+                if (c == -1) {
+                    throw new IOException("Invalid CSV on line " + line + ": unterminated quoted field");
+                }
+                if (c == '"') {
+                    if (peek() != '"') {
+                        break;
+                    }
+                    read();
+                }
+                sb.append((char) c);
+            }
+        }
+        while (!isEndOfField(peek())) {
+            sb.append((char) read());
+        }
+        return sb.length() == 0 ? null : sb.toString();
+    }
+
+    private boolean isEndOfField(int c) {
+        return c == separator || c == '\n' || c == '\r' || c == -1;
+    }
+
+    private int peek() throws IOException {
+        if (peeked == -2) {
+            peeked = reader.read();
+        }
+        return peeked;
+    }
+
+    private int read() throws IOException {
+        int c = peek();
+        peeked = -2;
+        if (c == '\n') {
+            line++;
+        }
+        return c;
+    }
+}
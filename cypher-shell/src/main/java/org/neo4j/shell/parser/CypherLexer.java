@@ -0,0 +1,182 @@
+package org.neo4j.shell.parser;
+
+import javax.annotation.Nonnull;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Lexical analysis of Cypher statements which does not need a full parser. String literals, escaped identifiers and
+ * comments are skipped, so that their contents are never mistaken for code.
+ */
+public class CypherLexer {
+    // Keywords of clauses which may update the database. Procedures may update it too, and so may files being loaded
+    // with periodic commits.
+    private static final Set<String> UPDATING_KEYWORDS = new HashSet<>(Arrays.asList(
+            "create", "merge", "delete", "detach", "set", "remove", "drop", "foreach", "call", "load", "periodic"));
+
+    private CypherLexer() {
+    }
+
+    /**
+     * @param cypher a statement
+     * @return names of all parameters the statement refers to, either as $name or with the older {name} syntax
+     */
+    @Nonnull
+    public static Set<String> parameterNames(@Nonnull String cypher) {
+        Set<String> names = new LinkedHashSet<>();
+        int length = cypher.length();
+        int i = 0;
+        while (i < length) {
+            char c = cypher.charAt(i);
+            if (c == '\'' || c == '"') {
+                i = skipString(cypher, i);
+            } else if (c == '`') {
+                i = skipEscapedIdentifier(cypher, i);
+            } else if (c == '/' && i + 1 < length && cypher.charAt(i + 1) == '/') {
+                i = skipLineComment(cypher, i);
+            } else if (c == '/' && i + 1 < length && cypher.charAt(i + 1) == '*') {
+                i = skipBlockComment(cypher, i);
+            } else if (c == '$') {
+                i = readName(cypher, i + 1, names);
+            } else if (c == '{') {
+                // Only {name} is a parameter, anything else is a map which must be scanned as usual
+                int end = readName(cypher, skipWhitespace(cypher, i + 1), null);
+                end = skipWhitespace(cypher, end);
+                if (end < length && cypher.charAt(end) == '}') {
+                    readName(cypher, skipWhitespace(cypher, i + 1), names);
+                    i = end + 1;
+                } else {
+                    i++;
+                }
+            } else {
+                i++;
+            }
+        }
+        return names;
+    }
+
+    /**
+     * Decide if a statement only reads, by looking for keywords of clauses which may update the database. Names which
+     * happen to be such keywords make a statement look like it updates, so a false result only means it might update.
+     *
+     * @param cypher a statement
+     * @return true if the statement can not update the database
+     */
+    public static boolean isReadOnly(@Nonnull String cypher) {
+        int length = cypher.length();
+        int i = 0;
+        char previous = ' ';
+        while (i < length) {
+            char c = cypher.charAt(i);
+            if (c == '\'' || c == '"') {
+                i = skipString(cypher, i);
+            } else if (c == '`') {
+                i = skipEscapedIdentifier(cypher, i);
+            } else if (c == '/' && i + 1 < length && cypher.charAt(i + 1) == '/') {
+                i = skipLineComment(cypher, i);
+            } else if (c == '/' && i + 1 < length && cypher.charAt(i + 1) == '*') {
+                i = skipBlockComment(cypher, i);
+            } else if (Character.isJavaIdentifierStart(c)) {
+                int end = i;
+                while (end < length && Character.isJavaIdentifierPart(cypher.charAt(end))) {
+                    end++;
+                }
+                // Property keys, labels, types and parameters are never keywords
+                boolean name = previous == '.' || previous == ':' || previous == '$';
+                if (!name && UPDATING_KEYWORDS.contains(cypher.substring(i, end).toLowerCase(Locale.ROOT))) {
+                    return false;
+                }
+                i = end;
+            } else {
+                i++;
+            }
+            if (i > 0 && !Character.isWhitespace(cypher.charAt(i - 1))) {
+                previous = cypher.charAt(i - 1);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Read a plain or escaped name starting at the given position.
+     *
+     * @param names to add the name to, if not null and a name was found
+     * @return position after the name
+     */
+    private static int readName(@Nonnull String cypher, int start, Set<String> names) {
+        int length = cypher.length();
+        if (start < length && cypher.charAt(start) == '`') {
+            int end = skipEscapedIdentifier(cypher, start);
+            if (names != null && end > start + 2) {
+                names.add(cypher.substring(start + 1, end - 1).replace("``", "`"));
+            }
+            return end;
+        }
+        int end = start;
+        while (end < length && Character.isJavaIdentifierPart(cypher.charAt(end))) {
+            end++;
+        }
+        if (names != null && end > start) {
+            names.add(cypher.substring(start, end));
+        }
+        return end;
+    }
+
+    /**
+     * @return position after the closing quote, or the end of the text if the string is not terminated
+     */
+    private static int skipString(@Nonnull String cypher, int start) {
+        char quote = cypher.charAt(start);
+        int i = start + 1;
+        while (i < cypher.length()) {
+            char c = cypher.charAt(i);
+            if (c == '\\') {
+                i += 2;
+            } else if (c == quote) {
+                return i + 1;
+            } else {
+                i++;
+            }
+        }
+        return cypher.length();
+    }
+
+    /**
+     * @return position after the closing backtick, where doubled backticks are part of the identifier
+     */
+    private static int skipEscapedIdentifier(@Nonnull String cypher, int start) {
+        int i = start + 1;
+        while (i < cypher.length()) {
+            if (cypher.charAt(i) == '`') {
+                if (i + 1 < cypher.length() && cypher.charAt(i + 1) == '`') {
+                    i += 2;
+                    continue;
+                }
+                return i + 1;
+            }
+            i++;
+        }
+        return cypher.length();
+    }
+
+    private static int skipLineComment(@Nonnull String cypher, int start) {
+        int end = cypher.indexOf('\n', start);
+        return end < 0 ? cypher.length() : end + 1;
+    }
+
+    private static int skipBlockComment(@Nonnull String cypher, int start) {
+        int end = cypher.indexOf("*/", start + 2);
+        return end < 0 ? cypher.length() : end + 2;
+    }
+
+    private static int skipWhitespace(@Nonnull String cypher, int start) {
+        int i = start;
+        while (i < cypher.length() && Character.isWhitespace(cypher.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+}
@@ -0,0 +1,245 @@
+package org.neo4j.shell.parser;
+
+import org.neo4j.driver.v1.Value;
+import org.neo4j.driver.v1.Values;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A streaming JSON parser which reads a document straight into driver values, without holding the text in memory.
+ * Objects become maps, arrays become lists, and numbers become integers unless they have a fraction or exponent
+ * (or are too big), in which case they become floats.
+ */
+public class JsonParser {
+    private final Reader reader;
+    private int line = 1;
+    private int peeked = -2;
+
+    /**
+     * @param reader to read the document from, should be buffered
+     */
+    public JsonParser(@Nonnull Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * @return the value of the whole document
+     * @throws IOException if the document could not be read or is not valid JSON
+     */
+    @Nonnull
+    public Value parse() throws IOException {
+        Value value = value();
+        if (peekSkippingWhitespace() != -1) {
+            throw error("Unexpected content after end of document");
+        }
+        return value;
+    }
+
+    @Nonnull
+    private Value value() throws IOException {
+        int c = peekSkippingWhitespace();
+        switch (c) {
+            case '{':
+                return object();
+            case '[':
+                return array();
+            case '"':
+                return Values.value(string());
+            case 't':
+                keyword("true");
+                return Values.value(true);
+            case 'f':
+                keyword("false");
+                return Values.value(false);
+            case 'n':
+                keyword("null");
+                return Values.NULL;
+            case -1:
+                throw error("Unexpected end of document");
+            default:
+                if (c == '-' || (c >= '0' && c <= '9')) {
+                    return number();
+                }
+                throw error("Unexpected character '" + (char) c + "'");
+        }
+    }
+
+    @Nonnull
+    private Value object() throws IOException {
+        read();
+        Map<String, Object> entries = new LinkedHashMap<>();
+        if (peekSkippingWhitespace() == '}') {
+            read();
+            return Values.value(entries);
+        }
+        do {
+            if (peekSkippingWhitespace() != '"') {
+                throw error("Expected a string as key");
+            }
+            String key = string();
+            expect(':');
+            entries.put(key, value());
+        } while (acceptSeparator('}'));
+        return Values.value(entries);
+    }
+
+    @Nonnull
+    private Value array() throws IOException {
+        read();
+        List<Value> items = new ArrayList<>();
+        if (peekSkippingWhitespace() == ']') {
+            read();
+        } else {
+            do {
+                items.add(value());
+            } while (acceptSeparator(']'));
+        }
+        return Values.value(items.toArray(new Value[items.size()]));
+    }
+
+    @Nonnull
+    private String string() throws IOException {
+        read();
+        StringBuilder sb = new StringBuilder();
+        while (true) {
+            int c = read();
+            switch (c) {
+                case -1:
+                    throw error("Unterminated string");
+                case '"':
+                    return sb.toString();
+                case '\\':
+                    sb.append(escape());
+                    break;
+                default:
+                    sb.append((char) c);
+            }
+        }
+    }
+
+    private char escape() throws IOException {
+        int c = read();
+        switch (c) {
+            case '"':
+            case '\\':
+            case '/':
+                return (char) c;
+            case 'b':
+                return '\b';
+            case 'f':
+                return '\f';
+            case 'n':
+                return '\n';
+            case 'r':
+                return '\r';
+            case 't':
+                return '\t';
+            case 'u':
+                int codeUnit = 0;
+                for (int i = 0; i < 4; i++) {
+                    int digit = Character.digit(read(), 16);
+                    if (digit < 0) {
+                        throw error("Invalid unicode escape");
+                    }
+                    codeUnit = codeUnit * 16 + digit;
+                }
+                return (char) codeUnit;
+            default:
+                throw error("Invalid escape sequence");
+        }
+    }
+
+    @Nonnull
+    private Value number() throws IOException {
+        StringBuilder sb = new StringBuilder();
+        boolean isFloat = false;
+        while (true) {
+            int c = peek();
+            if (c == '.' || c == 'e' || c == 'E') {
+                isFloat = true;
+            } else if (!(c == '-' || c == '+' || (c >= '0' && c <= '9'))) {
+                break;
+            }
+            sb.append((char) read());
+        }
+        try {
+            if (!isFloat) {
+                try {
+                    return Values.value(Long.parseLong(sb.toString()));
+                } catch (NumberFormatException e) {
+                    // Too big for an integer
+                }
+            }
+            return Values.value(Double.parseDouble(sb.toString()));
+        } catch (NumberFormatException e) {
+            throw error("Invalid number '" + sb + "'");
+        }
+    }
+
+    private void keyword(@Nonnull String keyword) throws IOException {
+        for (int i = 0; i < keyword.length(); i++) {
+            if (read() != keyword.charAt(i)) {
+                throw error("Expected '" + keyword + "'");
+            }
+        }
+    }
+
+    /**
+     * @return true if there is another element, false if the closing character was read
+     */
+    private boolean acceptSeparator(char close) throws IOException {
+        int c = peekSkippingWhitespace();
+        read();
+        if (c == ',') {
+            return true;
+        }
+        if (c == close) {
+            return false;
+        }
+        throw error("Expected ',' or '" + close + "'");
+    }
+
+    private void expect(char expected) throws IOException {
+        if (peekSkippingWhitespace() != expected) {
+            throw error("Expected '" + expected + "'");
+        }
+        read();
+    }
+
+    private int peekSkippingWhitespace() throws IOException {
+        while (true) {
+            int c = peek();
+            if (c != ' ' && c != '\t' && c != '\n' && c != '\r' && c != '\uFEFF') {
+                return c;
+            }
+            read();
+        }
+    }
+
+    private int peek() throws IOException {
+        if (peeked == -2) {
+            peeked = reader.read();
+        }
+        return peeked;
+    }
+
+    private int read() throws IOException {
+        int c = peek();
+        peeked = -2;
+        if (c == '\n') {
+            line++;
+        }
+        return c;
+    }
+
+    @Nonnull
+    private IOException error(@Nonnull String message) {
+        return new IOException("Invalid JSON on line " + line + ": " + message);
+    }
+}
@@ -0,0 +1,471 @@
+package org.neo4j.shell.parser;
+
+import org.neo4j.driver.v1.Value;
+import org.neo4j.driver.v1.Values;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.neo4j.driver.internal.types.InternalTypeSystem.TYPE_SYSTEM;
+
+/**
+ * Evaluates Cypher literals on the client: numbers, strings, booleans, null, lists and maps, combined with the
+ * arithmetic operators {@code + - * / % ^} and parentheses. The resulting values have the same types as those
+ * the server would return.
+ * <p>
+ * Anything else, such as function calls, parameters, or operations whose outcome depends on the server (overflow,
+ * division by zero, mixing types), is not evaluated and should be sent to the server instead.
+ */
+public class LiteralEvaluator {
+
+    private final String text;
+    private int pos = 0;
+
+    private LiteralEvaluator(@Nonnull String text) {
+        this.text = text;
+    }
+
+    /**
+     * @param expression a Cypher expression
+     * @return the value of the expression, or empty if it could not be evaluated on the client
+     */
+    @Nonnull
+    public static Optional<Value> evaluate(@Nonnull String expression) {
+        LiteralEvaluator evaluator = new LiteralEvaluator(expression);
+        try {
+            Value value = evaluator.expression();
+            evaluator.skipWhitespace();
+            if (evaluator.pos != expression.length()) {
+                return Optional.empty();
+            }
+            return Optional.of(value);
+        } catch (NotALiteralException e) {
+            return Optional.empty();
+        }
+    }
+
+    // Precedence from lowest to highest: + -, * / %, ^, unary + -
+
+    @Nonnull
+    private Value expression() {
+        Value left = multiplicative();
+        while (true) {
+            if (accept('+')) {
+                left = add(left, multiplicative());
+            } else if (accept('-')) {
+                left = subtract(left, multiplicative());
+            } else {
+                return left;
+            }
+        }
+    }
+
+    @Nonnull
+    private Value multiplicative() {
+        Value left = power();
+        while (true) {
+            if (accept('*')) {
+                left = multiply(left, power());
+            } else if (accept('/')) {
+                left = divide(left, power());
+            } else if (accept('%')) {
+                left = modulo(left, power());
+            } else {
+                return left;
+            }
+        }
+    }
+
+    @Nonnull
+    private Value power() {
+        Value left = unary();
+        while (accept('^')) {
+            Value right = unary();
+            left = Values.value(Math.pow(asDouble(left), asDouble(right)));
+        }
+        return left;
+    }
+
+    @Nonnull
+    private Value unary() {
+        if (accept('-')) {
+            skipWhitespace();
+            if (pos < text.length() && isDigitOrDot(text.charAt(pos))) {
+                // Parsed with its sign, so that the smallest integer does not overflow
+                return number(true);
+            }
+            return negate(unary());
+        }
+        if (accept('+')) {
+            Value value = unary();
+            asDouble(value);
+            return value;
+        }
+        return atom();
+    }
+
+    @Nonnull
+    private Value atom() {
+        skipWhitespace();
+        if (pos >= text.length()) {
+            throw new NotALiteralException();
+        }
+        char c = text.charAt(pos);
+        if (c == '(') {
+            pos++;
+            Value value = expression();
+            expect(')');
+            return value;
+        }
+        if (c == '[') {
+            return list();
+        }
+        if (c == '{') {
+            return map();
+        }
+        if (c == '\'' || c == '"') {
+            return Values.value(string());
+        }
+        if (isDigitOrDot(c)) {
+            return number(false);
+        }
+        if (Character.isJavaIdentifierStart(c)) {
+            String word = identifier();
+            switch (word.toLowerCase()) {
+                case "true":
+                    return Values.value(true);
+                case "false":
+                    return Values.value(false);
+                case "null":
+                    return Values.NULL;
+                default:
+                    // A variable or a function call
+                    throw new NotALiteralException();
+            }
+        }
+        throw new NotALiteralException();
+    }
+
+    @Nonnull
+    private Value list() {
+        expect('[');
+        List<Object> items = new ArrayList<>();
+        if (!accept(']')) {
+            do {
+                items.add(expression());
+            } while (accept(','));
+            expect(']');
+        }
+        return Values.value(items);
+    }
+
+    @Nonnull
+    private Value map() {
+        expect('{');
+        Map<String, Object> entries = new LinkedHashMap<>();
+        if (!accept('}')) {
+            do {
+                skipWhitespace();
+                String key = pos < text.length() && text.charAt(pos) == '`' ? escapedIdentifier() : identifier();
+                expect(':');
+                if (entries.put(key, expression()) != null) {
+                    throw new NotALiteralException();
+                }
+            } while (accept(','));
+            expect('}');
+        }
+        return Values.value(entries);
+    }
+
+    @Nonnull
+    private Value number(boolean negative) {
+        int start = pos;
+        String sign = negative ? "-" : "";
+        try {
+            if (text.startsWith("0x", pos) || text.startsWith("0X", pos)) {
+                pos += 2;
+                int digitsStart = pos;
+                while (pos < text.length() && Character.digit(text.charAt(pos), 16) >= 0) {
+                    pos++;
+                }
+                return Values.value(Long.parseLong(sign + text.substring(digitsStart, pos), 16));
+            }
+            boolean isFloat = false;
+            skipDigits();
+            if (pos < text.length() && text.charAt(pos) == '.') {
+                isFloat = true;
+                pos++;
+                requireDigits();
+            }
+            if (pos < text.length() && (text.charAt(pos) == 'e' || text.charAt(pos) == 'E')) {
+                isFloat = true;
+                pos++;
+                if (pos < text.length() && (text.charAt(pos) == '-' || text.charAt(pos) == '+')) {
+                    pos++;
+                }
+                requireDigits();
+            }
+            if (pos < text.length() && Character.isJavaIdentifierPart(text.charAt(pos))) {
+                throw new NotALiteralException();
+            }
+            String digits = text.substring(start, pos);
+            if (isFloat) {
+                double value = Double.parseDouble(sign + digits);
+                if (Double.isInfinite(value)) {
+                    throw new NotALiteralException();
+                }
+                return Values.value(value);
+            }
+            if (digits.length() > 1 && digits.charAt(0) == '0') {
+                return Values.value(Long.parseLong(sign + digits.substring(1), 8));
+            }
+            return Values.value(Long.parseLong(sign + digits));
+        } catch (NumberFormatException e) {
+            // Out of range, let the server report it
+            throw new NotALiteralException();
+        }
+    }
+
+    @Nonnull
+    private String string() {
+        char quote = text.charAt(pos++);
+        StringBuilder sb = new StringBuilder();
+        while (pos < text.length()) {
+            char c = text.charAt(pos++);
+            if (c == quote) {
+                return sb.toString();
+            }
+            if (c != '\\') {
+                sb.append(c);
+                continue;
+            }
+            if (pos >= text.length()) {
+                break;
+            }
+            char escaped = text.charAt(pos++);
+            switch (escaped) {
+                case '\\':
+                case '\'':
+                case '"':
+                    sb.append(escaped);
+                    break;
+                case 'b':
+                    sb.append('\b');
+                    break;
+                case 'f':
+                    sb.append('\f');
+                    break;
+                case 'n':
+                    sb.append('\n');
+                    break;
+                case 'r':
+                    sb.append('\r');
+                    break;
+                case 't':
+                    sb.append('\t');
+                    break;
+                case 'u':
+                    sb.appendCodePoint(hexCodePoint(4));
+                    break;
+                case 'U':
+                    sb.appendCodePoint(hexCodePoint(8));
+                    break;
+                default:
+                    throw new NotALiteralException();
+            }
+        }
+        // Unterminated string
+        throw new NotALiteralException();
+    }
+
+    private int hexCodePoint(int length) {
+        if (pos + length > text.length()) {
+            throw new NotALiteralException();
+        }
+        try {
+            int codePoint = Integer.parseInt(text.substring(pos, pos + length), 16);
+            if (!Character.isValidCodePoint(codePoint)) {
+                throw new NotALiteralException();
+            }
+            pos += length;
+            return codePoint;
+        } catch (NumberFormatException e) {
+            throw new NotALiteralException();
+        }
+    }
+
+    @Nonnull
+    private String identifier() {
+        skipWhitespace();
+        if (pos >= text.length() || !Character.isJavaIdentifierStart(text.charAt(pos))) {
+            throw new NotALiteralException();
+        }
+        int start = pos;
+        while (pos < text.length() && Character.isJavaIdentifierPart(text.charAt(pos))) {
+            pos++;
+        }
+        return text.substring(start, pos);
+    }
+
+    @Nonnull
+    private String escapedIdentifier() {
+        StringBuilder sb = new StringBuilder();
+        pos++;
+        while (pos < text.length()) {
+            char c = text.charAt(pos++);
+            if (c != '`') {
+                sb.append(c);
+            } else if (pos < text.length() && text.charAt(pos) == '`') {
+                // Escaped backtick
+                sb.append(c);
+                pos++;
+            } else {
+                return sb.toString();
+            }
+        }
+        throw new NotALiteralException();
+    }
+
+    private void skipDigits() {
+        while (pos < text.length() && Character.isDigit(text.charAt(pos))) {
+            pos++;
+        }
+    }
+
+    private void requireDigits() {
+        int start = pos;
+        skipDigits();
+        if (pos == start) {
+            throw new NotALiteralException();
+        }
+    }
+
+    private void skipWhitespace() {
+        while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) {
+            pos++;
+        }
+    }
+
+    private boolean accept(char c) {
+        skipWhitespace();
+        if (pos < text.length() && text.charAt(pos) == c) {
+            pos++;
+            return true;
+        }
+        return false;
+    }
+
+    private void expect(char c) {
+        if (!accept(c)) {
+            throw new NotALiteralException();
+        }
+    }
+
+    private static boolean isDigitOrDot(char c) {
+        return Character.isDigit(c) || c == '.';
+    }
+
+    // Arithmetic, following the typing rules of Cypher: integers stay integers, anything involving a float is a float
+
+    @Nonnull
+    private static Value add(@Nonnull Value left, @Nonnull Value right) {
+        if (isString(left) && isString(right)) {
+            return Values.value(left.asString() + right.asString());
+        }
+        try {
+            return isInteger(left) && isInteger(right) ?
+                    Values.value(Math.addExact(left.asLong(), right.asLong())) :
+                    Values.value(asDouble(left) + asDouble(right));
+        } catch (ArithmeticException e) {
+            throw new NotALiteralException();
+        }
+    }
+
+    @Nonnull
+    private static Value subtract(@Nonnull Value left, @Nonnull Value right) {
+        try {
+            return isInteger(left) && isInteger(right) ?
+                    Values.value(Math.subtractExact(left.asLong(), right.asLong())) :
+                    Values.value(asDouble(left) - asDouble(right));
+        } catch (ArithmeticException e) {
+            throw new NotALiteralException();
+        }
+    }
+
+    @Nonnull
+    private static Value multiply(@Nonnull Value left, @Nonnull Value right) {
+        try {
+            return isInteger(left) && isInteger(right) ?
+                    Values.value(Math.multiplyExact(left.asLong(), right.asLong())) :
+                    Values.value(asDouble(left) * asDouble(right));
+        } catch (ArithmeticException e) {
+            throw new NotALiteralException();
+        }
+    }
+
+    @Nonnull
+    private static Value divide(@Nonnull Value left, @Nonnull Value right) {
+        if (asDouble(right) == 0.0) {
+            throw new NotALiteralException();
+        }
+        if (isInteger(left) && isInteger(right)) {
+            if (left.asLong() == Long.MIN_VALUE && right.asLong() == -1) {
+                throw new NotALiteralException();
+            }
+            return Values.value(left.asLong() / right.asLong());
+        }
+        return Values.value(asDouble(left) / asDouble(right));
+    }
+
+    @Nonnull
+    private static Value modulo(@Nonnull Value left, @Nonnull Value right) {
+        if (asDouble(right) == 0.0) {
+            throw new NotALiteralException();
+        }
+        return isInteger(left) && isInteger(right) ?
+                Values.value(left.asLong() % right.asLong()) :
+                Values.value(asDouble(left) % asDouble(right));
+    }
+
+    @Nonnull
+    private static Value negate(@Nonnull Value value) {
+        if (isInteger(value)) {
+            if (value.asLong() == Long.MIN_VALUE) {
+                throw new NotALiteralException();
+            }
+            return Values.value(-value.asLong());
+        }
+        return Values.value(-asDouble(value));
+    }
+
+    private static double asDouble(@Nonnull Value value) {
+        if (isInteger(value)) {
+            return value.asLong();
+        }
+        if (value.hasType(TYPE_SYSTEM.FLOAT())) {
+            return value.asDouble();
+        }
+        throw new NotALiteralException();
+    }
+
+    private static boolean isInteger(@Nonnull Value value) {
+        return value.hasType(TYPE_SYSTEM.INTEGER());
+    }
+
+    private static boolean isString(@Nonnull Value value) {
+        return value.hasType(TYPE_SYSTEM.STRING());
+    }
+
+    /**
+     * Thrown to abandon evaluation when the expression is not something the client can evaluate
+     */
+    private static class NotALiteralException extends RuntimeException {
+        NotALiteralException() {
+            super(null, null, false, false);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package org.neo4j.shell.parser;
+
+import org.neo4j.driver.v1.Value;
+import org.neo4j.driver.v1.exceptions.value.Uncoercible;
+import org.neo4j.shell.exception.CommandException;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Reads query parameters from JSON or CSV files. The format is decided by the file extension, anything which does
+ * not end with .csv is read as JSON.
+ * <p>
+ * A JSON document is either assigned to the given parameter name, or if no name is given it must be an object whose
+ * keys become the parameter names. A CSV file becomes a list of maps, one per row, assigned to the given parameter
+ * name or else to the name of the file without its extension.
+ */
+public class ParamFileParser {
+
+    private ParamFileParser() {
+    }
+
+    /**
+     * @param file to read
+     * @param name of the parameter to assign the contents of the file to, or null to derive the name(s)
+     * @return the parameters read from the file
+     */
+    @Nonnull
+    public static Map<String, Value> parse(@Nonnull File file, @Nullable String name) throws CommandException {
+        boolean isCsv = file.getName().toLowerCase().endsWith(".csv");
+        try (Reader reader = new BufferedReader(
+                new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+            if (isCsv) {
+                return Collections.singletonMap(name == null ? baseName(file) : name, new CsvParser(reader).parse());
+            }
+            Value document = new JsonParser(reader).parse();
+            if (name != null) {
+                return Collections.singletonMap(name, document);
+            }
+            try {
+                return document.asMap(value -> value);
+            } catch (Uncoercible e) {
+                throw new CommandException("Expected a JSON object in " + file +
+                        ", or give a parameter name to assign the document to");
+            }
+        } catch (IOException e) {
+            throw new CommandException("Could not read parameters from " + file + ": " + e.getMessage());
+        }
+    }
+
+    @Nonnull
+    private static String baseName(@Nonnull File file) {
+        String fileName = file.getName();
+        int dot = fileName.lastIndexOf('.');
+        return dot > 0 ? fileName.substring(0, dot) : fileName;
+    }
+}
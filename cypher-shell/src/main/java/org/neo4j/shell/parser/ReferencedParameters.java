@@ -0,0 +1,64 @@
+package org.neo4j.shell.parser;
+
+import org.neo4j.driver.v1.Value;
+
+import javax.annotation.Nonnull;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Selects the query parameters a statement refers to, so that large parameters are only sent with the statements
+ * which use them. The names referred to by recently run statements are cached, since scripts tend to run the same
+ * statement text many times.
+ */
+public class ReferencedParameters {
+    public static final int DEFAULT_CACHE_SIZE = 1000;
+
+    private final Map<String, Set<String>> cache;
+
+    public ReferencedParameters() {
+        this(DEFAULT_CACHE_SIZE);
+    }
+
+    ReferencedParameters(final int cacheSize) {
+        // Access ordered, evicting the least recently used statement
+        this.cache = new LinkedHashMap<String, Set<String>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Set<String>> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    /**
+     * @param cypher a statement
+     * @param params all parameters which have been set
+     * @return the parameters the statement refers to
+     */
+    @Nonnull
+    public Map<String, Value> select(@Nonnull String cypher, @Nonnull Map<String, Value> params) {
+        if (params.isEmpty()) {
+            return params;
+        }
+        Set<String> names = namesIn(cypher);
+        Map<String, Value> selected = new HashMap<>();
+        for (String name : names) {
+            Value value = params.get(name);
+            if (value != null) {
+                selected.put(name, value);
+            }
+        }
+        return selected.size() == params.size() ? params : Collections.unmodifiableMap(selected);
+    }
+
+    /**
+     * @return names of the parameters the statement refers to
+     */
+    @Nonnull
+    public synchronized Set<String> namesIn(@Nonnull String cypher) {
+        return cache.computeIfAbsent(cypher, text -> Collections.unmodifiableSet(CypherLexer.parameterNames(text)));
+    }
+}
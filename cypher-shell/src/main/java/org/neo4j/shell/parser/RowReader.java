@@ -0,0 +1,79 @@
+package org.neo4j.shell.parser;
+
+import org.neo4j.driver.v1.Value;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads rows one at a time from a file, without reading the whole file into memory.
+ */
+public interface RowReader extends Closeable {
+
+    /**
+     * @return the next row, or null at the end of the file
+     * @throws IOException if the file could not be read or parsed
+     */
+    @Nullable
+    Value next() throws IOException;
+
+    /**
+     * Open a file of rows. Files ending with .csv are read as CSV with a header row, where every row becomes a map.
+     * Anything else is read as JSON Lines, with one JSON value per line.
+     */
+    @Nonnull
+    static RowReader open(@Nonnull File file) throws IOException {
+        BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8));
+        if (file.getName().toLowerCase().endsWith(".csv")) {
+            CsvParser parser = new CsvParser(reader);
+            return new RowReader() {
+                @Nullable
+                @Override
+                public Value next() throws IOException {
+                    return parser.nextMap();
+                }
+
+                @Override
+                public void close() throws IOException {
+                    reader.close();
+                }
+            };
+        }
+        return new RowReader() {
+            private int lineNumber = 0;
+
+            @Nullable
+            @Override
+            public Value next() throws IOException {
+                String line;
+                do {
+                    line = reader.readLine();
+                    lineNumber++;
+                    if (line == null) {
+                        return null;
+                    }
+                } while (line.trim().isEmpty());
+                try {
+                    return new JsonParser(new StringReader(line)).parse();
+                } catch (IOException e) {
+                    throw new IOException("Invalid JSON on line " + lineNumber + " of " + file + ": " +
+                            e.getMessage().replaceFirst("^Invalid JSON on line 1: ", ""));
+                }
+            }
+
+            @Override
+            public void close() throws IOException {
+                reader.close();
+            }
+        };
+    }
+}
@@ -24,6 +24,8 @@ public class ShellStatementParser implements StatementParser {
     private Optional<String> awaitedRightDelimiter;
     private StringBuilder statement;
     private ArrayList<String> parsedStatements;
+    // True once non whitespace has been added to the current statement
+    private boolean statementStarted;
 
 
     public ShellStatementParser() {
@@ -40,18 +42,35 @@ public class ShellStatementParser implements StatementParser {
      */
     @Override
     public void parseMoreText(@Nonnull String line) {
+        parseMoreText(line, 0, line.length());
+    }
+
+    /**
+     * Parses a line which is part of a larger buffer, without copying it out of the buffer first. Otherwise the same
+     * as {@link #parseMoreText(String)}.
+     *
+     * @param text  containing the line
+     * @param start index of the first character of the line
+     * @param end   index after the last character of the line (including ending newline)
+     */
+    @Override
+    public void parseMoreText(@Nonnull CharSequence text, int start, int end) {
         // See if it could possibly be a shell command, only valid if not in a current statement
-        if (statementNotStarted() && shellCmdPattern.matcher(line).find()) {
-            parsedStatements.add(line);
+        if (statementNotStarted() && shellCmdPattern.matcher(text).region(start, end).find()) {
+            parsedStatements.add(text.subSequence(start, end).toString());
             return;
         }
 
         // We will guess it is cypher then
         boolean skipNext = false;
         char prev, current = (char) 0;
-        for (char c : line.toCharArray()) {
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
             // append current
             statement.append(c);
+            if (c > ' ') {
+                statementStarted = true;
+            }
             // last char shuffling
             prev = current;
             current = c;
@@ -96,6 +115,7 @@ public class ShellStatementParser implements StatementParser {
             parsedStatements.add(statement.toString());
             // start a new statement
             statement = new StringBuilder();
+            statementStarted = false;
             return true;
         }
         return false;
@@ -204,7 +224,7 @@ public class ShellStatementParser implements StatementParser {
      * @return false if a statement has not begun (non whitespace has been seen) else true
      */
     private boolean statementNotStarted() {
-        return statement.toString().trim().isEmpty();
+        return !statementStarted;
     }
 
     @Override
@@ -222,12 +242,13 @@ public class ShellStatementParser implements StatementParser {
 
     @Override
     public boolean containsText() {
-        return !statement.toString().trim().isEmpty();
+        return statementStarted;
     }
 
     @Override
     public void reset() {
         statement = new StringBuilder();
+        statementStarted = false;
         parsedStatements.clear();
         awaitedRightDelimiter = Optional.empty();
     }
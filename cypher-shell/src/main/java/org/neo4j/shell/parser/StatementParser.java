@@ -15,6 +15,17 @@ public interface StatementParser {
      */
     void parseMoreText(@Nonnull String line);
 
+    /**
+     * Parse the next line of text, which is part of a larger buffer
+     *
+     * @param text  containing the line
+     * @param start index of the first character of the line
+     * @param end   index after the last character of the line
+     */
+    default void parseMoreText(@Nonnull CharSequence text, int start, int end) {
+        parseMoreText(text.subSequence(start, end).toString());
+    }
+
     /**
      * @return true if any statements have been parsed yet, false otherwise
      */
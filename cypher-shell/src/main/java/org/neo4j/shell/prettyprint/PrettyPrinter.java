@@ -3,11 +3,13 @@ package org.neo4j.shell.prettyprint;
 import org.neo4j.driver.internal.types.TypeRepresentation;
 import org.neo4j.driver.v1.Record;
 import org.neo4j.driver.v1.Value;
+import org.neo4j.driver.v1.summary.ResultSummary;
 import org.neo4j.driver.v1.types.Node;
 import org.neo4j.driver.v1.types.Path;
 import org.neo4j.driver.v1.types.Relationship;
 import org.neo4j.shell.cli.Format;
 import org.neo4j.shell.state.BoltResult;
+import org.neo4j.shell.system.Cancellation;
 
 import javax.annotation.Nonnull;
 import java.util.ArrayList;
@@ -32,16 +34,24 @@ public class PrettyPrinter {
         this.statisticsCollector = new StatisticsCollector(format);
     }
 
+    /**
+     * Format a whole result. Formatting ends early if the current thread is cancelled, which then is expected to
+     * throw the result away.
+     */
     public String format(@Nonnull final BoltResult result) {
         StringBuilder sb = new StringBuilder();
         List<Record> records = result.getRecords();
         if (!records.isEmpty()) {
-            sb.append(records.get(0).keys().stream().collect(Collectors.joining(COMMA_SEPARATOR)));
-            sb.append("\n");
-            sb.append(records.stream().map(this::formatRecord).collect(Collectors.joining("\n")));
+            sb.append(formatKeys(records.get(0).keys()));
+            for (Record record : records) {
+                if (Cancellation.isCancelled()) {
+                    break;
+                }
+                sb.append("\n").append(formatRecord(record));
+            }
         }
 
-        String statistics = statisticsCollector.collect(result.getSummary());
+        String statistics = formatSummary(result.getSummary());
         if (!statistics.isEmpty()) {
             if (sb.length() > 0) {
                 sb.append("\n");
@@ -51,10 +61,27 @@ public class PrettyPrinter {
         return sb.toString();
     }
 
-    private String formatRecord(@Nonnull final Record record) {
+    /**
+     * @return the header line of a result with the given columns
+     */
+    public String formatKeys(@Nonnull final List<String> keys) {
+        return keys.stream().collect(Collectors.joining(COMMA_SEPARATOR));
+    }
+
+    /**
+     * @return a single line for the record
+     */
+    public String formatRecord(@Nonnull final Record record) {
         return record.values().stream().map(this::formatValue).collect(Collectors.joining(COMMA_SEPARATOR));
     }
 
+    /**
+     * @return the statistics which follow the records, which may be empty
+     */
+    public String formatSummary(@Nonnull final ResultSummary summary) {
+        return statisticsCollector.collect(summary);
+    }
+
     @Nonnull
     private String formatValue(@Nonnull final Value value) {
         TypeRepresentation type = (TypeRepresentation) value.type();
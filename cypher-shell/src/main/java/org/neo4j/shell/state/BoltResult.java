@@ -12,11 +12,19 @@ import java.util.List;
 public class BoltResult {
     private final List<Record> records;
     private final ResultSummary summary;
+    private final boolean truncated;
 
     public BoltResult(@Nonnull List<Record> records, @Nonnull ResultSummary summary) {
+        this(records, summary, false);
+    }
 
+    /**
+     * @param truncated true if the statement returned more records than those given, which were discarded
+     */
+    public BoltResult(@Nonnull List<Record> records, @Nonnull ResultSummary summary, boolean truncated) {
         this.records = records;
         this.summary = summary;
+        this.truncated = truncated;
     }
 
     @Nonnull
@@ -28,4 +36,11 @@ public class BoltResult {
     public ResultSummary getSummary() {
         return summary;
     }
+
+    /**
+     * @return true if only the first records of the result are held, the rest having been discarded
+     */
+    public boolean isTruncated() {
+        return truncated;
+    }
 }
@@ -1,15 +1,21 @@
 package org.neo4j.shell.state;
 
 import org.neo4j.driver.internal.logging.ConsoleLogging;
+import org.neo4j.driver.internal.value.MapValue;
+import org.neo4j.driver.v1.AccessMode;
 import org.neo4j.driver.v1.AuthToken;
 import org.neo4j.driver.v1.AuthTokens;
 import org.neo4j.driver.v1.Config;
 import org.neo4j.driver.v1.Driver;
 import org.neo4j.driver.v1.GraphDatabase;
+import org.neo4j.driver.v1.Record;
 import org.neo4j.driver.v1.Session;
 import org.neo4j.driver.v1.Statement;
 import org.neo4j.driver.v1.StatementResult;
 import org.neo4j.driver.v1.Transaction;
+import org.neo4j.driver.v1.Value;
+import org.neo4j.driver.v1.exceptions.ServiceUnavailableException;
+import org.neo4j.driver.v1.exceptions.SessionExpiredException;
 import org.neo4j.shell.ConnectionConfig;
 import org.neo4j.shell.Connector;
 import org.neo4j.shell.TransactionHandler;
@@ -18,25 +24,49 @@ import org.neo4j.shell.exception.CommandException;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.function.BiFunction;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 import java.util.logging.Level;
-import java.util.stream.Collectors;
 
 import static java.util.Arrays.asList;
 
 /**
  * Handles interactions with the driver
+ * <p>
+ * Pooled connections which have been idle for a while are checked before they are used again. When the connection is
+ * lost anyway, like when the server restarts, the session is marked as broken and is replaced by a new connection
+ * before the next statement. Work which failed because of it is retried by the {@link RetryPolicy}, which backs off
+ * between attempts to reconnect. Query parameters and the statements of an open transaction are kept meanwhile.
+ * <p>
+ * Only the statements of the shell replace a broken connection. Sessions opened for other threads, like those of
+ * background work, fail fast while it is broken, so the driver is never swapped out from under a running statement.
  */
 public class BoltStateHandler implements TransactionHandler, Connector {
+    static final long IDLE_LIVENESS_CHECK_SECONDS = 30;
+    static final int PIPELINE_WINDOW_STATEMENTS = 100;
+    static final long PIPELINE_WINDOW_BYTES = 16 * 1024;
     private final TriFunction<String, AuthToken, Config, Driver> driverProvider;
-    protected Driver driver;
-    protected Session session;
+    // Guards replacing the driver and session, which other threads read without it
+    private final Object connectionLock = new Object();
+    protected volatile Driver driver;
+    protected volatile Session session;
+    private ConnectionConfig connectionConfig;
+    private volatile boolean broken = false;
+    private long reconnects = 0;
     private String version;
-    private List<Statement> transactionStatements;
+    private volatile StatementBuffer transactionStatements;
+    // Guards handing the statements of a transaction over between a commit and a reset from another thread
+    private final Object transactionLock = new Object();
+    private boolean committing = false;
+    private boolean resetWhileCommitting = false;
+    private long spillThreshold = StatementBuffer.DEFAULT_SPILL_THRESHOLD_BYTES;
+    private volatile int maxRows = 0;
+    private final RetryPolicy retryPolicy = new RetryPolicy();
 
     public BoltStateHandler() {
         this(GraphDatabase::driver);
@@ -54,7 +84,7 @@ public class BoltStateHandler implements TransactionHandler, Connector {
         if (isTransactionOpen()) {
             throw new CommandException("There is already an open transaction");
         }
-        transactionStatements = new ArrayList<>();
+        transactionStatements = new StatementBuffer(spillThreshold);
     }
 
     @Override
@@ -65,8 +95,21 @@ public class BoltStateHandler implements TransactionHandler, Connector {
         if (!isTransactionOpen()) {
             throw new CommandException("There is no open transaction to commit");
         }
-        return captureResults(transactionStatements);
-
+        synchronized (transactionLock) {
+            committing = true;
+            resetWhileCommitting = false;
+        }
+        try {
+            return captureResults(transactionStatements);
+        } finally {
+            synchronized (transactionLock) {
+                committing = false;
+                if (resetWhileCommitting) {
+                    // The statements are only closed once the commit is done reading them
+                    clearTransactionStatements();
+                }
+            }
+        }
     }
 
     @Override
@@ -87,7 +130,8 @@ public class BoltStateHandler implements TransactionHandler, Connector {
 
     @Override
     public boolean isConnected() {
-        return session != null && session.isOpen();
+        // A broken session is still connected, as it is replaced before it is used again
+        return broken || session != null && session.isOpen();
     }
 
     @Override
@@ -96,22 +140,80 @@ public class BoltStateHandler implements TransactionHandler, Connector {
             throw new CommandException("Already connected");
         }
 
+        synchronized (connectionLock) {
+            try {
+                openSession(connectionConfig);
+                this.connectionConfig = connectionConfig;
+            } catch (Throwable t) {
+                try {
+                    forgetConnection();
+                    silentDisconnect();
+                } catch (Exception e) {
+                    t.addSuppressed(e);
+                }
+                throw t;
+            }
+        }
+    }
+
+    private void openSession(@Nonnull ConnectionConfig connectionConfig) {
         final AuthToken authToken = AuthTokens.basic(connectionConfig.username(), connectionConfig.password());
+        driver = getDriver(connectionConfig, authToken);
+        session = driver.session();
+        // Bug in Java driver forces us to run a statement to make it actually connect
+        StatementResult run = session.run( "RETURN 1" );
+        this.version = run.summary().server().version();
+        run.consume();
+    }
 
-        try {
-            driver = getDriver(connectionConfig, authToken);
-            session = driver.session();
-            // Bug in Java driver forces us to run a statement to make it actually connect
-            StatementResult run = session.run( "RETURN 1" );
-            this.version = run.summary().server().version();
-            run.consume();
-        } catch (Throwable t) {
+    /**
+     * Replace a broken session with a new connection, with the same settings as the first one
+     *
+     * @throws ServiceUnavailableException if the server can not be reached yet
+     */
+    private void reconnectIfBroken() {
+        if (!broken) {
+            return;
+        }
+        synchronized (connectionLock) {
+            if (!broken) {
+                return;
+            }
+            closeQuietly();
             try {
-                silentDisconnect();
-            } catch (Exception e) {
-                t.addSuppressed(e);
+                openSession(connectionConfig);
+            } catch (Throwable t) {
+                closeQuietly();
+                throw t;
             }
-            throw t;
+            broken = false;
+            reconnects++;
+        }
+    }
+
+    /**
+     * Mark the session as broken if an error tells that its connection has been lost
+     */
+    private void checkConnection(@Nonnull RuntimeException e) {
+        if (e instanceof ServiceUnavailableException || e instanceof SessionExpiredException) {
+            broken = true;
+        }
+    }
+
+    private void closeQuietly() {
+        try {
+            silentDisconnect();
+        } catch (RuntimeException ignored) {
+            // The connection is gone already
+        }
+    }
+
+    /**
+     * @return the number of times a lost connection has been replaced
+     */
+    public long getReconnects() {
+        synchronized (connectionLock) {
+            return reconnects;
         }
     }
 
@@ -134,73 +236,221 @@ public class BoltStateHandler implements TransactionHandler, Connector {
 
     @Nonnull
     public Optional<BoltResult> runCypher(@Nonnull String cypher,
-                                          @Nonnull Map<String, Object> queryParams) throws CommandException {
+                                          @Nonnull Map<String, Value> queryParams) throws CommandException {
         if (!isConnected()) {
             throw new CommandException("Not connected to Neo4j");
         }
+        // The values are used as they are, so the driver does not have to convert them again for every statement
+        Statement statement = new Statement(cypher, new MapValue(queryParams));
         if (this.transactionStatements != null) {
-            transactionStatements.add(new Statement(cypher, queryParams));
+            try {
+                transactionStatements.add(statement);
+            } catch (IOException e) {
+                throw new CommandException("Could not buffer the statement: " + e.getMessage());
+            }
             return Optional.empty();
         } else {
-            List<Statement> transactionStatements = asList(new Statement(cypher, queryParams));
+            List<Statement> transactionStatements = asList(statement);
             BoltResult boltResult = captureResults(transactionStatements).get().get(0);
             return Optional.of(boltResult);
         }
     }
 
+    /**
+     * @param maxRows the number of records to keep of each result, the rest are discarded. Zero keeps all records.
+     */
+    public void setMaxRows(int maxRows) {
+        this.maxRows = maxRows;
+    }
+
+    public int getMaxRows() {
+        return maxRows;
+    }
+
+    /**
+     * @param spillThreshold estimated number of bytes of statements of a transaction to keep in memory, after which
+     *                       they are written to a temporary file until the transaction is committed
+     */
+    void setSpillThreshold(long spillThreshold) {
+        this.spillThreshold = spillThreshold;
+    }
+
+    /**
+     * @return the policy for retrying transactions which fail with transient errors
+     */
+    @Nonnull
+    public RetryPolicy getRetryPolicy() {
+        return retryPolicy;
+    }
+
+    /**
+     * Run a statement in an auto-commit transaction, and only wait for its first record. The records are read from the
+     * returned cursor as they are needed, and the rest of them can be discarded with {@link #reset()}.
+     * <p>
+     * The statement is retried by the {@link RetryPolicy} if it fails before its first record has arrived. Once
+     * records have been returned they may have been shown, so a failure after that is never retried.
+     */
+    @Nonnull
+    public StatementResult streamCypher(@Nonnull String cypher,
+                                        @Nonnull Map<String, Value> queryParams) throws CommandException {
+        if (!isConnected()) {
+            throw new CommandException("Not connected to Neo4j");
+        }
+        if (isTransactionOpen()) {
+            throw new CommandException("Statements in an open transaction are only run when it is committed");
+        }
+        Statement statement = new Statement(cypher, new MapValue(queryParams));
+        return retryPolicy.run(() -> {
+            try {
+                reconnectIfBroken();
+                StatementResult cursor = session.run(statement);
+                // Failures of the statement arrive at the latest with its first record
+                cursor.hasNext();
+                return cursor;
+            } catch (RuntimeException e) {
+                checkConnection(e);
+                throw e;
+            }
+        });
+    }
+
+    /**
+     * Open a new session on the current connection, for work which must not interfere with the session of the shell,
+     * like work done on other threads. The caller is responsible for closing the session.
+     *
+     * @throws CommandException if the connection is lost, until a statement of the shell has replaced it
+     */
+    @Nonnull
+    public Session openSession() throws CommandException {
+        return connectedDriver().session();
+    }
+
+    /**
+     * Open a new read session on the current connection, like {@link #openSession()}, which sees at least the
+     * transactions up to the bookmark
+     */
+    @Nonnull
+    public Session openReadSession(@Nullable String bookmark) throws CommandException {
+        return connectedDriver().session(AccessMode.READ, bookmark);
+    }
+
+    @Nonnull
+    private Driver connectedDriver() throws CommandException {
+        if (!isConnected()) {
+            throw new CommandException("Not connected to Neo4j");
+        }
+        if (broken) {
+            throw new CommandException("The connection to Neo4j was lost, it is replaced by the next statement");
+        }
+        Driver currentDriver = driver;
+        if (currentDriver == null) {
+            throw new CommandException("Not connected to Neo4j");
+        }
+        return currentDriver;
+    }
+
+    /**
+     * @return the bookmark of the last transaction committed by the shell, if the server returned one
+     */
+    @Nullable
+    public String getBookmark() {
+        Session currentSession = session;
+        return currentSession == null ? null : currentSession.lastBookmark();
+    }
+
     /**
      * Disconnect from Neo4j, clearing up any session resources, but don't give any output.
      * Intended only to be used if connect fails.
      */
     void silentDisconnect() {
-        try {
-            if (session != null) {
-                session.close();
-            }
-            if (driver != null) {
-                driver.close();
+        synchronized (connectionLock) {
+            try {
+                if (session != null) {
+                    session.close();
+                }
+                if (driver != null) {
+                    driver.close();
+                }
+            } finally {
+                session = null;
+                driver = null;
             }
-        } finally {
-            session = null;
-            driver = null;
         }
     }
 
+    /**
+     * Disconnect from Neo4j for good, so a broken session is not replaced
+     */
+    private void forgetConnection() {
+        broken = false;
+        connectionConfig = null;
+    }
+
     /**
      * Reset the current session. This rolls back any open transactions.
+     * <p>
+     * This is called from other threads, like when a statement is cancelled. While a transaction is being committed
+     * only the session is reset, and the statements are left to the commit to clear once it has stopped.
      */
     public void reset() {
         if (isConnected()) {
-            session.reset();
+            Session current = session;
+            if (current != null && !broken) {
+                current.reset();
+            }
 
             // Clear current state
-            if (isTransactionOpen()) {
-                // Bolt has already rolled back the transaction but it doesn't close it properly
-                clearTransactionStatements();
+            synchronized (transactionLock) {
+                if (committing) {
+                    resetWhileCommitting = true;
+                } else if (isTransactionOpen()) {
+                    // Bolt has already rolled back the transaction but it doesn't close it properly
+                    clearTransactionStatements();
+                }
             }
         }
     }
 
-    List<Statement> getTransactionStatements() {
+    StatementBuffer getTransactionStatements() {
         return this.transactionStatements;
     }
 
     private void clearTransactionStatements() {
+        StatementBuffer statements = this.transactionStatements;
         this.transactionStatements = null;
+        if (statements != null) {
+            try {
+                statements.close();
+            } catch (IOException ignored) {
+                // The temporary file is removed on exit instead
+            }
+        }
     }
 
     private Driver getDriver(@Nonnull ConnectionConfig connectionConfig, @Nullable AuthToken authToken) {
         Config config = Config.build()
                               .withLogging(new ConsoleLogging(Level.OFF))
-                              .withEncryptionLevel(connectionConfig.encryption()).toConfig();
+                              .withEncryptionLevel(connectionConfig.encryption())
+                              // Connections dropped while idle, by a firewall say, are noticed before they are used
+                              .withConnectionLivenessCheckTimeout(IDLE_LIVENESS_CHECK_SECONDS, TimeUnit.SECONDS)
+                              // Transactions are retried by the retry policy instead, which can be configured
+                              .withMaxTransactionRetryTime(0, TimeUnit.MILLISECONDS).toConfig();
         return driverProvider.apply(connectionConfig.driverUrl(), authToken, config);
     }
 
-    private Optional<List<BoltResult>> captureResults(@Nonnull List<Statement> transactionStatements) {
-        List<BoltResult> results = executeWithRetry(transactionStatements, (statement, transaction) -> {
-            // calling list()/consume() is what actually executes cypher on the server
-            StatementResult sr = transaction.run(statement);
-            return new BoltResult(sr.list(), sr.consume());
+    private Optional<List<BoltResult>> captureResults(@Nonnull Iterable<Statement> transactionStatements) {
+        List<BoltResult> results = executeWithRetry(transactionStatements, sr -> {
+            // calling list()/consume() is what waits for the results of the cypher on the server
+            if (maxRows == 0) {
+                return new BoltResult(sr.list(), sr.consume());
+            }
+            // The rest of the records are discarded as they arrive, so they never pile up in memory
+            List<Record> records = new ArrayList<>();
+            while (records.size() < maxRows && sr.hasNext()) {
+                records.add(sr.next());
+            }
+            boolean truncated = sr.hasNext();
+            return new BoltResult(records, sr.consume(), truncated);
         });
 
         clearTransactionStatements();
@@ -210,11 +460,55 @@ public class BoltStateHandler implements TransactionHandler, Connector {
         return Optional.of(results);
     }
 
-    private List<BoltResult> executeWithRetry(List<Statement> transactionStatements, BiFunction<Statement, Transaction, BoltResult> biFunction) {
-        return session.writeTransaction(tx ->
-                transactionStatements.stream()
-                        .map(transactionStatement -> biFunction.apply(transactionStatement, tx))
-                        .collect(Collectors.toList()));
+    private List<BoltResult> executeWithRetry(Iterable<Statement> transactionStatements,
+                                              Function<StatementResult, BoltResult> collector) {
+        return retryPolicy.run(() -> {
+            try {
+                reconnectIfBroken();
+                return session.writeTransaction(tx -> runPipelined(tx, transactionStatements, collector));
+            } catch (RuntimeException e) {
+                checkConnection(e);
+                throw e;
+            }
+        });
 
     }
+
+    /**
+     * Send the statements of a transaction in windows, and only wait for the results of a window once all of its
+     * statements have been sent. The server works through them back to back, so a window costs one round trip instead
+     * of one for every statement.
+     * <p>
+     * The window is kept small enough to fit in the socket buffers, counting the estimated size of the parameters as
+     * well as the text of the statements. Otherwise sending could block while the server is blocked sending results
+     * which are not read yet. A statement which does not fit in what is left of the window is only sent once the
+     * results of the window have been read, so a statement with large parameters is sent on its own.
+     */
+    static List<BoltResult> runPipelined(@Nonnull Transaction tx, @Nonnull Iterable<Statement> statements,
+                                         @Nonnull Function<StatementResult, BoltResult> collector) {
+        List<BoltResult> results = new ArrayList<>();
+        List<StatementResult> window = new ArrayList<>(PIPELINE_WINDOW_STATEMENTS);
+        long windowBytes = 0;
+        for (Statement statement : statements) {
+            long size = StatementBuffer.estimateSize(statement);
+            if (!window.isEmpty() &&
+                    (window.size() >= PIPELINE_WINDOW_STATEMENTS || windowBytes + size > PIPELINE_WINDOW_BYTES)) {
+                collect(window, collector, results);
+                windowBytes = 0;
+            }
+            window.add(tx.run(statement));
+            windowBytes += size;
+        }
+        collect(window, collector, results);
+        return results;
+    }
+
+    private static void collect(@Nonnull List<StatementResult> window,
+                                @Nonnull Function<StatementResult, BoltResult> collector,
+                                @Nonnull List<BoltResult> results) {
+        for (StatementResult sr : window) {
+            results.add(collector.apply(sr));
+        }
+        window.clear();
+    }
 }
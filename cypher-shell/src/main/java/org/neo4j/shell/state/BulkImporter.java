@@ -0,0 +1,272 @@
+package org.neo4j.shell.state;
+
+import org.neo4j.driver.internal.value.MapValue;
+import org.neo4j.driver.v1.Session;
+import org.neo4j.driver.v1.Statement;
+import org.neo4j.driver.v1.Value;
+import org.neo4j.driver.v1.Values;
+import org.neo4j.driver.v1.summary.ResultSummary;
+import org.neo4j.driver.v1.summary.StatementType;
+import org.neo4j.shell.exception.CommandException;
+import org.neo4j.shell.parser.RowReader;
+import org.neo4j.shell.system.Cancellation;
+import org.neo4j.shell.system.Threads;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+
+/**
+ * Imports rows from a local file by sending them in batches, as the parameter {@code $batch}, to a query like
+ * {@code UNWIND $batch AS row CREATE (:Person {name: row.name})}. Every batch is committed in a transaction of its
+ * own. The file is read on the calling thread while the batches are sent by one or more worker threads, each with a
+ * session of its own. At most a couple of batches per worker are held in memory at any time. When the import has
+ * written anything, also if it failed part way, the write listener is told once it has ended.
+ */
+public class BulkImporter {
+    public static final String BATCH_PARAMETER = "batch";
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+    private static final long PROGRESS_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final List<Value> END_OF_ROWS = new ArrayList<>();
+
+    private final SessionProvider sessionProvider;
+    private final RetryPolicy retryPolicy;
+    private final WriteListener writeListener;
+    private final LongSupplier nanoClock;
+
+    public BulkImporter(@Nonnull BoltStateHandler boltStateHandler, @Nonnull WriteListener writeListener) {
+        this(boltStateHandler::openSession, boltStateHandler.getRetryPolicy(), writeListener, System::nanoTime);
+    }
+
+    BulkImporter(@Nonnull SessionProvider sessionProvider, @Nonnull RetryPolicy retryPolicy,
+                 @Nonnull WriteListener writeListener, @Nonnull LongSupplier nanoClock) {
+        this.sessionProvider = sessionProvider;
+        this.retryPolicy = retryPolicy;
+        this.writeListener = writeListener;
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * @param rows        to import
+     * @param template    query which is run for every batch of rows
+     * @param params      other query parameters the template uses
+     * @param batchSize   number of rows per transaction
+     * @param parallelism number of sessions sending batches at the same time
+     * @param progress    called about once a second while importing
+     * @return the number of imported rows and how long it took
+     * @throws CommandException if the file could not be read or a batch failed, rows in batches which were
+     *                          committed before the failure stay imported
+     */
+    @Nonnull
+    public Progress run(@Nonnull RowReader rows, @Nonnull String template, @Nonnull Map<String, Value> params,
+                        int batchSize, int parallelism, @Nonnull ProgressListener progress)
+            throws CommandException {
+        if (batchSize < 1 || parallelism < 1) {
+            throw new CommandException("Batch size and parallelism must be positive");
+        }
+        long start = nanoClock.getAsLong();
+        AtomicLong importedRows = new AtomicLong();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        AtomicReference<ResultSummary> written = new AtomicReference<>();
+        BlockingQueue<List<Value>> batches = new ArrayBlockingQueue<>(2 * parallelism);
+
+        // Open all sessions up front, so connection problems are reported before anything is imported
+        List<Session> sessions = new ArrayList<>();
+        ExecutorService workers = Threads.connectionWorkers("import-worker", parallelism);
+        try {
+            for (int i = 0; i < parallelism; i++) {
+                sessions.add(sessionProvider.get());
+            }
+            for (Session session : sessions) {
+                workers.execute(() -> sendBatches(session, template, params, batches, importedRows, failure,
+                        written));
+            }
+
+            long lastReport = start;
+            List<Value> batch = new ArrayList<>(batchSize);
+            Value row;
+            while (!cancelled(failure) && (row = rows.next()) != null) {
+                batch.add(row);
+                if (batch.size() == batchSize) {
+                    lastReport = enqueue(batches, batch, failure, progress, importedRows, start, lastReport);
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+            if (!batch.isEmpty()) {
+                enqueue(batches, batch, failure, progress, importedRows, start, lastReport);
+            }
+        } catch (IOException e) {
+            failure.compareAndSet(null, e);
+        } catch (InterruptedException e) {
+            failure.compareAndSet(null, e);
+            Thread.currentThread().interrupt();
+        } finally {
+            if (failure.get() != null) {
+                // Batches which have not been sent yet are dropped
+                batches.clear();
+            }
+            for (int i = 0; i < sessions.size(); i++) {
+                putUninterruptibly(batches, END_OF_ROWS);
+            }
+            workers.shutdown();
+            Threads.awaitUninterruptibly(workers);
+            sessions.forEach(Session::close);
+            // Batches committed before a failure stay imported, so they are reported as well
+            ResultSummary summary = written.get();
+            if (summary != null) {
+                writeListener.onWritten(summary);
+            }
+        }
+
+        Progress result = new Progress(importedRows.get(), nanoClock.getAsLong() - start);
+        Throwable t = failure.get();
+        if (t != null) {
+            throw new CommandException("Import failed after " + result.rows() + " rows: " + t.getMessage());
+        }
+        return result;
+    }
+
+    private long enqueue(@Nonnull BlockingQueue<List<Value>> batches, @Nonnull List<Value> batch,
+                         @Nonnull AtomicReference<Throwable> failure, @Nonnull ProgressListener progress,
+                         @Nonnull AtomicLong importedRows, long start, long lastReport)
+            throws InterruptedException {
+        long reported = lastReport;
+        while (!cancelled(failure)) {
+            boolean queued = batches.offer(batch, PROGRESS_INTERVAL_NANOS, TimeUnit.NANOSECONDS);
+            long now = nanoClock.getAsLong();
+            if (now - reported >= PROGRESS_INTERVAL_NANOS) {
+                progress.onProgress(new Progress(importedRows.get(), now - start));
+                reported = now;
+            }
+            if (queued) {
+                break;
+            }
+        }
+        return reported;
+    }
+
+    /**
+     * @return true if the import has failed, or has been stopped by the user, which then is its failure
+     */
+    private static boolean cancelled(@Nonnull AtomicReference<Throwable> failure) {
+        if (failure.get() == null && Cancellation.isCancelled()) {
+            failure.compareAndSet(null, new InterruptedException("Interrupted"));
+        }
+        return failure.get() != null;
+    }
+
+    private void sendBatches(@Nonnull Session session, @Nonnull String template,
+                             @Nonnull Map<String, Value> params, @Nonnull BlockingQueue<List<Value>> batches,
+                             @Nonnull AtomicLong importedRows, @Nonnull AtomicReference<Throwable> failure,
+                             @Nonnull AtomicReference<ResultSummary> written) {
+        try {
+            List<Value> batch;
+            while ((batch = batches.take()) != END_OF_ROWS) {
+                if (failure.get() != null) {
+                    continue;
+                }
+                Map<String, Value> batchParams = new HashMap<>(params);
+                batchParams.put(BATCH_PARAMETER, Values.value(batch.toArray(new Value[batch.size()])));
+                Statement statement = new Statement(template, new MapValue(batchParams));
+                ResultSummary summary =
+                        retryPolicy.run(() -> session.writeTransaction(tx -> tx.run(statement).consume()));
+                importedRows.addAndGet(batch.size());
+                if (summary.counters().containsUpdates() || summary.statementType() != StatementType.READ_ONLY) {
+                    written.compareAndSet(null, summary);
+                }
+            }
+        } catch (Throwable t) {
+            failure.compareAndSet(null, t);
+            // Keep taking batches, so the reader is never blocked on a full queue
+            drainUntilEnd(batches);
+        }
+    }
+
+    private static void drainUntilEnd(@Nonnull BlockingQueue<List<Value>> batches) {
+        try {
+            while (batches.take() != END_OF_ROWS) {
+                // Dropped
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void putUninterruptibly(@Nonnull BlockingQueue<List<Value>> batches, @Nonnull List<Value> batch) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                batches.put(batch);
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Something which can open new sessions
+     */
+    @FunctionalInterface
+    interface SessionProvider {
+        @Nonnull
+        Session get() throws CommandException;
+    }
+
+    /**
+     * Told about the writes of an import when it has ended, as they are made on sessions other than the shell's
+     */
+    @FunctionalInterface
+    public interface WriteListener {
+        /**
+         * @param summary of one of the batches which wrote to the database
+         */
+        void onWritten(@Nonnull ResultSummary summary);
+    }
+
+    /**
+     * Receives progress updates while importing
+     */
+    @FunctionalInterface
+    public interface ProgressListener {
+        void onProgress(@Nonnull Progress progress);
+    }
+
+    /**
+     * Number of rows imported so far, and the time it took
+     */
+    public static class Progress {
+        private final long rows;
+        private final long elapsedNanos;
+
+        public Progress(long rows, long elapsedNanos) {
+            this.rows = rows;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public long rows() {
+            return rows;
+        }
+
+        public double elapsedSeconds() {
+            return elapsedNanos / 1e9;
+        }
+
+        public long rowsPerSecond() {
+            return elapsedNanos <= 0 ? 0 : (long) (rows * 1e9 / elapsedNanos);
+        }
+    }
+}
@@ -0,0 +1,851 @@
+package org.neo4j.shell.state;
+
+import org.neo4j.driver.internal.types.TypeRepresentation;
+import org.neo4j.driver.internal.value.MapValue;
+import org.neo4j.driver.v1.Record;
+import org.neo4j.driver.v1.Session;
+import org.neo4j.driver.v1.StatementResult;
+import org.neo4j.driver.v1.Transaction;
+import org.neo4j.driver.v1.Value;
+import org.neo4j.driver.v1.Values;
+import org.neo4j.driver.v1.exceptions.ClientException;
+import org.neo4j.driver.v1.types.Entity;
+import org.neo4j.driver.v1.types.Node;
+import org.neo4j.driver.v1.types.Path;
+import org.neo4j.driver.v1.types.Relationship;
+import org.neo4j.shell.exception.CommandException;
+import org.neo4j.shell.system.Cancellation;
+import org.neo4j.shell.system.Threads;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static org.neo4j.shell.prettyprint.CypherVariablesFormatter.escape;
+
+/**
+ * Dumps the graph, or the nodes and relationships returned by a query, as a Cypher script which recreates them.
+ * <p>
+ * Nodes are created in batches of the same labels by a single {@code UNWIND} statement each, with their internal id in
+ * a temporary property of a temporary label. Relationships are then created in batches of the same type, finding their
+ * nodes through a unique constraint on the temporary id. The temporary label and ids are removed at the end, in
+ * batches as well, and the indexes and constraints of the database are created last, as creating an index once is
+ * cheaper than updating it for every node. All of it is read in one transaction, and records are written out as they
+ * are read, so only the current batches are held in memory.
+ * <p>
+ * The whole graph can also be read in partitions of the node and relationship ids, each in a transaction of its own
+ * on a session of its own, so the server reads them on several threads. All sessions start from the bookmark of the
+ * shell, so they see at least what the shell has committed. The partitions are written to temporary files meanwhile,
+ * and appended to the script in order.
+ */
+public class GraphDumper {
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+    static final String IMPORT_LABEL = escape("UNIQUE IMPORT LABEL");
+    static final String IMPORT_ID = escape("UNIQUE IMPORT ID");
+    static final String NODES_IN_RANGE = "MATCH (n) WHERE id(n) >= $lo AND id(n) < $hi RETURN n";
+    static final String RELATIONSHIPS_IN_RANGE = "MATCH ()-[r]->() WHERE id(r) >= $lo AND id(r) < $hi RETURN r";
+    private static final long PROGRESS_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final SessionProvider sessionProvider;
+    private final Supplier<String> bookmark;
+
+    public GraphDumper(@Nonnull BoltStateHandler boltStateHandler) {
+        this(boltStateHandler::openReadSession, boltStateHandler::getBookmark);
+    }
+
+    GraphDumper(@Nonnull SessionProvider sessionProvider, @Nonnull Supplier<String> bookmark) {
+        this.sessionProvider = sessionProvider;
+        this.bookmark = bookmark;
+    }
+
+    /**
+     * Receives the statements of the script, one at a time and in order
+     */
+    @FunctionalInterface
+    public interface Output {
+        void write(@Nonnull String statement) throws IOException;
+    }
+
+    /**
+     * @param query     which returns the nodes, relationships and paths to dump, or null to dump the whole graph.
+     *                  Relationships are only recreated if both of their nodes are dumped as well.
+     * @param params    query parameters the query uses
+     * @param batchSize most nodes or relationships created by a statement
+     * @return the number of nodes and relationships which were dumped
+     */
+    @Nonnull
+    public Dumped dump(@Nullable String query, @Nonnull Map<String, Value> params, int batchSize,
+                       @Nonnull Output output) throws CommandException, IOException {
+        return script(batchSize, output, session -> {
+            try (Transaction tx = session.beginTransaction()) {
+                return query == null ? dumpGraph(tx, batchSize, output) :
+                        dumpQuery(tx, query, params, batchSize, output);
+            }
+        });
+    }
+
+    /**
+     * Dump the whole graph, reading it in partitions at the same time
+     *
+     * @param partitions number of ranges of ids, which are read at the same time on sessions of their own
+     * @param batchSize  most nodes or relationships created by a statement
+     * @param progress   called about once a second for every partition which made progress, and once it is done
+     * @return the number of nodes and relationships which were dumped
+     */
+    @Nonnull
+    public Dumped dumpPartitioned(int partitions, int batchSize, @Nonnull Output output,
+                                  @Nonnull ProgressListener progress) throws CommandException, IOException {
+        if (partitions < 1) {
+            throw new CommandException("Number of partitions must be positive");
+        }
+        return script(batchSize, output,
+                session -> dumpPartitions(session, partitions, batchSize, output, progress));
+    }
+
+    /**
+     * Write the statements around the nodes and relationships, which the body writes
+     */
+    @Nonnull
+    private Dumped script(int batchSize, @Nonnull Output output, @Nonnull Body body)
+            throws CommandException, IOException {
+        if (batchSize < 1) {
+            throw new CommandException("Batch size must be positive");
+        }
+        try (Session session = sessionProvider.get(bookmark.get())) {
+            List<String> schema = readSchema(session);
+            output.write("CREATE CONSTRAINT ON (n:" + IMPORT_LABEL + ") ASSERT n." + IMPORT_ID + " IS UNIQUE;");
+            Dumped dumped = body.dump(session);
+            for (long i = 0; i < dumped.nodes(); i += batchSize) {
+                output.write("MATCH (n:" + IMPORT_LABEL + ") WITH n LIMIT " + batchSize +
+                        " REMOVE n:" + IMPORT_LABEL + ", n." + IMPORT_ID + ";");
+            }
+            output.write("DROP CONSTRAINT ON (n:" + IMPORT_LABEL + ") ASSERT n." + IMPORT_ID + " IS UNIQUE;");
+            for (String statement : schema) {
+                output.write(statement);
+            }
+            return dumped;
+        }
+    }
+
+    @Nonnull
+    private Dumped dumpGraph(@Nonnull Transaction tx, int batchSize, @Nonnull Output output)
+            throws CommandException, IOException {
+        NodeBatches nodes = new NodeBatches(batchSize, output);
+        StatementResult nodeResult = tx.run("MATCH (n) RETURN n");
+        while (nodeResult.hasNext()) {
+            checkInterrupted();
+            nodes.add(nodeResult.next().get(0).asNode());
+        }
+        nodes.flush();
+        RelationshipBatches relationships = new RelationshipBatches(batchSize, output);
+        StatementResult relationshipResult = tx.run("MATCH ()-[r]->() RETURN r");
+        while (relationshipResult.hasNext()) {
+            checkInterrupted();
+            relationships.add(relationshipResult.next().get(0).asRelationship());
+        }
+        relationships.flush();
+        return new Dumped(nodes.count, relationships.count);
+    }
+
+    /**
+     * Split the ids into ranges, and dump the nodes and relationships of each range on a thread and session of its
+     * own. All nodes are written before all relationships, so relationships always find their nodes.
+     */
+    @Nonnull
+    private Dumped dumpPartitions(@Nonnull Session session, int count, int batchSize, @Nonnull Output output,
+                                  @Nonnull ProgressListener progress) throws CommandException, IOException {
+        List<Range> nodeRanges = Range.split(session.run("MATCH (n) RETURN min(id(n)), max(id(n))").single(), count);
+        List<Range> relationshipRanges =
+                Range.split(session.run("MATCH ()-[r]->() RETURN min(id(r)), max(id(r))").single(), count);
+        // Partitions see at least what the shell saw
+        String partitionBookmark = session.lastBookmark();
+        List<Partition> partitions = new ArrayList<>(count);
+        try {
+            readPartitions(partitions, nodeRanges, relationshipRanges, partitionBookmark, batchSize, progress);
+            long nodes = 0;
+            long relationships = 0;
+            for (Partition partition : partitions) {
+                copyLines(partition.nodeFile, output);
+                nodes += partition.nodes;
+            }
+            for (Partition partition : partitions) {
+                copyLines(partition.relationshipFile, output);
+                relationships += partition.relationships;
+            }
+            return new Dumped(nodes, relationships);
+        } finally {
+            partitions.forEach(Partition::delete);
+        }
+    }
+
+    /**
+     * Read every partition on a thread of its own, and wait until all of them are done
+     */
+    private void readPartitions(@Nonnull List<Partition> partitions, @Nonnull List<Range> nodeRanges,
+                                @Nonnull List<Range> relationshipRanges, @Nullable String partitionBookmark,
+                                int batchSize, @Nonnull ProgressListener progress)
+            throws CommandException, IOException {
+        int count = nodeRanges.size();
+        ExecutorService workers = Threads.connectionWorkers("dump-worker", count);
+        AtomicBoolean stopped = new AtomicBoolean(false);
+        try {
+            CompletionService<Partition> completion = new ExecutorCompletionService<>(workers);
+            for (int i = 0; i < count; i++) {
+                Partition partition = new Partition(i, count, nodeRanges.get(i), relationshipRanges.get(i));
+                partitions.add(partition);
+                completion.submit(() -> dumpPartition(partition, partitionBookmark, batchSize, stopped));
+            }
+            for (int done = 0; done < count; ) {
+                checkInterrupted();
+                Future<Partition> finished = completion.poll(PROGRESS_INTERVAL_NANOS, TimeUnit.NANOSECONDS);
+                if (finished != null) {
+                    progress.onProgress(finished.get().progress(true));
+                    done++;
+                } else {
+                    for (Partition partition : partitions) {
+                        partition.reportProgress(progress);
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CommandException("Interrupted while dumping");
+        } catch (ExecutionException e) {
+            throw rethrow(e.getCause());
+        } finally {
+            // Partitions which are still reading stop at their next record. They are not interrupted, as that would
+            // close their connections in the middle of reading.
+            stopped.set(true);
+            workers.shutdown();
+            Threads.awaitUninterruptibly(workers);
+        }
+    }
+
+    @Nonnull
+    private Partition dumpPartition(@Nonnull Partition partition, @Nullable String partitionBookmark, int batchSize,
+                                    @Nonnull AtomicBoolean stopped) throws CommandException, IOException {
+        partition.nodeFile = createTempFile();
+        partition.relationshipFile = createTempFile();
+        try (Session session = sessionProvider.get(partitionBookmark);
+             Transaction tx = session.beginTransaction();
+             BufferedWriter nodeWriter = Files.newBufferedWriter(partition.nodeFile.toPath(), StandardCharsets.UTF_8);
+             BufferedWriter relationshipWriter =
+                     Files.newBufferedWriter(partition.relationshipFile.toPath(), StandardCharsets.UTF_8)) {
+            NodeBatches nodes = new NodeBatches(batchSize, lines(nodeWriter));
+            if (partition.nodeIds != null) {
+                StatementResult result = tx.run(NODES_IN_RANGE, partition.nodeIds.parameters());
+                while (result.hasNext()) {
+                    checkInterrupted(stopped);
+                    nodes.add(result.next().get(0).asNode());
+                    partition.nodes = nodes.count;
+                }
+            }
+            nodes.flush();
+            RelationshipBatches relationships = new RelationshipBatches(batchSize, lines(relationshipWriter));
+            if (partition.relationshipIds != null) {
+                StatementResult result = tx.run(RELATIONSHIPS_IN_RANGE, partition.relationshipIds.parameters());
+                while (result.hasNext()) {
+                    checkInterrupted(stopped);
+                    relationships.add(result.next().get(0).asRelationship());
+                    partition.relationships = relationships.count;
+                }
+            }
+            relationships.flush();
+        }
+        return partition;
+    }
+
+    /**
+     * Throw what a partition failed with
+     */
+    @Nonnull
+    private static CommandException rethrow(@Nonnull Throwable cause) throws IOException {
+        if (cause instanceof CommandException) {
+            return (CommandException) cause;
+        }
+        if (cause instanceof IOException) {
+            throw (IOException) cause;
+        }
+        if (cause instanceof UncheckedIOException) {
+            throw ((UncheckedIOException) cause).getCause();
+        }
+        if (cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+        }
+        if (cause instanceof Error) {
+            throw (Error) cause;
+        }
+        return new CommandException("Dump failed: " + cause.getMessage());
+    }
+
+    @Nonnull
+    private static File createTempFile() throws IOException {
+        File file = File.createTempFile("cypher-shell-dump", ".tmp");
+        file.deleteOnExit();
+        return file;
+    }
+
+    /**
+     * @return output which writes every statement on a line of its own
+     */
+    @Nonnull
+    private static Output lines(@Nonnull BufferedWriter writer) {
+        return statement -> {
+            writer.write(statement);
+            writer.newLine();
+        };
+    }
+
+    private static void copyLines(@Nonnull File file, @Nonnull Output output) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            String statement;
+            while ((statement = reader.readLine()) != null) {
+                output.write(statement);
+            }
+        }
+    }
+
+    /**
+     * The nodes a query returns are written as they are read. The relationships are written to a temporary file
+     * meanwhile, as they can only be created after their nodes, and appended at the end. Relationships whose nodes
+     * the query does not return could not be recreated, and are left out.
+     */
+    @Nonnull
+    private Dumped dumpQuery(@Nonnull Transaction tx, @Nonnull String query, @Nonnull Map<String, Value> params,
+                             int batchSize, @Nonnull Output output) throws CommandException, IOException {
+        File relationshipFile = createTempFile();
+        try {
+            NodeBatches nodes = new NodeBatches(batchSize, output);
+            RelationshipBatches relationships;
+            try (BufferedWriter writer = Files.newBufferedWriter(relationshipFile.toPath(), StandardCharsets.UTF_8)) {
+                relationships = new RelationshipBatches(batchSize, lines(writer));
+                Set<Long> seenNodes = new HashSet<>();
+                Set<Long> seenRelationships = new HashSet<>();
+                List<Relationship> waiting = new ArrayList<>();
+                StatementResult result = tx.run(query, new MapValue(params));
+                while (result.hasNext()) {
+                    checkInterrupted();
+                    for (Value value : result.next().values()) {
+                        collect(value, nodes, relationships, seenNodes, seenRelationships, waiting);
+                    }
+                }
+                for (Relationship relationship : waiting) {
+                    if (seenNodes.contains(relationship.startNodeId()) &&
+                            seenNodes.contains(relationship.endNodeId())) {
+                        relationships.add(relationship);
+                    }
+                }
+                nodes.flush();
+                relationships.flush();
+            }
+            copyLines(relationshipFile, output);
+            return new Dumped(nodes.count, relationships.count);
+        } finally {
+            //noinspection ResultOfMethodCallIgnored
+            relationshipFile.delete();
+        }
+    }
+
+    /**
+     * Add the nodes and relationships in a value, which may be nested in lists, maps and paths, which have not been
+     * added before. Relationships whose nodes have not been added yet are kept waiting for them.
+     */
+    private static void collect(@Nonnull Value value, @Nonnull NodeBatches nodes,
+                                @Nonnull RelationshipBatches relationships, @Nonnull Set<Long> seenNodes,
+                                @Nonnull Set<Long> seenRelationships, @Nonnull List<Relationship> waiting)
+            throws CommandException, IOException {
+        switch (((TypeRepresentation) value.type()).constructor()) {
+            case NODE_TyCon:
+                Node node = value.asNode();
+                if (seenNodes.add(node.id())) {
+                    nodes.add(node);
+                }
+                break;
+            case RELATIONSHIP_TyCon:
+                Relationship relationship = value.asRelationship();
+                if (seenRelationships.add(relationship.id())) {
+                    if (seenNodes.contains(relationship.startNodeId()) &&
+                            seenNodes.contains(relationship.endNodeId())) {
+                        relationships.add(relationship);
+                    } else {
+                        waiting.add(relationship);
+                    }
+                }
+                break;
+            case PATH_TyCon:
+                Path path = value.asPath();
+                for (Node pathNode : path.nodes()) {
+                    if (seenNodes.add(pathNode.id())) {
+                        nodes.add(pathNode);
+                    }
+                }
+                for (Relationship pathRelationship : path.relationships()) {
+                    if (seenRelationships.add(pathRelationship.id())) {
+                        relationships.add(pathRelationship);
+                    }
+                }
+                break;
+            case LIST_TyCon:
+            case MAP_TyCon:
+                for (Value element : value.values()) {
+                    collect(element, nodes, relationships, seenNodes, seenRelationships, waiting);
+                }
+                break;
+            default:
+                // Only graph entities are dumped
+        }
+    }
+
+    /**
+     * @return statements which create the indexes and constraints of the database, or none if the server can not
+     * list them
+     */
+    @Nonnull
+    private static List<String> readSchema(@Nonnull Session session) {
+        List<String> schema = new ArrayList<>();
+        try {
+            for (Record record : session.run("CALL db.indexes()").list()) {
+                // Indexes of unique constraints are created by the constraints
+                if (!record.containsKey("type") || !"node_unique_property".equals(record.get("type").asString())) {
+                    schema.add("CREATE " + record.get("description").asString() + ";");
+                }
+            }
+            for (Record record : session.run("CALL db.constraints()").list()) {
+                schema.add("CREATE " + record.get("description").asString() + ";");
+            }
+        } catch (ClientException e) {
+            // Servers before 3.0 have no schema procedures
+            schema.clear();
+        }
+        return schema;
+    }
+
+    /**
+     * Partitions are read on threads which are interrupted when the dump stops, and the rest on the thread of the
+     * shell, which is cancelled instead
+     */
+    private static void checkInterrupted() throws CommandException {
+        if (Thread.currentThread().isInterrupted() || Cancellation.isCancelled()) {
+            throw new CommandException("Interrupted while dumping");
+        }
+    }
+
+    /**
+     * @param stopped set when the partitions must stop, as one of them failed or the dump was stopped
+     */
+    private static void checkInterrupted(@Nonnull AtomicBoolean stopped) throws CommandException {
+        if (stopped.get()) {
+            throw new CommandException("Interrupted while dumping");
+        }
+        checkInterrupted();
+    }
+
+    /**
+     * Append a Cypher literal of the value
+     *
+     * @throws CommandException if the value has no literal, like bytes
+     */
+    static void appendLiteral(@Nonnull StringBuilder sb, @Nonnull Value value) throws CommandException {
+        switch (((TypeRepresentation) value.type()).constructor()) {
+            case NULL_TyCon:
+                sb.append("null");
+                break;
+            case BOOLEAN_TyCon:
+                sb.append(value.asBoolean());
+                break;
+            case INTEGER_TyCon:
+                long integer = value.asLong();
+                // Cypher reads the smallest integer as the negation of a number which is too large
+                if (integer == Long.MIN_VALUE) {
+                    sb.append(-Long.MAX_VALUE).append(" - 1");
+                } else {
+                    sb.append(integer);
+                }
+                break;
+            case FLOAT_TyCon:
+                appendFloat(sb, value.asDouble());
+                break;
+            case LIST_TyCon:
+                sb.append('[');
+                boolean first = true;
+                for (Value element : value.values()) {
+                    if (!first) {
+                        sb.append(", ");
+                    }
+                    first = false;
+                    appendLiteral(sb, element);
+                }
+                sb.append(']');
+                break;
+            case MAP_TyCon:
+                appendMap(sb, value.keys(), value::get);
+                break;
+            case STRING_TyCon:
+                appendString(sb, value.asString());
+                break;
+            default:
+                throw new CommandException("Can not dump a value of type " + value.type().name() +
+                        ", which has no Cypher literal");
+        }
+    }
+
+    private static void appendMap(@Nonnull StringBuilder sb, @Nonnull Iterable<String> keys,
+                                  @Nonnull Function<String, Value> values) throws CommandException {
+        sb.append('{');
+        boolean first = true;
+        for (String key : keys) {
+            if (!first) {
+                sb.append(", ");
+            }
+            first = false;
+            sb.append(escape(key)).append(": ");
+            appendLiteral(sb, values.apply(key));
+        }
+        sb.append('}');
+    }
+
+    private static void appendFloat(@Nonnull StringBuilder sb, double value) {
+        if (Double.isNaN(value)) {
+            sb.append("0.0 / 0.0");
+        } else if (Double.isInfinite(value)) {
+            sb.append(value > 0 ? "1.0 / 0.0" : "-1.0 / 0.0");
+        } else {
+            sb.append(value);
+        }
+    }
+
+    /**
+     * Strings are quoted and escaped so that the statement stays on a single line
+     */
+    private static void appendString(@Nonnull StringBuilder sb, @Nonnull String string) {
+        sb.append('"');
+        for (int i = 0; i < string.length(); i++) {
+            char c = string.charAt(i);
+            switch (c) {
+                case '"':
+                    sb.append("\\\"");
+                    break;
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                case '\r':
+                    sb.append("\\r");
+                    break;
+                case '\t':
+                    sb.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04X", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+        sb.append('"');
+    }
+
+    private static void appendProperties(@Nonnull StringBuilder sb, @Nonnull Entity entity)
+            throws CommandException {
+        appendMap(sb, entity.keys(), entity::get);
+    }
+
+    /**
+     * Rows of the statements which create nodes or relationships, grouped by a key, which are written as a statement
+     * whenever a group has a full batch
+     */
+    private abstract static class Batches {
+        private final int batchSize;
+        private final Output output;
+        private final Map<String, Batch> batches = new LinkedHashMap<>();
+        long count = 0;
+
+        Batches(int batchSize, @Nonnull Output output) {
+            this.batchSize = batchSize;
+            this.output = output;
+        }
+
+        void add(@Nonnull String key, @Nonnull String row) throws IOException {
+            Batch batch = batches.computeIfAbsent(key, k -> new Batch());
+            if (batch.rows > 0) {
+                batch.sb.append(", ");
+            }
+            batch.sb.append(row);
+            batch.rows++;
+            count++;
+            if (batch.rows == batchSize) {
+                write(key, batch);
+            }
+        }
+
+        void flush() throws IOException {
+            for (Map.Entry<String, Batch> entry : batches.entrySet()) {
+                if (entry.getValue().rows > 0) {
+                    write(entry.getKey(), entry.getValue());
+                }
+            }
+            batches.clear();
+        }
+
+        private void write(@Nonnull String key, @Nonnull Batch batch) throws IOException {
+            output.write("UNWIND [" + batch.sb + "] AS row " + statement(key));
+            batch.sb.setLength(0);
+            batch.rows = 0;
+        }
+
+        /**
+         * @return the statement which follows the UNWIND of the rows of a batch
+         */
+        @Nonnull
+        abstract String statement(@Nonnull String key);
+    }
+
+    private static class Batch {
+        private final StringBuilder sb = new StringBuilder();
+        private int rows = 0;
+    }
+
+    private static class NodeBatches extends Batches {
+        NodeBatches(int batchSize, @Nonnull Output output) {
+            super(batchSize, output);
+        }
+
+        void add(@Nonnull Node node) throws CommandException, IOException {
+            StringBuilder labels = new StringBuilder();
+            for (String label : node.labels()) {
+                labels.append(':').append(escape(label));
+            }
+            StringBuilder row = new StringBuilder("{_id: ").append(node.id()).append(", properties: ");
+            appendProperties(row, node);
+            add(labels.toString(), row.append('}').toString());
+        }
+
+        @Nonnull
+        @Override
+        String statement(@Nonnull String labels) {
+            return "CREATE (n:" + IMPORT_LABEL + labels + " {" + IMPORT_ID + ": row._id}) SET n += row.properties;";
+        }
+    }
+
+    private static class RelationshipBatches extends Batches {
+        RelationshipBatches(int batchSize, @Nonnull Output output) {
+            super(batchSize, output);
+        }
+
+        void add(@Nonnull Relationship relationship) throws CommandException, IOException {
+            StringBuilder row = new StringBuilder("{start: ").append(relationship.startNodeId())
+                    .append(", end: ").append(relationship.endNodeId()).append(", properties: ");
+            appendProperties(row, relationship);
+            add(escape(relationship.type()), row.append('}').toString());
+        }
+
+        @Nonnull
+        @Override
+        String statement(@Nonnull String type) {
+            return "MATCH (a:" + IMPORT_LABEL + " {" + IMPORT_ID + ": row.start}) " +
+                    "MATCH (b:" + IMPORT_LABEL + " {" + IMPORT_ID + ": row.end}) " +
+                    "CREATE (a)-[r:" + type + "]->(b) SET r += row.properties;";
+        }
+    }
+
+    /**
+     * Something which can open new read sessions
+     */
+    @FunctionalInterface
+    interface SessionProvider {
+        @Nonnull
+        Session get(@Nullable String bookmark) throws CommandException;
+    }
+
+    /**
+     * Writes the nodes and relationships of a dump
+     */
+    @FunctionalInterface
+    private interface Body {
+        @Nonnull
+        Dumped dump(@Nonnull Session session) throws CommandException, IOException;
+    }
+
+    /**
+     * Receives progress updates of the partitions while dumping
+     */
+    @FunctionalInterface
+    public interface ProgressListener {
+        void onProgress(@Nonnull PartitionProgress progress);
+    }
+
+    /**
+     * A range of ids, from lo up to but not including hi
+     */
+    static class Range {
+        final long lo;
+        final long hi;
+
+        Range(long lo, long hi) {
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Nonnull
+        Value parameters() {
+            return Values.parameters("lo", lo, "hi", hi);
+        }
+
+        /**
+         * Split the ids from the lowest to the highest into ranges of about the same size
+         *
+         * @param bounds the lowest and highest id, which are null if there are none
+         * @return count ranges, which are null where there are no ids in them
+         */
+        @Nonnull
+        static List<Range> split(@Nonnull Record bounds, int count) {
+            List<Range> ranges = new ArrayList<>(count);
+            if (bounds.get(0).isNull() || bounds.get(1).isNull()) {
+                for (int i = 0; i < count; i++) {
+                    ranges.add(null);
+                }
+                return ranges;
+            }
+            long lo = bounds.get(0).asLong();
+            long hi = bounds.get(1).asLong() + 1;
+            long size = (hi - lo + count - 1) / count;
+            for (int i = 0; i < count; i++) {
+                long start = lo + i * size;
+                ranges.add(start < hi ? new Range(start, Math.min(start + size, hi)) : null);
+            }
+            return ranges;
+        }
+    }
+
+    /**
+     * The ids a partition reads, the temporary files it writes to, and how far it has come
+     */
+    private static class Partition {
+        private final int index;
+        private final int count;
+        private final Range nodeIds;
+        private final Range relationshipIds;
+        private volatile File nodeFile = null;
+        private volatile File relationshipFile = null;
+        private volatile long nodes = 0;
+        private volatile long relationships = 0;
+        private long reportedNodes = 0;
+        private long reportedRelationships = 0;
+
+        Partition(int index, int count, @Nullable Range nodeIds, @Nullable Range relationshipIds) {
+            this.index = index;
+            this.count = count;
+            this.nodeIds = nodeIds;
+            this.relationshipIds = relationshipIds;
+        }
+
+        @Nonnull
+        PartitionProgress progress(boolean done) {
+            reportedNodes = nodes;
+            reportedRelationships = relationships;
+            return new PartitionProgress(index + 1, count, reportedNodes, reportedRelationships, done);
+        }
+
+        void reportProgress(@Nonnull ProgressListener listener) {
+            if (nodes != reportedNodes || relationships != reportedRelationships) {
+                listener.onProgress(progress(false));
+            }
+        }
+
+        void delete() {
+            for (File file : new File[]{nodeFile, relationshipFile}) {
+                if (file != null) {
+                    //noinspection ResultOfMethodCallIgnored
+                    file.delete();
+                }
+            }
+        }
+    }
+
+    /**
+     * Number of nodes and relationships a partition has dumped so far
+     */
+    public static class PartitionProgress {
+        private final int partition;
+        private final int partitions;
+        private final long nodes;
+        private final long relationships;
+        private final boolean done;
+
+        public PartitionProgress(int partition, int partitions, long nodes, long relationships, boolean done) {
+            this.partition = partition;
+            this.partitions = partitions;
+            this.nodes = nodes;
+            this.relationships = relationships;
+            this.done = done;
+        }
+
+        /**
+         * @return the number of the partition, from 1
+         */
+        public int partition() {
+            return partition;
+        }
+
+        public int partitions() {
+            return partitions;
+        }
+
+        public long nodes() {
+            return nodes;
+        }
+
+        public long relationships() {
+            return relationships;
+        }
+
+        public boolean done() {
+            return done;
+        }
+    }
+
+    /**
+     * The number of nodes and relationships which were dumped
+     */
+    public static class Dumped {
+        private final long nodes;
+        private final long relationships;
+
+        public Dumped(long nodes, long relationships) {
+            this.nodes = nodes;
+            this.relationships = relationships;
+        }
+
+        public long nodes() {
+            return nodes;
+        }
+
+        public long relationships() {
+            return relationships;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package org.neo4j.shell.state;
+
+import org.neo4j.driver.internal.value.MapValue;
+import org.neo4j.driver.v1.Value;
+
+import javax.annotation.Nonnull;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Converts query parameters to bytes and back, with the encoding of {@link ValueOutput}. Every value the driver can
+ * hold is read back exactly as it was, unlike in JSON, which has no bytes, nodes or non-finite numbers.
+ */
+public class ParameterCodec {
+    private ParameterCodec() {
+    }
+
+    /**
+     * @throws IOException if a parameter can not be written exactly
+     */
+    @Nonnull
+    public static byte[] encode(@Nonnull Map<String, Value> params) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ValueOutput output = new ValueOutput(bytes, true)) {
+            output.writeValue(new MapValue(params));
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * @throws IOException if the bytes were not written by {@link #encode(Map)}
+     */
+    @Nonnull
+    public static Map<String, Value> decode(@Nonnull byte[] bytes) throws IOException {
+        try (ValueInput input = new ValueInput(new ByteArrayInputStream(bytes))) {
+            return input.readValue().asMap(value -> value);
+        }
+    }
+}
@@ -0,0 +1,360 @@
+package org.neo4j.shell.state;
+
+import org.neo4j.driver.internal.types.TypeRepresentation;
+import org.neo4j.driver.v1.Record;
+import org.neo4j.driver.v1.Value;
+import org.neo4j.driver.v1.summary.ResultSummary;
+import org.neo4j.driver.v1.summary.StatementType;
+import org.neo4j.driver.v1.types.Entity;
+import org.neo4j.driver.v1.types.Node;
+import org.neo4j.driver.v1.types.Path;
+
+import javax.annotation.Nonnull;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * An opt-in client side cache of results from read only statements. Entries are keyed by the normalized statement
+ * text and a hash of the query parameters. When the estimated size of all cached results exceeds the limit, the least
+ * recently used entries are evicted. Entries also expire after a fixed time to live. Any statement which updates the
+ * database invalidates the whole cache.
+ */
+public class ResultCache {
+    public static final long DEFAULT_MAX_BYTES = 64L * 1024 * 1024;
+    public static final long DEFAULT_TTL_SECONDS = 300;
+
+    // Rough per object overheads used when estimating the heap size of a result
+    private static final long OBJECT_OVERHEAD = 16;
+    private static final long REFERENCE_SIZE = 8;
+
+    // Access ordered, so iteration starts with the least recently used entry
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final LongSupplier nanoClock;
+    private boolean enabled = false;
+    private long maxBytes;
+    private long ttlNanos;
+    private long bytes = 0;
+    private long hits = 0;
+    private long misses = 0;
+    private long evictions = 0;
+    private long invalidations = 0;
+
+    public ResultCache() {
+        this(DEFAULT_MAX_BYTES, DEFAULT_TTL_SECONDS);
+    }
+
+    public ResultCache(long maxBytes, long ttlSeconds) {
+        this(maxBytes, ttlSeconds, System::nanoTime);
+    }
+
+    ResultCache(long maxBytes, long ttlSeconds, @Nonnull LongSupplier nanoClock) {
+        this.nanoClock = nanoClock;
+        setLimits(maxBytes, ttlSeconds);
+    }
+
+    /**
+     * @param maxBytes   upper bound of the estimated size of all cached results
+     * @param ttlSeconds time after which a cached result is no longer used
+     */
+    public synchronized void setLimits(long maxBytes, long ttlSeconds) {
+        if (maxBytes <= 0 || ttlSeconds <= 0) {
+            throw new IllegalArgumentException("Cache size and time to live must be positive");
+        }
+        this.maxBytes = maxBytes;
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+        evictUntilWithinLimit();
+    }
+
+    public synchronized boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Enable or disable the cache. Disabling it also drops all cached results.
+     */
+    public synchronized void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        if (!enabled) {
+            entries.clear();
+            bytes = 0;
+        }
+    }
+
+    /**
+     * @return a cached result of the statement, if the cache is enabled and holds a result which has not expired
+     */
+    @Nonnull
+    public synchronized Optional<BoltResult> get(@Nonnull String cypher, @Nonnull Map<String, Value> queryParams) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        Key key = new Key(normalize(cypher), queryParams);
+        Entry entry = entries.get(key);
+        if (entry != null && nanoClock.getAsLong() - entry.createdAt > ttlNanos) {
+            remove(key);
+            entry = null;
+        }
+        if (entry == null) {
+            misses++;
+            return Optional.empty();
+        }
+        hits++;
+        return Optional.of(entry.result);
+    }
+
+    /**
+     * Store the result of a statement. Only complete results of read only statements are stored, and results of
+     * statements which updated the database invalidate the cache instead.
+     */
+    public synchronized void put(@Nonnull String cypher, @Nonnull Map<String, Value> queryParams,
+                                 @Nonnull BoltResult result) {
+        if (!enabled || invalidateIfUpdating(result)) {
+            return;
+        }
+        if (result.isTruncated() || result.getSummary().statementType() != StatementType.READ_ONLY) {
+            return;
+        }
+        long size = estimateSize(result);
+        if (size > maxBytes) {
+            return;
+        }
+        Key key = new Key(normalize(cypher), queryParams);
+        remove(key);
+        entries.put(key, new Entry(result, size, nanoClock.getAsLong()));
+        bytes += size;
+        evictUntilWithinLimit();
+    }
+
+    /**
+     * Drop all cached results if the given result comes from a statement which may have changed the database.
+     *
+     * @return true if the cache was invalidated, false otherwise
+     */
+    public synchronized boolean invalidateIfUpdating(@Nonnull BoltResult result) {
+        if (!enabled) {
+            return false;
+        }
+        ResultSummary summary = result.getSummary();
+        StatementType type = summary.statementType();
+        if (summary.counters().containsUpdates() || (type != null && type != StatementType.READ_ONLY)) {
+            if (!entries.isEmpty()) {
+                invalidations++;
+            }
+            clear();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Drop all cached results
+     */
+    public synchronized void clear() {
+        entries.clear();
+        bytes = 0;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long bytes() {
+        return bytes;
+    }
+
+    public synchronized long maxBytes() {
+        return maxBytes;
+    }
+
+    public synchronized long ttlSeconds() {
+        return TimeUnit.NANOSECONDS.toSeconds(ttlNanos);
+    }
+
+    public synchronized long hits() {
+        return hits;
+    }
+
+    public synchronized long misses() {
+        return misses;
+    }
+
+    public synchronized long evictions() {
+        return evictions;
+    }
+
+    public synchronized long invalidations() {
+        return invalidations;
+    }
+
+    private void remove(@Nonnull Key key) {
+        Entry removed = entries.remove(key);
+        if (removed != null) {
+            bytes -= removed.size;
+        }
+    }
+
+    private void evictUntilWithinLimit() {
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (bytes > maxBytes && iterator.hasNext()) {
+            bytes -= iterator.next().size;
+            iterator.remove();
+            evictions++;
+        }
+    }
+
+    /**
+     * Collapse whitespace outside of quotes and remove trailing semicolons, so that statements which only differ in
+     * formatting share a cache entry.
+     */
+    @Nonnull
+    static String normalize(@Nonnull String cypher) {
+        StringBuilder sb = new StringBuilder(cypher.length());
+        char quote = 0;
+        boolean escaped = false;
+        boolean pendingSpace = false;
+        for (char c : cypher.toCharArray()) {
+            if (quote != 0) {
+                sb.append(c);
+                if (escaped) {
+                    escaped = false;
+                } else if (c == '\\') {
+                    escaped = true;
+                } else if (c == quote) {
+                    quote = 0;
+                }
+            } else if (Character.isWhitespace(c)) {
+                pendingSpace = sb.length() > 0;
+            } else {
+                if (pendingSpace) {
+                    sb.append(' ');
+                    pendingSpace = false;
+                }
+                sb.append(c);
+                if (c == '\'' || c == '"' || c == '`') {
+                    quote = c;
+                }
+            }
+        }
+        int end = sb.length();
+        while (end > 0 && (sb.charAt(end - 1) == ';' || sb.charAt(end - 1) == ' ')) {
+            end--;
+        }
+        sb.setLength(end);
+        return sb.toString();
+    }
+
+    /**
+     * @return a rough estimate of the number of bytes the records of the result occupy on the heap
+     */
+    static long estimateSize(@Nonnull BoltResult result) {
+        long size = OBJECT_OVERHEAD;
+        for (Record record : result.getRecords()) {
+            size += OBJECT_OVERHEAD + REFERENCE_SIZE * record.size();
+            for (Value value : record.values()) {
+                size += estimateSize(value);
+            }
+        }
+        return size;
+    }
+
+    static long estimateSize(@Nonnull Value value) {
+        TypeRepresentation type = (TypeRepresentation) value.type();
+        if (type == null) {
+            return OBJECT_OVERHEAD;
+        }
+        switch (type.constructor()) {
+            case STRING_TyCon:
+                return estimateSize(value.asString());
+            case LIST_TyCon:
+                long listSize = OBJECT_OVERHEAD;
+                for (Value element : value.values()) {
+                    listSize += REFERENCE_SIZE + estimateSize(element);
+                }
+                return listSize;
+            case MAP_TyCon:
+                long mapSize = OBJECT_OVERHEAD;
+                for (String key : value.keys()) {
+                    mapSize += 2 * REFERENCE_SIZE + estimateSize(key) + estimateSize(value.get(key));
+                }
+                return mapSize;
+            case NODE_TyCon:
+                Node node = value.asNode();
+                long nodeSize = estimateSize(node);
+                for (String label : node.labels()) {
+                    nodeSize += REFERENCE_SIZE + estimateSize(label);
+                }
+                return nodeSize;
+            case RELATIONSHIP_TyCon:
+                return estimateSize(value.asRelationship()) + estimateSize(value.asRelationship().type());
+            case PATH_TyCon:
+                Path path = value.asPath();
+                long pathSize = OBJECT_OVERHEAD;
+                for (Node pathNode : path.nodes()) {
+                    pathSize += REFERENCE_SIZE + estimateSize(pathNode);
+                }
+                for (Entity relationship : path.relationships()) {
+                    pathSize += REFERENCE_SIZE + estimateSize(relationship);
+                }
+                return pathSize;
+            default:
+                return OBJECT_OVERHEAD + REFERENCE_SIZE;
+        }
+    }
+
+    private static long estimateSize(@Nonnull Entity entity) {
+        long size = 2 * OBJECT_OVERHEAD;
+        for (String key : entity.keys()) {
+            size += 2 * REFERENCE_SIZE + estimateSize(key) + estimateSize(entity.get(key));
+        }
+        return size;
+    }
+
+    private static long estimateSize(@Nonnull String string) {
+        return 2 * OBJECT_OVERHEAD + 2L * string.length();
+    }
+
+    private static class Key {
+        private final String statement;
+        private final Map<String, Value> params;
+
+        Key(@Nonnull String statement, @Nonnull Map<String, Value> params) {
+            this.statement = statement;
+            this.params = Collections.unmodifiableMap(new HashMap<>(params));
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Key key = (Key) o;
+            return statement.equals(key.statement) && params.equals(key.params);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * statement.hashCode() + params.hashCode();
+        }
+    }
+
+    private static class Entry {
+        private final BoltResult result;
+        private final long size;
+        private final long createdAt;
+
+        Entry(@Nonnull BoltResult result, long size, long createdAt) {
+            this.result = result;
+            this.size = size;
+            this.createdAt = createdAt;
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package org.neo4j.shell.state;
+
+import org.neo4j.driver.v1.exceptions.Neo4jException;
+import org.neo4j.driver.v1.exceptions.ServiceUnavailableException;
+import org.neo4j.driver.v1.exceptions.SessionExpiredException;
+import org.neo4j.shell.system.Cancellation;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Retries transactions which fail with transient errors, like deadlocks or a cluster electing a new leader, after an
+ * exponentially growing and randomly jittered backoff. Every retry is counted by its error code.
+ * <p>
+ * Transactions which were terminated on purpose, by a reset or by an administrator, are never retried.
+ */
+public class RetryPolicy {
+    public static final int DEFAULT_MAX_ATTEMPTS = 5;
+    public static final long DEFAULT_INITIAL_BACKOFF_MILLIS = 1000;
+    public static final long DEFAULT_MAX_BACKOFF_MILLIS = 30_000;
+    public static final double DEFAULT_JITTER = 0.2;
+    public static final List<String> DEFAULT_RETRYABLE_CODES =
+            Collections.unmodifiableList(Arrays.asList("Neo.TransientError", "ServiceUnavailable", "SessionExpired"));
+    static final String SERVICE_UNAVAILABLE = "ServiceUnavailable";
+    static final String SESSION_EXPIRED = "SessionExpired";
+    private static final List<String> TERMINATED_CODES = Arrays.asList(
+            "Neo.TransientError.Transaction.Terminated", "Neo.TransientError.Transaction.LockClientStopped");
+
+    private volatile int maxAttempts = DEFAULT_MAX_ATTEMPTS;
+    private volatile long initialBackoffMillis = DEFAULT_INITIAL_BACKOFF_MILLIS;
+    private volatile long maxBackoffMillis = DEFAULT_MAX_BACKOFF_MILLIS;
+    private volatile double jitter = DEFAULT_JITTER;
+    private volatile List<String> retryableCodes = DEFAULT_RETRYABLE_CODES;
+    private final LongAdder retries = new LongAdder();
+    private final Map<String, LongAdder> retriesByCode = new ConcurrentHashMap<>();
+
+    /**
+     * @param maxAttempts the most times a transaction is tried, 1 to never retry
+     */
+    public void setMaxAttempts(int maxAttempts) {
+        this.maxAttempts = maxAttempts;
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    /**
+     * @param initialBackoffMillis how long to wait before the first retry, which doubles for every retry after it
+     * @param maxBackoffMillis     the longest time to wait before a retry
+     */
+    public void setBackoff(long initialBackoffMillis, long maxBackoffMillis) {
+        this.initialBackoffMillis = initialBackoffMillis;
+        this.maxBackoffMillis = Math.max(initialBackoffMillis, maxBackoffMillis);
+    }
+
+    public long getInitialBackoff() {
+        return initialBackoffMillis;
+    }
+
+    public long getMaxBackoff() {
+        return maxBackoffMillis;
+    }
+
+    /**
+     * @param jitter the fraction, between 0 and 1, by which a backoff is randomly made shorter or longer. This keeps
+     *               transactions which failed together from being retried at the same time.
+     */
+    public void setJitter(double jitter) {
+        this.jitter = jitter;
+    }
+
+    public double getJitter() {
+        return jitter;
+    }
+
+    /**
+     * @param retryableCodes the error codes to retry. A code also covers the codes which start with it and a dot, so
+     *                       Neo.TransientError covers all transient errors.
+     */
+    public void setRetryableCodes(@Nonnull List<String> retryableCodes) {
+        this.retryableCodes = Collections.unmodifiableList(retryableCodes);
+    }
+
+    @Nonnull
+    public List<String> getRetryableCodes() {
+        return retryableCodes;
+    }
+
+    /**
+     * Run a unit of work, which must be a whole transaction, and run it again if it fails with a retryable error
+     */
+    public <T> T run(@Nonnull Supplier<T> work) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return work.get();
+            } catch (RuntimeException e) {
+                String code = errorCode(e);
+                if (attempt >= maxAttempts || code == null || !isRetryable(code) ||
+                        Thread.currentThread().isInterrupted() || Cancellation.isCancelled()) {
+                    throw e;
+                }
+                retries.increment();
+                retriesByCode.computeIfAbsent(code, c -> new LongAdder()).increment();
+                try {
+                    Thread.sleep(backoffMillis(attempt, ThreadLocalRandom.current().nextDouble()));
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * @param attempt the attempt which failed, starting at 1
+     * @param random  a number between 0 and 1
+     * @return how long to wait before the next attempt
+     */
+    long backoffMillis(int attempt, double random) {
+        long backoff = initialBackoffMillis;
+        for (int i = 1; i < attempt && backoff < maxBackoffMillis; i++) {
+            backoff *= 2;
+        }
+        backoff = Math.min(backoff, maxBackoffMillis);
+        return Math.max(0, Math.round(backoff * (1 + jitter * (2 * random - 1))));
+    }
+
+    /**
+     * @return the error code of a driver error, or null if it is not one
+     */
+    @Nullable
+    static String errorCode(@Nonnull Throwable error) {
+        if (error instanceof ServiceUnavailableException) {
+            return SERVICE_UNAVAILABLE;
+        } else if (error instanceof SessionExpiredException) {
+            return SESSION_EXPIRED;
+        } else if (error instanceof Neo4jException) {
+            return ((Neo4jException) error).code();
+        }
+        return null;
+    }
+
+    boolean isRetryable(@Nonnull String code) {
+        if (TERMINATED_CODES.contains(code)) {
+            return false;
+        }
+        for (String retryable : retryableCodes) {
+            if (code.equals(retryable) || code.startsWith(retryable + ".")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the number of times a transaction has been retried
+     */
+    public long retries() {
+        return retries.sum();
+    }
+
+    /**
+     * @return the number of retries for each error code
+     */
+    @Nonnull
+    public Map<String, Long> retriesByCode() {
+        Map<String, Long> counts = new TreeMap<>();
+        retriesByCode.forEach((code, count) -> counts.put(code, count.sum()));
+        return counts;
+    }
+
+    /**
+     * @return a line counting the retries by error code, like "Retried 3 transactions: 2
+     * Neo.TransientError.Transaction.DeadlockDetected, 1 ServiceUnavailable"
+     */
+    @Nonnull
+    public String summary() {
+        long total = retries();
+        if (total == 0) {
+            return "No transactions were retried";
+        }
+        return String.format("Retried %d transaction%s: %s", total, total == 1 ? "" : "s",
+                retriesByCode().entrySet().stream()
+                        .map(e -> e.getValue() + " " + e.getKey())
+                        .collect(Collectors.joining(", ")));
+    }
+}
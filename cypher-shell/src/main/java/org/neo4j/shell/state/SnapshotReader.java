@@ -0,0 +1,189 @@
+package org.neo4j.shell.state;
+
+import org.neo4j.driver.internal.InternalRecord;
+import org.neo4j.driver.internal.summary.InternalSummaryCounters;
+import org.neo4j.driver.v1.Record;
+import org.neo4j.driver.v1.Statement;
+import org.neo4j.driver.v1.Value;
+import org.neo4j.driver.v1.summary.StatementType;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.neo4j.shell.state.SnapshotWriter.MAGIC;
+import static org.neo4j.shell.state.SnapshotWriter.RECORD;
+import static org.neo4j.shell.state.SnapshotWriter.RESULT;
+import static org.neo4j.shell.state.SnapshotWriter.SUMMARY;
+import static org.neo4j.shell.state.SnapshotWriter.VERSION;
+
+/**
+ * Reads the results in a snapshot written by {@link SnapshotWriter}. Records are read one at a time, so a snapshot
+ * can be shown without holding all of it in memory:
+ * <pre>
+ * while (reader.nextResult()) {
+ *     keys = reader.keys();
+ *     while ((record = reader.nextRecord()) != null) { ... }
+ *     summary = reader.summary();
+ * }
+ * </pre>
+ */
+public class SnapshotReader implements Closeable {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final ValueInput in;
+    private List<String> keys = null;
+    private SnapshotSummary summary = null;
+    private boolean truncated = false;
+
+    public SnapshotReader(@Nonnull InputStream in) throws IOException {
+        this.in = new ValueInput(new BufferedInputStream(in, BUFFER_SIZE));
+        int magic;
+        int version;
+        try {
+            magic = this.in.readInt();
+            version = this.in.readUnsignedByte();
+        } catch (EOFException e) {
+            throw new IOException("Not a snapshot");
+        }
+        if (magic != MAGIC) {
+            throw new IOException("Not a snapshot");
+        }
+        if (version != VERSION) {
+            throw new IOException("Unsupported snapshot version " + version);
+        }
+    }
+
+    @Nonnull
+    public static SnapshotReader open(@Nonnull File file) throws IOException {
+        FileInputStream in = new FileInputStream(file);
+        try {
+            return new SnapshotReader(in);
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Move on to the next result, skipping any records of the current one which have not been read
+     *
+     * @return false if there are no more results
+     */
+    public boolean nextResult() throws IOException {
+        while (keys != null) {
+            nextRecord();
+        }
+        int marker = in.read();
+        if (marker == -1) {
+            return false;
+        }
+        ValueInput.expect(RESULT, marker);
+        int count = in.readLength();
+        List<String> resultKeys = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            resultKeys.add(in.readString());
+        }
+        keys = Collections.unmodifiableList(resultKeys);
+        summary = null;
+        truncated = false;
+        return true;
+    }
+
+    /**
+     * @return the keys of the current result
+     */
+    @Nonnull
+    public List<String> keys() {
+        if (keys == null) {
+            throw new IllegalStateException("There is no current result");
+        }
+        return keys;
+    }
+
+    /**
+     * @return the next record of the current result, or null after the last one, when its summary has been read
+     */
+    @Nullable
+    public Record nextRecord() throws IOException {
+        if (keys == null) {
+            return null;
+        }
+        byte marker = in.readByte();
+        if (marker == SUMMARY) {
+            readSummary();
+            keys = null;
+            return null;
+        }
+        ValueInput.expect(RECORD, marker);
+        Value[] values = new Value[keys.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = in.readValue();
+        }
+        return new InternalRecord(keys, values);
+    }
+
+    /**
+     * @return the summary of the current result, once all of its records have been read
+     */
+    @Nonnull
+    public SnapshotSummary summary() {
+        if (summary == null) {
+            throw new IllegalStateException("The records of the result have not all been read");
+        }
+        return summary;
+    }
+
+    /**
+     * @return true if the snapshot only holds the first records of the current result
+     */
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    /**
+     * Read the next result as a whole
+     *
+     * @return the next result, or null if there are no more results
+     */
+    @Nullable
+    public BoltResult readResult() throws IOException {
+        if (!nextResult()) {
+            return null;
+        }
+        List<Record> records = new ArrayList<>();
+        Record record;
+        while ((record = nextRecord()) != null) {
+            records.add(record);
+        }
+        return new BoltResult(records, summary, truncated);
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private void readSummary() throws IOException {
+        truncated = in.readBoolean();
+        Statement statement = new Statement(in.readString());
+        byte type = in.readByte();
+        StatementType statementType = type < 0 ? null : StatementType.values()[type];
+        InternalSummaryCounters counters = new InternalSummaryCounters(
+                in.readLength(), in.readLength(), in.readLength(), in.readLength(), in.readLength(), in.readLength(),
+                in.readLength(), in.readLength(), in.readLength(), in.readLength(), in.readLength());
+        long availableAfter = in.readVarLong();
+        long consumedAfter = in.readVarLong();
+        summary = new SnapshotSummary(statement, statementType, counters, availableAfter, consumedAfter,
+                in.readString());
+    }
+}
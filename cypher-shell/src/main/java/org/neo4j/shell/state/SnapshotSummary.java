@@ -0,0 +1,118 @@
+package org.neo4j.shell.state;
+
+import org.neo4j.driver.internal.summary.InternalSummaryCounters;
+import org.neo4j.driver.v1.Statement;
+import org.neo4j.driver.v1.summary.Notification;
+import org.neo4j.driver.v1.summary.Plan;
+import org.neo4j.driver.v1.summary.ProfiledPlan;
+import org.neo4j.driver.v1.summary.ResultSummary;
+import org.neo4j.driver.v1.summary.ServerInfo;
+import org.neo4j.driver.v1.summary.StatementType;
+import org.neo4j.driver.v1.summary.SummaryCounters;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The summary of a result as it was kept in a snapshot. Plans and notifications are not kept.
+ */
+public class SnapshotSummary implements ResultSummary {
+    private final Statement statement;
+    private final StatementType statementType;
+    private final SummaryCounters counters;
+    private final long resultAvailableAfter;
+    private final long resultConsumedAfter;
+    private final String serverVersion;
+
+    /**
+     * @param resultAvailableAfter milliseconds until the first record was available
+     * @param resultConsumedAfter  milliseconds until the last record was consumed
+     */
+    public SnapshotSummary(@Nonnull Statement statement, @Nullable StatementType statementType,
+                           @Nonnull SummaryCounters counters, long resultAvailableAfter, long resultConsumedAfter,
+                           @Nonnull String serverVersion) {
+        this.statement = statement;
+        this.statementType = statementType;
+        this.counters = counters;
+        this.resultAvailableAfter = resultAvailableAfter;
+        this.resultConsumedAfter = resultConsumedAfter;
+        this.serverVersion = serverVersion;
+    }
+
+    /**
+     * @return the summary of a read only statement whose result was discarded before its real summary was read
+     */
+    @Nonnull
+    public static SnapshotSummary unread(@Nonnull String cypher, @Nonnull String serverVersion) {
+        return new SnapshotSummary(new Statement(cypher), StatementType.READ_ONLY, InternalSummaryCounters.EMPTY_STATS,
+                0, 0, serverVersion);
+    }
+
+    @Override
+    public Statement statement() {
+        return statement;
+    }
+
+    @Override
+    public SummaryCounters counters() {
+        return counters;
+    }
+
+    @Override
+    public StatementType statementType() {
+        return statementType;
+    }
+
+    @Override
+    public boolean hasPlan() {
+        return false;
+    }
+
+    @Override
+    public boolean hasProfile() {
+        return false;
+    }
+
+    @Override
+    public Plan plan() {
+        return null;
+    }
+
+    @Override
+    public ProfiledPlan profile() {
+        return null;
+    }
+
+    @Override
+    public List<Notification> notifications() {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public long resultAvailableAfter(TimeUnit unit) {
+        return unit.convert(resultAvailableAfter, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public long resultConsumedAfter(TimeUnit unit) {
+        return unit.convert(resultConsumedAfter, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public ServerInfo server() {
+        return new ServerInfo() {
+            @Override
+            public String address() {
+                return "";
+            }
+
+            @Override
+            public String version() {
+                return serverVersion;
+            }
+        };
+    }
+}
@@ -0,0 +1,155 @@
+package org.neo4j.shell.state;
+
+import org.neo4j.driver.v1.Record;
+import org.neo4j.driver.v1.Value;
+import org.neo4j.driver.v1.summary.ResultSummary;
+import org.neo4j.driver.v1.summary.StatementType;
+import org.neo4j.driver.v1.summary.SummaryCounters;
+
+import javax.annotation.Nonnull;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes results to a snapshot file, so they can be shown again later without running their statements.
+ * <p>
+ * A snapshot starts with a magic number and a version, followed by any number of results. A result is its keys, its
+ * records and finally its summary. Values are written by {@link ValueOutput}, in an encoding much like Bolt
+ * PackStream.
+ */
+public class SnapshotWriter implements Closeable {
+    static final int MAGIC = 0x43534E50;
+    static final int VERSION = 1;
+
+    static final byte RESULT = 0x01;
+    static final byte RECORD = 0x02;
+    static final byte SUMMARY = 0x03;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final ValueOutput out;
+    private int keyCount = -1;
+    private long records = 0;
+
+    public SnapshotWriter(@Nonnull OutputStream out) throws IOException {
+        // Values are only read back to be shown again
+        this.out = new ValueOutput(new BufferedOutputStream(out, BUFFER_SIZE), false);
+        this.out.writeInt(MAGIC);
+        this.out.writeByte(VERSION);
+    }
+
+    /**
+     * Create a snapshot file, replacing any file which is there, and the directories it is in
+     */
+    @Nonnull
+    public static SnapshotWriter create(@Nonnull File file) throws IOException {
+        File dir = file.getAbsoluteFile().getParentFile();
+        if (dir != null && !dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Could not create directory " + dir);
+        }
+        FileOutputStream out = new FileOutputStream(file);
+        try {
+            return new SnapshotWriter(out);
+        } catch (IOException e) {
+            out.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Write a whole result
+     */
+    public void write(@Nonnull BoltResult result) throws IOException {
+        List<Record> resultRecords = result.getRecords();
+        startResult(resultRecords.isEmpty() ? Collections.emptyList() : resultRecords.get(0).keys());
+        for (Record record : resultRecords) {
+            writeRecord(record);
+        }
+        endResult(result.getSummary(), result.isTruncated());
+    }
+
+    /**
+     * Start a result with the given keys, which is followed by its records and ended by {@link #endResult}
+     */
+    public void startResult(@Nonnull List<String> keys) throws IOException {
+        if (keyCount >= 0) {
+            throw new IllegalStateException("The previous result has not been ended");
+        }
+        out.writeByte(RESULT);
+        out.writeLength(keys.size());
+        for (String key : keys) {
+            out.writeString(key);
+        }
+        keyCount = keys.size();
+        records = 0;
+    }
+
+    public void writeRecord(@Nonnull Record record) throws IOException {
+        if (keyCount < 0) {
+            throw new IllegalStateException("There is no result to write the record to");
+        }
+        if (record.size() != keyCount) {
+            throw new IllegalArgumentException(
+                    String.format("Expected a record of %d values but got %d", keyCount, record.size()));
+        }
+        out.writeByte(RECORD);
+        for (Value value : record.values()) {
+            out.writeValue(value);
+        }
+        records++;
+    }
+
+    /**
+     * @param truncated true if only the first records of the result were written
+     */
+    public void endResult(@Nonnull ResultSummary summary, boolean truncated) throws IOException {
+        if (keyCount < 0) {
+            throw new IllegalStateException("There is no result to end");
+        }
+        out.writeByte(SUMMARY);
+        out.writeBoolean(truncated);
+        out.writeString(summary.statement() == null ? "" : summary.statement().text());
+        StatementType type = summary.statementType();
+        out.writeByte(type == null ? -1 : type.ordinal());
+        SummaryCounters counters = summary.counters();
+        out.writeLength(counters.nodesCreated());
+        out.writeLength(counters.nodesDeleted());
+        out.writeLength(counters.relationshipsCreated());
+        out.writeLength(counters.relationshipsDeleted());
+        out.writeLength(counters.propertiesSet());
+        out.writeLength(counters.labelsAdded());
+        out.writeLength(counters.labelsRemoved());
+        out.writeLength(counters.indexesAdded());
+        out.writeLength(counters.indexesRemoved());
+        out.writeLength(counters.constraintsAdded());
+        out.writeLength(counters.constraintsRemoved());
+        out.writeVarLong(summary.resultAvailableAfter(TimeUnit.MILLISECONDS));
+        out.writeVarLong(summary.resultConsumedAfter(TimeUnit.MILLISECONDS));
+        String version = summary.server() == null ? null : summary.server().version();
+        out.writeString(version == null ? "" : version);
+        keyCount = -1;
+    }
+
+    /**
+     * @return the number of records written to the current or last result
+     */
+    public long getRecordCount() {
+        return records;
+    }
+
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+}
@@ -0,0 +1,169 @@
+package org.neo4j.shell.state;
+
+import org.neo4j.driver.v1.Statement;
+import org.neo4j.driver.v1.Value;
+
+import javax.annotation.Nonnull;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * The statements of an open transaction, which are kept until it is committed. Once the estimated size of the
+ * statements and their parameters passes a threshold, the statements after it are written to a temporary file instead
+ * of being kept on the heap. They are read back from the file, in order, every time the buffer is iterated, so a
+ * commit which is retried sends the same statements again.
+ */
+public class StatementBuffer implements Iterable<Statement>, Closeable {
+    public static final long DEFAULT_SPILL_THRESHOLD_BYTES = 32L * 1024 * 1024;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final long spillThreshold;
+    private final List<Statement> statements = new ArrayList<>();
+    private final List<ValueInput> readers = new ArrayList<>();
+    private long bytes = 0;
+    private File spillFile = null;
+    private ValueOutput spillOutput = null;
+    private int spilled = 0;
+
+    public StatementBuffer() {
+        this(DEFAULT_SPILL_THRESHOLD_BYTES);
+    }
+
+    /**
+     * @param spillThreshold estimated number of bytes of statements to keep on the heap
+     */
+    public StatementBuffer(long spillThreshold) {
+        this.spillThreshold = spillThreshold;
+    }
+
+    public void add(@Nonnull Statement statement) throws IOException {
+        if (spillOutput == null && bytes < spillThreshold) {
+            statements.add(statement);
+            bytes += estimateSize(statement);
+            return;
+        }
+        if (spillOutput == null) {
+            spillFile = File.createTempFile("cypher-shell-transaction", ".tmp");
+            spillFile.deleteOnExit();
+            spillOutput = new ValueOutput(new BufferedOutputStream(new FileOutputStream(spillFile), BUFFER_SIZE),
+                    true);
+        }
+        // The parameters go first, as they are refused before anything is written if they can not be read back
+        spillOutput.writeValue(statement.parameters());
+        spillOutput.writeString(statement.text());
+        spilled++;
+    }
+
+    /**
+     * @return the number of statements in the buffer
+     */
+    public int size() {
+        return statements.size() + spilled;
+    }
+
+    /**
+     * @return the number of statements which have been written to the temporary file
+     */
+    public int spilled() {
+        return spilled;
+    }
+
+    /**
+     * Iterate over the statements in the order they were added. Reading statements back from the temporary file may
+     * fail with an {@link UncheckedIOException}.
+     */
+    @Override
+    public Iterator<Statement> iterator() {
+        return new Iterator<Statement>() {
+            private final Iterator<Statement> inMemory = statements.iterator();
+            private final int toRead = spilled;
+            private ValueInput reader = null;
+            private int read = 0;
+
+            @Override
+            public boolean hasNext() {
+                return inMemory.hasNext() || read < toRead;
+            }
+
+            @Override
+            public Statement next() {
+                if (inMemory.hasNext()) {
+                    return inMemory.next();
+                }
+                if (read >= toRead) {
+                    throw new NoSuchElementException();
+                }
+                try {
+                    if (reader == null) {
+                        reader = openReader();
+                    }
+                    Value parameters = reader.readValue();
+                    Statement statement = new Statement(reader.readString(), parameters);
+                    if (++read == toRead) {
+                        closeReader(reader);
+                    }
+                    return statement;
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Could not read the statements of the transaction", e);
+                }
+            }
+        };
+    }
+
+    /**
+     * Drop all statements, and remove the temporary file
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        statements.clear();
+        bytes = 0;
+        spilled = 0;
+        try {
+            for (ValueInput reader : readers) {
+                reader.close();
+            }
+            readers.clear();
+            if (spillOutput != null) {
+                spillOutput.close();
+            }
+        } finally {
+            spillOutput = null;
+            if (spillFile != null && !spillFile.delete() && spillFile.exists()) {
+                spillFile = null;
+                throw new IOException("Could not remove temporary file");
+            }
+            spillFile = null;
+        }
+    }
+
+    private synchronized ValueInput openReader() throws IOException {
+        spillOutput.flush();
+        ValueInput reader = new ValueInput(new BufferedInputStream(new FileInputStream(spillFile), BUFFER_SIZE));
+        readers.add(reader);
+        return reader;
+    }
+
+    private synchronized void closeReader(@Nonnull ValueInput reader) throws IOException {
+        readers.remove(reader);
+        reader.close();
+    }
+
+    /**
+     * @return a rough estimate of the number of bytes the statement and its parameters occupy, which is more than
+     * they take up when they are sent
+     */
+    static long estimateSize(@Nonnull Statement statement) {
+        return 2L * statement.text().length() + ResultCache.estimateSize(statement.parameters());
+    }
+}
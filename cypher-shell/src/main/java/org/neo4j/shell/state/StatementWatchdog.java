@@ -0,0 +1,152 @@
+package org.neo4j.shell.state;
+
+import org.neo4j.shell.system.Threads;
+
+import javax.annotation.Nonnull;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Stops statements which run for longer than the query timeout. A thread of its own resets the session when the time
+ * is up, which makes the server stop working on the statement and release its locks.
+ */
+public class StatementWatchdog {
+    private static final Pattern DURATION = Pattern.compile("(?<amount>\\d+)\\s*(?<unit>ms|s|m|h)?");
+
+    private final Runnable reset;
+    private ScheduledExecutorService timer;
+    private volatile long timeoutMillis = 0;
+
+    /**
+     * @param reset stops the statement which is running
+     */
+    public StatementWatchdog(@Nonnull Runnable reset) {
+        this.reset = reset;
+    }
+
+    /**
+     * @param timeoutMillis the longest time a statement may run for, or 0 for no limit
+     */
+    public void setTimeout(long timeoutMillis) {
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    public long getTimeout() {
+        return timeoutMillis;
+    }
+
+    /**
+     * Start watching a statement, which must be closed when the statement is done
+     */
+    @Nonnull
+    public Watch start() {
+        long timeout = timeoutMillis;
+        Watch watch = new Watch(timeout);
+        if (timeout > 0) {
+            watch.alarm = getTimer().schedule(() -> watch.expire(reset), timeout, TimeUnit.MILLISECONDS);
+        }
+        return watch;
+    }
+
+    private synchronized ScheduledExecutorService getTimer() {
+        if (timer == null) {
+            timer = Executors.newSingleThreadScheduledExecutor(Threads.background("statement-watchdog"));
+        }
+        return timer;
+    }
+
+    /**
+     * Parse a duration like 500ms, 30s, 5m or 2h. A plain number is a number of seconds.
+     *
+     * @return the duration in milliseconds
+     * @throws IllegalArgumentException if the text is not a duration
+     */
+    public static long parseTimeout(@Nonnull String text) {
+        Matcher m = DURATION.matcher(text.trim());
+        if (!m.matches()) {
+            throw new IllegalArgumentException("Not a duration: " + text);
+        }
+        long amount;
+        try {
+            amount = Long.parseLong(m.group("amount"));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Not a duration: " + text);
+        }
+        String unit = m.group("unit");
+        if ("ms".equals(unit)) {
+            return amount;
+        } else if ("m".equals(unit)) {
+            return TimeUnit.MINUTES.toMillis(amount);
+        } else if ("h".equals(unit)) {
+            return TimeUnit.HOURS.toMillis(amount);
+        }
+        return TimeUnit.SECONDS.toMillis(amount);
+    }
+
+    /**
+     * @return the duration in the largest unit which shows it exactly
+     */
+    @Nonnull
+    public static String formatTimeout(long millis) {
+        if (millis % 1000 != 0) {
+            return millis + "ms";
+        }
+        long seconds = millis / 1000;
+        if (seconds == 0 || seconds % 60 != 0) {
+            return seconds + "s";
+        }
+        long minutes = seconds / 60;
+        return minutes % 60 != 0 ? minutes + "m" : minutes / 60 + "h";
+    }
+
+    /**
+     * Watches a single statement
+     * <p>
+     * The alarm can go off while the statement is closing, and is only scheduled once the watch has been returned, so
+     * it checks under the lock of the watch that the statement has not been closed yet. Once closed, no reset follows.
+     */
+    public static class Watch implements AutoCloseable {
+        private final long timeoutMillis;
+        private volatile ScheduledFuture<?> alarm;
+        private volatile boolean expired = false;
+        private boolean closed = false;
+
+        private Watch(long timeoutMillis) {
+            this.timeoutMillis = timeoutMillis;
+        }
+
+        /**
+         * @return true if the statement ran out of time and was reset
+         */
+        public boolean hasExpired() {
+            return expired;
+        }
+
+        public long getTimeout() {
+            return timeoutMillis;
+        }
+
+        private synchronized void expire(@Nonnull Runnable reset) {
+            if (closed) {
+                return;
+            }
+            expired = true;
+            reset.run();
+        }
+
+        @Override
+        public void close() {
+            synchronized (this) {
+                closed = true;
+            }
+            ScheduledFuture<?> current = alarm;
+            if (current != null) {
+                current.cancel(false);
+            }
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package org.neo4j.shell.state;
+
+import org.neo4j.driver.internal.InternalNode;
+import org.neo4j.driver.internal.InternalPath;
+import org.neo4j.driver.internal.InternalRelationship;
+import org.neo4j.driver.internal.value.ListValue;
+import org.neo4j.driver.internal.value.MapValue;
+import org.neo4j.driver.internal.value.NodeValue;
+import org.neo4j.driver.internal.value.NullValue;
+import org.neo4j.driver.internal.value.PathValue;
+import org.neo4j.driver.internal.value.RelationshipValue;
+import org.neo4j.driver.v1.Value;
+import org.neo4j.driver.v1.Values;
+import org.neo4j.driver.v1.types.Entity;
+import org.neo4j.driver.v1.types.Node;
+
+import javax.annotation.Nonnull;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.neo4j.shell.state.ValueOutput.BYTES;
+import static org.neo4j.shell.state.ValueOutput.FALSE;
+import static org.neo4j.shell.state.ValueOutput.FLOAT;
+import static org.neo4j.shell.state.ValueOutput.INTEGER;
+import static org.neo4j.shell.state.ValueOutput.LIST;
+import static org.neo4j.shell.state.ValueOutput.MAP;
+import static org.neo4j.shell.state.ValueOutput.NODE;
+import static org.neo4j.shell.state.ValueOutput.NULL;
+import static org.neo4j.shell.state.ValueOutput.PATH;
+import static org.neo4j.shell.state.ValueOutput.RELATIONSHIP;
+import static org.neo4j.shell.state.ValueOutput.STRING;
+import static org.neo4j.shell.state.ValueOutput.TRUE;
+
+/**
+ * Reads driver values written by {@link ValueOutput}
+ */
+class ValueInput extends DataInputStream {
+    ValueInput(@Nonnull InputStream in) {
+        super(in);
+    }
+
+    @Nonnull
+    Value readValue() throws IOException {
+        byte marker = readByte();
+        switch (marker) {
+            case NULL:
+                return NullValue.NULL;
+            case TRUE:
+                return Values.value(true);
+            case FALSE:
+                return Values.value(false);
+            case INTEGER:
+                return Values.value(readVarLong());
+            case FLOAT:
+                return Values.value(readDouble());
+            case STRING:
+                return Values.value(readString());
+            case BYTES:
+                byte[] bytes = new byte[readLength()];
+                readFully(bytes);
+                return Values.value(bytes);
+            case LIST:
+                Value[] elements = new Value[readLength()];
+                for (int i = 0; i < elements.length; i++) {
+                    elements[i] = readValue();
+                }
+                return new ListValue(elements);
+            case MAP:
+                return new MapValue(readProperties());
+            case NODE:
+                return new NodeValue(readNode());
+            case RELATIONSHIP:
+                return new RelationshipValue(readRelationship());
+            case PATH:
+                return readPath();
+            default:
+                throw new IOException(String.format("Corrupt data, unknown value marker 0x%02X", marker));
+        }
+    }
+
+    @Nonnull
+    private Node readNode() throws IOException {
+        long id = readVarLong();
+        int count = readLength();
+        List<String> labels = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            labels.add(readString());
+        }
+        return new InternalNode(id, labels, readProperties());
+    }
+
+    @Nonnull
+    private InternalRelationship readRelationship() throws IOException {
+        long id = readVarLong();
+        long start = readVarLong();
+        long end = readVarLong();
+        String type = readString();
+        return new InternalRelationship(id, start, end, type, readProperties());
+    }
+
+    @Nonnull
+    private Value readPath() throws IOException {
+        int length = readLength();
+        List<Entity> entities = new ArrayList<>(2 * length + 1);
+        expect(NODE, readByte());
+        entities.add(readNode());
+        for (int i = 0; i < length; i++) {
+            expect(RELATIONSHIP, readByte());
+            entities.add(readRelationship());
+            expect(NODE, readByte());
+            entities.add(readNode());
+        }
+        return new PathValue(new InternalPath(entities));
+    }
+
+    @Nonnull
+    private Map<String, Value> readProperties() throws IOException {
+        int count = readLength();
+        Map<String, Value> properties = new HashMap<>(count * 4 / 3 + 1);
+        for (int i = 0; i < count; i++) {
+            String key = readString();
+            properties.put(key, readValue());
+        }
+        return properties;
+    }
+
+    @Nonnull
+    String readString() throws IOException {
+        byte[] bytes = new byte[readLength()];
+        readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    int readLength() throws IOException {
+        long length = readUnsigned();
+        if (length > Integer.MAX_VALUE) {
+            throw new IOException("Corrupt data, length out of range: " + length);
+        }
+        return (int) length;
+    }
+
+    long readVarLong() throws IOException {
+        long value = readUnsigned();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private long readUnsigned() throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Corrupt data, variable length number is too long");
+    }
+
+    static void expect(byte expected, int marker) throws IOException {
+        if ((byte) marker != expected) {
+            throw new IOException(String.format("Corrupt data, expected marker 0x%02X but got 0x%02X",
+                    expected, (byte) marker));
+        }
+    }
+}
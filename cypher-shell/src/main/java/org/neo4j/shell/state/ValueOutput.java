@@ -0,0 +1,221 @@
+package org.neo4j.shell.state;
+
+import org.neo4j.driver.internal.types.TypeRepresentation;
+import org.neo4j.driver.v1.Value;
+import org.neo4j.driver.v1.types.Entity;
+import org.neo4j.driver.v1.types.Node;
+import org.neo4j.driver.v1.types.Path;
+import org.neo4j.driver.v1.types.Relationship;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes driver values in a compact binary encoding, much like Bolt PackStream. Every value starts with a marker byte
+ * followed by its content: integers as zig-zag variable length numbers, and strings, lists and maps prefixed with
+ * their length. Nodes, relationships and paths are written with their ids, labels, types and properties.
+ * {@link ValueInput} reads them back.
+ * <p>
+ * Values of types this encoding does not know, which Bolt may add later, are either written as they are shown, which
+ * is good enough for displaying them again, or refused when they must be read back exactly, like the parameters of
+ * statements which are sent to the server later.
+ */
+class ValueOutput extends DataOutputStream {
+    static final byte NULL = (byte) 0xC0;
+    static final byte FLOAT = (byte) 0xC1;
+    static final byte FALSE = (byte) 0xC2;
+    static final byte TRUE = (byte) 0xC3;
+    static final byte INTEGER = (byte) 0xC8;
+    static final byte BYTES = (byte) 0xCC;
+    static final byte STRING = (byte) 0xD0;
+    static final byte LIST = (byte) 0xD4;
+    static final byte MAP = (byte) 0xD8;
+    static final byte NODE = 0x4E;
+    static final byte RELATIONSHIP = 0x52;
+    static final byte PATH = 0x50;
+
+    private final boolean exact;
+
+    /**
+     * @param exact if values of unknown types are refused, instead of written as they are shown
+     */
+    ValueOutput(@Nonnull OutputStream out, boolean exact) {
+        super(out);
+        this.exact = exact;
+    }
+
+    /**
+     * @throws IOException if the value can not be written exactly, before anything of it is written
+     */
+    void writeValue(@Nullable Value value) throws IOException {
+        if (exact) {
+            checkExact(value);
+        }
+        encode(value);
+    }
+
+    private void encode(@Nullable Value value) throws IOException {
+        TypeRepresentation type = value == null ? null : (TypeRepresentation) value.type();
+        if (type == null) {
+            writeByte(NULL);
+            return;
+        }
+        switch (type.constructor()) {
+            case NULL_TyCon:
+                writeByte(NULL);
+                break;
+            case BOOLEAN_TyCon:
+                writeByte(value.asBoolean() ? TRUE : FALSE);
+                break;
+            case INTEGER_TyCon:
+                writeByte(INTEGER);
+                writeVarLong(value.asLong());
+                break;
+            case FLOAT_TyCon:
+                writeByte(FLOAT);
+                writeDouble(value.asDouble());
+                break;
+            case STRING_TyCon:
+                writeByte(STRING);
+                writeString(value.asString());
+                break;
+            case BYTES_TyCon:
+                byte[] bytes = value.asByteArray();
+                writeByte(BYTES);
+                writeLength(bytes.length);
+                write(bytes);
+                break;
+            case LIST_TyCon:
+                writeByte(LIST);
+                writeLength(value.size());
+                for (Value element : value.values()) {
+                    encode(element);
+                }
+                break;
+            case MAP_TyCon:
+                writeByte(MAP);
+                writeLength(value.size());
+                for (String key : value.keys()) {
+                    writeString(key);
+                    encode(value.get(key));
+                }
+                break;
+            case NODE_TyCon:
+                writeNode(value.asNode());
+                break;
+            case RELATIONSHIP_TyCon:
+                writeRelationship(value.asRelationship());
+                break;
+            case PATH_TyCon:
+                writePath(value.asPath());
+                break;
+            default:
+                // Types which Bolt may add later are kept as they are shown
+                writeByte(STRING);
+                writeString(value.toString());
+        }
+    }
+
+    /**
+     * Parameters are only made of plain values, lists and maps, so only those are looked into
+     */
+    private static void checkExact(@Nullable Value value) throws IOException {
+        TypeRepresentation type = value == null ? null : (TypeRepresentation) value.type();
+        if (type == null) {
+            return;
+        }
+        switch (type.constructor()) {
+            case NULL_TyCon:
+            case BOOLEAN_TyCon:
+            case INTEGER_TyCon:
+            case FLOAT_TyCon:
+            case STRING_TyCon:
+            case BYTES_TyCon:
+            case NODE_TyCon:
+            case RELATIONSHIP_TyCon:
+            case PATH_TyCon:
+                break;
+            case LIST_TyCon:
+            case MAP_TyCon:
+                for (Value element : value.values()) {
+                    checkExact(element);
+                }
+                break;
+            default:
+                throw new IOException("Values of type " + type.name() + " can not be written");
+        }
+    }
+
+    private void writeNode(@Nonnull Node node) throws IOException {
+        writeByte(NODE);
+        writeVarLong(node.id());
+        int labels = 0;
+        for (String ignored : node.labels()) {
+            labels++;
+        }
+        writeLength(labels);
+        for (String label : node.labels()) {
+            writeString(label);
+        }
+        writeProperties(node);
+    }
+
+    private void writeRelationship(@Nonnull Relationship relationship) throws IOException {
+        writeByte(RELATIONSHIP);
+        writeVarLong(relationship.id());
+        writeVarLong(relationship.startNodeId());
+        writeVarLong(relationship.endNodeId());
+        writeString(relationship.type());
+        writeProperties(relationship);
+    }
+
+    /**
+     * A path is written as its start node followed by the relationship and end node of each segment
+     */
+    private void writePath(@Nonnull Path path) throws IOException {
+        writeByte(PATH);
+        writeLength(path.length());
+        writeNode(path.start());
+        for (Path.Segment segment : path) {
+            writeRelationship(segment.relationship());
+            writeNode(segment.end());
+        }
+    }
+
+    private void writeProperties(@Nonnull Entity entity) throws IOException {
+        writeLength(entity.size());
+        for (String key : entity.keys()) {
+            writeString(key);
+            encode(entity.get(key));
+        }
+    }
+
+    void writeString(@Nonnull String string) throws IOException {
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        writeLength(bytes.length);
+        write(bytes);
+    }
+
+    void writeLength(int length) throws IOException {
+        writeUnsigned(length);
+    }
+
+    /**
+     * Zig-zag encoded, so numbers close to zero take few bytes whatever their sign
+     */
+    void writeVarLong(long value) throws IOException {
+        writeUnsigned((value << 1) ^ (value >> 63));
+    }
+
+    private void writeUnsigned(long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        writeByte((int) value);
+    }
+}
@@ -0,0 +1,41 @@
+package org.neo4j.shell.system;
+
+import javax.annotation.Nonnull;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tells a thread to stop the statement it is running, like the interrupt flag of a thread does, without interrupting
+ * it. Interrupting a thread while the driver is reading or writing on it closes the connection of its session, so a
+ * statement which is stopped is reset on the server instead, and only the loops which read, format and page through
+ * its result look at this flag.
+ */
+public class Cancellation {
+    private static final Set<Thread> cancelled = ConcurrentHashMap.newKeySet();
+
+    private Cancellation() {
+    }
+
+    /**
+     * Tell the thread to stop what it is running, at its next check
+     */
+    public static void cancel(@Nonnull Thread thread) {
+        cancelled.add(thread);
+    }
+
+    /**
+     * @return true if the current thread has been told to stop
+     */
+    public static boolean isCancelled() {
+        return cancelled.contains(Thread.currentThread());
+    }
+
+    /**
+     * Clear the flag of the current thread, like {@link Thread#interrupted()}
+     *
+     * @return true if the current thread had been told to stop
+     */
+    public static boolean clear() {
+        return cancelled.remove(Thread.currentThread());
+    }
+}
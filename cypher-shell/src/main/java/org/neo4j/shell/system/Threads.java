@@ -0,0 +1,132 @@
+package org.neo4j.shell.system;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Makes the threads of the shell. None of them keep the shell from exiting.
+ * <p>
+ * Background tasks, which mostly wait, run on virtual threads when the JVM has them (Java 21 and later), and on
+ * platform threads otherwise. Virtual threads are cheap enough to start one for every task. Work which holds a
+ * connection to the database for long runs on platform threads either way, as the driver blocks inside synchronized
+ * code, which ties up the carrier thread of a virtual thread.
+ */
+public class Threads {
+    private static final Method OF_VIRTUAL = method(Thread.class, "ofVirtual");
+    private static final Method NAME = method(className("java.lang.Thread$Builder"), "name", String.class);
+    private static final Method FACTORY = method(className("java.lang.Thread$Builder"), "factory");
+    private static final boolean VIRTUAL = virtualFactory("probe") != null;
+
+    private Threads() {
+    }
+
+    /**
+     * @return true if background tasks run on virtual threads
+     */
+    public static boolean hasVirtualThreads() {
+        return VIRTUAL;
+    }
+
+    /**
+     * @param name of the threads
+     * @return a factory of platform daemon threads
+     */
+    @Nonnull
+    public static ThreadFactory platform(@Nonnull String name) {
+        return runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * @param name  of the threads
+     * @param count of threads
+     * @return a pool of platform threads, for work which holds a connection to the database
+     */
+    @Nonnull
+    public static ExecutorService connectionWorkers(@Nonnull String name, int count) {
+        return Executors.newFixedThreadPool(count, platform(name));
+    }
+
+    /**
+     * Wait for the executor to terminate, after it has been shut down. An interrupt does not stop the wait, so the
+     * tasks are not left running, and is kept for the caller to see.
+     */
+    public static void awaitUninterruptibly(@Nonnull ExecutorService executor) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                if (executor.awaitTermination(1, TimeUnit.SECONDS)) {
+                    break;
+                }
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * @param name of the threads
+     * @return a factory of virtual threads if there are any, and of platform daemon threads otherwise
+     */
+    @Nonnull
+    public static ThreadFactory background(@Nonnull String name) {
+        ThreadFactory factory = VIRTUAL ? virtualFactory(name) : null;
+        return factory == null ? platform(name) : factory;
+    }
+
+    @Nullable
+    private static ThreadFactory virtualFactory(@Nonnull String name) {
+        if (OF_VIRTUAL == null || NAME == null || FACTORY == null) {
+            return null;
+        }
+        try {
+            Object builder = NAME.invoke(OF_VIRTUAL.invoke(null), name);
+            return (ThreadFactory) FACTORY.invoke(builder);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // Like on Java 19 and 20, where virtual threads are a preview feature
+            return null;
+        }
+    }
+
+    /**
+     * Start a background task on a thread of its own
+     */
+    @Nonnull
+    public static Thread startBackground(@Nonnull String name, @Nonnull Runnable task) {
+        Thread thread = background(name).newThread(task);
+        thread.start();
+        return thread;
+    }
+
+    @Nullable
+    private static Class<?> className(@Nonnull String name) {
+        try {
+            return Class.forName(name);
+        } catch (ClassNotFoundException e) {
+            return null;
+        }
+    }
+
+    @Nullable
+    private static Method method(@Nullable Class<?> type, @Nonnull String name, Class<?>... parameterTypes) {
+        if (type == null) {
+            return null;
+        }
+        try {
+            return type.getMethod(name, parameterTypes);
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+}
@@ -7,21 +7,33 @@ import org.junit.rules.ExpectedException;
 import org.neo4j.driver.v1.Driver;
 import org.neo4j.driver.v1.Record;
 import org.neo4j.driver.v1.Session;
+import org.neo4j.driver.v1.StatementResult;
 import org.neo4j.driver.v1.Value;
+import org.neo4j.driver.v1.Values;
+import org.neo4j.driver.v1.exceptions.ClientException;
+import org.neo4j.driver.v1.summary.ResultSummary;
+import org.neo4j.driver.v1.summary.StatementType;
+import org.neo4j.driver.v1.summary.SummaryCounters;
 import org.neo4j.shell.cli.CliArgHelper;
 import org.neo4j.shell.cli.CliArgs;
 import org.neo4j.shell.cli.StringShellRunner;
 import org.neo4j.shell.commands.CommandExecutable;
 import org.neo4j.shell.commands.CommandHelper;
 import org.neo4j.shell.exception.CommandException;
+import org.neo4j.shell.exception.QueryTimeoutException;
 import org.neo4j.shell.log.Logger;
 import org.neo4j.shell.prettyprint.PrettyPrinter;
 import org.neo4j.shell.state.BoltResult;
 import org.neo4j.shell.state.BoltStateHandler;
+import org.neo4j.shell.system.Cancellation;
 import org.neo4j.shell.test.OfflineTestShell;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static java.util.Arrays.asList;
@@ -29,11 +41,15 @@ import static junit.framework.TestCase.assertTrue;
 import static junit.framework.TestCase.fail;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyMap;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Mockito.contains;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -118,7 +134,7 @@ public class CypherShellTest {
 
         when(mockedBoltStateHandler.runCypher(anyString(), anyMap())).thenThrow(new CommandException("not connected"));
 
-        shell.set("bob", "99");
+        shell.set("bob", "toInteger('99')");
     }
 
     @Test
@@ -145,9 +161,9 @@ public class CypherShellTest {
 
         assertTrue(offlineTestShell.getAll().isEmpty());
 
-        Optional result = offlineTestShell.set("`bo``b`", "99");
+        Optional result = offlineTestShell.set("`bo``b`", "toString(99)");
         assertEquals("99", result.get());
-        assertEquals("99", offlineTestShell.getAll().get("bo`b"));
+        assertEquals("99", offlineTestShell.getAll().get("bo`b").asObject());
     }
 
     @Test
@@ -163,9 +179,41 @@ public class CypherShellTest {
 
         assertTrue(offlineTestShell.getAll().isEmpty());
 
-        Optional result = offlineTestShell.set("`bob`", "99");
+        Optional result = offlineTestShell.set("`bob`", "toString(99)");
         assertEquals("99", result.get());
-        assertEquals("99", offlineTestShell.getAll().get("bob"));
+        assertEquals("99", offlineTestShell.getAll().get("bob").asObject());
+    }
+
+    @Test
+    public void setLiteralParamIsEvaluatedLocally() throws CommandException {
+        when(mockedBoltStateHandler.isConnected()).thenReturn(false);
+
+        Optional result = offlineTestShell.set("`bob`", "[1, 2 * 3, 'x']");
+
+        assertEquals(asList(1L, 6L, "x"), result.get());
+        assertEquals(asList(1L, 6L, "x"), offlineTestShell.getAll().get("bob").asObject());
+        verify(mockedBoltStateHandler, never()).runCypher(anyString(), anyMap());
+    }
+
+    @Test
+    public void paramsAreCopiedOnWrite() throws CommandException {
+        offlineTestShell.set("a", "1");
+        Map<String, Value> before = offlineTestShell.getAll();
+
+        offlineTestShell.set("b", "2");
+
+        assertEquals(1, before.size());
+        assertEquals(2, offlineTestShell.getAll().size());
+        assertEquals(1L, offlineTestShell.getAll().get("a").asLong());
+    }
+
+    @Test
+    public void setNullLiteralParam() throws CommandException {
+        Optional result = offlineTestShell.set("bob", "null");
+
+        assertFalse(result.isPresent());
+        assertTrue(offlineTestShell.getAll().containsKey("bob"));
+        verify(mockedBoltStateHandler, never()).runCypher(anyString(), anyMap());
     }
 
     @Test
@@ -256,7 +304,7 @@ public class CypherShellTest {
     }
 
     @Test
-    public void specifyingACypherStringShouldGiveAStringRunner() throws IOException {
+    public void specifyingACypherStringShouldGiveAStringRunner() throws Exception {
         CliArgs cliArgs = CliArgHelper.parse("MATCH (n) RETURN n");
 
         ConnectionConfig connectionConfig = mock(ConnectionConfig.class);
@@ -280,6 +328,297 @@ public class CypherShellTest {
         CypherShell shell = new CypherShell(logger, mockedBoltStateHandler, mockedPrettyPrinter);
 
         // when
-        shell.set("bob", "99");
+        shell.set("bob", "timestamp()");
+    }
+
+    @Test
+    public void onlyReferencedParamsAreSent() throws CommandException {
+        when(mockedBoltStateHandler.isConnected()).thenReturn(true);
+        when(mockedBoltStateHandler.runCypher(anyString(), anyMap())).thenReturn(Optional.empty());
+        offlineTestShell.set("small", "1");
+        offlineTestShell.set("big", "[1, 2, 3]");
+
+        offlineTestShell.execute("RETURN $small, '$big'");
+
+        verify(mockedBoltStateHandler).runCypher("RETURN $small, '$big'",
+                Collections.singletonMap("small", Values.value(1L)));
+    }
+
+    @Test
+    public void statementFailsIfItsOutputCouldNotBeWritten() throws CommandException {
+        when(mockedBoltStateHandler.isConnected()).thenReturn(true);
+        when(mockedBoltStateHandler.runCypher(anyString(), anyMap())).thenReturn(Optional.empty());
+        when(logger.hasOutputFailed()).thenReturn(true);
+
+        thrown.expect(CommandException.class);
+        thrown.expectMessage("Could not write output");
+
+        offlineTestShell.execute("RETURN 1");
+    }
+
+    @Test
+    public void cachedResultsAreNotFetchedAgain() throws CommandException {
+        BoltResult result = mock(BoltResult.class);
+        ResultSummary summary = mock(ResultSummary.class);
+        SummaryCounters counters = mock(SummaryCounters.class);
+        when(result.getSummary()).thenReturn(summary);
+        when(summary.counters()).thenReturn(counters);
+        when(summary.statementType()).thenReturn(StatementType.READ_ONLY);
+        when(mockedBoltStateHandler.isConnected()).thenReturn(true);
+        when(mockedBoltStateHandler.runCypher(anyString(), anyMap())).thenReturn(Optional.of(result));
+        when(mockedPrettyPrinter.format(result)).thenReturn("999");
+        offlineTestShell.getResultCache().setEnabled(true);
+
+        offlineTestShell.execute("RETURN 999");
+        offlineTestShell.execute("RETURN 999");
+
+        verify(mockedBoltStateHandler, times(1)).runCypher(anyString(), anyMap());
+        verify(logger, times(2)).printOut(contains("999"));
+    }
+
+    @Test
+    public void cachedResultsArePagedUpToTheCurrentRowLimit() throws CommandException {
+        Record first = mock(Record.class);
+        Record second = mock(Record.class);
+        when(first.keys()).thenReturn(asList("n"));
+        ResultSummary summary = mock(ResultSummary.class);
+        when(summary.counters()).thenReturn(mock(SummaryCounters.class));
+        when(summary.statementType()).thenReturn(StatementType.READ_ONLY);
+        BoltResult result = new BoltResult(asList(first, second), summary);
+        when(mockedBoltStateHandler.isConnected()).thenReturn(true);
+        when(mockedBoltStateHandler.runCypher(anyString(), anyMap())).thenReturn(Optional.of(result));
+        when(mockedPrettyPrinter.formatKeys(asList("n"))).thenReturn("n");
+        when(mockedPrettyPrinter.formatRecord(first)).thenReturn("1");
+        when(mockedPrettyPrinter.formatRecord(second)).thenReturn("2");
+        offlineTestShell.getResultCache().setEnabled(true);
+        offlineTestShell.execute("UNWIND [1, 2] AS n RETURN n");
+
+        List<String> shown = new ArrayList<>();
+        offlineTestShell.setPager(lines -> {
+            lines.forEachRemaining(shown::add);
+            return true;
+        });
+        when(mockedBoltStateHandler.getMaxRows()).thenReturn(1);
+        offlineTestShell.execute("UNWIND [1, 2] AS n RETURN n");
+
+        assertEquals(asList("n", "1"), shown);
+        verify(mockedBoltStateHandler, times(1)).runCypher(anyString(), anyMap());
+        verify(mockedBoltStateHandler, never()).streamCypher(anyString(), anyMap());
+        verify(logger).printError(contains("Showing the first 1 rows"));
+    }
+
+    @Test
+    public void cacheIsBypassedInTransactions() throws CommandException {
+        BoltResult result = mock(BoltResult.class);
+        ResultSummary summary = mock(ResultSummary.class);
+        when(result.getSummary()).thenReturn(summary);
+        when(summary.counters()).thenReturn(mock(SummaryCounters.class));
+        when(summary.statementType()).thenReturn(StatementType.READ_ONLY);
+        when(mockedBoltStateHandler.isConnected()).thenReturn(true);
+        when(mockedBoltStateHandler.runCypher(anyString(), anyMap())).thenReturn(Optional.of(result));
+        offlineTestShell.getResultCache().setEnabled(true);
+        offlineTestShell.execute("RETURN 999");
+
+        when(mockedBoltStateHandler.isTransactionOpen()).thenReturn(true);
+        offlineTestShell.execute("RETURN 999");
+
+        verify(mockedBoltStateHandler, times(2)).runCypher(anyString(), anyMap());
+    }
+
+    @Test
+    public void pagedRecordsAreReadAsTheyAreShown() throws CommandException {
+        StatementResult cursor = mock(StatementResult.class);
+        Record first = mock(Record.class);
+        Record second = mock(Record.class);
+        ResultSummary summary = mock(ResultSummary.class);
+        when(summary.counters()).thenReturn(mock(SummaryCounters.class));
+        when(cursor.keys()).thenReturn(asList("n"));
+        when(cursor.hasNext()).thenReturn(true, true, true, false);
+        when(cursor.next()).thenReturn(first, second);
+        when(cursor.consume()).thenReturn(summary);
+        when(mockedBoltStateHandler.isConnected()).thenReturn(true);
+        when(mockedBoltStateHandler.streamCypher(anyString(), anyMap())).thenReturn(cursor);
+        when(mockedPrettyPrinter.formatKeys(asList("n"))).thenReturn("n");
+        when(mockedPrettyPrinter.formatRecord(first)).thenReturn("1");
+        when(mockedPrettyPrinter.formatRecord(second)).thenReturn("2");
+        when(mockedPrettyPrinter.formatSummary(summary)).thenReturn("2 rows");
+        List<String> shown = new ArrayList<>();
+        offlineTestShell.setPager(lines -> {
+            lines.forEachRemaining(shown::add);
+            return true;
+        });
+
+        offlineTestShell.execute("UNWIND [1, 2] AS n RETURN n");
+
+        assertEquals(asList("n", "1", "2"), shown);
+        verify(mockedBoltStateHandler, never()).runCypher(anyString(), anyMap());
+        verify(mockedBoltStateHandler, never()).reset();
+        verify(logger).printOut("2 rows");
+    }
+
+    @Test
+    public void stoppingThePagerDiscardsTheRestOfTheResult() throws CommandException {
+        StatementResult cursor = mock(StatementResult.class);
+        Record record = mock(Record.class);
+        when(cursor.keys()).thenReturn(asList("n"));
+        when(cursor.hasNext()).thenReturn(true);
+        when(cursor.next()).thenReturn(record);
+        when(mockedBoltStateHandler.isConnected()).thenReturn(true);
+        when(mockedBoltStateHandler.streamCypher(anyString(), anyMap())).thenReturn(cursor);
+        offlineTestShell.setPager(lines -> {
+            lines.next();
+            lines.next();
+            return false;
+        });
+
+        offlineTestShell.execute("UNWIND range(1, 1000000) AS n RETURN n");
+
+        verify(cursor, times(1)).next();
+        verify(cursor, never()).consume();
+        verify(mockedBoltStateHandler).reset();
+    }
+
+    @Test
+    public void statementsInTransactionsAreNotPaged() throws CommandException {
+        Pager pager = mock(Pager.class);
+        when(mockedBoltStateHandler.isConnected()).thenReturn(true);
+        when(mockedBoltStateHandler.isTransactionOpen()).thenReturn(true);
+        when(mockedBoltStateHandler.runCypher(anyString(), anyMap())).thenReturn(Optional.empty());
+        offlineTestShell.setPager(pager);
+
+        offlineTestShell.execute("CREATE ()");
+
+        verify(mockedBoltStateHandler).runCypher(anyString(), anyMap());
+        verify(mockedBoltStateHandler, never()).streamCypher(anyString(), anyMap());
+        verify(pager, never()).page(any());
+    }
+
+    @Test
+    public void rowLimitDiscardsTheRestOfReadOnlyResultsOnTheServer() throws CommandException {
+        StatementResult cursor = mock(StatementResult.class);
+        Record record = mock(Record.class);
+        when(cursor.keys()).thenReturn(asList("n"));
+        when(cursor.hasNext()).thenReturn(true);
+        when(cursor.next()).thenReturn(record);
+        when(mockedBoltStateHandler.isConnected()).thenReturn(true);
+        when(mockedBoltStateHandler.getMaxRows()).thenReturn(2);
+        when(mockedBoltStateHandler.streamCypher(anyString(), anyMap())).thenReturn(cursor);
+        when(mockedPrettyPrinter.formatKeys(asList("n"))).thenReturn("n");
+        when(mockedPrettyPrinter.formatRecord(record)).thenReturn("1");
+
+        offlineTestShell.execute("UNWIND range(1, 1000000) AS n RETURN n");
+
+        verify(cursor, times(2)).next();
+        verify(cursor, never()).consume();
+        verify(mockedBoltStateHandler).reset();
+        verify(logger).printOut("n");
+        verify(logger, times(2)).printOut("1");
+        verify(logger).printError(contains("Showing the first 2 rows"));
+    }
+
+    @Test
+    public void rowLimitLetsUpdatingStatementsFinish() throws CommandException {
+        StatementResult cursor = mock(StatementResult.class);
+        Record record = mock(Record.class);
+        ResultSummary summary = mock(ResultSummary.class);
+        when(summary.counters()).thenReturn(mock(SummaryCounters.class));
+        when(cursor.keys()).thenReturn(asList("n"));
+        when(cursor.hasNext()).thenReturn(true);
+        when(cursor.next()).thenReturn(record);
+        when(cursor.consume()).thenReturn(summary);
+        when(mockedBoltStateHandler.isConnected()).thenReturn(true);
+        when(mockedBoltStateHandler.getMaxRows()).thenReturn(1);
+        when(mockedBoltStateHandler.streamCypher(anyString(), anyMap())).thenReturn(cursor);
+        when(mockedPrettyPrinter.formatSummary(summary)).thenReturn("Added 1000 nodes");
+
+        offlineTestShell.execute("UNWIND range(1, 1000) AS n CREATE (m {n: n}) RETURN m");
+
+        verify(cursor, times(1)).next();
+        verify(cursor).consume();
+        verify(mockedBoltStateHandler, never()).reset();
+        verify(logger).printOut("Added 1000 nodes");
+        verify(logger).printError(contains("Showing the first 1 rows"));
+    }
+
+    @Test
+    public void truncatedResultsOfTransactionsAreNoted() throws CommandException {
+        BoltResult result = new BoltResult(asList(mock(Record.class)), mock(ResultSummary.class), true);
+        when(mockedBoltStateHandler.isConnected()).thenReturn(true);
+        when(mockedBoltStateHandler.isTransactionOpen()).thenReturn(true);
+        when(mockedBoltStateHandler.getMaxRows()).thenReturn(1);
+        when(mockedBoltStateHandler.runCypher(anyString(), anyMap())).thenReturn(Optional.of(result));
+        when(mockedPrettyPrinter.format(result)).thenReturn("n\n1");
+
+        offlineTestShell.execute("MATCH (n) RETURN n");
+
+        verify(mockedBoltStateHandler, never()).streamCypher(anyString(), anyMap());
+        verify(logger).printOut("n\n1");
+        verify(logger).printError(contains("Showing the first 1 rows"));
+    }
+
+    @Test
+    public void interruptingStopsReadingAndReportsTheRowsShown() throws CommandException {
+        StatementResult cursor = mock(StatementResult.class);
+        Record record = mock(Record.class);
+        when(cursor.keys()).thenReturn(asList("n"));
+        when(cursor.hasNext()).thenReturn(true);
+        when(cursor.next()).thenReturn(record);
+        when(mockedBoltStateHandler.isConnected()).thenReturn(true);
+        when(mockedBoltStateHandler.streamCypher(anyString(), anyMap())).thenReturn(cursor);
+        when(mockedPrettyPrinter.formatRecord(record)).thenReturn("1");
+        offlineTestShell.setPager(lines -> {
+            lines.next();
+            lines.next();
+            lines.next();
+            // Ctrl-C
+            Cancellation.cancel(Thread.currentThread());
+            assertFalse(lines.hasNext());
+            return true;
+        });
+
+        thrown.expect(CommandException.class);
+        thrown.expectMessage("Interrupted after showing 2 rows");
+
+        try {
+            offlineTestShell.execute("UNWIND range(1, 1000000) AS n RETURN n");
+        } finally {
+            assertFalse(Cancellation.isCancelled());
+            verify(cursor, never()).consume();
+        }
+    }
+
+    @Test
+    public void interruptedStatementsAreNotPrinted() throws CommandException {
+        when(mockedBoltStateHandler.isConnected()).thenReturn(true);
+        when(mockedBoltStateHandler.runCypher(anyString(), anyMap())).thenAnswer(invocation -> {
+            // Ctrl-C
+            Cancellation.cancel(Thread.currentThread());
+            throw new ClientException("The transaction has been terminated");
+        });
+
+        thrown.expect(CommandException.class);
+        thrown.expectMessage("Interrupted after showing 0 rows");
+
+        try {
+            offlineTestShell.execute("MATCH (n) RETURN n");
+        } finally {
+            verify(logger, never()).printOut(anyString());
+        }
+    }
+
+    @Test
+    public void statementsWhichRunTooLongAreResetAndReportedAsTimeouts() throws CommandException {
+        when(mockedBoltStateHandler.isConnected()).thenReturn(true);
+        when(mockedBoltStateHandler.runCypher(anyString(), anyMap())).thenAnswer(invocation -> {
+            // Runs until the watchdog resets the session
+            verify(mockedBoltStateHandler, timeout(10_000)).reset();
+            throw new ClientException("The transaction has been terminated");
+        });
+        offlineTestShell.getStatementWatchdog().setTimeout(10);
+
+        thrown.expect(QueryTimeoutException.class);
+        thrown.expectMessage("query timeout of 10ms");
+
+        offlineTestShell.execute("MATCH (a), (b), (c) RETURN count(*)");
     }
 }
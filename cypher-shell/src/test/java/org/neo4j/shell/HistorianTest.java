@@ -2,6 +2,10 @@ package org.neo4j.shell;
 
 import org.junit.Test;
 
+import java.util.Arrays;
+import java.util.HashSet;
+
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
 
@@ -11,4 +15,15 @@ public class HistorianTest {
         assertTrue(Historian.empty.getHistory().isEmpty());
     }
 
+    @Test
+    public void getLastAndSearchAreEmpty() throws Exception {
+        assertTrue(Historian.empty.getLast(16).isEmpty());
+        assertTrue(Historian.empty.search("match").isEmpty());
+    }
+
+    @Test
+    public void wordsIgnoreCaseAndPunctuation() throws Exception {
+        assertEquals(new HashSet<>(Arrays.asList("match", "p", "person", "return", "p_name", "3")),
+                Historian.words("MATCH (p:Person) RETURN p.p_name, p.p_name, 3;"));
+    }
 }
@@ -3,10 +3,15 @@ package org.neo4j.shell;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
 import org.neo4j.shell.cli.CliArgs;
+import org.neo4j.shell.cli.ImportShellRunner;
 import org.neo4j.shell.cli.NonInteractiveShellRunner;
 import org.neo4j.shell.log.Logger;
 
+import java.io.File;
+
+import static java.util.Arrays.asList;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
 import static org.neo4j.shell.ShellRunner.getShellRunner;
@@ -14,6 +19,8 @@ import static org.neo4j.shell.ShellRunner.getShellRunner;
 public class ShellRunnerTest {
     @Rule
     public final ExpectedException thrown = ExpectedException.none();
+    @Rule
+    public final TemporaryFolder temp = new TemporaryFolder();
     private final ConnectionConfig connectionConfig = mock(ConnectionConfig.class);
 
     @Test
@@ -24,4 +31,22 @@ public class ShellRunnerTest {
         assertTrue("Should be non-interactive shell runner when forced",
                 runner instanceof NonInteractiveShellRunner);
     }
+
+    @Test
+    public void importRunnerIfImporting() throws Exception {
+        CliArgs args = new CliArgs();
+        args.setImportArgs(asList("people.csv", "UNWIND $batch AS row CREATE (:P)"));
+        ShellRunner runner = getShellRunner(args, mock(CypherShell.class), mock(Logger.class), connectionConfig);
+        assertTrue("Should be import shell runner when importing", runner instanceof ImportShellRunner);
+    }
+
+    @Test
+    public void nonInteractiveRunnerIfReadingFile() throws Exception {
+        File script = temp.newFile("script.cypher");
+        CliArgs args = new CliArgs();
+        args.setInputFile(script.getPath());
+        ShellRunner runner = getShellRunner(args, mock(CypherShell.class), mock(Logger.class), connectionConfig);
+        assertTrue("Should be non-interactive shell runner when reading a file",
+                runner instanceof NonInteractiveShellRunner);
+    }
 }
@@ -0,0 +1,64 @@
+package org.neo4j.shell.cli;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class BackgroundReaderTest {
+    @Rule
+    public final ExpectedException thrown = ExpectedException.none();
+
+    @Test
+    public void readsEverythingInOrder() throws IOException {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 200_000; i++) {
+            text.append(i).append('\n');
+        }
+        try (Reader reader = new BackgroundReader(new StringReader(text.toString()))) {
+            StringBuilder result = new StringBuilder();
+            char[] buffer = new char[1000];
+            int read;
+            while ((read = reader.read(buffer)) >= 0) {
+                result.append(buffer, 0, read);
+            }
+            assertEquals(text.toString(), result.toString());
+            assertEquals(-1, reader.read(buffer));
+        }
+    }
+
+    @Test
+    public void failuresAreThrownByTheReadingThread() throws IOException {
+        Reader source = mock(Reader.class);
+        when(source.read(any(char[].class), anyInt(), anyInt())).thenThrow(new IOException("Corrupt input"));
+
+        thrown.expect(IOException.class);
+        thrown.expectMessage("Corrupt input");
+
+        try (Reader reader = new BackgroundReader(source)) {
+            reader.read(new char[10]);
+        }
+    }
+
+    @Test
+    public void errorsOfTheReadingThreadEndReading() throws IOException {
+        Reader source = mock(Reader.class);
+        when(source.read(any(char[].class), anyInt(), anyInt())).thenThrow(new OutOfMemoryError("Java heap space"));
+
+        thrown.expect(IOException.class);
+        thrown.expectMessage("Java heap space");
+
+        try (Reader reader = new BackgroundReader(source)) {
+            reader.read(new char[10]);
+        }
+    }
+}
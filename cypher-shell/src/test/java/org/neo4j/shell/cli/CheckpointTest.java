@@ -0,0 +1,135 @@
+package org.neo4j.shell.cli;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+import org.neo4j.driver.internal.InternalNode;
+import org.neo4j.driver.internal.value.NodeValue;
+import org.neo4j.driver.v1.Value;
+import org.neo4j.driver.v1.Values;
+import org.neo4j.shell.TransactionHandler;
+import org.neo4j.shell.VariableHolder;
+import org.neo4j.shell.exception.CommandException;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+public class CheckpointTest {
+    @Rule
+    public final TemporaryFolder temp = new TemporaryFolder();
+    @Rule
+    public final ExpectedException thrown = ExpectedException.none();
+
+    private final TransactionHandler txHandler = mock(TransactionHandler.class);
+    private final VariableHolder variables = mock(VariableHolder.class);
+    private final AtomicLong nanos = new AtomicLong();
+    private File file;
+    private File script;
+
+    @Before
+    public void setup() throws IOException {
+        file = new File(temp.getRoot(), "checkpoint.json");
+        script = temp.newFile("script.cypher");
+        doReturn(new HashMap<String, Value>()).when(variables).getAll();
+    }
+
+    @Test
+    public void writesEveryFewSeconds() throws Exception {
+        Checkpoint checkpoint = new Checkpoint(file, script, txHandler, variables, nanos::get);
+
+        checkpoint.executed(new StatementReader.ResumePoint(10, 1));
+        assertFalse(file.exists());
+
+        nanos.set(Checkpoint.WRITE_INTERVAL_NANOS);
+        checkpoint.executed(new StatementReader.ResumePoint(20, 2));
+        assertTrue(file.exists());
+
+        Checkpoint resumed = Checkpoint.resume(file, script, txHandler, variables);
+        assertEquals(20, resumed.getOffset());
+        assertEquals(2, resumed.getSkip());
+        assertEquals(2, resumed.getStatements());
+    }
+
+    @Test
+    public void doesNotMoveInsideTransactions() throws Exception {
+        Checkpoint checkpoint = new Checkpoint(file, script, txHandler, variables, nanos::get);
+        checkpoint.executed(new StatementReader.ResumePoint(10, 1));
+        doReturn(true).when(txHandler).isTransactionOpen();
+        checkpoint.executed(new StatementReader.ResumePoint(20, 1));
+        checkpoint.flush();
+
+        Checkpoint resumed = Checkpoint.resume(file, script, txHandler, variables);
+        assertEquals(10, resumed.getOffset());
+        assertEquals(2, resumed.getStatements());
+    }
+
+    @Test
+    public void restoresQueryParameters() throws Exception {
+        Map<String, Value> params = new HashMap<>();
+        params.put("name", Values.value("Ö \"quoted\"\n"));
+        params.put("count", Values.value(3));
+        params.put("ratio", Values.value(0.5));
+        params.put("list", Values.value(Arrays.asList(1, 2)));
+        params.put("nothing", Values.NULL);
+        doReturn(params).when(variables).getAll();
+        Checkpoint checkpoint = new Checkpoint(file, script, txHandler, variables, nanos::get);
+        checkpoint.executed(new StatementReader.ResumePoint(10, 1));
+        checkpoint.flush();
+
+        Checkpoint.resume(file, script, txHandler, variables);
+
+        verify(variables).setAll(params);
+    }
+
+    @Test
+    public void restoresParametersWhichJsonCanNotHoldExactly() throws Exception {
+        Map<String, Value> params = new HashMap<>();
+        params.put("bytes", Values.value(new byte[]{1, 2, 3}));
+        params.put("nan", Values.value(Double.NaN));
+        params.put("infinity", Values.value(Double.NEGATIVE_INFINITY));
+        params.put("node", new NodeValue(new InternalNode(7, Collections.singletonList("Person"),
+                Collections.singletonMap("name", Values.value("Ann")))));
+        doReturn(params).when(variables).getAll();
+        Checkpoint checkpoint = new Checkpoint(file, script, txHandler, variables, nanos::get);
+        checkpoint.executed(new StatementReader.ResumePoint(10, 1));
+        checkpoint.flush();
+
+        Checkpoint.resume(file, script, txHandler, variables);
+
+        verify(variables).setAll(params);
+    }
+
+    @Test
+    public void scriptMustMatch() throws Exception {
+        Checkpoint checkpoint = new Checkpoint(file, script, txHandler, variables, nanos::get);
+        checkpoint.executed(new StatementReader.ResumePoint(10, 1));
+        checkpoint.flush();
+
+        thrown.expect(CommandException.class);
+        thrown.expectMessage("was written for");
+
+        Checkpoint.resume(file, temp.newFile("other.cypher"), txHandler, variables);
+    }
+
+    @Test
+    public void missingCheckpointCannotBeResumed() throws Exception {
+        thrown.expect(CommandException.class);
+        thrown.expectMessage("Could not read checkpoint");
+
+        Checkpoint.resume(file, script, txHandler, variables);
+    }
+}
@@ -2,6 +2,7 @@ package org.neo4j.shell.cli;
 
 import org.junit.Before;
 import org.junit.Test;
+import org.neo4j.shell.state.RetryPolicy;
 
 import java.io.ByteArrayOutputStream;
 import java.io.PrintStream;
@@ -151,4 +152,181 @@ public class CliArgHelperTest {
         assertEquals(true, CliArgHelper.parse("--encryption", "true").getEncryption());
         assertEquals(false, CliArgHelper.parse("--encryption", "false").getEncryption());
     }
+
+    @Test
+    public void resultCacheIsOffByDefault() {
+        CliArgs cliArgs = CliArgHelper.parse();
+        assertFalse(cliArgs.getResultCache());
+        assertEquals(64, cliArgs.getResultCacheSize());
+        assertEquals(300, cliArgs.getResultCacheTtl());
+    }
+
+    @Test
+    public void parseResultCacheArguments() {
+        CliArgs cliArgs = CliArgHelper.parse("--result-cache", "--result-cache-size", "10", "--result-cache-ttl", "60");
+        assertTrue(cliArgs.getResultCache());
+        assertEquals(10, cliArgs.getResultCacheSize());
+        assertEquals(60, cliArgs.getResultCacheTtl());
+    }
+
+    @Test
+    public void nonPositiveCacheSizeGivesError() {
+        ByteArrayOutputStream bout = new ByteArrayOutputStream();
+        System.setErr(new PrintStream(bout));
+
+        assertNull(CliArgHelper.parse("--result-cache-size", "0"));
+        assertTrue(bout.toString().contains("--result-cache-size"));
+        assertTrue(bout.toString().contains("got '0'"));
+    }
+
+    @Test
+    public void parseParamFiles() {
+        assertEquals(asList("a.json", "b.csv"),
+                CliArgHelper.parse("--param-file", "a.json", "--param-file", "b.csv").getParamFiles());
+    }
+
+    @Test
+    public void parseInputFile() {
+        assertEquals(Optional.of("script.cypher"), CliArgHelper.parse("--file", "script.cypher").getInputFile());
+        assertEquals(Optional.of("script.cypher"), CliArgHelper.parse("-f", "script.cypher").getInputFile());
+        assertFalse(CliArgHelper.parse().getInputFile().isPresent());
+    }
+
+    @Test
+    public void parseCheckpoint() {
+        CliArgs cliArgs = CliArgHelper.parse("--file", "script.cypher", "--checkpoint", "script.checkpoint", "--resume");
+        assertEquals(Optional.of("script.checkpoint"), cliArgs.getCheckpointFile());
+        assertTrue(cliArgs.getResume());
+
+        cliArgs = CliArgHelper.parse("--file", "script.cypher");
+        assertFalse(cliArgs.getCheckpointFile().isPresent());
+        assertFalse(cliArgs.getResume());
+    }
+
+    @Test
+    public void checkpointRequiresFile() {
+        ByteArrayOutputStream bout = new ByteArrayOutputStream();
+        System.setErr(new PrintStream(bout));
+
+        assertNull(CliArgHelper.parse("--checkpoint", "script.checkpoint"));
+        assertTrue(bout.toString().contains("requires --file"));
+    }
+
+    @Test
+    public void resumeRequiresCheckpoint() {
+        ByteArrayOutputStream bout = new ByteArrayOutputStream();
+        System.setErr(new PrintStream(bout));
+
+        assertNull(CliArgHelper.parse("--file", "script.cypher", "--resume"));
+        assertTrue(bout.toString().contains("requires --checkpoint"));
+    }
+
+    @Test
+    public void parseOutputFile() {
+        CliArgs cliArgs = CliArgHelper.parse("--output", "out.txt.gz", "--tee");
+        assertEquals(Optional.of("out.txt.gz"), cliArgs.getOutputFile());
+        assertTrue(cliArgs.getTee());
+        assertEquals(Optional.of("out.txt"), CliArgHelper.parse("-o", "out.txt").getOutputFile());
+    }
+
+    @Test
+    public void noOutputFileByDefault() {
+        CliArgs cliArgs = CliArgHelper.parse();
+        assertFalse(cliArgs.getOutputFile().isPresent());
+        assertFalse(cliArgs.getTee());
+    }
+
+    @Test
+    public void parseSnapshotFile() {
+        assertEquals(Optional.of("out.snapshot"),
+                CliArgHelper.parse("--snapshot-file", "out.snapshot").getSnapshotFile());
+        assertFalse(CliArgHelper.parse().getSnapshotFile().isPresent());
+    }
+
+    @Test
+    public void parseMaxRows() {
+        assertEquals(Optional.of(50), CliArgHelper.parse("--max-rows", "50").getMaxRows());
+        assertEquals(Optional.of(0), CliArgHelper.parse("--max-rows", "0").getMaxRows());
+        assertFalse(CliArgHelper.parse().getMaxRows().isPresent());
+    }
+
+    @Test
+    public void negativeMaxRowsGivesError() throws Exception {
+        ByteArrayOutputStream bout = new ByteArrayOutputStream();
+        System.setErr(new PrintStream(bout));
+
+        assertNull(CliArgHelper.parse("--max-rows", "-1"));
+        assertTrue(bout.toString().contains("non-negative integer"));
+    }
+
+    @Test
+    public void parseQueryTimeout() {
+        assertEquals(30_000L, CliArgHelper.parse("--query-timeout", "30s").getQueryTimeout());
+        assertEquals(300_000L, CliArgHelper.parse("--query-timeout", "5m").getQueryTimeout());
+        assertEquals(0L, CliArgHelper.parse().getQueryTimeout());
+    }
+
+    @Test
+    public void badQueryTimeoutGivesError() throws Exception {
+        ByteArrayOutputStream bout = new ByteArrayOutputStream();
+        System.setErr(new PrintStream(bout));
+
+        assertNull(CliArgHelper.parse("--query-timeout", "soon"));
+        assertTrue(bout.toString().contains("duration"));
+    }
+
+    @Test
+    public void parseRetryArguments() {
+        CliArgs cliArgs = CliArgHelper.parse("--retry-attempts", "10", "--retry-backoff", "50ms",
+                "--retry-max-backoff", "2s", "--retry-jitter", "0.5",
+                "--retry-codes", "Neo.TransientError, Neo.ClientError.Cluster.NotALeader");
+        assertEquals(10, cliArgs.getRetryAttempts());
+        assertEquals(50L, cliArgs.getRetryBackoff());
+        assertEquals(2000L, cliArgs.getRetryMaxBackoff());
+        assertEquals(0.5, cliArgs.getRetryJitter(), 0.0);
+        assertEquals(asList("Neo.TransientError", "Neo.ClientError.Cluster.NotALeader"), cliArgs.getRetryCodes());
+    }
+
+    @Test
+    public void retryDefaults() {
+        CliArgs cliArgs = CliArgHelper.parse();
+        assertEquals(RetryPolicy.DEFAULT_MAX_ATTEMPTS, cliArgs.getRetryAttempts());
+        assertEquals(RetryPolicy.DEFAULT_INITIAL_BACKOFF_MILLIS, cliArgs.getRetryBackoff());
+        assertEquals(RetryPolicy.DEFAULT_MAX_BACKOFF_MILLIS, cliArgs.getRetryMaxBackoff());
+        assertEquals(RetryPolicy.DEFAULT_JITTER, cliArgs.getRetryJitter(), 0.0);
+        assertEquals(RetryPolicy.DEFAULT_RETRYABLE_CODES, cliArgs.getRetryCodes());
+    }
+
+    @Test
+    public void jitterMustBeAFraction() throws Exception {
+        ByteArrayOutputStream bout = new ByteArrayOutputStream();
+        System.setErr(new PrintStream(bout));
+
+        assertNull(CliArgHelper.parse("--retry-jitter", "1.5"));
+        assertTrue(bout.toString().contains("1.5"));
+    }
+
+    @Test
+    public void noParamFilesByDefault() {
+        assertTrue(CliArgHelper.parse().getParamFiles().isEmpty());
+    }
+
+    @Test
+    public void parseImportArguments() {
+        CliArgs cliArgs = CliArgHelper.parse("--import", "people.csv", "UNWIND $batch AS row CREATE (:P)",
+                "--import-batch-size", "500", "--import-parallel", "3");
+
+        assertEquals("people.csv", cliArgs.getImportFile().get());
+        assertEquals("UNWIND $batch AS row CREATE (:P)", cliArgs.getImportQuery().get());
+        assertEquals(500, cliArgs.getImportBatchSize());
+        assertEquals(3, cliArgs.getImportParallelism());
+    }
+
+    @Test
+    public void noImportByDefault() {
+        CliArgs cliArgs = CliArgHelper.parse();
+
+        assertFalse(cliArgs.getImportFile().isPresent());
+        assertEquals(1, cliArgs.getImportParallelism());
+    }
 }
@@ -0,0 +1,94 @@
+package org.neo4j.shell.cli;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.neo4j.shell.log.Logger;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class ConsolePagerTest {
+    private final Logger logger = mock(Logger.class);
+    private final ByteArrayOutputStream terminal = new ByteArrayOutputStream();
+    private final Deque<Integer> keys = new ArrayDeque<>();
+    private final ConsolePager pager = new ConsolePager(logger, () -> 4, () -> keys.isEmpty() ? -1 : keys.pop());
+
+    @Before
+    public void setup() {
+        doReturn(new PrintStream(terminal)).when(logger).getTerminalStream();
+    }
+
+    @Test
+    public void shortOutputIsShownWithoutPrompt() {
+        assertTrue(pager.page(asList("a", "b", "c").iterator()));
+
+        verify(logger, times(3)).printOut(anyString());
+        assertEquals("", terminal.toString());
+    }
+
+    @Test
+    public void longOutputWaitsForKeyBetweenPages() {
+        keys.add((int) ' ');
+        keys.add((int) '\n');
+
+        assertTrue(pager.page(asList("1", "2", "3", "4", "5", "6", "7").iterator()));
+
+        for (String line : asList("1", "2", "3", "4", "5", "6", "7")) {
+            verify(logger).printOut(line);
+        }
+        assertTrue(terminal.toString().contains(ConsolePager.PROMPT));
+        assertTrue(keys.isEmpty());
+    }
+
+    @Test
+    public void quittingStopsTakingLines() {
+        keys.add((int) 'q');
+        CountingIterator lines = new CountingIterator(Arrays.asList("1", "2", "3", "4", "5"));
+
+        assertFalse(pager.page(lines));
+
+        assertEquals(3, lines.taken);
+        verify(logger, never()).printOut("4");
+    }
+
+    @Test
+    public void endOfInputStopsPaging() {
+        assertFalse(pager.page(asList("1", "2", "3", "4").iterator()));
+    }
+
+    private static class CountingIterator implements Iterator<String> {
+        private final Iterator<String> lines;
+        private int taken = 0;
+
+        CountingIterator(List<String> lines) {
+            this.lines = lines.iterator();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return lines.hasNext();
+        }
+
+        @Override
+        public String next() {
+            taken++;
+            return lines.next();
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package org.neo4j.shell.cli;
 
+import jline.console.completer.Completer;
+import jline.console.completer.NullCompleter;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
@@ -20,6 +22,7 @@ import org.neo4j.shell.parser.ShellStatementParser;
 import org.neo4j.shell.parser.StatementParser;
 import org.neo4j.shell.prettyprint.PrettyPrinter;
 import org.neo4j.shell.state.BoltStateHandler;
+import org.neo4j.shell.system.Cancellation;
 import sun.misc.Signal;
 
 import javax.annotation.Nonnull;
@@ -28,6 +31,7 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicReference;
@@ -35,7 +39,10 @@ import java.util.concurrent.atomic.AtomicReference;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.contains;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
@@ -59,6 +66,7 @@ public class InteractiveShellRunnerTest {
     private TransactionHandler txHandler;
     private ClientException badLineError;
     private UserMessagesHandler userMessagesHandler;
+    private Completer completer = NullCompleter.INSTANCE;
 
     @Before
     public void setup() throws Exception {
@@ -74,6 +82,7 @@ public class InteractiveShellRunnerTest {
 
         doThrow(badLineError).when(cmdExecuter).execute(contains("bad"));
         doReturn(System.out).when(logger).getOutputStream();
+        doReturn(System.out).when(logger).getTerminalStream();
     }
 
     @Test
@@ -81,7 +90,7 @@ public class InteractiveShellRunnerTest {
         String input = "good1;\n" +
                 "good2;\n";
         InteractiveShellRunner runner = new InteractiveShellRunner(cmdExecuter, txHandler, logger, statementParser,
-                new ByteArrayInputStream(input.getBytes()), historyFile, userMessagesHandler);
+                new ByteArrayInputStream(input.getBytes()), historyFile, userMessagesHandler, completer);
         runner.runUntilEnd();
 
         verify(cmdExecuter).execute("good1;");
@@ -89,6 +98,19 @@ public class InteractiveShellRunnerTest {
         verifyNoMoreInteractions(cmdExecuter);
     }
 
+    @Test
+    public void statementsCutShortInTheHistoryAreNotRun() throws Exception {
+        String input = "RETURN 1\u2026[100 more characters cut from the history];\ngood1;\n";
+        InteractiveShellRunner runner = new InteractiveShellRunner(cmdExecuter, txHandler, logger, statementParser,
+                new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)), historyFile, userMessagesHandler,
+                completer);
+        runner.runUntilEnd();
+
+        verify(logger).printError(any(CommandException.class));
+        verify(cmdExecuter).execute("\ngood1;");
+        verifyNoMoreInteractions(cmdExecuter);
+    }
+
     @Test
     public void runUntilEndShouldKeepGoingOnErrors() throws IOException, CommandException {
         String input = "good1;\n" +
@@ -97,7 +119,7 @@ public class InteractiveShellRunnerTest {
                 "bad2;\n" +
                 "good3;\n";
         InteractiveShellRunner runner = new InteractiveShellRunner(cmdExecuter, txHandler, logger, statementParser,
-                new ByteArrayInputStream(input.getBytes()), historyFile, userMessagesHandler);
+                new ByteArrayInputStream(input.getBytes()), historyFile, userMessagesHandler, completer);
 
         int code = runner.runUntilEnd();
 
@@ -122,7 +144,7 @@ public class InteractiveShellRunnerTest {
                 "bad2;\n" +
                 "good3;\n";
         InteractiveShellRunner runner = new InteractiveShellRunner(cmdExecuter, txHandler, logger, statementParser,
-                new ByteArrayInputStream(input.getBytes()), historyFile, userMessagesHandler);
+                new ByteArrayInputStream(input.getBytes()), historyFile, userMessagesHandler, completer);
 
         doThrow(new ExitException(1234)).when(cmdExecuter).execute(contains("exit;"));
 
@@ -148,7 +170,7 @@ public class InteractiveShellRunnerTest {
         String input = cmd1 + "\n" + cmd2 + "\n";
 
         InteractiveShellRunner runner = new InteractiveShellRunner(cmdExecuter, txHandler, logger, statementParser,
-                new ByteArrayInputStream(input.getBytes()), historyFile, userMessagesHandler);
+                new ByteArrayInputStream(input.getBytes()), historyFile, userMessagesHandler, completer);
 
         // when
         runner.runUntilEnd();
@@ -177,7 +199,7 @@ public class InteractiveShellRunnerTest {
 
         // Bangs need escaping in JLine by default, just like in bash, but we have disabled that
         InputStream inputStream = new ByteArrayInputStream(":set var \"String with !bang\"\n".getBytes());
-        InteractiveShellRunner runner = new InteractiveShellRunner(cmdExecuter, txHandler, logger, statementParser, inputStream, historyFile, userMessagesHandler);
+        InteractiveShellRunner runner = new InteractiveShellRunner(cmdExecuter, txHandler, logger, statementParser, inputStream, historyFile, userMessagesHandler, completer);
 
         // when
         List<String> statements = runner.readUntilStatement();
@@ -193,7 +215,7 @@ public class InteractiveShellRunnerTest {
 
         // Bangs need escaping in JLine by default, just like in bash, but we have disabled that
         InputStream inputStream = new ByteArrayInputStream(":set var \"String with \\!bang\"\n".getBytes());
-        InteractiveShellRunner runner = new InteractiveShellRunner(cmdExecuter, txHandler, logger, statementParser, inputStream, historyFile, userMessagesHandler);
+        InteractiveShellRunner runner = new InteractiveShellRunner(cmdExecuter, txHandler, logger, statementParser, inputStream, historyFile, userMessagesHandler, completer);
 
         // when
         List<String> statements = runner.readUntilStatement();
@@ -209,7 +231,7 @@ public class InteractiveShellRunnerTest {
         // given
         String inputString = "\n";
         InputStream inputStream = new ByteArrayInputStream(inputString.getBytes());
-        InteractiveShellRunner runner = new InteractiveShellRunner(cmdExecuter, txHandler, logger, new ShellStatementParser(), inputStream, historyFile, userMessagesHandler);
+        InteractiveShellRunner runner = new InteractiveShellRunner(cmdExecuter, txHandler, logger, new ShellStatementParser(), inputStream, historyFile, userMessagesHandler, completer);
 
         // when
         runner.readUntilStatement();
@@ -223,7 +245,7 @@ public class InteractiveShellRunnerTest {
         // given
         String inputString = "";
         InputStream inputStream = new ByteArrayInputStream(inputString.getBytes());
-        InteractiveShellRunner runner = new InteractiveShellRunner(cmdExecuter, txHandler, logger, new ShellStatementParser(), inputStream, historyFile, userMessagesHandler);
+        InteractiveShellRunner runner = new InteractiveShellRunner(cmdExecuter, txHandler, logger, new ShellStatementParser(), inputStream, historyFile, userMessagesHandler, completer);
 
         // when
         runner.readUntilStatement();
@@ -234,7 +256,7 @@ public class InteractiveShellRunnerTest {
         // given
         String inputString = "     \nCREATE (n:Person) RETURN n;\n";
         InputStream inputStream = new ByteArrayInputStream(inputString.getBytes());
-        InteractiveShellRunner runner = new InteractiveShellRunner(cmdExecuter, txHandler, logger, new ShellStatementParser(), inputStream, historyFile, userMessagesHandler);
+        InteractiveShellRunner runner = new InteractiveShellRunner(cmdExecuter, txHandler, logger, new ShellStatementParser(), inputStream, historyFile, userMessagesHandler, completer);
 
         // when
         List<String> statements = runner.readUntilStatement();
@@ -248,7 +270,7 @@ public class InteractiveShellRunnerTest {
     public void testPrompt() throws Exception {
         // given
         InputStream inputStream = new ByteArrayInputStream("".getBytes());
-        InteractiveShellRunner runner = new InteractiveShellRunner(cmdExecuter, txHandler, logger, statementParser, inputStream, historyFile, userMessagesHandler);
+        InteractiveShellRunner runner = new InteractiveShellRunner(cmdExecuter, txHandler, logger, statementParser, inputStream, historyFile, userMessagesHandler, completer);
 
         // when
         when(txHandler.isTransactionOpen()).thenReturn(false);
@@ -276,7 +298,7 @@ public class InteractiveShellRunnerTest {
     public void testPromptInTx() throws Exception {
         // given
         InputStream inputStream = new ByteArrayInputStream("".getBytes());
-        InteractiveShellRunner runner = new InteractiveShellRunner(cmdExecuter, txHandler, logger, statementParser, inputStream, historyFile, userMessagesHandler);
+        InteractiveShellRunner runner = new InteractiveShellRunner(cmdExecuter, txHandler, logger, statementParser, inputStream, historyFile, userMessagesHandler, completer);
 
         // when
         when(txHandler.isTransactionOpen()).thenReturn(true);
@@ -305,7 +327,7 @@ public class InteractiveShellRunnerTest {
         // given
         String inputString = "  \\   \nCREATE (n:Person) RETURN n\n";
         InputStream inputStream = new ByteArrayInputStream(inputString.getBytes());
-        InteractiveShellRunner runner = new InteractiveShellRunner(cmdExecuter, txHandler, logger, new ShellStatementParser(), inputStream, historyFile, userMessagesHandler);
+        InteractiveShellRunner runner = new InteractiveShellRunner(cmdExecuter, txHandler, logger, new ShellStatementParser(), inputStream, historyFile, userMessagesHandler, completer);
 
         // when
         runner.runUntilEnd();
@@ -320,7 +342,7 @@ public class InteractiveShellRunnerTest {
         String inputString = "\nCREATE (n:Person) RETURN n\n;\n";
         InputStream inputStream = new ByteArrayInputStream(inputString.getBytes());
         InteractiveShellRunner runner = new InteractiveShellRunner(cmdExecuter, txHandler, logger,
-                new ShellStatementParser(), inputStream, historyFile, userMessagesHandler);
+                new ShellStatementParser(), inputStream, historyFile, userMessagesHandler, completer);
 
         // when
         runner.runUntilEnd();
@@ -335,7 +357,7 @@ public class InteractiveShellRunnerTest {
         // given
         String inputString = "\nCREATE (n:Person) RETURN n\n;\n";
         InputStream inputStream = new ByteArrayInputStream(inputString.getBytes());
-        InteractiveShellRunner runner = new InteractiveShellRunner(cmdExecuter, txHandler, logger, new ShellStatementParser(), inputStream, historyFile, userMessagesHandler);
+        InteractiveShellRunner runner = new InteractiveShellRunner(cmdExecuter, txHandler, logger, new ShellStatementParser(), inputStream, historyFile, userMessagesHandler, completer);
 
         // when
         runner.runUntilEnd();
@@ -349,7 +371,7 @@ public class InteractiveShellRunnerTest {
         // given
         String inputString = "\nCREATE (n:Person) RETURN n;\n";
         InputStream inputStream = new ByteArrayInputStream(inputString.getBytes());
-        InteractiveShellRunner runner = new InteractiveShellRunner(cmdExecuter, txHandler, logger, new ShellStatementParser(), inputStream, historyFile, userMessagesHandler);
+        InteractiveShellRunner runner = new InteractiveShellRunner(cmdExecuter, txHandler, logger, new ShellStatementParser(), inputStream, historyFile, userMessagesHandler, completer);
 
         // when
         runner.runUntilEnd();
@@ -363,7 +385,7 @@ public class InteractiveShellRunnerTest {
         // given
         InputStream inputStream = new ByteArrayInputStream("".getBytes());
         InteractiveShellRunner runner = new InteractiveShellRunner(cmdExecuter, txHandler, logger,
-                new ShellStatementParser(), inputStream, historyFile, userMessagesHandler);
+                new ShellStatementParser(), inputStream, historyFile, userMessagesHandler, completer);
 
         // when
         runner.handle(new Signal(InteractiveShellRunner.INTERRUPT_SIGNAL));
@@ -383,24 +405,48 @@ public class InteractiveShellRunnerTest {
         FakeInterruptableShell fakeShell = spy(new FakeInterruptableShell(logger, boltStateHandler));
         InputStream inputStream = new ByteArrayInputStream("RETURN 1;\n".getBytes());
         InteractiveShellRunner runner = new InteractiveShellRunner(fakeShell, fakeShell, logger,
-                new ShellStatementParser(), inputStream, historyFile, userMessagesHandler);
+                new ShellStatementParser(), inputStream, historyFile, userMessagesHandler, completer);
 
         // during
         Thread t = new Thread(runner::runUntilEnd);
         t.start();
 
         // wait until execution has begun
-        while (!t.getState().equals(Thread.State.TIMED_WAITING)) {
+        while (fakeShell.executionThread.get() == null ||
+                !fakeShell.executionThread.get().getState().equals(Thread.State.TIMED_WAITING)) {
             Thread.sleep(100L);
         }
 
         // when
         runner.handle(new Signal(InteractiveShellRunner.INTERRUPT_SIGNAL));
+        t.join(10_000L);
 
         // then
         verify(fakeShell).execute("RETURN 1;");
         verify(fakeShell).reset();
         verify(boltStateHandler).reset();
+        verify(logger).printError(any(CommandException.class));
+    }
+
+    @Test
+    public void statementsAreExecutedOnAWorkerThread() throws Exception {
+        // given
+        InputStream inputStream = new ByteArrayInputStream("RETURN 1;\nRETURN 2;\n".getBytes());
+        InteractiveShellRunner runner = new InteractiveShellRunner(cmdExecuter, txHandler, logger,
+                new ShellStatementParser(), inputStream, historyFile, userMessagesHandler, completer);
+        AtomicReference<Thread> executionThread = new AtomicReference<>();
+        doAnswer(invocation -> {
+            executionThread.set(Thread.currentThread());
+            return null;
+        }).when(cmdExecuter).execute(contains("1"));
+        doThrow(new ClientException("boom")).when(cmdExecuter).execute(contains("2"));
+
+        // when
+        runner.runUntilEnd();
+
+        // then
+        assertNotSame(Thread.currentThread(), executionThread.get());
+        verify(logger).printError(any(ClientException.class));
     }
 
     private class FakeInterruptableShell extends CypherShell {
@@ -413,20 +459,18 @@ public class InteractiveShellRunnerTest {
 
         @Override
         public void execute(@Nonnull String statement) throws ExitException, CommandException {
+            executionThread.set(Thread.currentThread());
             try {
-                executionThread.set(Thread.currentThread());
-                Thread.sleep(10_000L);
+                for (int i = 0; i < 1000 && !Cancellation.isCancelled(); i++) {
+                    Thread.sleep(10L);
+                }
             } catch (InterruptedException ignored) {
-                throw new CommandException("execution interrupted");
+                throw new AssertionError("The execution thread must not be interrupted");
+            }
+            if (Cancellation.clear()) {
+                throw new CommandException("execution cancelled");
             }
         }
 
-        @Override
-        public void reset() {
-            // Do whatever usually happens
-            super.reset();
-            // But also simulate reset by interrupting the thread
-            executionThread.get().interrupt();
-        }
     }
 }
@@ -0,0 +1,98 @@
+package org.neo4j.shell.cli;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertEquals;
+
+public class MappedFileReaderTest {
+    @Rule
+    public final TemporaryFolder temp = new TemporaryFolder();
+
+    @Test
+    public void readsWholeFile() throws IOException {
+        File file = file("RETURN 1;\nRETURN 'ö';\n".getBytes(UTF_8));
+        try (MappedFileReader reader = new MappedFileReader(file)) {
+            assertEquals(file.length(), reader.size());
+            assertEquals("RETURN 1;\nRETURN 'ö';\n", readAll(reader, 1024));
+            assertEquals(file.length(), reader.position());
+        }
+    }
+
+    @Test
+    public void charactersCanBeSplitBetweenRegions() throws IOException {
+        String text = "aö€😀bö€😀c";
+        for (int regionSize = 4; regionSize < 12; regionSize++) {
+            try (MappedFileReader reader = new MappedFileReader(file(text.getBytes(UTF_8)), regionSize)) {
+                assertEquals("region size " + regionSize, text, readAll(reader, 2));
+            }
+        }
+    }
+
+    @Test
+    public void byteOrderMarkIsSkipped() throws IOException {
+        byte[] bom = {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF};
+        byte[] text = ":help\n".getBytes(UTF_8);
+        byte[] content = new byte[bom.length + text.length];
+        System.arraycopy(bom, 0, content, 0, bom.length);
+        System.arraycopy(text, 0, content, bom.length, text.length);
+        try (MappedFileReader reader = new MappedFileReader(file(content))) {
+            assertEquals(":help\n", readAll(reader, 1024));
+        }
+    }
+
+    @Test
+    public void seeksToTextOffset() throws IOException {
+        File file = file("RETURN 'ö';\nRETURN 2;\n".getBytes(UTF_8));
+        try (MappedFileReader reader = new MappedFileReader(file, 8)) {
+            reader.seek("RETURN 'ö';\n".getBytes(UTF_8).length);
+            assertEquals("RETURN 2;\n", readAll(reader, 1024));
+        }
+    }
+
+    @Test
+    public void seekOffsetDoesNotCountByteOrderMark() throws IOException {
+        byte[] content = "\uFEFF:help\nRETURN 1;\n".getBytes(UTF_8);
+        try (MappedFileReader reader = new MappedFileReader(file(content))) {
+            reader.seek(":help\n".length());
+            assertEquals("RETURN 1;\n", readAll(reader, 1024));
+        }
+    }
+
+    @Test
+    public void emptyFile() throws IOException {
+        try (MappedFileReader reader = new MappedFileReader(file(new byte[0]))) {
+            assertEquals("", readAll(reader, 1024));
+        }
+    }
+
+    @Test
+    public void malformedInputIsReplaced() throws IOException {
+        try (MappedFileReader reader = new MappedFileReader(file(new byte[]{'a', (byte) 0xFF, 'b', (byte) 0xC3}))) {
+            assertEquals("a�b�", readAll(reader, 1024));
+        }
+    }
+
+    private String readAll(Reader reader, int bufferSize) throws IOException {
+        StringBuilder result = new StringBuilder();
+        char[] buffer = new char[bufferSize];
+        int read;
+        while ((read = reader.read(buffer)) >= 0) {
+            result.append(buffer, 0, read);
+        }
+        return result.toString();
+    }
+
+    private File file(byte[] content) throws IOException {
+        File file = temp.newFile();
+        Files.write(file.toPath(), content);
+        return file;
+    }
+}
@@ -4,28 +4,47 @@ import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.InOrder;
 import org.neo4j.driver.v1.exceptions.ClientException;
 import org.neo4j.shell.Historian;
 import org.neo4j.shell.StatementExecuter;
+import org.neo4j.shell.TransactionHandler;
+import org.neo4j.shell.VariableHolder;
 import org.neo4j.shell.exception.CommandException;
 import org.neo4j.shell.exception.ExitException;
+import org.neo4j.shell.exception.QueryTimeoutException;
 import org.neo4j.shell.log.Logger;
 import org.neo4j.shell.parser.ShellStatementParser;
 import org.neo4j.shell.parser.StatementParser;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.Collections;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.anyInt;
 import static org.mockito.Mockito.anyString;
 import static org.mockito.Mockito.contains;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 
 public class NonInteractiveShellRunnerTest {
+    @Rule
+    public final TemporaryFolder temp = new TemporaryFolder();
     @Rule
     public final ExpectedException thrown = ExpectedException.none();
 
@@ -93,12 +112,52 @@ public class NonInteractiveShellRunnerTest {
         verify(logger, times(2)).printError(badLineError);
     }
 
+    @Test
+    public void timeoutsHaveTheirOwnExitCode() throws Exception {
+        QueryTimeoutException timeout = new QueryTimeoutException("30s");
+        doThrow(timeout).when(cmdExecuter).execute(contains("slow"));
+        String input =
+                "slow;\n" +
+                        "good1;\n";
+        NonInteractiveShellRunner runner = new NonInteractiveShellRunner(
+                FailBehavior.FAIL_FAST, cmdExecuter,
+                logger, statementParser,
+                new ByteArrayInputStream(input.getBytes()));
+
+        int code = runner.runUntilEnd();
+
+        assertEquals("Exit code incorrect", QueryTimeoutException.EXIT_CODE, code);
+        verify(logger).printError(timeout);
+        verify(cmdExecuter, times(0)).execute(contains("good1"));
+    }
+
+    @Test
+    public void timeoutsAreReportedAtEnd() throws Exception {
+        QueryTimeoutException timeout = new QueryTimeoutException("30s");
+        doThrow(timeout).when(cmdExecuter).execute(contains("slow"));
+        String input =
+                "slow;\n" +
+                        "bad;\n" +
+                        "good1;\n";
+        NonInteractiveShellRunner runner = new NonInteractiveShellRunner(
+                FailBehavior.FAIL_AT_END, cmdExecuter,
+                logger, statementParser,
+                new ByteArrayInputStream(input.getBytes()));
+
+        int code = runner.runUntilEnd();
+
+        assertEquals("Exit code incorrect", QueryTimeoutException.EXIT_CODE, code);
+        verify(logger).printError(timeout);
+        verify(logger).printError(badLineError);
+        verify(cmdExecuter).execute(contains("good1"));
+    }
+
     @Test
     public void runUntilEndExitsImmediatelyOnParseError() throws Exception {
         // given
         StatementParser statementParser = mock(StatementParser.class);
         RuntimeException boom = new RuntimeException("BOOM");
-        doThrow(boom).when(statementParser).parseMoreText(anyString());
+        doThrow(boom).when(statementParser).parseMoreText(any(CharSequence.class), anyInt(), anyInt());
 
         String input =
                 "good1;\n" +
@@ -153,4 +212,115 @@ public class NonInteractiveShellRunnerTest {
         // when then
         assertEquals(Historian.empty, runner.getHistorian());
     }
+
+    @Test
+    public void statementsAreExecutedInOrderWhenSpreadOverChunks() throws Exception {
+        // given
+        StringBuilder longStatement = new StringBuilder("RETURN '");
+        while (longStatement.length() < 3 * StatementReader.CHUNK_SIZE) {
+            longStatement.append("long line ");
+        }
+        longStatement.append("';");
+        String input = "RETURN 1;\r\n" +
+                ":help\r\n" +
+                longStatement + "\n" +
+                "RETURN\n2;\n" +
+                ":exit";
+        NonInteractiveShellRunner runner = new NonInteractiveShellRunner(
+                FailBehavior.FAIL_FAST, cmdExecuter,
+                logger, statementParser,
+                new StringReader(input));
+
+        // when
+        int code = runner.runUntilEnd();
+
+        // then
+        assertEquals(0, code);
+        InOrder inOrder = inOrder(cmdExecuter);
+        inOrder.verify(cmdExecuter).execute("RETURN 1;");
+        inOrder.verify(cmdExecuter).execute(":help\n");
+        inOrder.verify(cmdExecuter).execute("\n" + longStatement);
+        inOrder.verify(cmdExecuter).execute("\nRETURN\n2;");
+        inOrder.verify(cmdExecuter).execute(":exit\n");
+        verifyNoMoreInteractions(cmdExecuter);
+    }
+
+    @Test
+    public void statementsAreExecutedWhileReading() throws Exception {
+        // given
+        Reader reader = mock(Reader.class);
+        doAnswer(invocation -> {
+            char[] buffer = (char[]) invocation.getArguments()[0];
+            int offset = (int) invocation.getArguments()[1];
+            "good1;\n".getChars(0, 7, buffer, offset);
+            return 7;
+        }).doThrow(new IOException("broken pipe"))
+                .when(reader).read(any(char[].class), anyInt(), anyInt());
+        NonInteractiveShellRunner runner = new NonInteractiveShellRunner(
+                FailBehavior.FAIL_AT_END, cmdExecuter,
+                logger, statementParser,
+                reader);
+
+        // when
+        int code = runner.runUntilEnd();
+
+        // then
+        assertEquals(1, code);
+        verify(cmdExecuter).execute("good1;");
+        verify(logger).printError(any(IOException.class));
+    }
+
+    @Test
+    public void resumesAfterStatementsInCheckpoint() throws Exception {
+        // given
+        String script = "good1;\ngood2; bad;\ngood3;\n";
+        File checkpointFile = temp.newFile();
+        File scriptFile = temp.newFile();
+        TransactionHandler txHandler = mock(TransactionHandler.class);
+        VariableHolder variables = mock(VariableHolder.class);
+        doReturn(Collections.emptyMap()).when(variables).getAll();
+        NonInteractiveShellRunner runner = new NonInteractiveShellRunner(
+                FailBehavior.FAIL_FAST, cmdExecuter,
+                logger, statementParser,
+                new StringReader(script), new Checkpoint(checkpointFile, scriptFile, txHandler, variables));
+        assertEquals(1, runner.runUntilEnd());
+
+        // when
+        StatementExecuter resumed = mock(StatementExecuter.class);
+        Checkpoint checkpoint = Checkpoint.resume(checkpointFile, scriptFile, txHandler, variables);
+        assertEquals("good1;\n".length(), checkpoint.getOffset());
+        assertEquals(1, checkpoint.getSkip());
+        runner = new NonInteractiveShellRunner(
+                FailBehavior.FAIL_FAST, resumed,
+                logger, statementParser,
+                new StringReader(script.substring((int) checkpoint.getOffset())), checkpoint);
+        int code = runner.runUntilEnd();
+
+        // then
+        assertEquals(0, code);
+        InOrder inOrder = inOrder(resumed);
+        inOrder.verify(resumed).execute(contains("bad;"));
+        inOrder.verify(resumed).execute(contains("good3;"));
+        verifyNoMoreInteractions(resumed);
+    }
+
+    @Test
+    public void countsProgress() throws Exception {
+        // given
+        String input = "good1;\nbad;\ngood2;\n";
+        Progress progress = new Progress(new PrintStream(new ByteArrayOutputStream()), input.length());
+        NonInteractiveShellRunner runner = new NonInteractiveShellRunner(
+                FailBehavior.FAIL_AT_END, cmdExecuter,
+                logger, statementParser,
+                new StringReader(input));
+        runner.setProgress(progress);
+
+        // when
+        runner.runUntilEnd();
+
+        // then
+        assertTrue(progress.line(System.nanoTime()).startsWith("2 statements, 19 B of 19 B (100%)"));
+        assertTrue(progress.line(System.nanoTime()).contains("1 error"));
+        verify(logger).printError(badLineError);
+    }
 }
@@ -0,0 +1,72 @@
+package org.neo4j.shell.cli;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ProgressTest {
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    private final AtomicLong nanos = new AtomicLong();
+
+    @Test
+    public void showsCountsRatesAndTimeLeft() {
+        try (Progress progress = new Progress(new PrintStream(out), 4 * 1024 * 1024, nanos::get)) {
+            progress.start(0);
+            for (int i = 0; i < 200; i++) {
+                progress.statementExecuted();
+            }
+            progress.statementFailed();
+            progress.bytesRead(1024 * 1024);
+            nanos.set(TimeUnit.SECONDS.toNanos(2));
+
+            assertEquals("200 statements, 1.0 MB of 4.0 MB (25%), 100/s now, 100/s average, 1 error, 6s left",
+                    progress.line(nanos.get()));
+
+            progress.statementExecuted();
+            nanos.set(TimeUnit.SECONDS.toNanos(3));
+            assertTrue(progress.line(nanos.get()).startsWith("201 statements, 1.0 MB of 4.0 MB (25%), 1/s now, 67/s average"));
+        }
+    }
+
+    @Test
+    public void offsetToStartFromIsNotCountedForTimeLeft() {
+        try (Progress progress = new Progress(new PrintStream(out), 3000, nanos::get)) {
+            progress.start(1000);
+            progress.bytesRead(1000);
+            nanos.set(TimeUnit.SECONDS.toNanos(10));
+
+            assertEquals("0 statements, 2.0 kB of 2.9 kB (66%), 0/s now, 0/s average, 0 errors, 10s left",
+                    progress.line(nanos.get()));
+        }
+    }
+
+    @Test
+    public void unknownSizeHasNoTimeLeft() {
+        try (Progress progress = new Progress(new PrintStream(out), -1, nanos::get)) {
+            progress.start(0);
+            progress.statementExecuted();
+            progress.bytesRead(10);
+            nanos.set(TimeUnit.SECONDS.toNanos(1));
+
+            assertEquals("1 statement, 10 B, 1/s now, 1/s average, 0 errors", progress.line(nanos.get()));
+        }
+    }
+
+    @Test
+    public void lineIsClearedWhilePrinting() {
+        Progress progress = new Progress(new PrintStream(out), -1, nanos::get);
+        progress.start(0);
+        progress.interrupt(() -> out.write('x'));
+        progress.close();
+
+        assertEquals("\r\u001B[Kx\r\u001B[K", out.toString());
+        assertFalse(out.toString().contains("statement"));
+    }
+}
@@ -0,0 +1,107 @@
+package org.neo4j.shell.cli;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.util.zip.GZIPOutputStream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ScriptFileTest {
+    @Rule
+    public final TemporaryFolder temp = new TemporaryFolder();
+
+    @Test
+    public void plainFilesAreMapped() throws IOException {
+        File file = file("RETURN 1;\n".getBytes(UTF_8));
+        try (Reader reader = ScriptFile.open(file)) {
+            assertTrue(reader instanceof MappedFileReader);
+            assertEquals("RETURN 1;\n", readAll(reader));
+        }
+    }
+
+    @Test
+    public void gzipFilesAreDecompressed() throws IOException {
+        String text = "RETURN 'ö';\n";
+        File file = file(gzip(text.getBytes(UTF_8)));
+        try (Reader reader = ScriptFile.open(file, 0, false)) {
+            assertEquals(text, readAll(reader));
+        }
+    }
+
+    @Test
+    public void gzipFilesAreDecompressedInBackground() throws IOException {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 100_000; i++) {
+            text.append("CREATE (:Node {id: ").append(i).append("});\n");
+        }
+        File file = file(gzip(text.toString().getBytes(UTF_8)));
+        try (Reader reader = ScriptFile.open(file, 0, true)) {
+            assertEquals(text.toString(), readAll(reader));
+        }
+    }
+
+    @Test
+    public void byteOrderMarkIsSkippedInGzipFiles() throws IOException {
+        File file = file(gzip("\uFEFF:help\n".getBytes(UTF_8)));
+        try (Reader reader = ScriptFile.open(file, 0, true)) {
+            assertEquals(":help\n", readAll(reader));
+        }
+    }
+
+    @Test
+    public void plainFilesStartAtOffset() throws IOException {
+        File file = file("\uFEFFRETURN 1;\nRETURN 'ö';\n".getBytes(UTF_8));
+        try (Reader reader = ScriptFile.open(file, "RETURN 1;\n".length())) {
+            assertEquals("RETURN 'ö';\n", readAll(reader));
+        }
+    }
+
+    @Test
+    public void gzipFilesStartAtOffset() throws IOException {
+        File file = file(gzip("\uFEFFRETURN 'ö';\nRETURN 2;\n".getBytes(UTF_8)));
+        try (Reader reader = ScriptFile.open(file, "RETURN 'ö';\n".getBytes(UTF_8).length, false)) {
+            assertEquals("RETURN 2;\n", readAll(reader));
+        }
+    }
+
+    @Test
+    public void emptyFile() throws IOException {
+        try (Reader reader = ScriptFile.open(file(new byte[0]))) {
+            assertEquals("", readAll(reader));
+        }
+    }
+
+    private byte[] gzip(byte[] content) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(content);
+        }
+        return bytes.toByteArray();
+    }
+
+    private String readAll(Reader reader) throws IOException {
+        StringBuilder result = new StringBuilder();
+        char[] buffer = new char[8192];
+        int read;
+        while ((read = reader.read(buffer)) >= 0) {
+            result.append(buffer, 0, read);
+        }
+        return result.toString();
+    }
+
+    private File file(byte[] content) throws IOException {
+        File file = temp.newFile();
+        Files.write(file.toPath(), content);
+        return file;
+    }
+}
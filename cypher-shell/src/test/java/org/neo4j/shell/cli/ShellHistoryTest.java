@@ -0,0 +1,121 @@
+package org.neo4j.shell.cli;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ShellHistoryTest {
+    @Rule
+    public final TemporaryFolder temp = new TemporaryFolder();
+
+    @Test
+    public void keepsAtMostMaxEntries() {
+        ShellHistory history = new ShellHistory();
+        for (int i = 0; i < ShellHistory.MAX_ENTRIES + 10; i++) {
+            history.add("RETURN " + i);
+        }
+
+        assertEquals(ShellHistory.MAX_ENTRIES, history.size());
+        // Numbers keep counting up, like !N
+        SortedMap<Integer, String> last = history.last(2);
+        assertEquals(Arrays.asList(ShellHistory.MAX_ENTRIES + 9, ShellHistory.MAX_ENTRIES + 10),
+                new ArrayList<>(last.keySet()));
+        assertEquals("RETURN " + (ShellHistory.MAX_ENTRIES + 9), last.get(ShellHistory.MAX_ENTRIES + 10));
+    }
+
+    @Test
+    public void lastIsLimitedToTheHistory() {
+        ShellHistory history = new ShellHistory();
+        history.add(":help");
+
+        assertEquals(Collections.singletonMap(1, ":help"), history.last(16));
+        assertTrue(new ShellHistory().last(16).isEmpty());
+    }
+
+    @Test
+    public void elidesGiantEntries() {
+        ShellHistory history = new ShellHistory();
+        char[] giant = new char[ShellHistory.MAX_ENTRY_LENGTH + 100];
+        Arrays.fill(giant, 'x');
+
+        history.add(new String(giant));
+
+        String entry = history.get(0).toString();
+        assertTrue(entry.endsWith("\u2026[100 more characters cut from the history]"));
+        assertEquals(ShellHistory.MAX_ENTRY_LENGTH + "\u2026[100 more characters cut from the history]".length(),
+                entry.length());
+        assertTrue(ShellHistory.isElided(entry + ";"));
+        assertFalse(ShellHistory.isElided("RETURN '[100 more characters cut from the history]';"));
+    }
+
+    @Test
+    public void searchesForAllWords() {
+        ShellHistory history = new ShellHistory();
+        history.add("MATCH (p:Person) RETURN p");
+        history.add("MATCH (m:Movie) RETURN m");
+        history.add("match (p:Person)-->(m:Movie) return p, m");
+
+        SortedMap<Integer, String> expected = new TreeMap<>();
+        expected.put(1, "MATCH (p:Person) RETURN p");
+        expected.put(3, "match (p:Person)-->(m:Movie) return p, m");
+        assertEquals(expected, history.search("person match"));
+        assertEquals(Collections.singletonMap(3, "match (p:Person)-->(m:Movie) return p, m"),
+                history.search("Movie PERSON"));
+        assertTrue(history.search("actor").isEmpty());
+        assertTrue(history.search("  ").isEmpty());
+    }
+
+    @Test
+    public void searchSkipsDroppedAndReplacedEntries() {
+        ShellHistory history = new ShellHistory();
+        history.add("CREATE (:Old)");
+        for (int i = 0; i < ShellHistory.MAX_ENTRIES; i++) {
+            history.add("RETURN " + i);
+        }
+        history.replace("CREATE (:New)");
+
+        assertTrue(history.search("old").isEmpty());
+        assertTrue(history.search("return " + (ShellHistory.MAX_ENTRIES - 1)).isEmpty());
+        assertEquals(Collections.singletonMap(ShellHistory.MAX_ENTRIES + 1, "CREATE (:New)"),
+                history.search("create"));
+    }
+
+    @Test
+    public void repeatedEntriesAreKeptOnce() {
+        ShellHistory history = new ShellHistory();
+        history.add(":help");
+        history.add(":help");
+
+        assertEquals(1, history.size());
+        assertEquals(Collections.singletonMap(1, ":help"), history.search("help"));
+    }
+
+    @Test
+    public void savesAndLoadsTheFile() throws Exception {
+        File file = new File(temp.getRoot(), ".neo4j_history");
+        ShellHistory history = new ShellHistory(file);
+        history.add(":help");
+        history.add("MATCH (n) RETURN n");
+        history.flush();
+
+        List<String> lines = Files.readAllLines(file.toPath());
+        assertEquals(Arrays.asList(":help", "MATCH (n) RETURN n"), lines);
+
+        ShellHistory loaded = new ShellHistory(file);
+        assertEquals(2, loaded.size());
+        assertEquals(Collections.singletonMap(2, "MATCH (n) RETURN n"), loaded.search("match"));
+    }
+}
@@ -0,0 +1,76 @@
+package org.neo4j.shell.cli;
+
+import org.junit.Test;
+import org.neo4j.shell.parser.ShellStatementParser;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class StatementReaderTest {
+    @Test
+    public void readsStatementsOfScript() throws IOException {
+        StatementReader reader = new StatementReader(new StringReader("RETURN 1;\r\nRETURN\n2; RETURN 3;"),
+                new ShellStatementParser());
+
+        assertEquals(asList("RETURN 1;"), reader.read());
+        // The last line is only complete at the end of the script
+        assertEquals(asList("RETURN\n2;", "RETURN 3;"), trim(reader.read()));
+        assertNull(reader.read());
+    }
+
+    @Test
+    public void resumePointsAreAtLineStartsOutsideStatements() throws IOException {
+        String script = "RETURN 1;\r\nRETURN 'ö'; RETURN\n3;\nRETURN 4;\n";
+        StatementReader reader = new StatementReader(new StringReader(script), new ShellStatementParser());
+        List<StatementReader.ResumePoint> resumePoints = readResumePoints(reader);
+
+        long second = "RETURN 1;\r\n".length();
+        long fourth = second + "RETURN 'ö'; RETURN\n3;\n".getBytes(UTF_8).length;
+        assertResumePoint(0, 1, resumePoints.get(0));
+        // The third statement spans two lines, so both are resumed from the line which starts them
+        assertResumePoint(second, 1, resumePoints.get(1));
+        assertResumePoint(second, 2, resumePoints.get(2));
+        assertResumePoint(fourth, 1, resumePoints.get(3));
+    }
+
+    @Test
+    public void resumePointsCountFromStartOffset() throws IOException {
+        StatementReader reader = new StatementReader(new StringReader("RETURN 1;\nRETURN 2;\n"),
+                new ShellStatementParser(), 100);
+        List<StatementReader.ResumePoint> resumePoints = readResumePoints(reader);
+
+        assertResumePoint(100, 1, resumePoints.get(0));
+        assertResumePoint(110, 1, resumePoints.get(1));
+    }
+
+    private List<String> trim(List<String> statements) {
+        List<String> trimmed = new ArrayList<>();
+        for (String statement : statements) {
+            trimmed.add(statement.trim());
+        }
+        return trimmed;
+    }
+
+    private List<StatementReader.ResumePoint> readResumePoints(StatementReader reader) throws IOException {
+        List<StatementReader.ResumePoint> resumePoints = new ArrayList<>();
+        List<String> statements;
+        while ((statements = reader.read()) != null) {
+            for (int i = 0; i < statements.size(); i++) {
+                resumePoints.add(reader.getResumePoint(i));
+            }
+        }
+        return resumePoints;
+    }
+
+    private void assertResumePoint(long offset, int skip, StatementReader.ResumePoint resumePoint) {
+        assertEquals(offset, resumePoint.getOffset());
+        assertEquals(skip, resumePoint.getSkip());
+    }
+}
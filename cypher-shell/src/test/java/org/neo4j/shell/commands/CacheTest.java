@@ -0,0 +1,79 @@
+package org.neo4j.shell.commands;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.neo4j.shell.exception.CommandException;
+import org.neo4j.shell.log.Logger;
+import org.neo4j.shell.state.ResultCache;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.contains;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+public class CacheTest {
+    @Rule
+    public final ExpectedException thrown = ExpectedException.none();
+
+    private Logger logger = mock(Logger.class);
+    private ResultCache resultCache = new ResultCache();
+    private Command cmd;
+
+    @Before
+    public void setup() {
+        this.cmd = new Cache(logger, resultCache);
+    }
+
+    @Test
+    public void shouldNotAcceptTooManyArgs() throws CommandException {
+        thrown.expect(CommandException.class);
+        thrown.expectMessage(containsString("Incorrect number of arguments"));
+
+        cmd.execute("stats clear");
+    }
+
+    @Test
+    public void shouldNotAcceptUnknownAction() throws CommandException {
+        thrown.expect(CommandException.class);
+        thrown.expectMessage(containsString("Unknown action: bob"));
+
+        cmd.execute("bob");
+    }
+
+    @Test
+    public void turnOnAndOff() throws CommandException {
+        cmd.execute("on");
+        assertTrue(resultCache.isEnabled());
+
+        cmd.execute("off");
+        assertFalse(resultCache.isEnabled());
+    }
+
+    @Test
+    public void printsStatsByDefault() throws CommandException {
+        cmd.execute("");
+
+        verify(logger).printOut(contains("Result cache is off"));
+    }
+
+    @Test
+    public void printsStats() throws CommandException {
+        cmd.execute("on");
+        cmd.execute("stats");
+
+        verify(logger).printOut(contains("Result cache is on"));
+        verify(logger).printOut(contains("0 B of 64.0 MB"));
+    }
+
+    @Test
+    public void humanReadableBytes() {
+        assertEquals("512 B", Cache.humanReadableBytes(512));
+        assertEquals("1.5 KB", Cache.humanReadableBytes(1536));
+        assertEquals("64.0 MB", Cache.humanReadableBytes(64L * 1024 * 1024));
+    }
+}
@@ -0,0 +1,219 @@
+package org.neo4j.shell.commands;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+import org.neo4j.driver.v1.Value;
+import org.neo4j.driver.v1.Values;
+import org.neo4j.shell.VariableHolder;
+import org.neo4j.shell.exception.CommandException;
+import org.neo4j.shell.log.Logger;
+import org.neo4j.shell.state.GraphDumper;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import static java.util.Arrays.asList;
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyMap;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Matchers.isNull;
+import static org.mockito.Matchers.startsWith;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+
+public class DumpTest {
+    @Rule
+    public final ExpectedException thrown = ExpectedException.none();
+    @Rule
+    public final TemporaryFolder temp = new TemporaryFolder();
+
+    private final Logger logger = mock(Logger.class);
+    private final GraphDumper graphDumper = mock(GraphDumper.class);
+    private final VariableHolder variableHolder = mock(VariableHolder.class);
+    private final Map<String, Value> params = new HashMap<>();
+    private Dump cmd;
+
+    @Before
+    public void setup() throws Exception {
+        when(variableHolder.getAll()).thenReturn(params);
+        doAnswer(invocation -> {
+            GraphDumper.Output output = (GraphDumper.Output) invocation.getArguments()[3];
+            output.write("CREATE (:A);");
+            output.write("CREATE (:B);");
+            return new GraphDumper.Dumped(2, 0);
+        }).when(graphDumper).dump(anyString(), anyMap(), anyInt(), any(GraphDumper.Output.class));
+        cmd = new Dump(logger, graphDumper, variableHolder);
+    }
+
+    @Test
+    public void descriptionNotNull() {
+        assertNotNull(cmd.getDescription());
+    }
+
+    @Test
+    public void usageNotNull() {
+        assertNotNull(cmd.getUsage());
+    }
+
+    @Test
+    public void helpNotNull() {
+        assertNotNull(cmd.getHelp());
+    }
+
+    @Test
+    public void printsTheWholeGraph() throws Exception {
+        cmd.execute("");
+
+        verify(graphDumper).dump((String) isNull(), eq(Collections.emptyMap()), eq(GraphDumper.DEFAULT_BATCH_SIZE),
+                any(GraphDumper.Output.class));
+        verify(logger).printOut("CREATE (:A);");
+        verify(logger).printOut("CREATE (:B);");
+    }
+
+    @Test
+    public void writesToAFile() throws Exception {
+        File file = new File(temp.getRoot(), "graph.cypher");
+
+        cmd.execute("--batch-size 50 --output " + file.getPath() + " MATCH (n:A) RETURN n");
+
+        verify(graphDumper).dump(eq("MATCH (n:A) RETURN n"), eq(Collections.emptyMap()), eq(50),
+                any(GraphDumper.Output.class));
+        assertEquals(asList("CREATE (:A);", "CREATE (:B);"), Files.readAllLines(file.toPath()));
+        verify(logger).printOut("Dumped 2 nodes and 0 relationships to " + file.getPath());
+    }
+
+    @Test
+    public void optionsCanFollowTheQuery() throws Exception {
+        File file = new File(temp.getRoot(), "graph.cypher");
+
+        cmd.execute("MATCH (n:A) RETURN n --output " + file.getPath() + " --batch-size 7");
+
+        verify(graphDumper).dump(eq("MATCH (n:A) RETURN n"), eq(Collections.emptyMap()), eq(7),
+                any(GraphDumper.Output.class));
+    }
+
+    @Test
+    public void compressesGzFiles() throws Exception {
+        File file = new File(temp.getRoot(), "graph.cypher.gz");
+
+        cmd.execute("--output " + file.getPath() + " MATCH (n) RETURN n");
+
+        StringBuilder sb = new StringBuilder();
+        try (Reader reader = new InputStreamReader(new GZIPInputStream(new FileInputStream(file)),
+                StandardCharsets.UTF_8)) {
+            int c;
+            while ((c = reader.read()) != -1) {
+                sb.append((char) c);
+            }
+        }
+        assertEquals("CREATE (:A);\nCREATE (:B);\n", sb.toString());
+    }
+
+    @Test
+    public void sendsReferencedParameters() throws Exception {
+        params.put("label", Values.value("A"));
+        params.put("other", Values.value(1));
+
+        cmd.execute("MATCH (n) WHERE $label IN labels(n) RETURN n");
+
+        verify(graphDumper).dump(anyString(), eq(Collections.singletonMap("label", Values.value("A"))), anyInt(),
+                any(GraphDumper.Output.class));
+    }
+
+    @Test
+    public void dumpsInParallel() throws Exception {
+        doAnswer(invocation -> {
+            GraphDumper.ProgressListener progress = (GraphDumper.ProgressListener) invocation.getArguments()[3];
+            progress.onProgress(new GraphDumper.PartitionProgress(2, 4, 100, 20, true));
+            return new GraphDumper.Dumped(400, 80);
+        }).when(graphDumper).dumpPartitioned(anyInt(), anyInt(), any(GraphDumper.Output.class),
+                any(GraphDumper.ProgressListener.class));
+        File file = new File(temp.getRoot(), "graph.cypher");
+
+        cmd.execute("--parallel 4 --output " + file.getPath());
+
+        verify(graphDumper).dumpPartitioned(eq(4), eq(GraphDumper.DEFAULT_BATCH_SIZE), any(GraphDumper.Output.class),
+                any(GraphDumper.ProgressListener.class));
+        verify(logger).printError("Partition 2/4: 100 nodes, 20 relationships, done");
+        verify(logger).printOut("Dumped 400 nodes and 80 relationships to " + file.getPath());
+    }
+
+    @Test
+    public void progressIsNotPrintedWithTheScript() throws Exception {
+        doAnswer(invocation -> {
+            GraphDumper.Output output = (GraphDumper.Output) invocation.getArguments()[2];
+            GraphDumper.ProgressListener progress = (GraphDumper.ProgressListener) invocation.getArguments()[3];
+            output.write("CREATE (:A);");
+            progress.onProgress(new GraphDumper.PartitionProgress(1, 2, 1, 0, true));
+            return new GraphDumper.Dumped(1, 0);
+        }).when(graphDumper).dumpPartitioned(anyInt(), anyInt(), any(GraphDumper.Output.class),
+                any(GraphDumper.ProgressListener.class));
+
+        cmd.execute("--parallel 2");
+
+        verify(logger).printOut("CREATE (:A);");
+        verify(logger).printError("Partition 1/2: 1 nodes, 0 relationships, done");
+        verify(logger, never()).printOut(startsWith("Partition"));
+    }
+
+    @Test
+    public void onlyTheWholeGraphIsDumpedInParallel() throws CommandException {
+        thrown.expect(CommandException.class);
+        thrown.expectMessage(containsString("Only the whole graph can be dumped in parallel"));
+
+        try {
+            cmd.execute("MATCH (n) RETURN n --parallel 2");
+        } finally {
+            verifyZeroInteractions(graphDumper);
+        }
+    }
+
+    @Test
+    public void unknownOption() throws CommandException {
+        thrown.expect(CommandException.class);
+        thrown.expectMessage(containsString("Unknown option: --fast"));
+
+        cmd.execute("--fast yes MATCH (n) RETURN n");
+    }
+
+    @Test
+    public void invalidBatchSize() throws CommandException {
+        thrown.expect(CommandException.class);
+        thrown.expectMessage(containsString("--batch-size must be a positive integer, got: many"));
+
+        cmd.execute("--batch-size many");
+    }
+
+    @Test
+    public void unwritableFile() throws CommandException, IOException {
+        thrown.expect(CommandException.class);
+        thrown.expectMessage(containsString("Could not write"));
+
+        try {
+            cmd.execute("--output " + new File(temp.newFile("file"), "graph.cypher").getPath());
+        } finally {
+            verifyZeroInteractions(graphDumper);
+        }
+    }
+}
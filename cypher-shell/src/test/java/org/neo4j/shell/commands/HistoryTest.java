@@ -9,7 +9,10 @@ import org.neo4j.shell.Historian;
 import org.neo4j.shell.exception.CommandException;
 import org.neo4j.shell.log.Logger;
 
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 
 import static junit.framework.TestCase.fail;
 import static org.hamcrest.CoreMatchers.containsString;
@@ -21,7 +24,18 @@ public class HistoryTest {
     public final ExpectedException thrown = ExpectedException.none();
 
     private Logger logger = mock(Logger.class);
-    private Historian historian = mock(Historian.class);
+    private List<String> history = new ArrayList<>();
+    private Historian historian = new Historian() {
+        @Nonnull
+        @Override
+        public List<String> getHistory() {
+            return history;
+        }
+
+        @Override
+        public void flushHistory() {
+        }
+    };
     private Command cmd;
 
     @Before
@@ -40,11 +54,55 @@ public class HistoryTest {
 
     @Test
     public void shouldPrintHistoryCorrectlyNumberedFrom1() throws CommandException {
-        when(historian.getHistory()).thenReturn(Arrays.asList(":help", ":exit"));
+        history.addAll(Arrays.asList(":help", ":exit"));
 
         cmd.execute("");
 
         verify(logger).printOut(eq(" 1  :help\n" +
                 " 2  :exit\n"));
     }
+
+    @Test
+    public void shouldPrintTheLast16ByDefault() throws CommandException {
+        for (int i = 1; i <= 20; i++) {
+            history.add("RETURN " + i);
+        }
+
+        cmd.execute("");
+
+        StringBuilder expected = new StringBuilder();
+        for (int i = 5; i <= 20; i++) {
+            expected.append(String.format(" %-2d  RETURN %d\n", i, i));
+        }
+        verify(logger).printOut(eq(expected.toString()));
+    }
+
+    @Test
+    public void shouldPrintTheLastN() throws CommandException {
+        history.addAll(Arrays.asList(":help", "MATCH (n) RETURN n", ":exit"));
+
+        cmd.execute("2");
+
+        verify(logger).printOut(eq(" 2  MATCH (n) RETURN n\n" +
+                " 3  :exit\n"));
+    }
+
+    @Test
+    public void shouldSearchForAllWords() throws CommandException {
+        history.addAll(Arrays.asList("MATCH (p:Person) RETURN p", "MATCH (m:Movie) RETURN m",
+                "match (p:Person)-->(m:Movie) return p, m"));
+
+        cmd.execute("search person MATCH");
+
+        verify(logger).printOut(eq(" 1  MATCH (p:Person) RETURN p\n" +
+                " 3  match (p:Person)-->(m:Movie) return p, m\n"));
+    }
+
+    @Test
+    public void searchNeedsWords() throws CommandException {
+        thrown.expect(CommandException.class);
+        thrown.expectMessage(containsString("Incorrect number of arguments"));
+
+        cmd.execute("search");
+    }
 }
@@ -0,0 +1,138 @@
+package org.neo4j.shell.commands;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+import org.neo4j.driver.v1.Value;
+import org.neo4j.driver.v1.Values;
+import org.neo4j.shell.VariableHolder;
+import org.neo4j.shell.exception.CommandException;
+import org.neo4j.shell.log.Logger;
+import org.neo4j.shell.parser.RowReader;
+import org.neo4j.shell.state.BulkImporter;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.junit.Assert.assertNotNull;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyMap;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+
+public class ImportTest {
+    @Rule
+    public final ExpectedException thrown = ExpectedException.none();
+    @Rule
+    public final TemporaryFolder temp = new TemporaryFolder();
+
+    private final Logger logger = mock(Logger.class);
+    private final BulkImporter bulkImporter = mock(BulkImporter.class);
+    private final VariableHolder variableHolder = mock(VariableHolder.class);
+    private final Map<String, Value> params = new HashMap<>();
+    private Import cmd;
+    private File file;
+
+    @Before
+    public void setup() throws Exception {
+        when(variableHolder.getAll()).thenReturn(params);
+        when(bulkImporter.run(any(RowReader.class), anyString(), anyMap(), anyInt(), anyInt(),
+                any(BulkImporter.ProgressListener.class))).thenReturn(new BulkImporter.Progress(3, 1_500_000_000L));
+        cmd = new Import(logger, bulkImporter, variableHolder);
+        file = temp.newFile("people.csv");
+        Files.write(file.toPath(), "name\na\nb\nc\n".getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void descriptionNotNull() {
+        assertNotNull(cmd.getDescription());
+    }
+
+    @Test
+    public void usageNotNull() {
+        assertNotNull(cmd.getUsage());
+    }
+
+    @Test
+    public void helpNotNull() {
+        assertNotNull(cmd.getHelp());
+    }
+
+    @Test
+    public void importsWithDefaults() throws CommandException {
+        cmd.execute(file.getPath() + " UNWIND $batch AS row CREATE (:Person {name: row.name})");
+
+        verify(bulkImporter).run(any(RowReader.class), eq("UNWIND $batch AS row CREATE (:Person {name: row.name})"),
+                eq(Collections.emptyMap()), eq(BulkImporter.DEFAULT_BATCH_SIZE), eq(1),
+                any(BulkImporter.ProgressListener.class));
+        verify(logger).printOut("Imported 3 rows in 1.5 s (2 rows/s)");
+    }
+
+    @Test
+    public void importsWithOptions() throws CommandException {
+        cmd.execute("--batch-size 50 --parallel 4 " + file.getPath() + " UNWIND $batch AS row CREATE (:N)");
+
+        verify(bulkImporter).run(any(RowReader.class), eq("UNWIND $batch AS row CREATE (:N)"),
+                eq(Collections.emptyMap()), eq(50), eq(4), any(BulkImporter.ProgressListener.class));
+    }
+
+    @Test
+    public void sendsReferencedParameters() throws CommandException {
+        params.put("source", Values.value("file"));
+        params.put("other", Values.value(1));
+
+        cmd.execute(file.getPath() + " UNWIND $batch AS row CREATE (:N {source: $source})");
+
+        verify(bulkImporter).run(any(RowReader.class), anyString(),
+                eq(Collections.singletonMap("source", Values.value("file"))), anyInt(), anyInt(),
+                any(BulkImporter.ProgressListener.class));
+    }
+
+    @Test
+    public void requiresFileAndQuery() throws CommandException {
+        thrown.expect(CommandException.class);
+        thrown.expectMessage(containsString("Incorrect number of arguments"));
+
+        cmd.execute(file.getPath());
+    }
+
+    @Test
+    public void unknownOption() throws CommandException {
+        thrown.expect(CommandException.class);
+        thrown.expectMessage(containsString("Unknown option: --fast"));
+
+        cmd.execute("--fast yes " + file.getPath() + " RETURN 1");
+    }
+
+    @Test
+    public void invalidBatchSize() throws CommandException {
+        thrown.expect(CommandException.class);
+        thrown.expectMessage(containsString("--batch-size must be a positive integer, got: 0"));
+
+        cmd.execute("--batch-size 0 " + file.getPath() + " RETURN 1");
+    }
+
+    @Test
+    public void missingFile() throws CommandException {
+        thrown.expect(CommandException.class);
+        thrown.expectMessage(containsString("Could not read"));
+
+        try {
+            cmd.execute(new File(temp.getRoot(), "missing.csv").getPath() + " RETURN 1");
+        } finally {
+            verifyZeroInteractions(bulkImporter);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package org.neo4j.shell.commands;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.neo4j.shell.RowLimit;
+import org.neo4j.shell.exception.CommandException;
+import org.neo4j.shell.log.Logger;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.Matchers.anyInt;
+
+public class MaxRowsTest {
+    @Rule
+    public final ExpectedException thrown = ExpectedException.none();
+
+    private Logger logger = mock(Logger.class);
+    private RowLimit shell = mock(RowLimit.class);
+    private Command cmd;
+
+    @Before
+    public void setup() {
+        this.cmd = new MaxRows(logger, shell);
+    }
+
+    @Test
+    public void shouldNotAcceptTooManyArgs() throws CommandException {
+        thrown.expect(CommandException.class);
+        thrown.expectMessage(containsString("Incorrect number of arguments"));
+
+        cmd.execute("1 2");
+    }
+
+    @Test
+    public void shouldNotAcceptNegativeRows() throws CommandException {
+        thrown.expect(CommandException.class);
+        thrown.expectMessage(containsString("Not a number of rows: -1"));
+
+        try {
+            cmd.execute("-1");
+        } finally {
+            verify(shell, never()).setMaxRows(anyInt());
+        }
+    }
+
+    @Test
+    public void shouldNotAcceptText() throws CommandException {
+        thrown.expect(CommandException.class);
+        thrown.expectMessage(containsString("Not a number of rows: many"));
+
+        cmd.execute("many");
+    }
+
+    @Test
+    public void setsLimit() throws CommandException {
+        cmd.execute("50");
+        verify(shell).setMaxRows(50);
+
+        cmd.execute("0");
+        verify(shell).setMaxRows(0);
+    }
+
+    @Test
+    public void printsLimitWithoutArgs() throws CommandException {
+        when(shell.getMaxRows()).thenReturn(1000);
+        cmd.execute("");
+        verify(logger).printOut("Showing at most 1000 rows");
+    }
+
+    @Test
+    public void printsNoLimit() throws CommandException {
+        when(shell.getMaxRows()).thenReturn(0);
+        cmd.execute("");
+        verify(logger).printOut("No row limit");
+    }
+}
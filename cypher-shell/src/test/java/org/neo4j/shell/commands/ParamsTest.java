@@ -4,11 +4,19 @@ import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+import org.neo4j.driver.v1.Value;
+import org.neo4j.driver.v1.Values;
 import org.neo4j.shell.VariableHolder;
 import org.neo4j.shell.exception.CommandException;
 import org.neo4j.shell.log.Logger;
 
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Map;
 
 import static org.hamcrest.CoreMatchers.containsString;
 import static org.junit.Assert.assertNotNull;
@@ -20,16 +28,19 @@ import static org.mockito.Mockito.when;
 public class ParamsTest {
     @Rule
     public final ExpectedException thrown = ExpectedException.none();
+    @Rule
+    public final TemporaryFolder temp = new TemporaryFolder();
 
-    private HashMap<String, Object> vars;
+    private HashMap<String, Value> vars;
     private Logger logger;
     private Params cmd;
+    private VariableHolder shell;
 
     @Before
     public void setup() throws CommandException {
         vars = new HashMap<>();
         logger = mock(Logger.class);
-        VariableHolder shell = mock(VariableHolder.class);
+        shell = mock(VariableHolder.class);
         when(shell.getAll()).thenReturn(vars);
         cmd = new Params(logger, shell);
     }
@@ -52,7 +63,7 @@ public class ParamsTest {
     @Test
     public void runCommand() throws CommandException {
         // given
-        vars.put("var", 9);
+        vars.put("var", Values.value(9));
         // when
         cmd.execute("");
         // then
@@ -63,8 +74,8 @@ public class ParamsTest {
     @Test
     public void runCommandAlignment() throws CommandException {
         // given
-        vars.put("var", 9);
-        vars.put("param", 99999);
+        vars.put("var", Values.value(9));
+        vars.put("param", Values.value(99999));
         // when
         cmd.execute("");
         // then
@@ -76,8 +87,8 @@ public class ParamsTest {
     @Test
     public void runCommandWithArg() throws CommandException {
         // given
-        vars.put("var", 9);
-        vars.put("param", 9999);
+        vars.put("var", Values.value(9));
+        vars.put("param", Values.value(9999));
         // when
         cmd.execute("var");
         // then
@@ -88,8 +99,8 @@ public class ParamsTest {
     @Test
     public void runCommandWithArgWithExtraSpace() throws CommandException {
         // given
-        vars.put("var", 9);
-        vars.put("param", 9999);
+        vars.put("var", Values.value(9));
+        vars.put("param", Values.value(9999));
         // when
         cmd.execute(" var");
         // then
@@ -100,8 +111,8 @@ public class ParamsTest {
     @Test
     public void runCommandWithArgWithBackticks() throws CommandException {
         // given
-        vars.put("var", 9);
-        vars.put("param", 9999);
+        vars.put("var", Values.value(9));
+        vars.put("param", Values.value(9999));
         // when
         cmd.execute("`var`");
         // then
@@ -112,8 +123,8 @@ public class ParamsTest {
     @Test
     public void runCommandWithSpecialCharacters() throws CommandException {
         // given
-        vars.put("var `", 9);
-        vars.put("param", 9999);
+        vars.put("var `", Values.value(9));
+        vars.put("param", Values.value(9999));
         // when
         cmd.execute("`var ```");
         // then
@@ -127,7 +138,7 @@ public class ParamsTest {
         thrown.expect(CommandException.class);
         thrown.expectMessage(containsString("Unknown parameter: bob"));
         // given
-        vars.put("var", 9);
+        vars.put("var", Values.value(9));
         // when
         cmd.execute("bob");
     }
@@ -139,4 +150,55 @@ public class ParamsTest {
 
         cmd.execute("bob sob");
     }
+
+    @Test
+    public void loadParamsFromFile() throws Exception {
+        File file = temp.newFile("params.json");
+        Files.write(file.toPath(), "{\"ids\": [1, 2, 3], \"name\": \"bob\"}".getBytes(StandardCharsets.UTF_8));
+
+        cmd.execute("load " + file.getPath());
+
+        Map<String, Value> expected = new HashMap<>();
+        expected.put("ids", Values.value(1L, 2L, 3L));
+        expected.put("name", Values.value("bob"));
+        verify(shell).setAll(expected);
+        verify(logger).printOut("Loaded 2 parameters from " + file.getPath());
+    }
+
+    @Test
+    public void loadFileIntoNamedParam() throws Exception {
+        File file = temp.newFile("people.csv");
+        Files.write(file.toPath(), "name\nbob\n".getBytes(StandardCharsets.UTF_8));
+
+        cmd.execute("load " + file.getPath() + " `rows`");
+
+        verify(shell).setAll(Collections.singletonMap("rows",
+                Values.value(new Value[]{Values.value(Collections.singletonMap("name", "bob"))})));
+        verify(logger).printOut("Loaded 1 parameter from " + file.getPath());
+    }
+
+    @Test
+    public void loadMissingFile() throws CommandException {
+        thrown.expect(CommandException.class);
+        thrown.expectMessage(containsString("Could not read parameters from"));
+
+        cmd.execute("load " + new File(temp.getRoot(), "missing.json").getPath());
+    }
+
+    @Test
+    public void shouldNotAcceptMoreThanOneArgsUnlessLoading() throws CommandException {
+        thrown.expect(CommandException.class);
+        thrown.expectMessage(containsString("Incorrect number of arguments"));
+
+        cmd.execute("bob sob rob");
+    }
+
+    @Test
+    public void singleArgLoadListsParam() throws CommandException {
+        vars.put("load", Values.value(9));
+
+        cmd.execute("load");
+
+        verify(logger).printOut("load: 9");
+    }
 }
@@ -0,0 +1,167 @@
+package org.neo4j.shell.commands;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.InOrder;
+import org.neo4j.driver.internal.InternalRecord;
+import org.neo4j.driver.internal.summary.InternalSummaryCounters;
+import org.neo4j.driver.v1.Statement;
+import org.neo4j.driver.v1.Value;
+import org.neo4j.driver.v1.summary.StatementType;
+import org.neo4j.shell.SnapshotHandler;
+import org.neo4j.shell.cli.Format;
+import org.neo4j.shell.exception.CommandException;
+import org.neo4j.shell.log.Logger;
+import org.neo4j.shell.state.BoltResult;
+import org.neo4j.shell.state.SnapshotSummary;
+import org.neo4j.shell.state.SnapshotWriter;
+
+import java.io.File;
+import java.io.IOException;
+
+import static java.util.Arrays.asList;
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.contains;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.neo4j.driver.v1.Values.value;
+
+public class SnapshotTest {
+    @Rule
+    public final ExpectedException thrown = ExpectedException.none();
+    @Rule
+    public final TemporaryFolder temp = new TemporaryFolder();
+
+    private final Logger logger = mock(Logger.class);
+    private final SnapshotHandler shell = mock(SnapshotHandler.class);
+    private File directory;
+    private Snapshot cmd;
+
+    @Before
+    public void setup() throws IOException {
+        when(logger.getFormat()).thenReturn(Format.VERBOSE);
+        directory = temp.newFolder("snapshots");
+        cmd = new Snapshot(logger, shell, directory);
+    }
+
+    @Test
+    public void helpNotNull() {
+        assertNotNull(cmd.getHelp());
+    }
+
+    @Test
+    public void shouldFailWithoutArguments() throws CommandException {
+        thrown.expect(CommandException.class);
+        thrown.expectMessage(containsString("Incorrect number of arguments"));
+
+        cmd.execute("");
+    }
+
+    @Test
+    public void shouldFailOnUnknownAction() throws CommandException {
+        thrown.expect(CommandException.class);
+        thrown.expectMessage(containsString("Unknown action: bob"));
+
+        cmd.execute("bob top");
+    }
+
+    @Test
+    public void shouldFailOnUnknownFormat() throws CommandException {
+        thrown.expect(CommandException.class);
+        thrown.expectMessage(containsString("Unknown format: json"));
+
+        cmd.execute("show top --format json");
+    }
+
+    @Test
+    public void namesAreKeptInTheDirectory() {
+        assertEquals(new File(directory, "top.snapshot"), cmd.fileOf("top"));
+        assertEquals(new File("other/top"), cmd.fileOf("other/top"));
+        assertEquals(new File("top.snapshot"), cmd.fileOf("top.snapshot"));
+    }
+
+    @Test
+    public void saveRunsTheQueryOnce() throws CommandException {
+        when(shell.snapshotCypher(anyString(), any(File.class))).thenReturn(summary(3));
+
+        cmd.execute("save top MATCH (n)\nRETURN n");
+
+        verify(shell).snapshotCypher("MATCH (n)\nRETURN n", new File(directory, "top.snapshot"));
+        verify(logger).printOut(contains("Saved the result in"));
+        verify(logger).printOut("Added 3 nodes");
+    }
+
+    @Test
+    public void showRendersWithoutQuerying() throws Exception {
+        writeSnapshot(new File(directory, "top.snapshot"), false);
+
+        cmd.execute("show top");
+
+        verify(logger).printOut("n");
+        verify(logger).printOut("1");
+        verify(logger).printOut("2");
+        verify(logger).printOut("Added 3 nodes");
+        verify(logger, never()).printError(anyString());
+        verify(shell, never()).snapshotCypher(anyString(), any(File.class));
+    }
+
+    @Test
+    public void showInAnotherFormat() throws Exception {
+        writeSnapshot(new File(directory, "top.snapshot"), true);
+
+        cmd.execute("show top --format plain");
+
+        verify(logger, never()).printOut("Added 3 nodes");
+        verify(logger).printError("The snapshot only holds the first 2 rows of the result");
+    }
+
+    @Test
+    public void showFailsOnMissingSnapshots() throws CommandException {
+        thrown.expect(CommandException.class);
+        thrown.expectMessage(containsString("Could not read snapshot"));
+
+        cmd.execute("show missing");
+    }
+
+    @Test
+    public void listsSnapshots() throws Exception {
+        writeSnapshot(new File(directory, "b.snapshot"), false);
+        writeSnapshot(new File(directory, "a.snapshot"), false);
+
+        cmd.execute("list");
+
+        InOrder inOrder = inOrder(logger);
+        inOrder.verify(logger).printOut(contains("a ("));
+        inOrder.verify(logger).printOut(contains("b ("));
+    }
+
+    @Test
+    public void listsNothing() throws CommandException {
+        cmd.execute("list");
+
+        verify(logger).printOut(eq("There are no snapshots in " + directory));
+    }
+
+    private static void writeSnapshot(File file, boolean truncated) throws IOException {
+        try (SnapshotWriter writer = SnapshotWriter.create(file)) {
+            writer.write(new BoltResult(asList(new InternalRecord(asList("n"), new Value[]{value(1L)}),
+                    new InternalRecord(asList("n"), new Value[]{value(2L)})), summary(3), truncated));
+        }
+    }
+
+    private static SnapshotSummary summary(int nodesCreated) {
+        return new SnapshotSummary(new Statement("CREATE (n)"), StatementType.WRITE_ONLY,
+                new InternalSummaryCounters(nodesCreated, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0), 0, 0, "");
+    }
+}
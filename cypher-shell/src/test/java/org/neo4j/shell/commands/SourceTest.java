@@ -0,0 +1,126 @@
+package org.neo4j.shell.commands;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.InOrder;
+import org.neo4j.shell.StatementExecuter;
+import org.neo4j.shell.exception.CommandException;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.zip.GZIPOutputStream;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.junit.Assert.assertNotNull;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.contains;
+import static org.mockito.Matchers.startsWith;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+
+public class SourceTest {
+    @Rule
+    public final ExpectedException thrown = ExpectedException.none();
+    @Rule
+    public final TemporaryFolder temp = new TemporaryFolder();
+
+    private final StatementExecuter executer = mock(StatementExecuter.class);
+    private final Source cmd = new Source(executer);
+
+    @Test
+    public void descriptionNotNull() {
+        assertNotNull(cmd.getDescription());
+    }
+
+    @Test
+    public void usageNotNull() {
+        assertNotNull(cmd.getUsage());
+    }
+
+    @Test
+    public void helpNotNull() {
+        assertNotNull(cmd.getHelp());
+    }
+
+    @Test
+    public void shouldFailWithoutFile() throws Exception {
+        thrown.expect(CommandException.class);
+        thrown.expectMessage(containsString("Incorrect number of arguments"));
+
+        cmd.execute("  ");
+    }
+
+    @Test
+    public void executesStatementsInOrder() throws Exception {
+        File file = temp.newFile("script.cypher");
+        Files.write(file.toPath(), "RETURN 1;\n:param x => 1\nRETURN\n2;\n".getBytes(StandardCharsets.UTF_8));
+
+        cmd.execute(" " + file.getPath() + " ");
+
+        InOrder inOrder = inOrder(executer);
+        inOrder.verify(executer).execute("RETURN 1;");
+        inOrder.verify(executer).execute(":param x => 1\n");
+        inOrder.verify(executer).execute("\nRETURN\n2;");
+        verifyNoMoreInteractions(executer);
+    }
+
+    @Test
+    public void executesGzipCompressedFile() throws Exception {
+        File file = temp.newFile("script.cypher.gz");
+        try (OutputStream out = new GZIPOutputStream(new FileOutputStream(file))) {
+            out.write("RETURN 1;\n".getBytes(StandardCharsets.UTF_8));
+        }
+
+        cmd.execute(file.getPath());
+
+        verify(executer).execute("RETURN 1;");
+    }
+
+    @Test
+    public void stopsAtFirstFailure() throws Exception {
+        File file = temp.newFile("script.cypher");
+        Files.write(file.toPath(), "bad;\nRETURN 1;\n".getBytes(StandardCharsets.UTF_8));
+        doThrow(new CommandException("bad statement")).when(executer).execute(contains("bad"));
+
+        thrown.expect(CommandException.class);
+        thrown.expectMessage("bad statement");
+        try {
+            cmd.execute(file.getPath());
+        } finally {
+            verify(executer, never()).execute("\nRETURN 1;");
+        }
+    }
+
+    @Test
+    public void refusesToSourceAFileWhichIsBeingSourced() throws Exception {
+        File file = temp.newFile("script.cypher");
+        Files.write(file.toPath(), (":source " + file.getPath() + "\n").getBytes(StandardCharsets.UTF_8));
+        doAnswer(invocation -> {
+            cmd.execute(((String) invocation.getArguments()[0]).substring(Source.COMMAND_NAME.length()));
+            return null;
+        }).when(executer).execute(startsWith(Source.COMMAND_NAME));
+
+        thrown.expect(CommandException.class);
+        thrown.expectMessage("is already being sourced");
+
+        cmd.execute(file.getPath());
+    }
+
+    @Test
+    public void missingFile() throws Exception {
+        thrown.expect(CommandException.class);
+        thrown.expectMessage(containsString("Could not read"));
+
+        cmd.execute(new File(temp.getRoot(), "missing.cypher").getPath());
+    }
+}
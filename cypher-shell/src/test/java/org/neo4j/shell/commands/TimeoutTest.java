@@ -0,0 +1,67 @@
+package org.neo4j.shell.commands;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.neo4j.shell.exception.CommandException;
+import org.neo4j.shell.log.Logger;
+import org.neo4j.shell.state.StatementWatchdog;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+public class TimeoutTest {
+    @Rule
+    public final ExpectedException thrown = ExpectedException.none();
+
+    private Logger logger = mock(Logger.class);
+    private StatementWatchdog watchdog = new StatementWatchdog(() -> {
+    });
+    private Command cmd;
+
+    @Before
+    public void setup() {
+        this.cmd = new Timeout(logger, watchdog);
+    }
+
+    @Test
+    public void shouldNotAcceptTooManyArgs() throws CommandException {
+        thrown.expect(CommandException.class);
+        thrown.expectMessage(containsString("Incorrect number of arguments"));
+
+        cmd.execute("1s 2s");
+    }
+
+    @Test
+    public void shouldNotAcceptNonDurations() throws CommandException {
+        thrown.expect(CommandException.class);
+        thrown.expectMessage(containsString("Not a duration: soon"));
+
+        cmd.execute("soon");
+    }
+
+    @Test
+    public void setsTimeout() throws CommandException {
+        cmd.execute("5m");
+        assertEquals(300_000L, watchdog.getTimeout());
+
+        cmd.execute("0");
+        assertEquals(0L, watchdog.getTimeout());
+    }
+
+    @Test
+    public void printsTimeoutWithoutArgs() throws CommandException {
+        watchdog.setTimeout(30_000L);
+        cmd.execute("");
+        verify(logger).printOut("Query timeout is 30s");
+    }
+
+    @Test
+    public void printsNoTimeout() throws CommandException {
+        cmd.execute("");
+        verify(logger).printOut("No query timeout");
+    }
+}
@@ -0,0 +1,106 @@
+package org.neo4j.shell.completion;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.neo4j.driver.v1.Value;
+import org.neo4j.driver.v1.Values;
+import org.neo4j.shell.VariableHolder;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class CypherCompleterTest {
+    private final VariableHolder variableHolder = mock(VariableHolder.class);
+    private CypherCompleter completer;
+
+    @Before
+    public void setup() {
+        Map<String, Value> params = new HashMap<>();
+        params.put("name", Values.value("bob"));
+        params.put("ids", Values.value(1, 2));
+        when(variableHolder.getAll()).thenReturn(params);
+
+        SchemaCache schemaCache = new SchemaCache(() -> new SchemaCache.Schema(
+                new PrefixTrie(asList("Person", "Movie", "Place")),
+                new PrefixTrie(asList("ACTED_IN", "KNOWS")),
+                new PrefixTrie(asList("name", "title", "born")),
+                new PrefixTrie(asList("db.labels", "db.propertyKeys", "dbms.procedures"))),
+                Runnable::run, System::nanoTime, 300);
+
+        completer = new CypherCompleter(() -> asList(":begin", ":help", ":history", ":param", ":params"),
+                variableHolder, schemaCache);
+    }
+
+    @Test
+    public void completesCommands() {
+        assertCompletes(":h", 0, ":help", ":history");
+        assertCompletes("  :par", 2, ":param", ":params");
+    }
+
+    @Test
+    public void doesNotCompleteCommandsAfterArguments() {
+        assertCompletes(":param na", -1);
+    }
+
+    @Test
+    public void completesParameters() {
+        assertCompletes("MATCH (n) WHERE n.name = $n", 26, "name");
+        assertCompletes("UNWIND $", 8, "ids", "name");
+    }
+
+    @Test
+    public void completesLabels() {
+        assertCompletes("MATCH (n:P", 9, "Person", "Place");
+        assertCompletes("MATCH (a)-[:KNOWS]->(b:M", 23, "Movie");
+    }
+
+    @Test
+    public void completesRelationshipTypes() {
+        assertCompletes("MATCH (a)-[r:", 13, "ACTED_IN", "KNOWS");
+        assertCompletes("MATCH (a)-[r:ACTED_IN|K", 22, "KNOWS");
+    }
+
+    @Test
+    public void completesPropertyKeys() {
+        assertCompletes("MATCH (n) RETURN n.", 19, "born", "name", "title");
+        assertCompletes("CREATE (n {t", 11, "title");
+    }
+
+    @Test
+    public void completesProcedures() {
+        assertCompletes("CALL db.", 5, "db.labels", "db.propertyKeys");
+        assertCompletes("call dbm", 5, "dbms.procedures");
+    }
+
+    @Test
+    public void onlyLooksAtTextBeforeCursor() {
+        List<CharSequence> candidates = new ArrayList<>();
+        int position = completer.complete("MATCH (n:Pe) RETURN n", 11, candidates);
+
+        assertEquals(9, position);
+        assertEquals(asList("Person"), candidates);
+    }
+
+    @Test
+    public void nothingToComplete() {
+        assertCompletes("MATCH (n) RETU", -1);
+        assertCompletes("MATCH (n:Q", -1);
+        assertCompletes(null, -1);
+    }
+
+    private void assertCompletes(String buffer, int expectedPosition, String... expected) {
+        List<CharSequence> candidates = new ArrayList<>();
+        int position = completer.complete(buffer, buffer == null ? 0 : buffer.length(), candidates);
+
+        assertEquals(expectedPosition, position);
+        assertEquals(expected.length == 0 ? Collections.emptyList() : asList(expected), candidates);
+    }
+}
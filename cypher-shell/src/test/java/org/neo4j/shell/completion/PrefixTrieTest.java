@@ -0,0 +1,59 @@
+package org.neo4j.shell.completion;
+
+import org.junit.Test;
+
+import java.util.Collections;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PrefixTrieTest {
+
+    private final PrefixTrie trie = new PrefixTrie(asList("Person", "Persona", "Place", "Movie", "Pet"));
+
+    @Test
+    public void findsWordsStartingWithPrefixInOrder() {
+        assertEquals(asList("Person", "Persona", "Pet"), trie.startingWith("Pe", 10));
+    }
+
+    @Test
+    public void emptyPrefixMatchesAll() {
+        assertEquals(asList("Movie", "Person", "Persona", "Pet", "Place"), trie.startingWith("", 10));
+    }
+
+    @Test
+    public void respectsLimit() {
+        assertEquals(asList("Movie", "Person"), trie.startingWith("", 2));
+    }
+
+    @Test
+    public void isCaseSensitive() {
+        assertEquals(Collections.emptyList(), trie.startingWith("pe", 10));
+    }
+
+    @Test
+    public void wordIsItsOwnPrefix() {
+        assertEquals(asList("Person", "Persona"), trie.startingWith("Person", 10));
+    }
+
+    @Test
+    public void noMatches() {
+        assertEquals(Collections.emptyList(), trie.startingWith("Q", 10));
+    }
+
+    @Test
+    public void duplicatesAreIgnored() {
+        trie.add("Movie");
+
+        assertEquals(5, trie.size());
+    }
+
+    @Test
+    public void contains() {
+        assertTrue(trie.contains("Pet"));
+        assertFalse(trie.contains("Pe"));
+        assertFalse(trie.contains("Pets"));
+    }
+}
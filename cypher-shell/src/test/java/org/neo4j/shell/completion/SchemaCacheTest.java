@@ -0,0 +1,128 @@
+package org.neo4j.shell.completion;
+
+import org.junit.Test;
+import org.neo4j.driver.v1.summary.ResultSummary;
+import org.neo4j.driver.v1.summary.StatementType;
+import org.neo4j.driver.v1.summary.SummaryCounters;
+import org.neo4j.shell.state.BoltResult;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class SchemaCacheTest {
+    private final AtomicInteger fetches = new AtomicInteger();
+    private final List<Runnable> pending = new ArrayList<>();
+    private long now = 0;
+
+    private final SchemaCache cache = new SchemaCache(() -> {
+        fetches.incrementAndGet();
+        return new SchemaCache.Schema(
+                new PrefixTrie(asList("Person", "Movie")),
+                new PrefixTrie(asList("ACTED_IN")),
+                new PrefixTrie(asList("name", "title")),
+                new PrefixTrie(asList("db.labels")));
+    }, pending::add, () -> now, 10);
+
+    @Test
+    public void isEmptyUntilFetchHasCompleted() {
+        assertEquals(Collections.emptyList(), cache.labels().startingWith("", 10));
+
+        runPending();
+
+        assertEquals(asList("Movie", "Person"), cache.labels().startingWith("", 10));
+        assertEquals(asList("ACTED_IN"), cache.relationshipTypes().startingWith("", 10));
+        assertEquals(asList("name", "title"), cache.propertyKeys().startingWith("", 10));
+        assertEquals(asList("db.labels"), cache.procedures().startingWith("", 10));
+    }
+
+    @Test
+    public void onlyFetchesOnceWhileFresh() {
+        cache.labels();
+        cache.labels();
+        runPending();
+        cache.labels();
+        cache.propertyKeys();
+        runPending();
+
+        assertEquals(1, fetches.get());
+    }
+
+    @Test
+    public void fetchesAgainWhenExpired() {
+        cache.labels();
+        runPending();
+
+        now += 11_000_000_000L;
+        cache.labels();
+        runPending();
+
+        assertEquals(2, fetches.get());
+    }
+
+    @Test
+    public void updatesTriggerRefresh() {
+        cache.labels();
+        runPending();
+
+        cache.refreshIfChanged(result(true, StatementType.WRITE_ONLY));
+        runPending();
+
+        assertEquals(2, fetches.get());
+    }
+
+    @Test
+    public void readsDoNotTriggerRefresh() {
+        cache.labels();
+        runPending();
+
+        cache.refreshIfChanged(result(false, StatementType.READ_ONLY));
+        runPending();
+
+        assertEquals(1, fetches.get());
+    }
+
+    @Test
+    public void nothingIsFetchedIfNeverUsed() {
+        cache.refreshIfChanged(result(true, StatementType.WRITE_ONLY));
+
+        assertTrue(pending.isEmpty());
+    }
+
+    @Test
+    public void failedFetchIsRetried() {
+        SchemaCache failing = new SchemaCache(() -> {
+            if (fetches.incrementAndGet() == 1) {
+                throw new RuntimeException("Not connected");
+            }
+            return SchemaCache.Schema.EMPTY;
+        }, Runnable::run, () -> now, 10);
+
+        failing.labels();
+        failing.labels();
+
+        assertEquals(2, fetches.get());
+    }
+
+    private void runPending() {
+        List<Runnable> tasks = new ArrayList<>(pending);
+        pending.clear();
+        tasks.forEach(Runnable::run);
+    }
+
+    private BoltResult result(boolean containsUpdates, StatementType type) {
+        ResultSummary summary = mock(ResultSummary.class);
+        SummaryCounters counters = mock(SummaryCounters.class);
+        when(counters.containsUpdates()).thenReturn(containsUpdates);
+        when(summary.counters()).thenReturn(counters);
+        when(summary.statementType()).thenReturn(type);
+        return new BoltResult(Collections.emptyList(), summary);
+    }
+}
@@ -9,11 +9,13 @@ import org.neo4j.shell.exception.CommandException;
 import java.io.PrintStream;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.contains;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
 
 
 public class AnsiLoggerTest {
@@ -41,6 +43,23 @@ public class AnsiLoggerTest {
     public void customStreams() throws Exception {
         assertEquals(out, logger.getOutputStream());
         assertEquals(err, logger.getErrorStream());
+        assertEquals(out, logger.getTerminalStream());
+    }
+
+    @Test
+    public void terminalStreamWhenOutputGoesElsewhere() throws Exception {
+        PrintStream terminal = mock(PrintStream.class);
+        Logger logger = new AnsiLogger(false, Format.VERBOSE, out, err, terminal);
+
+        assertEquals(out, logger.getOutputStream());
+        assertEquals(terminal, logger.getTerminalStream());
+    }
+
+    @Test
+    public void failedOutputIsReported() throws Exception {
+        when(out.checkError()).thenReturn(true);
+
+        assertTrue(logger.hasOutputFailed());
     }
 
     @Test
@@ -0,0 +1,156 @@
+package org.neo4j.shell.log;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.util.concurrent.CountDownLatch;
+import java.util.zip.GZIPInputStream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertEquals;
+
+public class AsyncOutputStreamTest {
+    @Rule
+    public final ExpectedException thrown = ExpectedException.none();
+    @Rule
+    public final TemporaryFolder temp = new TemporaryFolder();
+
+    @Test
+    public void everythingIsWrittenInOrderBeforeClosing() throws IOException {
+        ByteArrayOutputStream sink = new ByteArrayOutputStream();
+        StringBuilder expected = new StringBuilder();
+        try (PrintStream out = new PrintStream(new AsyncOutputStream(sink, null), true, UTF_8.name())) {
+            for (int i = 0; i < 100_000; i++) {
+                out.println("row " + i);
+                expected.append("row ").append(i).append(System.lineSeparator());
+            }
+        }
+        assertEquals(expected.toString(), new String(sink.toByteArray(), UTF_8));
+    }
+
+    @Test
+    public void teeGetsEverythingToo() throws IOException {
+        ByteArrayOutputStream sink = new ByteArrayOutputStream();
+        ByteArrayOutputStream tee = new ByteArrayOutputStream();
+        try (AsyncOutputStream out = new AsyncOutputStream(sink, tee)) {
+            out.write("hello ".getBytes(UTF_8));
+            out.flush();
+            out.write("world".getBytes(UTF_8));
+        }
+        assertEquals("hello world", new String(sink.toByteArray(), UTF_8));
+        assertEquals("hello world", new String(tee.toByteArray(), UTF_8));
+    }
+
+    @Test
+    public void writingDoesNotWaitForTheSink() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        ByteArrayOutputStream written = new ByteArrayOutputStream();
+        OutputStream slowSink = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                write(new byte[]{(byte) b}, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+                written.write(b, off, len);
+            }
+        };
+        AsyncOutputStream out = new AsyncOutputStream(slowSink, new ByteArrayOutputStream());
+        for (int i = 0; i < 100; i++) {
+            out.write("line\n".getBytes(UTF_8));
+            out.flush();
+        }
+        release.countDown();
+        out.close();
+        assertEquals(500, written.size());
+    }
+
+    @Test
+    public void flushingEveryLineDoesNotWaitForTheSink() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        ByteArrayOutputStream written = new ByteArrayOutputStream();
+        OutputStream slowSink = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                write(new byte[]{(byte) b}, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+                written.write(b, off, len);
+            }
+        };
+        // Thousands of separately flushed lines, which are few bytes in all
+        PrintStream out = new PrintStream(new AsyncOutputStream(slowSink, new ByteArrayOutputStream()), true,
+                UTF_8.name());
+        for (int i = 0; i < 10_000; i++) {
+            out.print("line\n");
+            out.flush();
+        }
+        release.countDown();
+        out.close();
+        assertEquals(50_000, written.size());
+    }
+
+    @Test
+    public void gzipFilesAreCompressed() throws IOException {
+        File file = new File(temp.getRoot(), "out.txt.gz");
+        try (AsyncOutputStream out = AsyncOutputStream.open(file, null)) {
+            out.write("compressed".getBytes(UTF_8));
+        }
+        try (InputStream in = new GZIPInputStream(new FileInputStream(file))) {
+            ByteArrayOutputStream content = new ByteArrayOutputStream();
+            int b;
+            while ((b = in.read()) >= 0) {
+                content.write(b);
+            }
+            assertEquals("compressed", new String(content.toByteArray(), UTF_8));
+        }
+    }
+
+    @Test
+    public void plainFiles() throws IOException {
+        File file = new File(temp.getRoot(), "out.txt");
+        try (AsyncOutputStream out = AsyncOutputStream.open(file, null)) {
+            out.write("plain".getBytes(UTF_8));
+        }
+        assertEquals("plain", new String(Files.readAllBytes(file.toPath()), UTF_8));
+    }
+
+    @Test
+    public void failuresAreThrownWhenClosing() throws IOException {
+        OutputStream brokenSink = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("Disk full");
+            }
+        };
+        AsyncOutputStream out = new AsyncOutputStream(brokenSink, null);
+        out.write(new byte[AsyncOutputStream.CHUNK_SIZE * 5]);
+
+        thrown.expect(IOException.class);
+        thrown.expectMessage("Disk full");
+        out.close();
+    }
+}
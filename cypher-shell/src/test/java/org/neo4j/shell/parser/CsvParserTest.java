@@ -0,0 +1,74 @@
+package org.neo4j.shell.parser;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class CsvParserTest {
+    @Rule
+    public final ExpectedException thrown = ExpectedException.none();
+
+    @Test
+    public void rows() throws IOException {
+        CsvParser parser = new CsvParser(new StringReader("a,b\r\n1,\"x, \"\"y\"\"\nz\"\n,3"));
+
+        assertEquals(asList("a", "b"), parser.nextRow());
+        assertEquals(asList("1", "x, \"y\"\nz"), parser.nextRow());
+        assertEquals(asList(null, "3"), parser.nextRow());
+        assertNull(parser.nextRow());
+    }
+
+    @Test
+    public void otherSeparator() throws IOException {
+        CsvParser parser = new CsvParser(new StringReader("a;b,c\n"), ';');
+
+        assertEquals(asList("a", "b,c"), parser.nextRow());
+        assertNull(parser.nextRow());
+    }
+
+    @Test
+    public void rowsBecomeMapsByHeader() throws IOException {
+        Object rows = new CsvParser(new StringReader("﻿id,name\n1,bob\n\n2\n")).parse().asObject();
+
+        assertEquals(asList(row("1", "bob"), row("2", null)), rows);
+    }
+
+    @Test
+    public void emptyFile() throws IOException {
+        assertEquals(Collections.emptyList(), new CsvParser(new StringReader("")).parse().asObject());
+    }
+
+    @Test
+    public void tooManyFields() throws IOException {
+        thrown.expect(IOException.class);
+        thrown.expectMessage("line 3: expected at most 2 fields but found 3");
+
+        new CsvParser(new StringReader("a,b\n1,2\n1,2,3\n")).parse();
+    }
+
+    @Test
+    public void unterminatedQuote() throws IOException {
+        thrown.expect(IOException.class);
+        thrown.expectMessage("unterminated quoted field");
+
+        List<String> ignored = new CsvParser(new StringReader("\"abc")).nextRow();
+    }
+
+    private static Map<String, Object> row(String id, String name) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("id", id);
+        row.put("name", name);
+        return row;
+    }
+}
@@ -0,0 +1,72 @@
+package org.neo4j.shell.parser;
+
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CypherLexerTest {
+
+    @Test
+    public void dollarParameters() {
+        assertParameters("MATCH (n {name: $name}) WHERE n.age > $age RETURN n", "name", "age");
+        assertParameters("RETURN $a+$b, $a", "a", "b");
+        assertParameters("RETURN $0", "0");
+        assertParameters("RETURN $`odd name`, $`with``tick`", "odd name", "with`tick");
+    }
+
+    @Test
+    public void braceParameters() {
+        assertParameters("MATCH (n) WHERE n.name = {name} RETURN n", "name");
+        assertParameters("RETURN { spaced }, {`esc aped`}", "spaced", "esc aped");
+    }
+
+    @Test
+    public void mapsAreNotParameters() {
+        assertParameters("CREATE (n {name: 'bob'})");
+        assertParameters("RETURN {}, {a: {b}}", "b");
+        assertParameters("RETURN n {.name}");
+    }
+
+    @Test
+    public void ignoresStringsIdentifiersAndComments() {
+        assertParameters("RETURN '$a', \"{b}\", 'it\\'s $c', \"\\\"$d\"");
+        assertParameters("MATCH (`$e`) RETURN `{f}`");
+        assertParameters("RETURN 1 // $g\n, $h /* $i\n {j} */ + $k", "h", "k");
+    }
+
+    @Test
+    public void unterminatedText() {
+        assertParameters("RETURN $a, 'unterminated $b", "a");
+        assertParameters("RETURN $a /* $b", "a");
+        assertParameters("RETURN $");
+    }
+
+    private static void assertParameters(String cypher, String... expected) {
+        Set<String> expectedSet = expected.length == 0 ? Collections.emptySet() : new LinkedHashSet<>(asList(expected));
+        assertEquals(expectedSet, CypherLexer.parameterNames(cypher));
+    }
+
+    @Test
+    public void readOnlyStatements() {
+        assertTrue(CypherLexer.isReadOnly("MATCH (n) RETURN n"));
+        assertTrue(CypherLexer.isReadOnly("UNWIND range(1, 10) AS n WITH n WHERE n > 2 RETURN n ORDER BY n"));
+        assertTrue(CypherLexer.isReadOnly("MATCH (n) RETURN n.set, n.`create`, $merge"));
+        assertTrue(CypherLexer.isReadOnly("MATCH (n:Delete) RETURN 'CREATE (m)' // SET n.x = 1"));
+    }
+
+    @Test
+    public void updatingStatements() {
+        assertFalse(CypherLexer.isReadOnly("CREATE (n) RETURN n"));
+        assertFalse(CypherLexer.isReadOnly("match (n) set n.seen = true return n"));
+        assertFalse(CypherLexer.isReadOnly("MATCH (n) DETACH DELETE n"));
+        assertFalse(CypherLexer.isReadOnly("CALL db.labels()"));
+        assertFalse(CypherLexer.isReadOnly("LOAD CSV FROM 'file:///x.csv' AS row MERGE (:Row {v: row[0]})"));
+    }
+}
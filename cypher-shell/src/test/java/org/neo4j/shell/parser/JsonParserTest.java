@@ -0,0 +1,96 @@
+package org.neo4j.shell.parser;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.neo4j.driver.v1.Value;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+
+public class JsonParserTest {
+    @Rule
+    public final ExpectedException thrown = ExpectedException.none();
+
+    @Test
+    public void scalars() throws IOException {
+        assertEquals(42L, parse("42"));
+        assertEquals(-1.5, parse("-1.5"));
+        assertEquals(1000.0, parse("1e3"));
+        assertEquals(1e19, parse("10000000000000000000"));
+        assertEquals(true, parse("true"));
+        assertEquals(false, parse(" false "));
+        assertEquals(null, parse("null"));
+        assertEquals("a \"b\"\né/", parse("\"a \\\"b\\\"\\n\\u00e9\\/\""));
+    }
+
+    @Test
+    public void arrays() throws IOException {
+        assertEquals(Collections.emptyList(), parse("[]"));
+        assertEquals(asList(1L, "two", asList(3.0, null)), parse("[1, \"two\", [3.0, null]]"));
+    }
+
+    @Test
+    public void objects() throws IOException {
+        Map<String, Object> expected = new HashMap<>();
+        expected.put("ids", asList(1L, 2L, 3L));
+        expected.put("person", Collections.singletonMap("name", "bob"));
+
+        assertEquals(Collections.emptyMap(), parse("{ }"));
+        assertEquals(expected, parse("{\n  \"ids\": [1, 2, 3],\n  \"person\": {\"name\": \"bob\"}\n}"));
+    }
+
+    @Test
+    public void largeArray() throws IOException {
+        StringBuilder sb = new StringBuilder("[0");
+        for (int i = 1; i < 100_000; i++) {
+            sb.append(',').append(i);
+        }
+        Value value = new JsonParser(new StringReader(sb.append(']').toString())).parse();
+
+        assertEquals(100_000, value.size());
+        assertEquals(99_999L, value.get(99_999).asLong());
+    }
+
+    @Test
+    public void errorsIncludeLineNumber() throws IOException {
+        thrown.expect(IOException.class);
+        thrown.expectMessage("line 2");
+
+        parse("{\"a\": 1,\n \"b\" 2}");
+    }
+
+    @Test
+    public void trailingContentIsAnError() throws IOException {
+        thrown.expect(IOException.class);
+        thrown.expectMessage("Unexpected content after end of document");
+
+        parse("{} {}");
+    }
+
+    @Test
+    public void unterminatedString() throws IOException {
+        thrown.expect(IOException.class);
+        thrown.expectMessage("Unterminated string");
+
+        parse("[\"abc");
+    }
+
+    @Test
+    public void emptyDocument() throws IOException {
+        thrown.expect(IOException.class);
+        thrown.expectMessage("Unexpected end of document");
+
+        parse("  ");
+    }
+
+    private static Object parse(String json) throws IOException {
+        return new JsonParser(new StringReader(json)).parse().asObject();
+    }
+}
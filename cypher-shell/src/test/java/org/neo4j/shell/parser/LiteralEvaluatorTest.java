@@ -0,0 +1,131 @@
+package org.neo4j.shell.parser;
+
+import org.junit.Test;
+import org.neo4j.driver.v1.Value;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class LiteralEvaluatorTest {
+
+    @Test
+    public void integers() {
+        assertEvaluatesTo(99L, "99");
+        assertEvaluatesTo(-99L, "-99");
+        assertEvaluatesTo(255L, "0xff");
+        assertEvaluatesTo(8L, "010");
+        assertEvaluatesTo(Long.MIN_VALUE, "-9223372036854775808");
+        assertEvaluatesTo(0L, "0");
+    }
+
+    @Test
+    public void floats() {
+        assertEvaluatesTo(1.5, "1.5");
+        assertEvaluatesTo(0.5, ".5");
+        assertEvaluatesTo(1000.0, "1e3");
+        assertEvaluatesTo(-0.025, "-2.5E-2");
+    }
+
+    @Test
+    public void strings() {
+        assertEvaluatesTo("one two", "'one two'");
+        assertEvaluatesTo("it's", "\"it's\"");
+        assertEvaluatesTo("a\tb\nc'\"\\", "'a\\tb\\nc\\'\\\"\\\\'");
+        assertEvaluatesTo("é", "'\\u00e9'");
+        assertEvaluatesTo("RETURN 5 as bob", "\"RETURN 5 as bob\"");
+    }
+
+    @Test
+    public void booleansAndNull() {
+        assertEvaluatesTo(true, "true");
+        assertEvaluatesTo(false, "FALSE");
+        assertEvaluatesTo(null, " null ");
+    }
+
+    @Test
+    public void lists() {
+        assertEvaluatesTo(Collections.emptyList(), "[]");
+        assertEvaluatesTo(asList(1L, "two", asList(3.0, null)), "[1, 'two', [3.0, null]]");
+    }
+
+    @Test
+    public void maps() {
+        Map<String, Object> expected = new HashMap<>();
+        expected.put("name", "bob");
+        expected.put("ages", asList(1L, 2L));
+        expected.put("odd key", Collections.emptyMap());
+
+        assertEvaluatesTo(Collections.emptyMap(), "{}");
+        assertEvaluatesTo(expected, "{name: 'bob', ages: [1, 2], `odd key`: {}}");
+    }
+
+    @Test
+    public void arithmetic() {
+        assertEvaluatesTo(7L, "1 + 2 * 3");
+        assertEvaluatesTo(9L, "(1 + 2) * 3");
+        assertEvaluatesTo(3L, "7 / 2");
+        assertEvaluatesTo(3.5, "7 / 2.0");
+        assertEvaluatesTo(1L, "7 % 3");
+        assertEvaluatesTo(-1L, "1 - 2");
+        assertEvaluatesTo(8.0, "2 ^ 3");
+        assertEvaluatesTo(4.0, "-2 ^ 2");
+        assertEvaluatesTo(3L, "-(1 - 4)");
+        assertEvaluatesTo(1L, "--1");
+        assertEvaluatesTo(3.5, "1 + 2.5");
+        assertEvaluatesTo("ab", "'a' + 'b'");
+        assertEvaluatesTo(asList(2L, 1.0), "[1 + 1, 2 / 2.0]");
+    }
+
+    @Test
+    public void expressionsAreLeftToServer() {
+        assertNotEvaluated("timestamp()");
+        assertNotEvaluated("toInteger('1')");
+        assertNotEvaluated("$other");
+        assertNotEvaluated("{other}");
+        assertNotEvaluated("x");
+        assertNotEvaluated("1 = 1");
+        assertNotEvaluated("true AND false");
+        assertNotEvaluated("[x IN range(1, 3) | x]");
+        assertNotEvaluated("{a: 1}.a");
+    }
+
+    @Test
+    public void typeMixingIsLeftToServer() {
+        assertNotEvaluated("'a' + 1");
+        assertNotEvaluated("[1] + 2");
+        assertNotEvaluated("true + 1");
+        assertNotEvaluated("-'a'");
+    }
+
+    @Test
+    public void errorsAreLeftToServer() {
+        assertNotEvaluated("9223372036854775807 + 1");
+        assertNotEvaluated("9223372036854775808");
+        assertNotEvaluated("1 / 0");
+        assertNotEvaluated("1.0 % 0");
+        assertNotEvaluated("'unterminated");
+        assertNotEvaluated("'bad \\q escape'");
+        assertNotEvaluated("[1, 2");
+        assertNotEvaluated("{a: 1, a: 2}");
+        assertNotEvaluated("1.");
+        assertNotEvaluated("12abc");
+        assertNotEvaluated("");
+    }
+
+    private static void assertEvaluatesTo(Object expected, String expression) {
+        Optional<Value> value = LiteralEvaluator.evaluate(expression);
+        assertTrue("Expected " + expression + " to be evaluated", value.isPresent());
+        assertEquals(expected, value.get().asObject());
+    }
+
+    private static void assertNotEvaluated(String expression) {
+        assertFalse("Expected " + expression + " not to be evaluated", LiteralEvaluator.evaluate(expression).isPresent());
+    }
+}
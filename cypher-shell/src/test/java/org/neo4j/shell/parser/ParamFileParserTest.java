@@ -0,0 +1,86 @@
+package org.neo4j.shell.parser;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+import org.neo4j.driver.v1.Value;
+import org.neo4j.shell.exception.CommandException;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.Map;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+
+public class ParamFileParserTest {
+    @Rule
+    public final ExpectedException thrown = ExpectedException.none();
+    @Rule
+    public final TemporaryFolder temp = new TemporaryFolder();
+
+    @Test
+    public void jsonObjectKeysBecomeParameters() throws Exception {
+        Map<String, Value> params = ParamFileParser.parse(file("params.json", "{\"ids\": [1, 2], \"name\": \"bob\"}"), null);
+
+        assertEquals(2, params.size());
+        assertEquals(asList(1L, 2L), params.get("ids").asObject());
+        assertEquals("bob", params.get("name").asString());
+    }
+
+    @Test
+    public void jsonDocumentAssignedToName() throws Exception {
+        Map<String, Value> params = ParamFileParser.parse(file("ids.json", "[1, 2]"), "ids");
+
+        assertEquals(Collections.singleton("ids"), params.keySet());
+        assertEquals(asList(1L, 2L), params.get("ids").asObject());
+    }
+
+    @Test
+    public void jsonDocumentMustBeObjectWithoutName() throws Exception {
+        thrown.expect(CommandException.class);
+        thrown.expectMessage("Expected a JSON object");
+
+        ParamFileParser.parse(file("ids.json", "[1, 2]"), null);
+    }
+
+    @Test
+    public void csvIsNamedAfterFile() throws Exception {
+        Map<String, Value> params = ParamFileParser.parse(file("people.CSV", "name\nbob\n"), null);
+
+        assertEquals(asList(Collections.singletonMap("name", "bob")), params.get("people").asObject());
+    }
+
+    @Test
+    public void csvAssignedToName() throws Exception {
+        Map<String, Value> params = ParamFileParser.parse(file("people.csv", "name\nbob\n"), "rows");
+
+        assertEquals(Collections.singleton("rows"), params.keySet());
+    }
+
+    @Test
+    public void missingFile() throws Exception {
+        thrown.expect(CommandException.class);
+        thrown.expectMessage("Could not read parameters from");
+
+        ParamFileParser.parse(new File(temp.getRoot(), "missing.json"), null);
+    }
+
+    @Test
+    public void invalidJson() throws Exception {
+        thrown.expect(CommandException.class);
+        thrown.expectMessage("Invalid JSON on line 1");
+
+        ParamFileParser.parse(file("bad.json", "{\"a\": }"), null);
+    }
+
+    private File file(String name, String content) throws IOException {
+        File file = temp.newFile(name);
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+}
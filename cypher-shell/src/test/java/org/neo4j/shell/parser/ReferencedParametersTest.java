@@ -0,0 +1,59 @@
+package org.neo4j.shell.parser;
+
+import org.junit.Test;
+import org.neo4j.driver.v1.Value;
+import org.neo4j.driver.v1.Values;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+public class ReferencedParametersTest {
+    private final ReferencedParameters referencedParameters = new ReferencedParameters(2);
+    private final Map<String, Value> params = new HashMap<>();
+
+    {
+        params.put("small", Values.value(1));
+        params.put("big", Values.value(new long[100_000]));
+    }
+
+    @Test
+    public void selectsReferencedParameters() {
+        assertEquals(Collections.singletonMap("small", Values.value(1)),
+                referencedParameters.select("RETURN $small", params));
+    }
+
+    @Test
+    public void unsetParametersAreLeftOutForServerToReport() {
+        assertEquals(Collections.singletonMap("small", Values.value(1)),
+                referencedParameters.select("RETURN $small, $missing", params));
+    }
+
+    @Test
+    public void nothingReferenced() {
+        assertEquals(Collections.emptyMap(), referencedParameters.select("RETURN 1", params));
+    }
+
+    @Test
+    public void allReferencedReturnsSameMap() {
+        assertSame(params, referencedParameters.select("RETURN $small, size($big)", params));
+    }
+
+    @Test
+    public void namesAreCachedPerStatement() {
+        assertSame(referencedParameters.namesIn("RETURN $a"), referencedParameters.namesIn("RETURN $a"));
+    }
+
+    @Test
+    public void leastRecentlyUsedStatementIsEvicted() {
+        Object first = referencedParameters.namesIn("RETURN $a");
+        referencedParameters.namesIn("RETURN $b");
+        referencedParameters.namesIn("RETURN $c");
+
+        assertNotSame(first, referencedParameters.namesIn("RETURN $a"));
+    }
+}
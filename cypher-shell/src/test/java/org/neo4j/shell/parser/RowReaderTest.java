@@ -0,0 +1,60 @@
+package org.neo4j.shell.parser;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class RowReaderTest {
+    @Rule
+    public final ExpectedException thrown = ExpectedException.none();
+    @Rule
+    public final TemporaryFolder temp = new TemporaryFolder();
+
+    @Test
+    public void csvRowsAreMaps() throws IOException {
+        try (RowReader rows = RowReader.open(file("people.csv", "name\nbob\n\nalice\n"))) {
+            assertEquals(Collections.singletonMap("name", "bob"), rows.next().asObject());
+            assertEquals(Collections.singletonMap("name", "alice"), rows.next().asObject());
+            assertNull(rows.next());
+        }
+    }
+
+    @Test
+    public void jsonLines() throws IOException {
+        try (RowReader rows = RowReader.open(file("rows.jsonl", "{\"name\": \"bob\"}\n\n[1, 2]\n42"))) {
+            assertEquals(Collections.singletonMap("name", "bob"), rows.next().asObject());
+            assertEquals(asList(1L, 2L), rows.next().asObject());
+            assertEquals(42L, rows.next().asObject());
+            assertNull(rows.next());
+        }
+    }
+
+    @Test
+    public void invalidJsonLineReportsLineNumber() throws IOException {
+        thrown.expect(IOException.class);
+        thrown.expectMessage("Invalid JSON on line 3 of");
+
+        try (RowReader rows = RowReader.open(file("rows.jsonl", "1\n2\n{\n"))) {
+            while (rows.next() != null) {
+                // Read all
+            }
+        }
+    }
+
+    private File file(String name, String content) throws IOException {
+        File file = temp.newFile(name);
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+}
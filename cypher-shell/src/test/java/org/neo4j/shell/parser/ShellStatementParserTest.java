@@ -7,6 +7,7 @@ import org.junit.rules.ExpectedException;
 
 import java.util.List;
 
+import static java.util.Arrays.asList;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
@@ -391,4 +392,21 @@ public class ShellStatementParserTest {
         assertFalse(parser.hasStatements());
         assertFalse(parser.containsText());
     }
+
+    @Test
+    public void parseLinesInALargerBuffer() throws Exception {
+        // given
+        String text = "CREATE (n)\n :help me \nRETURN n;\n  :exit\n";
+
+        // when
+        parser.parseMoreText(text, 0, 11);
+        parser.parseMoreText(text, 11, 22);
+        parser.parseMoreText(text, 22, 32);
+        parser.parseMoreText(text, 32, text.length());
+
+        // then
+        assertFalse(parser.containsText());
+        List<String> statements = parser.consumeStatements();
+        assertEquals(asList("CREATE (n)\n :help me \nRETURN n;", "  :exit\n"), statements);
+    }
 }
@@ -12,6 +12,7 @@ import org.neo4j.driver.v1.types.Path;
 import org.neo4j.driver.v1.types.Relationship;
 import org.neo4j.shell.cli.Format;
 import org.neo4j.shell.state.BoltResult;
+import org.neo4j.shell.system.Cancellation;
 
 import java.util.Collections;
 import java.util.HashMap;
@@ -366,4 +367,26 @@ public class PrettyPrinterTest {
                 "(:start)-[:RELATIONSHIP_TYPE]->" +
                 "(:second)<-[:RELATIONSHIP_TYPE]-(:third)-[:RELATIONSHIP_TYPE]->(:end)"));
     }
+
+    @Test
+    public void formattingStopsWhenCancelled() throws Exception {
+        // given
+        BoltResult result = mock(BoltResult.class);
+        Record record = mock(Record.class);
+        when(record.keys()).thenReturn(asList("n"));
+        when(result.getRecords()).thenReturn(asList(record, record));
+        when(result.getSummary()).thenReturn(mock(ResultSummary.class));
+
+        // when
+        Cancellation.cancel(Thread.currentThread());
+        String actual;
+        try {
+            actual = plainPrinter.format(result);
+        } finally {
+            Cancellation.clear();
+        }
+
+        // then
+        assertThat(actual, is("n"));
+    }
 }
@@ -4,13 +4,19 @@ import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
+import org.mockito.InOrder;
 import org.neo4j.driver.v1.AuthToken;
 import org.neo4j.driver.v1.Config;
 import org.neo4j.driver.v1.Driver;
 import org.neo4j.driver.v1.Record;
 import org.neo4j.driver.v1.Session;
+import org.neo4j.driver.v1.Statement;
 import org.neo4j.driver.v1.StatementResult;
+import org.neo4j.driver.v1.Transaction;
 import org.neo4j.driver.v1.Value;
+import org.neo4j.driver.v1.Values;
+import org.neo4j.driver.v1.exceptions.ServiceUnavailableException;
+import org.neo4j.driver.v1.exceptions.TransientException;
 import org.neo4j.driver.v1.summary.ResultSummary;
 import org.neo4j.driver.v1.summary.ServerInfo;
 import org.neo4j.shell.ConnectionConfig;
@@ -20,10 +26,14 @@ import org.neo4j.shell.log.Logger;
 import org.neo4j.shell.test.bolt.FakeDriver;
 import org.neo4j.shell.test.bolt.FakeSession;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
 import static java.util.Arrays.asList;
 import static org.hamcrest.CoreMatchers.is;
@@ -31,13 +41,18 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
+import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.anyObject;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -239,6 +254,37 @@ public class BoltStateHandlerTest {
         boltStateHandler.runCypher("", Collections.emptyMap());
     }
 
+    @Test
+    public void parameterValuesAreUsedAsTheyAre() throws CommandException {
+        Value ids = Values.value(1, 2, 3);
+        boltStateHandler.connect();
+        boltStateHandler.beginTransaction();
+
+        boltStateHandler.runCypher("UNWIND $ids AS id RETURN id", Collections.singletonMap("ids", ids));
+
+        assertSame(ids, boltStateHandler.getTransactionStatements().iterator().next().parameters().get("ids"));
+    }
+
+    @Test
+    public void largeTransactionsAreBufferedOnDisk() throws CommandException {
+        boltStateHandler.connect();
+        boltStateHandler.setSpillThreshold(0);
+        boltStateHandler.beginTransaction();
+
+        boltStateHandler.runCypher("CREATE (:A {id: $id})", Collections.singletonMap("id", Values.value(1)));
+        boltStateHandler.runCypher("CREATE (:B)", Collections.emptyMap());
+
+        StatementBuffer statements = boltStateHandler.getTransactionStatements();
+        assertEquals(2, statements.spilled());
+        List<String> texts = new ArrayList<>();
+        statements.forEach(statement -> texts.add(statement.text()));
+        assertEquals(asList("CREATE (:A {id: $id})", "CREATE (:B)"), texts);
+        assertEquals(1, statements.iterator().next().parameters().get("id").asInt());
+
+        boltStateHandler.rollbackTransaction();
+        assertEquals(0, statements.size());
+    }
+
     @Test
     public void shouldExecuteInTransactionIfOpen() throws CommandException {
         boltStateHandler.connect();
@@ -274,6 +320,205 @@ public class BoltStateHandlerTest {
         assertEquals("999", boltResult.getRecords().get(0).get(0).toString());
     }
 
+    @Test
+    public void shouldRetryTransientErrors() throws CommandException {
+        Session sessionMock = mock(Session.class);
+        StatementResult versionMock = mock(StatementResult.class);
+        BoltResult resultMock = mock(BoltResult.class);
+        Driver driverMock = stubVersionInAnOpenSession(versionMock, sessionMock, "neo4j-version");
+        when(sessionMock.writeTransaction(anyObject()))
+                .thenThrow(new TransientException("Neo.TransientError.Transaction.DeadlockDetected", "deadlock"))
+                .thenReturn(asList(resultMock));
+
+        OfflineBoltStateHandler boltStateHandler = new OfflineBoltStateHandler(driverMock);
+        boltStateHandler.getRetryPolicy().setBackoff(0, 0);
+        boltStateHandler.connect();
+
+        assertSame(resultMock, boltStateHandler.runCypher("CREATE ()", new HashMap<>()).get());
+        verify(sessionMock, times(2)).writeTransaction(anyObject());
+        assertEquals(1, boltStateHandler.getRetryPolicy().retries());
+    }
+
+    @Test
+    public void streamedStatementIsRetriedUntilItsFirstRecord() throws CommandException {
+        Session sessionMock = mock(Session.class);
+        Driver driverMock = stubVersionInAnOpenSession(mock(StatementResult.class), sessionMock, "neo4j-version");
+        StatementResult failed = mock(StatementResult.class);
+        when(failed.hasNext())
+                .thenThrow(new TransientException("Neo.TransientError.Transaction.DeadlockDetected", "deadlock"));
+        StatementResult streamed = mock(StatementResult.class);
+        when(streamed.hasNext()).thenReturn(true);
+        when(sessionMock.run(any(Statement.class))).thenReturn(failed, streamed);
+
+        OfflineBoltStateHandler boltStateHandler = new OfflineBoltStateHandler(driverMock);
+        boltStateHandler.getRetryPolicy().setBackoff(0, 0);
+        boltStateHandler.connect();
+
+        assertSame(streamed, boltStateHandler.streamCypher("MATCH (n) RETURN n", new HashMap<>()));
+        verify(sessionMock, times(2)).run(any(Statement.class));
+        assertEquals(1, boltStateHandler.getRetryPolicy().retries());
+    }
+
+    @Test
+    public void shouldReplaceBrokenSessionAndRetry() throws CommandException {
+        Session brokenSession = mock(Session.class);
+        Session newSession = mock(Session.class);
+        BoltResult resultMock = mock(BoltResult.class);
+        Driver driverMock = stubVersionInAnOpenSession(mock(StatementResult.class), brokenSession, "neo4j-version");
+        stubVersionInAnOpenSession(mock(StatementResult.class), newSession, "neo4j-version");
+        when(driverMock.session()).thenReturn(brokenSession, newSession);
+        when(brokenSession.writeTransaction(anyObject())).thenThrow(new ServiceUnavailableException("server restarted"));
+        when(newSession.writeTransaction(anyObject())).thenReturn(asList(resultMock));
+
+        OfflineBoltStateHandler boltStateHandler = new OfflineBoltStateHandler(driverMock);
+        boltStateHandler.getRetryPolicy().setBackoff(0, 0);
+        boltStateHandler.connect();
+
+        assertSame(resultMock, boltStateHandler.runCypher("CREATE ()", new HashMap<>()).get());
+        verify(brokenSession).close();
+        verify(newSession).run("RETURN 1");
+        assertEquals(1, boltStateHandler.getReconnects());
+        assertEquals(1, boltStateHandler.getRetryPolicy().retries());
+    }
+
+    @Test
+    public void brokenSessionStaysConnectedUntilItCanBeReplaced() throws CommandException {
+        Session brokenSession = mock(Session.class);
+        Session newSession = mock(Session.class);
+        Driver driverMock = stubVersionInAnOpenSession(mock(StatementResult.class), brokenSession, "neo4j-version");
+        stubVersionInAnOpenSession(mock(StatementResult.class), newSession, "neo4j-version");
+        when(driverMock.session()).thenReturn(brokenSession)
+                .thenThrow(new ServiceUnavailableException("still down"))
+                .thenReturn(newSession);
+        when(brokenSession.run(any(Statement.class))).thenThrow(new ServiceUnavailableException("server restarted"));
+
+        OfflineBoltStateHandler boltStateHandler = new OfflineBoltStateHandler(driverMock);
+        boltStateHandler.getRetryPolicy().setMaxAttempts(1);
+        boltStateHandler.connect();
+
+        for (int i = 0; i < 2; i++) {
+            try {
+                boltStateHandler.streamCypher("RETURN 1", new HashMap<>());
+                fail("Expected the statement to fail");
+            } catch (ServiceUnavailableException e) {
+                assertTrue(boltStateHandler.isConnected());
+            }
+        }
+
+        // An open transaction is kept while reconnecting
+        boltStateHandler.beginTransaction();
+        boltStateHandler.runCypher("CREATE ()", new HashMap<>());
+        boltStateHandler.commitTransaction();
+
+        verify(newSession).writeTransaction(anyObject());
+        assertEquals(1, boltStateHandler.getReconnects());
+    }
+
+    @Test
+    public void otherSessionsFailFastWhileBroken() throws CommandException {
+        Session brokenSession = mock(Session.class);
+        Driver driverMock = stubVersionInAnOpenSession(mock(StatementResult.class), brokenSession, "neo4j-version");
+        when(brokenSession.run(any(Statement.class))).thenThrow(new ServiceUnavailableException("server restarted"));
+
+        OfflineBoltStateHandler boltStateHandler = new OfflineBoltStateHandler(driverMock);
+        boltStateHandler.getRetryPolicy().setMaxAttempts(1);
+        boltStateHandler.connect();
+        try {
+            boltStateHandler.streamCypher("RETURN 1", new HashMap<>());
+            fail("Expected the statement to fail");
+        } catch (ServiceUnavailableException ignored) {
+            // The session is broken now
+        }
+
+        try {
+            boltStateHandler.openSession();
+            fail("Expected opening a session to fail");
+        } catch (CommandException e) {
+            assertTrue(e.getMessage().contains("connection to Neo4j was lost"));
+        }
+        // Only the statements of the shell replace the connection
+        verify(brokenSession, never()).close();
+        assertEquals(0, boltStateHandler.getReconnects());
+    }
+
+    @Test
+    public void idleConnectionsAreChecked() throws CommandException {
+        RecordingDriverProvider provider = new RecordingDriverProvider();
+        BoltStateHandler handler = new BoltStateHandler(provider);
+        handler.connect(new ConnectionConfig(logger, "bolt://", "", -1, "", "", false));
+        assertEquals(TimeUnit.SECONDS.toMillis(BoltStateHandler.IDLE_LIVENESS_CHECK_SECONDS),
+                provider.config.idleTimeBeforeConnectionTest());
+    }
+
+    @Test
+    public void statementsAreSentBeforeWaitingForResults() {
+        Transaction tx = mock(Transaction.class);
+        StatementResult first = mock(StatementResult.class);
+        StatementResult second = mock(StatementResult.class);
+        when(tx.run(any(Statement.class))).thenReturn(first, second);
+        Function<StatementResult, BoltResult> collector = sr -> {
+            sr.consume();
+            return mock(BoltResult.class);
+        };
+
+        List<BoltResult> results = BoltStateHandler.runPipelined(tx,
+                asList(new Statement("CREATE (:A)"), new Statement("CREATE (:B)")), collector);
+
+        assertEquals(2, results.size());
+        InOrder inOrder = inOrder(tx, first, second);
+        inOrder.verify(tx, times(2)).run(any(Statement.class));
+        inOrder.verify(first).consume();
+        inOrder.verify(second).consume();
+    }
+
+    @Test
+    public void statementsAreSentInWindows() {
+        Transaction tx = mock(Transaction.class);
+        List<Integer> sentBeforeResult = new ArrayList<>();
+        when(tx.run(any(Statement.class))).thenAnswer(invocation -> {
+            sentBeforeResult.add(sentBeforeResult.size() + 1);
+            return mock(StatementResult.class);
+        });
+        List<Statement> statements = new ArrayList<>();
+        for (int i = 0; i < BoltStateHandler.PIPELINE_WINDOW_STATEMENTS + 1; i++) {
+            statements.add(new Statement("CREATE ()"));
+        }
+
+        List<Integer> sent = new ArrayList<>();
+        BoltStateHandler.runPipelined(tx, statements, result -> {
+            sent.add(sentBeforeResult.size());
+            return mock(BoltResult.class);
+        });
+
+        // The whole first window has been sent before its first result is read, and the rest after it
+        assertEquals(BoltStateHandler.PIPELINE_WINDOW_STATEMENTS, (int) sent.get(0));
+        assertEquals(BoltStateHandler.PIPELINE_WINDOW_STATEMENTS, (int) sent.get(sent.size() - 2));
+        assertEquals(statements.size(), (int) sent.get(sent.size() - 1));
+    }
+
+    @Test
+    public void statementsWithLargeParametersAreSentOnTheirOwn() {
+        Transaction tx = mock(Transaction.class);
+        List<Integer> sentBeforeResult = new ArrayList<>();
+        when(tx.run(any(Statement.class))).thenAnswer(invocation -> {
+            sentBeforeResult.add(sentBeforeResult.size() + 1);
+            return mock(StatementResult.class);
+        });
+        char[] chars = new char[(int) BoltStateHandler.PIPELINE_WINDOW_BYTES];
+        Arrays.fill(chars, 'x');
+        Statement large = new Statement("CREATE ({text: $text})", Values.parameters("text", new String(chars)));
+        List<Statement> statements = asList(new Statement("CREATE ()"), large, large, new Statement("CREATE ()"));
+
+        List<Integer> sent = new ArrayList<>();
+        BoltStateHandler.runPipelined(tx, statements, result -> {
+            sent.add(sentBeforeResult.size());
+            return mock(BoltResult.class);
+        });
+
+        // The large statements wait for the results sent before them, and so does the statement after them
+        assertEquals(asList(1, 2, 3, 4), sent);
+    }
+
     @Test
     public void shouldExecuteInSessionByDefault() throws CommandException {
         boltStateHandler.connect();
@@ -314,6 +559,35 @@ public class BoltStateHandlerTest {
         assertNull(boltStateHandler.getTransactionStatements());
     }
 
+    @Test
+    public void resetWhileCommittingLeavesTheStatementsToTheCommit() throws Exception {
+        // given
+        Session sessionMock = mock(Session.class);
+        Driver driverMock = stubVersionInAnOpenSession(mock(StatementResult.class), sessionMock, "neo4j-version");
+        OfflineBoltStateHandler boltStateHandler = new OfflineBoltStateHandler(driverMock);
+        boltStateHandler.getRetryPolicy().setMaxAttempts(1);
+        boltStateHandler.connect();
+        boltStateHandler.beginTransaction();
+        boltStateHandler.runCypher("CREATE ()", new HashMap<>());
+        StatementBuffer statements = boltStateHandler.getTransactionStatements();
+        when(sessionMock.writeTransaction(anyObject())).thenAnswer(invocation -> {
+            // As if the statement was cancelled from another thread
+            boltStateHandler.reset();
+            assertSame(statements, boltStateHandler.getTransactionStatements());
+            throw new TransientException("N/A", "terminated");
+        });
+
+        // when
+        try {
+            boltStateHandler.commitTransaction();
+            fail("Expected the commit to fail");
+        } catch (TransientException ignored) {
+            // then
+            verify(sessionMock).reset();
+            assertNull(boltStateHandler.getTransactionStatements());
+        }
+    }
+
     @Test
     public void silentDisconnectCleansUp() throws Exception {
         // given
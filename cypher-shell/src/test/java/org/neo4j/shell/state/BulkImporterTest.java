@@ -0,0 +1,262 @@
+package org.neo4j.shell.state;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.neo4j.driver.v1.Session;
+import org.neo4j.driver.v1.Statement;
+import org.neo4j.driver.v1.StatementResult;
+import org.neo4j.driver.v1.Transaction;
+import org.neo4j.driver.v1.TransactionWork;
+import org.neo4j.driver.v1.Value;
+import org.neo4j.driver.v1.Values;
+import org.neo4j.driver.v1.exceptions.ClientException;
+import org.neo4j.driver.v1.exceptions.TransientException;
+import org.neo4j.driver.v1.summary.ResultSummary;
+import org.neo4j.driver.v1.summary.StatementType;
+import org.neo4j.driver.v1.summary.SummaryCounters;
+import org.neo4j.shell.exception.CommandException;
+import org.neo4j.shell.parser.RowReader;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class BulkImporterTest {
+    @Rule
+    public final ExpectedException thrown = ExpectedException.none();
+
+    private final List<Statement> statements = new CopyOnWriteArrayList<>();
+    private final List<Session> sessions = new CopyOnWriteArrayList<>();
+    private final AtomicLong clock = new AtomicLong();
+    private volatile String failOn = null;
+    private final RetryPolicy retryPolicy = new RetryPolicy();
+    private final AtomicInteger deadlocks = new AtomicInteger();
+    private final List<ResultSummary> written = new CopyOnWriteArrayList<>();
+    private volatile StatementType statementType = StatementType.WRITE_ONLY;
+
+    private final BulkImporter importer = new BulkImporter(this::newSession, retryPolicy, written::add,
+            clock::get);
+
+    @Test
+    public void sendsRowsInBatches() throws CommandException {
+        BulkImporter.Progress result = importer.run(rows(5), "UNWIND $batch AS row CREATE (:N {id: row})",
+                Collections.emptyMap(), 2, 1, progress -> {
+                });
+
+        assertEquals(5, result.rows());
+        assertEquals(3, statements.size());
+        assertEquals(2, statements.get(0).parameters().get("batch").size());
+        assertEquals(Values.value(4L), statements.get(2).parameters().get("batch").get(0));
+        verify(sessions.get(0)).close();
+    }
+
+    @Test
+    public void otherParametersAreSentWithEveryBatch() throws CommandException {
+        importer.run(rows(3), "UNWIND $batch AS row CREATE (:N {id: row, source: $source})",
+                Collections.singletonMap("source", Values.value("file")), 2, 1, progress -> {
+                });
+
+        for (Statement statement : statements) {
+            assertEquals("file", statement.parameters().get("source").asString());
+        }
+    }
+
+    @Test
+    public void importsOverSeveralSessions() throws CommandException {
+        BulkImporter.Progress result = importer.run(rows(1000), "UNWIND $batch AS row CREATE (:N {id: row})",
+                Collections.emptyMap(), 10, 4, progress -> {
+                });
+
+        assertEquals(1000, result.rows());
+        assertEquals(100, statements.size());
+        assertEquals(4, sessions.size());
+        long sum = 0;
+        for (Statement statement : statements) {
+            for (Value row : statement.parameters().get("batch").values()) {
+                sum += row.asLong();
+            }
+        }
+        assertEquals(999 * 1000 / 2, sum);
+        for (Session session : sessions) {
+            verify(session).close();
+        }
+    }
+
+    @Test
+    public void failedBatchStopsImport() throws CommandException {
+        thrown.expect(CommandException.class);
+        thrown.expectMessage("Import failed after 4 rows: bad row");
+        failOn = "4";
+
+        try {
+            importer.run(rows(100), "UNWIND $batch AS row CREATE (:N {id: row})", Collections.emptyMap(), 2, 1,
+                    progress -> {
+                    });
+        } finally {
+            assertEquals(2, statements.size());
+            verify(sessions.get(0)).close();
+        }
+    }
+
+    @Test
+    public void writesAreReportedOnceWhenImportEnds() throws CommandException {
+        importer.run(rows(5), "UNWIND $batch AS row CREATE (:N {id: row})", Collections.emptyMap(), 2, 1,
+                progress -> {
+                });
+
+        assertEquals(1, written.size());
+    }
+
+    @Test
+    public void writesOfFailedImportAreReported() throws CommandException {
+        thrown.expect(CommandException.class);
+        failOn = "4";
+
+        try {
+            importer.run(rows(100), "UNWIND $batch AS row CREATE (:N {id: row})", Collections.emptyMap(), 2, 1,
+                    progress -> {
+                    });
+        } finally {
+            assertEquals(1, written.size());
+        }
+    }
+
+    @Test
+    public void readOnlyImportIsNotReported() throws CommandException {
+        statementType = StatementType.READ_ONLY;
+
+        importer.run(rows(5), "UNWIND $batch AS row MATCH (n:N {id: row}) RETURN n", Collections.emptyMap(), 2, 1,
+                progress -> {
+                });
+
+        assertTrue(written.isEmpty());
+    }
+
+    @Test
+    public void retriesBatchesWhichFailWithTransientErrors() throws CommandException {
+        retryPolicy.setBackoff(0, 0);
+        deadlocks.set(2);
+
+        BulkImporter.Progress result = importer.run(rows(4), "UNWIND $batch AS row CREATE (:N {id: row})",
+                Collections.emptyMap(), 2, 1, progress -> {
+                });
+
+        assertEquals(4, result.rows());
+        assertEquals(2, statements.size());
+        assertEquals(2, retryPolicy.retries());
+    }
+
+    @Test
+    public void unreadableFileStopsImport() throws CommandException {
+        thrown.expect(CommandException.class);
+        thrown.expectMessage("broken file");
+
+        List<Value> values = new ArrayList<>(asValues(2));
+        RowReader rows = new RowReader() {
+            int i = 0;
+
+            @Override
+            public Value next() throws IOException {
+                if (i < values.size()) {
+                    return values.get(i++);
+                }
+                throw new IOException("broken file");
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+
+        importer.run(rows, "UNWIND $batch AS row CREATE (:N {id: row})", Collections.emptyMap(), 2, 1, progress -> {
+        });
+    }
+
+    @Test
+    public void rateIsComputedFromElapsedTime() {
+        BulkImporter.Progress progress = new BulkImporter.Progress(5000, 2_000_000_000L);
+
+        assertEquals(2500, progress.rowsPerSecond());
+        assertEquals(2.0, progress.elapsedSeconds(), 0.0001);
+    }
+
+    @Test
+    public void batchSizeMustBePositive() throws CommandException {
+        thrown.expect(CommandException.class);
+        thrown.expectMessage("must be positive");
+
+        importer.run(rows(1), "RETURN 1", Collections.emptyMap(), 0, 1, progress -> {
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private Session newSession() {
+        Session session = mock(Session.class);
+        Transaction tx = mock(Transaction.class);
+        when(tx.run(any(Statement.class))).thenAnswer(invocation -> {
+            Statement statement = (Statement) invocation.getArguments()[0];
+            if (deadlocks.getAndDecrement() > 0) {
+                throw new TransientException("Neo.TransientError.Transaction.DeadlockDetected", "deadlock");
+            }
+            for (Value row : statement.parameters().get("batch").values()) {
+                if (row.toString().equals(failOn)) {
+                    throw new ClientException("bad row");
+                }
+            }
+            statements.add(statement);
+            return result();
+        });
+        when(session.writeTransaction(any(TransactionWork.class))).thenAnswer(
+                invocation -> ((TransactionWork) invocation.getArguments()[0]).execute(tx));
+        sessions.add(session);
+        return session;
+    }
+
+    private StatementResult result() {
+        SummaryCounters counters = mock(SummaryCounters.class);
+        when(counters.containsUpdates()).thenReturn(statementType != StatementType.READ_ONLY);
+        ResultSummary summary = mock(ResultSummary.class);
+        when(summary.counters()).thenReturn(counters);
+        when(summary.statementType()).thenReturn(statementType);
+        StatementResult result = mock(StatementResult.class);
+        when(result.consume()).thenReturn(summary);
+        return result;
+    }
+
+    private static RowReader rows(int count) {
+        List<Value> values = asValues(count);
+        return new RowReader() {
+            int i = 0;
+
+            @Override
+            public Value next() {
+                return i < values.size() ? values.get(i++) : null;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+
+    private static List<Value> asValues(int count) {
+        List<Value> values = new ArrayList<>();
+        for (long i = 0; i < count; i++) {
+            values.add(Values.value(i));
+        }
+        return values;
+    }
+}
@@ -0,0 +1,370 @@
+package org.neo4j.shell.state;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.neo4j.driver.internal.InternalNode;
+import org.neo4j.driver.internal.InternalPath;
+import org.neo4j.driver.internal.InternalRecord;
+import org.neo4j.driver.internal.InternalRelationship;
+import org.neo4j.driver.v1.Record;
+import org.neo4j.driver.v1.Session;
+import org.neo4j.driver.v1.StatementResult;
+import org.neo4j.driver.v1.Transaction;
+import org.neo4j.driver.v1.Value;
+import org.neo4j.driver.v1.exceptions.ClientException;
+import org.neo4j.driver.v1.types.Node;
+import org.neo4j.driver.v1.types.Relationship;
+import org.neo4j.shell.exception.CommandException;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.neo4j.driver.v1.Values.value;
+
+public class GraphDumperTest {
+    @Rule
+    public final ExpectedException thrown = ExpectedException.none();
+
+    private final Session session = mock(Session.class);
+    private final Transaction tx = mock(Transaction.class);
+    private final List<String> script = new ArrayList<>();
+    private final Queue<Session> sessions = new ConcurrentLinkedQueue<>();
+    private final List<String> bookmarks = new CopyOnWriteArrayList<>();
+    private final List<Session> partitionSessions = new CopyOnWriteArrayList<>();
+    // The first session reads the schema and the bounds of the ids, and the others read partitions
+    private final GraphDumper dumper = new GraphDumper(bookmark -> {
+        bookmarks.add(String.valueOf(bookmark));
+        Session partitionSession = bookmarks.size() > 1 ? sessions.poll() : null;
+        return partitionSession == null ? session : partitionSession;
+    }, () -> "shell");
+
+    private final Node alice = new InternalNode(1, asList("Person", "Admin"),
+            Collections.singletonMap("name", value("Alice")));
+    private final Node bob = new InternalNode(2, asList("Person"), Collections.singletonMap("name", value("Bob")));
+    private final Node acme = new InternalNode(3, asList("Company"), Collections.emptyMap());
+    private final Relationship knows = new InternalRelationship(10, 1, 2, "KNOWS",
+            Collections.singletonMap("since", value(2001)));
+    private final Relationship worksAt = new InternalRelationship(11, 2, 3, "WORKS AT", Collections.emptyMap());
+
+    @Before
+    public void setup() {
+        when(session.beginTransaction()).thenReturn(tx);
+        StatementResult indexes = mock(StatementResult.class);
+        when(indexes.list()).thenReturn(asList(
+                record(asList("description", "type"), value("INDEX ON :Person(name)"), value("node_label_property")),
+                record(asList("description", "type"), value("INDEX ON :Company(id)"), value("node_unique_property"))));
+        when(session.run("CALL db.indexes()")).thenReturn(indexes);
+        StatementResult constraints = mock(StatementResult.class);
+        when(constraints.list()).thenReturn(Collections.singletonList(record(Collections.singletonList("description"),
+                value("CONSTRAINT ON (c:Company) ASSERT c.id IS UNIQUE"))));
+        when(session.run("CALL db.constraints()")).thenReturn(constraints);
+    }
+
+    @Test
+    public void dumpsTheWholeGraph() throws Exception {
+        when(tx.run("MATCH (n) RETURN n")).thenReturn(result("n", alice, bob, acme));
+        when(tx.run("MATCH ()-[r]->() RETURN r")).thenReturn(result("r", knows, worksAt));
+
+        GraphDumper.Dumped dumped = dumper.dump(null, Collections.emptyMap(), 1000, script::add);
+
+        assertEquals(3, dumped.nodes());
+        assertEquals(2, dumped.relationships());
+        assertEquals(asList(
+                "CREATE CONSTRAINT ON (n:`UNIQUE IMPORT LABEL`) ASSERT n.`UNIQUE IMPORT ID` IS UNIQUE;",
+                "UNWIND [{_id: 1, properties: {name: \"Alice\"}}] AS row " +
+                        "CREATE (n:`UNIQUE IMPORT LABEL`:Person:Admin {`UNIQUE IMPORT ID`: row._id}) " +
+                        "SET n += row.properties;",
+                "UNWIND [{_id: 2, properties: {name: \"Bob\"}}] AS row " +
+                        "CREATE (n:`UNIQUE IMPORT LABEL`:Person {`UNIQUE IMPORT ID`: row._id}) " +
+                        "SET n += row.properties;",
+                "UNWIND [{_id: 3, properties: {}}] AS row " +
+                        "CREATE (n:`UNIQUE IMPORT LABEL`:Company {`UNIQUE IMPORT ID`: row._id}) " +
+                        "SET n += row.properties;",
+                "UNWIND [{start: 1, end: 2, properties: {since: 2001}}] AS row " +
+                        "MATCH (a:`UNIQUE IMPORT LABEL` {`UNIQUE IMPORT ID`: row.start}) " +
+                        "MATCH (b:`UNIQUE IMPORT LABEL` {`UNIQUE IMPORT ID`: row.end}) " +
+                        "CREATE (a)-[r:KNOWS]->(b) SET r += row.properties;",
+                "UNWIND [{start: 2, end: 3, properties: {}}] AS row " +
+                        "MATCH (a:`UNIQUE IMPORT LABEL` {`UNIQUE IMPORT ID`: row.start}) " +
+                        "MATCH (b:`UNIQUE IMPORT LABEL` {`UNIQUE IMPORT ID`: row.end}) " +
+                        "CREATE (a)-[r:`WORKS AT`]->(b) SET r += row.properties;",
+                "MATCH (n:`UNIQUE IMPORT LABEL`) WITH n LIMIT 1000 " +
+                        "REMOVE n:`UNIQUE IMPORT LABEL`, n.`UNIQUE IMPORT ID`;",
+                "DROP CONSTRAINT ON (n:`UNIQUE IMPORT LABEL`) ASSERT n.`UNIQUE IMPORT ID` IS UNIQUE;",
+                "CREATE INDEX ON :Person(name);",
+                "CREATE CONSTRAINT ON (c:Company) ASSERT c.id IS UNIQUE;"), script);
+        verify(tx).close();
+        verify(session).close();
+    }
+
+    @Test
+    public void batchesNodesOfTheSameLabels() throws Exception {
+        List<Node> nodes = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            nodes.add(new InternalNode(i, Collections.singletonList("N"), Collections.emptyMap()));
+        }
+        when(tx.run("MATCH (n) RETURN n")).thenReturn(result("n", nodes.toArray()));
+        when(tx.run("MATCH ()-[r]->() RETURN r")).thenReturn(result("r"));
+
+        GraphDumper.Dumped dumped = dumper.dump(null, Collections.emptyMap(), 2, script::add);
+
+        assertEquals(5, dumped.nodes());
+        assertTrue(script.get(1).startsWith("UNWIND [{_id: 0, properties: {}}, {_id: 1, properties: {}}] AS row"));
+        assertTrue(script.get(3).startsWith("UNWIND [{_id: 4, properties: {}}] AS row"));
+        // One removal of the temporary ids per batch
+        assertEquals(3, script.stream().filter(s -> s.contains(" LIMIT 2 REMOVE ")).count());
+    }
+
+    @Test
+    public void dumpsWhatAQueryReturnsOnce() throws Exception {
+        Map<String, Value> params = Collections.singletonMap("name", value("Alice"));
+        Map<String, Object> nested = new HashMap<>();
+        nested.put("friends", asList(bob, alice));
+        when(tx.run(eq("MATCH p = (a {name: $name})-->() RETURN p"), any(Value.class))).thenReturn(
+                result("p", new InternalPath(alice, knows, bob), nested));
+
+        GraphDumper.Dumped dumped = dumper.dump("MATCH p = (a {name: $name})-->() RETURN p", params, 10, script::add);
+
+        assertEquals(2, dumped.nodes());
+        assertEquals(1, dumped.relationships());
+        assertTrue(script.get(1).contains("{_id: 1, "));
+        assertTrue(script.get(2).contains("{_id: 2, "));
+        assertTrue(script.get(3).contains("-[r:KNOWS]->"));
+    }
+
+    @Test
+    public void relationshipsWhoseNodesAreNotDumpedAreLeftOut() throws Exception {
+        when(tx.run(eq("MATCH (a)-[r]->(b) RETURN r, a, b"), any(Value.class))).thenReturn(
+                result("x", knows, worksAt, alice, bob));
+
+        GraphDumper.Dumped dumped = dumper.dump("MATCH (a)-[r]->(b) RETURN r, a, b", Collections.emptyMap(), 10,
+                script::add);
+
+        assertEquals(2, dumped.nodes());
+        assertEquals(1, dumped.relationships());
+        assertEquals(1, script.stream().filter(s -> s.contains("-[r:KNOWS]->")).count());
+        assertEquals(0, script.stream().filter(s -> s.contains("WORKS AT")).count());
+    }
+
+    @Test
+    public void schemaIsSkippedIfTheServerCanNotListIt() throws Exception {
+        when(session.run("CALL db.indexes()")).thenThrow(new ClientException("There is no procedure"));
+        when(tx.run("MATCH (n) RETURN n")).thenReturn(result("n"));
+        when(tx.run("MATCH ()-[r]->() RETURN r")).thenReturn(result("r"));
+
+        dumper.dump(null, Collections.emptyMap(), 10, script::add);
+
+        assertEquals(2, script.size());
+        assertTrue(script.get(1).startsWith("DROP CONSTRAINT"));
+    }
+
+    @Test
+    public void dumpsPartitionsInOrder() throws Exception {
+        when(session.lastBookmark()).thenReturn("start");
+        StatementResult nodeBounds = mock(StatementResult.class);
+        when(nodeBounds.single()).thenReturn(record(asList("lo", "hi"), value(0), value(9)));
+        when(session.run("MATCH (n) RETURN min(id(n)), max(id(n))")).thenReturn(nodeBounds);
+        StatementResult relationshipBounds = mock(StatementResult.class);
+        when(relationshipBounds.single()).thenReturn(record(asList("lo", "hi"), value(0), value(1)));
+        when(session.run("MATCH ()-[r]->() RETURN min(id(r)), max(id(r))")).thenReturn(relationshipBounds);
+        Map<Long, StatementResult> nodeResults = new HashMap<>();
+        for (long lo = 0; lo < 10; lo += 4) {
+            List<Object> nodes = new ArrayList<>();
+            for (long id = lo; id < Math.min(lo + 4, 10); id++) {
+                nodes.add(new InternalNode(id, Collections.singletonList("N"), Collections.emptyMap()));
+            }
+            nodeResults.put(lo, result("n", nodes.toArray()));
+        }
+        Map<Long, StatementResult> relationshipResults = new HashMap<>();
+        relationshipResults.put(0L, result("r", new InternalRelationship(0, 0, 1, "R", Collections.emptyMap())));
+        relationshipResults.put(1L, result("r", new InternalRelationship(1, 8, 9, "R", Collections.emptyMap())));
+        for (int i = 0; i < 3; i++) {
+            Transaction partitionTx = partitionTransaction();
+            when(partitionTx.run(eq(GraphDumper.NODES_IN_RANGE), any(Value.class))).thenAnswer(invocation ->
+                    nodeResults.get(((Value) invocation.getArguments()[1]).get("lo").asLong()));
+            when(partitionTx.run(eq(GraphDumper.RELATIONSHIPS_IN_RANGE), any(Value.class))).thenAnswer(invocation ->
+                    relationshipResults.get(((Value) invocation.getArguments()[1]).get("lo").asLong()));
+        }
+        List<GraphDumper.PartitionProgress> progress = new CopyOnWriteArrayList<>();
+
+        GraphDumper.Dumped dumped = dumper.dumpPartitioned(3, 100, script::add, progress::add);
+
+        assertEquals(10, dumped.nodes());
+        assertEquals(2, dumped.relationships());
+        assertTrue(script.get(1).startsWith("UNWIND [{_id: 0, "));
+        assertTrue(script.get(2).startsWith("UNWIND [{_id: 4, "));
+        assertTrue(script.get(3).startsWith("UNWIND [{_id: 8, "));
+        assertTrue(script.get(4).startsWith("UNWIND [{start: 0, end: 1, "));
+        assertTrue(script.get(5).startsWith("UNWIND [{start: 8, end: 9, "));
+        assertTrue(script.get(6).startsWith("MATCH (n:`UNIQUE IMPORT LABEL`) WITH n LIMIT 100 REMOVE"));
+        assertEquals(asList("shell", "start", "start", "start"), bookmarks);
+        long doneNodes = 0;
+        for (GraphDumper.PartitionProgress p : progress) {
+            if (p.done()) {
+                doneNodes += p.nodes();
+                assertEquals(3, p.partitions());
+            }
+        }
+        assertEquals(10, doneNodes);
+    }
+
+    @Test
+    public void partitionFailuresAreRethrown() throws Exception {
+        StatementResult bounds = mock(StatementResult.class);
+        when(bounds.single()).thenReturn(record(asList("lo", "hi"), value(0), value(3)));
+        when(session.run(any(String.class))).thenReturn(bounds);
+        for (int i = 0; i < 2; i++) {
+            Transaction partitionTx = partitionTransaction();
+            when(partitionTx.run(eq(GraphDumper.NODES_IN_RANGE), any(Value.class)))
+                    .thenThrow(new ClientException("Out of memory"));
+        }
+
+        thrown.expect(ClientException.class);
+        thrown.expectMessage("Out of memory");
+
+        dumper.dumpPartitioned(2, 100, script::add, progress -> {
+        });
+    }
+
+    @Test
+    public void failedPartitionStopsTheOthersWithoutInterruptingThem() throws Exception {
+        StatementResult bounds = mock(StatementResult.class);
+        when(bounds.single()).thenReturn(record(asList("lo", "hi"), value(0), value(3)));
+        when(session.run(any(String.class))).thenReturn(bounds);
+        when(partitionTransaction().run(eq(GraphDumper.NODES_IN_RANGE), any(Value.class)))
+                .thenThrow(new ClientException("Out of memory"));
+        AtomicBoolean interrupted = new AtomicBoolean(false);
+        StatementResult endless = mock(StatementResult.class);
+        when(endless.hasNext()).thenAnswer(invocation -> {
+            interrupted.compareAndSet(false, Thread.currentThread().isInterrupted());
+            return true;
+        });
+        when(endless.next()).thenReturn(record(Collections.singletonList("n"), value(alice)));
+        when(partitionTransaction().run(eq(GraphDumper.NODES_IN_RANGE), any(Value.class))).thenReturn(endless);
+
+        thrown.expect(ClientException.class);
+        thrown.expectMessage("Out of memory");
+
+        try {
+            dumper.dumpPartitioned(2, 100, script::add, progress -> {
+            });
+        } finally {
+            assertFalse(interrupted.get());
+            for (Session partitionSession : partitionSessions) {
+                verify(partitionSession).close();
+            }
+        }
+    }
+
+    @Test
+    public void splitsIdsIntoRanges() {
+        List<GraphDumper.Range> ranges = GraphDumper.Range.split(
+                record(asList("lo", "hi"), value(5), value(14)), 3);
+
+        assertEquals(3, ranges.size());
+        assertEquals(5, ranges.get(0).lo);
+        assertEquals(9, ranges.get(0).hi);
+        assertEquals(9, ranges.get(1).lo);
+        assertEquals(13, ranges.get(1).hi);
+        assertEquals(13, ranges.get(2).lo);
+        assertEquals(15, ranges.get(2).hi);
+
+        ranges = GraphDumper.Range.split(record(asList("lo", "hi"), value(7), value(7)), 2);
+        assertEquals(7, ranges.get(0).lo);
+        assertEquals(8, ranges.get(0).hi);
+        assertNull(ranges.get(1));
+
+        ranges = GraphDumper.Range.split(record(asList("lo", "hi"), value((Object) null), value((Object) null)), 2);
+        assertEquals(asList(null, null), ranges);
+    }
+
+    @Test
+    public void literalsStayOnOneLine() throws CommandException {
+        Map<String, Value> map = new HashMap<>();
+        map.put("text", value("say \"hi\"\n\\o/"));
+        map.put("odd key", value(asList(1.5, Double.NaN, Double.NEGATIVE_INFINITY)));
+        map.put("flag", value(false));
+        map.put("none", value((Object) null));
+        StringBuilder sb = new StringBuilder();
+
+        GraphDumper.appendLiteral(sb, value(map));
+
+        String literal = sb.toString();
+        assertTrue(literal, literal.contains("text: \"say \\\"hi\\\"\\n\\\\o/\""));
+        assertTrue(literal, literal.contains("`odd key`: [1.5, 0.0 / 0.0, -1.0 / 0.0]"));
+        assertTrue(literal, literal.contains("flag: false"));
+        assertTrue(literal, literal.contains("none: null"));
+        assertEquals(-1, literal.indexOf('\n'));
+    }
+
+    @Test
+    public void smallestIntegerHasALiteral() throws CommandException {
+        StringBuilder sb = new StringBuilder();
+
+        GraphDumper.appendLiteral(sb, value(asList(Long.MIN_VALUE, Long.MAX_VALUE)));
+
+        assertEquals("[-9223372036854775807 - 1, 9223372036854775807]", sb.toString());
+    }
+
+    @Test
+    public void valuesWithoutLiteralsFailTheDump() throws CommandException {
+        thrown.expect(CommandException.class);
+        thrown.expectMessage("Can not dump a value of type BYTES");
+
+        GraphDumper.appendLiteral(new StringBuilder(), value(new byte[]{1, 2, 3}));
+    }
+
+    @Test
+    public void batchSizeMustBePositive() throws IOException, CommandException {
+        thrown.expect(CommandException.class);
+        thrown.expectMessage("Batch size must be positive");
+
+        dumper.dump(null, Collections.emptyMap(), 0, script::add);
+    }
+
+    private Transaction partitionTransaction() {
+        Session partitionSession = mock(Session.class);
+        Transaction partitionTx = mock(Transaction.class);
+        when(partitionSession.beginTransaction()).thenReturn(partitionTx);
+        sessions.add(partitionSession);
+        partitionSessions.add(partitionSession);
+        return partitionTx;
+    }
+
+    private static StatementResult result(String key, Object... values) {
+        List<Record> records = new ArrayList<>();
+        for (Object v : values) {
+            records.add(record(Collections.singletonList(key), value(v)));
+        }
+        Iterator<Record> iterator = records.iterator();
+        StatementResult result = mock(StatementResult.class);
+        when(result.hasNext()).thenAnswer(invocation -> iterator.hasNext());
+        when(result.next()).thenAnswer(invocation -> iterator.next());
+        return result;
+    }
+
+    private static Record record(List<String> keys, Value... values) {
+        return new InternalRecord(keys, values);
+    }
+}
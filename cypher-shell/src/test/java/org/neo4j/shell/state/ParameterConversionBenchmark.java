@@ -0,0 +1,60 @@
+package org.neo4j.shell.state;
+
+import org.neo4j.driver.internal.value.MapValue;
+import org.neo4j.driver.v1.Statement;
+import org.neo4j.driver.v1.Value;
+import org.neo4j.driver.v1.Values;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Measures what building a statement costs with large parameters, when the parameters are Java objects which the
+ * driver converts for every statement, and when they are driver values which were converted once, as the shell keeps
+ * them. The parameters are a list of 4 million integers and a list of 1 million strings, about 100 MB on the heap.
+ * <p>
+ * Not run as a test. Run the main method with a large enough heap, like -Xmx2g.
+ */
+public class ParameterConversionBenchmark {
+    private static final String CYPHER = "UNWIND $ids AS id RETURN id";
+    private static final int INTEGERS = 4_000_000;
+    private static final int STRINGS = 1_000_000;
+    private static final int WARMUP = 5;
+    private static final int ITERATIONS = 20;
+
+    public static void main(String[] args) {
+        List<Long> ids = new ArrayList<>(INTEGERS);
+        for (long i = 0; i < INTEGERS; i++) {
+            ids.add(i);
+        }
+        List<String> names = new ArrayList<>(STRINGS);
+        for (int i = 0; i < STRINGS; i++) {
+            names.add("name-" + i);
+        }
+        Map<String, Object> objects = new HashMap<>();
+        objects.put("ids", ids);
+        objects.put("names", names);
+        Map<String, Value> values = Collections.unmodifiableMap(Values.value(objects).asMap(value -> value));
+
+        report("Java objects", () -> new Statement(CYPHER, objects));
+        report("Converted values", () -> new Statement(CYPHER, new MapValue(values)));
+    }
+
+    private static void report(String name, Supplier<Statement> statement) {
+        long checksum = 0;
+        for (int i = 0; i < WARMUP; i++) {
+            checksum += statement.get().parameters().size();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            checksum += statement.get().parameters().size();
+        }
+        double micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start) / (double) ITERATIONS;
+        System.out.println(String.format("%-16s %12.1f us per statement (%d)", name, micros, checksum));
+    }
+}
@@ -0,0 +1,213 @@
+package org.neo4j.shell.state;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.neo4j.driver.internal.InternalRecord;
+import org.neo4j.driver.v1.Record;
+import org.neo4j.driver.v1.Value;
+import org.neo4j.driver.v1.Values;
+import org.neo4j.driver.v1.summary.ResultSummary;
+import org.neo4j.driver.v1.summary.StatementType;
+import org.neo4j.driver.v1.summary.SummaryCounters;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.neo4j.driver.v1.Values.value;
+
+public class ResultCacheTest {
+    private final Map<String, Value> noParams = Collections.emptyMap();
+    private long now = 0;
+    private ResultCache cache;
+
+    @Before
+    public void setup() {
+        cache = new ResultCache(1024 * 1024, 10, () -> now);
+        cache.setEnabled(true);
+    }
+
+    @Test
+    public void disabledByDefault() {
+        ResultCache disabled = new ResultCache();
+        disabled.put("RETURN 1", noParams, readResult("a"));
+
+        assertFalse(disabled.isEnabled());
+        assertFalse(disabled.get("RETURN 1", noParams).isPresent());
+        assertEquals(0, disabled.size());
+    }
+
+    @Test
+    public void returnsCachedReadResult() {
+        BoltResult result = readResult("a");
+        cache.put("MATCH (n) RETURN n", noParams, result);
+
+        Optional<BoltResult> cached = cache.get("MATCH (n) RETURN n", noParams);
+
+        assertSame(result, cached.get());
+        assertEquals(1, cache.hits());
+    }
+
+    @Test
+    public void statementsWhichOnlyDifferInFormattingShareEntries() {
+        BoltResult result = readResult("a");
+        cache.put("MATCH (n)\n  RETURN n;", noParams, result);
+
+        assertSame(result, cache.get("  MATCH (n) RETURN   n ", noParams).get());
+    }
+
+    @Test
+    public void whitespaceInStringsIsSignificant() {
+        cache.put("RETURN 'a  b'", noParams, readResult("a"));
+
+        assertFalse(cache.get("RETURN 'a b'", noParams).isPresent());
+        assertEquals(1, cache.misses());
+    }
+
+    @Test
+    public void parametersArePartOfTheKey() {
+        Map<String, Value> params = new HashMap<>();
+        params.put("name", Values.value("bob"));
+        cache.put("MATCH (n {name: $name}) RETURN n", params, readResult("a"));
+
+        params.put("name", Values.value("alice"));
+        assertFalse(cache.get("MATCH (n {name: $name}) RETURN n", params).isPresent());
+
+        params.put("name", Values.value("bob"));
+        assertTrue(cache.get("MATCH (n {name: $name}) RETURN n", params).isPresent());
+    }
+
+    @Test
+    public void parametersWithTheSameHashDoNotShareEntries() {
+        Map<String, Value> ones = new HashMap<>();
+        ones.put("p", Values.value(1));
+        ones.put("q", Values.value(1));
+        Map<String, Value> zeros = new HashMap<>();
+        zeros.put("p", Values.value(0));
+        zeros.put("q", Values.value(0));
+        assertEquals(ones.hashCode(), zeros.hashCode());
+        BoltResult result = readResult("a");
+        cache.put("MATCH (n) WHERE n.x = $p AND n.y = $q RETURN n", ones, result);
+
+        assertFalse(cache.get("MATCH (n) WHERE n.x = $p AND n.y = $q RETURN n", zeros).isPresent());
+        assertSame(result, cache.get("MATCH (n) WHERE n.x = $p AND n.y = $q RETURN n", ones).get());
+    }
+
+    @Test
+    public void entriesExpire() {
+        cache.put("RETURN 1", noParams, readResult("a"));
+
+        now += 11_000_000_000L;
+
+        assertFalse(cache.get("RETURN 1", noParams).isPresent());
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.bytes());
+    }
+
+    @Test
+    public void updatesInvalidateTheCache() {
+        cache.put("RETURN 1", noParams, readResult("a"));
+
+        cache.put("CREATE (n)", noParams, result(StatementType.WRITE_ONLY, true));
+
+        assertEquals(0, cache.size());
+        assertEquals(1, cache.invalidations());
+    }
+
+    @Test
+    public void readWriteStatementsInvalidateEvenWithoutCountedUpdates() {
+        cache.put("RETURN 1", noParams, readResult("a"));
+
+        assertTrue(cache.invalidateIfUpdating(result(StatementType.READ_WRITE, false)));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void readsDoNotInvalidate() {
+        cache.put("RETURN 1", noParams, readResult("a"));
+
+        assertFalse(cache.invalidateIfUpdating(readResult("b")));
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsedWhenFull() {
+        BoltResult result = readResult("a");
+        long entrySize = ResultCache.estimateSize(result);
+        cache.setLimits(2 * entrySize, 10);
+
+        cache.put("RETURN 1", noParams, result);
+        cache.put("RETURN 2", noParams, readResult("b"));
+        // Touch the first so the second is least recently used
+        cache.get("RETURN 1", noParams);
+        cache.put("RETURN 3", noParams, readResult("c"));
+
+        assertTrue(cache.get("RETURN 1", noParams).isPresent());
+        assertFalse(cache.get("RETURN 2", noParams).isPresent());
+        assertTrue(cache.get("RETURN 3", noParams).isPresent());
+        assertEquals(1, cache.evictions());
+        assertTrue(cache.bytes() <= cache.maxBytes());
+    }
+
+    @Test
+    public void resultsLargerThanTheCacheAreNotStored() {
+        cache.setLimits(10, 10);
+
+        cache.put("RETURN 1", noParams, readResult("a"));
+
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void sizeGrowsWithContent() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            sb.append('x');
+        }
+        assertTrue(ResultCache.estimateSize(readResult(sb.toString())) > ResultCache.estimateSize(readResult("x")));
+    }
+
+    @Test
+    public void disablingDropsEntries() {
+        cache.put("RETURN 1", noParams, readResult("a"));
+
+        cache.setEnabled(false);
+        cache.setEnabled(true);
+
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void normalize() {
+        assertEquals("MATCH (n) RETURN n", ResultCache.normalize("  MATCH (n)\n\tRETURN n ;;"));
+        assertEquals("RETURN \"a  ;\"", ResultCache.normalize("RETURN   \"a  ;\""));
+        assertEquals("RETURN 'it\\'s  x'", ResultCache.normalize("RETURN 'it\\'s  x'"));
+    }
+
+    private BoltResult readResult(String content) {
+        Record record = new InternalRecord(asList("s", "l"),
+                new Value[]{value(content), value(asList(1L, 2L, content))});
+        return new BoltResult(asList(record), summary(StatementType.READ_ONLY, false));
+    }
+
+    private BoltResult result(StatementType type, boolean containsUpdates) {
+        return new BoltResult(Collections.emptyList(), summary(type, containsUpdates));
+    }
+
+    private ResultSummary summary(StatementType type, boolean containsUpdates) {
+        ResultSummary summary = mock(ResultSummary.class);
+        SummaryCounters counters = mock(SummaryCounters.class);
+        when(counters.containsUpdates()).thenReturn(containsUpdates);
+        when(summary.counters()).thenReturn(counters);
+        when(summary.statementType()).thenReturn(type);
+        return summary;
+    }
+}
@@ -0,0 +1,157 @@
+package org.neo4j.shell.state;
+
+import org.junit.Test;
+import org.neo4j.driver.v1.exceptions.ClientException;
+import org.neo4j.driver.v1.exceptions.ServiceUnavailableException;
+import org.neo4j.driver.v1.exceptions.SessionExpiredException;
+import org.neo4j.driver.v1.exceptions.TransientException;
+
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class RetryPolicyTest {
+    private static final String DEADLOCK = "Neo.TransientError.Transaction.DeadlockDetected";
+
+    private final RetryPolicy policy = new RetryPolicy();
+
+    @Test
+    public void retriesTransientErrorsAndCountsThem() {
+        policy.setBackoff(0, 0);
+        AtomicInteger attempts = new AtomicInteger();
+
+        String result = policy.run(() -> {
+            switch (attempts.incrementAndGet()) {
+                case 1:
+                    throw new TransientException(DEADLOCK, "deadlock");
+                case 2:
+                    throw new ServiceUnavailableException("leader switch");
+                case 3:
+                    throw new TransientException(DEADLOCK, "deadlock");
+                default:
+                    return "done";
+            }
+        });
+
+        assertEquals("done", result);
+        assertEquals(4, attempts.get());
+        assertEquals(3, policy.retries());
+        assertEquals(2L, (long) policy.retriesByCode().get(DEADLOCK));
+        assertEquals(1L, (long) policy.retriesByCode().get("ServiceUnavailable"));
+        assertEquals("Retried 3 transactions: 2 " + DEADLOCK + ", 1 ServiceUnavailable", policy.summary());
+    }
+
+    @Test
+    public void givesUpAfterMaxAttempts() {
+        policy.setBackoff(0, 0);
+        policy.setMaxAttempts(3);
+        AtomicInteger attempts = new AtomicInteger();
+        TransientException deadlock = new TransientException(DEADLOCK, "deadlock");
+
+        try {
+            policy.run(() -> {
+                attempts.incrementAndGet();
+                throw deadlock;
+            });
+            fail("Expected the deadlock");
+        } catch (TransientException e) {
+            assertSame(deadlock, e);
+        }
+        assertEquals(3, attempts.get());
+        assertEquals(2, policy.retries());
+    }
+
+    @Test
+    public void doesNotRetryOtherErrors() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        try {
+            policy.run(() -> {
+                attempts.incrementAndGet();
+                throw new ClientException("Neo.ClientError.Statement.SyntaxError", "bad");
+            });
+            fail("Expected the syntax error");
+        } catch (ClientException e) {
+            assertEquals(1, attempts.get());
+        }
+        assertEquals(0, policy.retries());
+        assertEquals("No transactions were retried", policy.summary());
+    }
+
+    @Test
+    public void retryableCodesCoverCodesStartingWithThem() {
+        assertTrue(policy.isRetryable(DEADLOCK));
+        assertTrue(policy.isRetryable("ServiceUnavailable"));
+        assertFalse(policy.isRetryable("Neo.TransientErrorLike.Thing"));
+        assertFalse(policy.isRetryable("Neo.ClientError.Statement.SyntaxError"));
+
+        policy.setRetryableCodes(asList(DEADLOCK, "Neo.ClientError.Cluster"));
+        assertTrue(policy.isRetryable(DEADLOCK));
+        assertTrue(policy.isRetryable("Neo.ClientError.Cluster.NotALeader"));
+        assertFalse(policy.isRetryable("Neo.TransientError.General.OutOfMemoryError"));
+        assertFalse(policy.isRetryable("ServiceUnavailable"));
+    }
+
+    @Test
+    public void terminatedTransactionsAreNeverRetried() {
+        policy.setRetryableCodes(Collections.singletonList("Neo.TransientError"));
+        assertFalse(policy.isRetryable("Neo.TransientError.Transaction.Terminated"));
+        assertFalse(policy.isRetryable("Neo.TransientError.Transaction.LockClientStopped"));
+    }
+
+    @Test
+    public void errorCodes() {
+        assertEquals(DEADLOCK, RetryPolicy.errorCode(new TransientException(DEADLOCK, "deadlock")));
+        assertEquals("ServiceUnavailable", RetryPolicy.errorCode(new ServiceUnavailableException("gone")));
+        assertEquals("SessionExpired", RetryPolicy.errorCode(new SessionExpiredException("expired")));
+        assertEquals(null, RetryPolicy.errorCode(new IllegalStateException()));
+    }
+
+    @Test
+    public void backoffGrowsExponentiallyUpToTheMax() {
+        policy.setBackoff(100, 1000);
+        policy.setJitter(0);
+
+        assertEquals(100, policy.backoffMillis(1, 0.7));
+        assertEquals(200, policy.backoffMillis(2, 0.7));
+        assertEquals(400, policy.backoffMillis(3, 0.7));
+        assertEquals(800, policy.backoffMillis(4, 0.7));
+        assertEquals(1000, policy.backoffMillis(5, 0.7));
+        assertEquals(1000, policy.backoffMillis(60, 0.7));
+    }
+
+    @Test
+    public void jitterSpreadsBackoffs() {
+        policy.setBackoff(1000, 1000);
+        policy.setJitter(0.2);
+
+        assertEquals(800, policy.backoffMillis(1, 0.0));
+        assertEquals(1000, policy.backoffMillis(1, 0.5));
+        assertEquals(1200, policy.backoffMillis(1, 1.0));
+    }
+
+    @Test
+    public void doesNotRetryWhenInterrupted() {
+        policy.setBackoff(0, 0);
+        AtomicInteger attempts = new AtomicInteger();
+
+        Thread.currentThread().interrupt();
+        try {
+            policy.run(() -> {
+                attempts.incrementAndGet();
+                throw new TransientException(DEADLOCK, "deadlock");
+            });
+            fail("Expected the deadlock");
+        } catch (TransientException e) {
+            assertEquals(1, attempts.get());
+        } finally {
+            Thread.interrupted();
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package org.neo4j.shell.state;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.neo4j.driver.internal.InternalNode;
+import org.neo4j.driver.internal.InternalPath;
+import org.neo4j.driver.internal.InternalRecord;
+import org.neo4j.driver.internal.InternalRelationship;
+import org.neo4j.driver.internal.summary.InternalSummaryCounters;
+import org.neo4j.driver.internal.value.NodeValue;
+import org.neo4j.driver.internal.value.PathValue;
+import org.neo4j.driver.internal.value.RelationshipValue;
+import org.neo4j.driver.v1.Record;
+import org.neo4j.driver.v1.Statement;
+import org.neo4j.driver.v1.Value;
+import org.neo4j.driver.v1.summary.StatementType;
+import org.neo4j.driver.v1.types.Node;
+import org.neo4j.driver.v1.types.Path;
+import org.neo4j.driver.v1.types.Relationship;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static java.util.Arrays.asList;
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.neo4j.driver.v1.Values.value;
+
+public class SnapshotWriterTest {
+    @Rule
+    public final ExpectedException thrown = ExpectedException.none();
+
+    @Test
+    public void roundTripsScalars() throws IOException {
+        Map<String, Object> map = new HashMap<>();
+        map.put("a", 1L);
+        map.put("b", asList("x", "y"));
+        Record record = new InternalRecord(asList("i", "neg", "f", "s", "b", "n", "l", "m"),
+                new Value[]{value(Long.MAX_VALUE), value(-42L), value(3.5), value("ünïcødé"), value(true),
+                        value((Object) null), value(asList(1L, "two", 3.0)), value(map)});
+
+        BoltResult result = roundTrip(new BoltResult(asList(record), summary()));
+
+        Record read = result.getRecords().get(0);
+        assertEquals(record.keys(), read.keys());
+        assertEquals(record.values(), read.values());
+    }
+
+    @Test
+    public void roundTripsGraphValues() throws IOException {
+        Node alice = new InternalNode(1, asList("Person", "Admin"), Collections.singletonMap("name", value("Alice")));
+        Node bob = new InternalNode(2, asList("Person"), Collections.emptyMap());
+        Relationship knows = new InternalRelationship(10, 1, 2, "KNOWS",
+                Collections.singletonMap("since", value(2010L)));
+        Path path = new InternalPath(alice, knows, bob);
+        Record record = new InternalRecord(asList("n", "r", "p"),
+                new Value[]{new NodeValue(alice), new RelationshipValue(knows), new PathValue(path)});
+
+        Record read = roundTrip(new BoltResult(asList(record), summary())).getRecords().get(0);
+
+        Node node = read.get("n").asNode();
+        assertEquals(1, node.id());
+        List<String> labels = new ArrayList<>();
+        node.labels().forEach(labels::add);
+        assertEquals(asList("Person", "Admin"), labels);
+        assertEquals("Alice", node.get("name").asString());
+        Relationship relationship = read.get("r").asRelationship();
+        assertEquals(10, relationship.id());
+        assertEquals(1, relationship.startNodeId());
+        assertEquals(2, relationship.endNodeId());
+        assertEquals("KNOWS", relationship.type());
+        assertEquals(2010L, relationship.get("since").asLong());
+        Path readPath = read.get("p").asPath();
+        assertEquals(1, readPath.length());
+        assertEquals(1, readPath.start().id());
+        assertEquals(2, readPath.end().id());
+        assertEquals(10, readPath.relationships().iterator().next().id());
+    }
+
+    @Test
+    public void roundTripsSummaries() throws IOException {
+        BoltResult result = roundTrip(new BoltResult(Collections.emptyList(), summary(), true));
+
+        assertTrue(result.isTruncated());
+        assertEquals("MATCH (n) RETURN n", result.getSummary().statement().text());
+        assertEquals(StatementType.READ_WRITE, result.getSummary().statementType());
+        assertEquals(3, result.getSummary().counters().nodesCreated());
+        assertEquals(5, result.getSummary().counters().constraintsRemoved());
+        assertEquals("Neo4j/3.1.0", result.getSummary().server().version());
+    }
+
+    @Test
+    public void readsSeveralResultsOneRecordAtATime() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (SnapshotWriter writer = new SnapshotWriter(bytes)) {
+            writer.startResult(asList("x"));
+            for (long i = 0; i < 1000; i++) {
+                writer.writeRecord(new InternalRecord(asList("x"), new Value[]{value(i)}));
+            }
+            writer.endResult(summary(), false);
+            writer.write(new BoltResult(asList(new InternalRecord(asList("y"), new Value[]{value("last")})),
+                    summary()));
+        }
+
+        try (SnapshotReader reader = new SnapshotReader(new ByteArrayInputStream(bytes.toByteArray()))) {
+            assertTrue(reader.nextResult());
+            assertEquals(asList("x"), reader.keys());
+            long expected = 0;
+            Record record;
+            while ((record = reader.nextRecord()) != null) {
+                assertEquals(expected++, record.get("x").asLong());
+            }
+            assertEquals(1000, expected);
+            assertFalse(reader.isTruncated());
+
+            BoltResult last = reader.readResult();
+            assertEquals("last", last.getRecords().get(0).get("y").asString());
+            assertFalse(reader.nextResult());
+            assertNull(reader.readResult());
+        }
+    }
+
+    @Test
+    public void skipsUnreadRecords() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (SnapshotWriter writer = new SnapshotWriter(bytes)) {
+            writer.write(new BoltResult(asList(new InternalRecord(asList("x"), new Value[]{value(1L)}),
+                    new InternalRecord(asList("x"), new Value[]{value(2L)})), summary()));
+            writer.write(new BoltResult(asList(new InternalRecord(asList("y"), new Value[]{value(3L)})),
+                    summary()));
+        }
+
+        try (SnapshotReader reader = new SnapshotReader(new ByteArrayInputStream(bytes.toByteArray()))) {
+            assertTrue(reader.nextResult());
+            assertTrue(reader.nextResult());
+            assertEquals(asList("y"), reader.keys());
+        }
+    }
+
+    @Test
+    public void rejectsOtherFiles() throws IOException {
+        thrown.expect(IOException.class);
+        thrown.expectMessage(containsString("Not a snapshot"));
+
+        new SnapshotReader(new ByteArrayInputStream("MATCH (n) RETURN n".getBytes("UTF-8")));
+    }
+
+    @Test
+    public void rejectsRecordsOfTheWrongSize() throws IOException {
+        thrown.expect(IllegalArgumentException.class);
+
+        SnapshotWriter writer = new SnapshotWriter(new ByteArrayOutputStream());
+        writer.startResult(asList("a", "b"));
+        writer.writeRecord(new InternalRecord(asList("a"), new Value[]{value(1L)}));
+    }
+
+    private static BoltResult roundTrip(BoltResult result) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (SnapshotWriter writer = new SnapshotWriter(bytes)) {
+            writer.write(result);
+        }
+        try (SnapshotReader reader = new SnapshotReader(new ByteArrayInputStream(bytes.toByteArray()))) {
+            return reader.readResult();
+        }
+    }
+
+    private static SnapshotSummary summary() {
+        return new SnapshotSummary(new Statement("MATCH (n) RETURN n"), StatementType.READ_WRITE,
+                new InternalSummaryCounters(3, 0, 0, 0, 0, 0, 0, 0, 0, 0, 5), 1, 2, "Neo4j/3.1.0");
+    }
+}
@@ -0,0 +1,117 @@
+package org.neo4j.shell.state;
+
+import org.junit.Test;
+import org.neo4j.driver.internal.types.InternalTypeSystem;
+import org.neo4j.driver.v1.Statement;
+import org.neo4j.driver.v1.Value;
+import org.neo4j.driver.v1.Values;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class StatementBufferTest {
+    @Test
+    public void smallTransactionsStayInMemory() throws IOException {
+        try (StatementBuffer buffer = new StatementBuffer()) {
+            Statement statement = new Statement("CREATE (:A)");
+            buffer.add(statement);
+
+            assertEquals(1, buffer.size());
+            assertEquals(0, buffer.spilled());
+            assertSame(statement, buffer.iterator().next());
+        }
+    }
+
+    @Test
+    public void spillsPastTheThreshold() throws IOException {
+        try (StatementBuffer buffer = new StatementBuffer(100)) {
+            Map<String, Value> params = new HashMap<>();
+            params.put("names", Values.value(asList("a", "b")));
+            params.put("id", Values.value(-7L));
+            for (int i = 0; i < 50; i++) {
+                buffer.add(new Statement("CREATE (:N {i: " + i + "})", Values.value(params)));
+            }
+
+            assertEquals(50, buffer.size());
+            assertEquals(49, buffer.spilled());
+            List<Statement> statements = new ArrayList<>();
+            buffer.forEach(statements::add);
+            assertEquals(50, statements.size());
+            for (int i = 0; i < 50; i++) {
+                assertEquals("CREATE (:N {i: " + i + "})", statements.get(i).text());
+                assertEquals(Values.value(params), statements.get(i).parameters());
+            }
+        }
+    }
+
+    @Test
+    public void spillsBytesExactly() throws IOException {
+        try (StatementBuffer buffer = new StatementBuffer(0)) {
+            Value params = Values.value(Collections.singletonMap("data", new byte[]{0, 1, -1}));
+            buffer.add(new Statement("CREATE (:B {data: $data})", params));
+
+            assertEquals(1, buffer.spilled());
+            assertEquals(params, buffer.iterator().next().parameters());
+        }
+    }
+
+    @Test
+    public void refusesParametersWhichCanNotBeReadBack() throws IOException {
+        try (StatementBuffer buffer = new StatementBuffer(0)) {
+            Value unknown = mock(Value.class);
+            when(unknown.type()).thenReturn(InternalTypeSystem.TYPE_SYSTEM.ANY());
+            try {
+                buffer.add(new Statement("RETURN $x", Values.value(Collections.singletonMap("x", unknown))));
+                fail("Expected the statement to be refused");
+            } catch (IOException e) {
+                assertEquals(0, buffer.size());
+            }
+
+            buffer.add(new Statement("RETURN 1"));
+            assertEquals(asList("RETURN 1"), texts(buffer));
+        }
+    }
+
+    @Test
+    public void canBeReadMoreThanOnce() throws IOException {
+        try (StatementBuffer buffer = new StatementBuffer(0)) {
+            buffer.add(new Statement("RETURN 1"));
+            buffer.add(new Statement("RETURN 2"));
+
+            assertEquals(texts(buffer), texts(buffer));
+            assertEquals(asList("RETURN 1", "RETURN 2"), texts(buffer));
+
+            buffer.add(new Statement("RETURN 3"));
+            assertEquals(asList("RETURN 1", "RETURN 2", "RETURN 3"), texts(buffer));
+        }
+    }
+
+    @Test
+    public void closeDropsAllStatements() throws IOException {
+        StatementBuffer buffer = new StatementBuffer(0);
+        buffer.add(new Statement("RETURN 1", Values.value(Collections.singletonMap("x", 1))));
+
+        buffer.close();
+
+        assertEquals(0, buffer.size());
+        assertFalse(buffer.iterator().hasNext());
+    }
+
+    private static List<String> texts(StatementBuffer buffer) {
+        List<String> texts = new ArrayList<>();
+        buffer.forEach(statement -> texts.add(statement.text()));
+        return texts;
+    }
+}
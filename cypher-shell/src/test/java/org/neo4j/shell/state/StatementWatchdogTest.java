@@ -0,0 +1,106 @@
+package org.neo4j.shell.state;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class StatementWatchdogTest {
+
+    @Test
+    public void parseTimeouts() {
+        assertEquals(500L, StatementWatchdog.parseTimeout("500ms"));
+        assertEquals(30_000L, StatementWatchdog.parseTimeout("30s"));
+        assertEquals(30_000L, StatementWatchdog.parseTimeout("30"));
+        assertEquals(300_000L, StatementWatchdog.parseTimeout("5m"));
+        assertEquals(7_200_000L, StatementWatchdog.parseTimeout(" 2h "));
+        assertEquals(0L, StatementWatchdog.parseTimeout("0"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsUnknownUnits() {
+        StatementWatchdog.parseTimeout("3d");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNegativeTimeouts() {
+        StatementWatchdog.parseTimeout("-1s");
+    }
+
+    @Test
+    public void formatTimeouts() {
+        assertEquals("0s", StatementWatchdog.formatTimeout(0));
+        assertEquals("1500ms", StatementWatchdog.formatTimeout(1500));
+        assertEquals("30s", StatementWatchdog.formatTimeout(30_000));
+        assertEquals("90s", StatementWatchdog.formatTimeout(90_000));
+        assertEquals("5m", StatementWatchdog.formatTimeout(300_000));
+        assertEquals("2h", StatementWatchdog.formatTimeout(7_200_000));
+    }
+
+    @Test
+    public void resetsStatementsWhichRunTooLong() throws Exception {
+        CountDownLatch reset = new CountDownLatch(1);
+        StatementWatchdog watchdog = new StatementWatchdog(reset::countDown);
+        watchdog.setTimeout(10);
+
+        try (StatementWatchdog.Watch watch = watchdog.start()) {
+            assertTrue(reset.await(10, TimeUnit.SECONDS));
+            assertTrue(watch.hasExpired());
+        }
+    }
+
+    @Test
+    public void doesNotResetStatementsWhichFinishInTime() throws Exception {
+        CountDownLatch reset = new CountDownLatch(1);
+        StatementWatchdog watchdog = new StatementWatchdog(reset::countDown);
+        watchdog.setTimeout(200);
+
+        StatementWatchdog.Watch watch = watchdog.start();
+        watch.close();
+
+        assertFalse(reset.await(500, TimeUnit.MILLISECONDS));
+        assertFalse(watch.hasExpired());
+    }
+
+    @Test
+    public void closeWaitsForAResetWhichIsRunning() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        StatementWatchdog watchdog = new StatementWatchdog(() -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        watchdog.setTimeout(1);
+
+        StatementWatchdog.Watch watch = watchdog.start();
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        Thread closer = new Thread(watch::close);
+        closer.start();
+        closer.join(200);
+
+        assertTrue(closer.isAlive());
+        release.countDown();
+        closer.join();
+        assertTrue(watch.hasExpired());
+    }
+
+    @Test
+    public void noTimeoutByDefault() throws Exception {
+        StatementWatchdog watchdog = new StatementWatchdog(() -> {
+            throw new AssertionError("Should not reset");
+        });
+
+        try (StatementWatchdog.Watch watch = watchdog.start()) {
+            assertEquals(0, watch.getTimeout());
+            assertFalse(watch.hasExpired());
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package org.neo4j.shell.system;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ThreadsTest {
+    @Test
+    public void platformThreadsAreNamedDaemons() {
+        Thread thread = Threads.platform("worker").newThread(() -> {
+        });
+
+        assertEquals("worker", thread.getName());
+        assertTrue(thread.isDaemon());
+    }
+
+    @Test
+    public void backgroundThreadsAreNamedDaemons() {
+        Thread thread = Threads.background("fetcher").newThread(() -> {
+        });
+
+        assertEquals("fetcher", thread.getName());
+        assertTrue(thread.isDaemon());
+    }
+
+    @Test
+    public void backgroundTasksAreStarted() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        AtomicReference<String> name = new AtomicReference<>();
+
+        Threads.startBackground("task", () -> {
+            name.set(Thread.currentThread().getName());
+            done.countDown();
+        });
+
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertEquals("task", name.get());
+    }
+}